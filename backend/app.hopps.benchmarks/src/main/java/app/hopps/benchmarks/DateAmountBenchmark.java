@@ -0,0 +1,103 @@
+package app.hopps.benchmarks;
+
+import app.hopps.bankimport.parser.DateAmountParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-cell cost of {@link DateAmountParser}, which runs for every date and amount column of every CSV row. One
+ * operation is one cell. The {@code AllCores} variants run the same work on every core at once against the shared
+ * pattern cache; their total throughput should grow with the number of cores (compare with {@code -t 1}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DateAmountBenchmark {
+
+    /** Two-digit years need the pivot-aware formatter, four-digit years use the plain pattern. */
+    @Param({ "dd.MM.yy", "dd.MM.yyyy" })
+    public String datePattern;
+
+    private String[] dates;
+    private String[] amounts;
+    private DateTimeFormatter formatter;
+    private DateAmountParser.CellFormat cells;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        formatter = DateTimeFormatter.ofPattern(datePattern);
+        cells = DateAmountParser.forSchema(datePattern, DateAmountParser.DEFAULT_PIVOT_YEAR, ',', '.');
+        dates = new String[1024];
+        amounts = new String[1024];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = formatter.format(LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365)));
+            // German format with thousands separator for larger amounts, e.g. "-1.234,56"
+            int cents = random.nextInt(1_000_000) - 500_000;
+            String us = String.format(Locale.ROOT, "%,.2f", cents / 100.0);
+            amounts[i] = us.replace(',', '_').replace('.', ',').replace('_', '.');
+        }
+    }
+
+    @Benchmark
+    public LocalDate parseDate() {
+        return DateAmountParser.parseDate(dates[nextIndex()], datePattern);
+    }
+
+    @Benchmark
+    public BigDecimal parseAmount() {
+        return DateAmountParser.parseAmount(amounts[nextIndex()], ',', '.');
+    }
+
+    /** What every date cell used to cost: a {@link DateTimeFormatter} parse of the trimmed cell. */
+    @Benchmark
+    public LocalDate formatterBaseline() {
+        return LocalDate.parse(dates[nextIndex()].trim(), formatter);
+    }
+
+    /** Per-schema parser as used by the CSV import, without the cache lookup. */
+    @Benchmark
+    public LocalDate cellFormatParseDate() {
+        return cells.parseDate(dates[nextIndex()]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public LocalDate parseDateAllCores() {
+        return DateAmountParser.parseDate(dates[nextIndex()], datePattern);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public BigDecimal parseAmountAllCores() {
+        return DateAmountParser.parseAmount(amounts[nextIndex()], ',', '.');
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) & 1023;
+        return index;
+    }
+}
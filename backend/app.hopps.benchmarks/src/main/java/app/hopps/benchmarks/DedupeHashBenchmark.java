@@ -0,0 +1,157 @@
+package app.hopps.benchmarks;
+
+import app.hopps.bankimport.service.DedupeHashService;
+import app.hopps.bankimport.service.DedupeKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Per-row cost of the bank import dedupe hash: the original string-based implementation against
+ * {@link DedupeHashService#computeHash} (stored hex form) and {@link DedupeHashService#computeKey} (binary form used
+ * for set membership). Run with {@code -prof gc} to see the allocation rate per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DedupeHashBenchmark {
+
+    private static final Pattern NON_ALNUM = Pattern.compile("[^\\p{L}\\p{N}]");
+
+    /** Share of rows with an end-to-end reference; the rest hash their purpose. */
+    @Param({ "0", "50" })
+    public int endToEndPercent;
+
+    private final DedupeHashService service = new DedupeHashService();
+    private Row[] rows;
+    private int next;
+
+    private record Row(LocalDate bookingDate, BigDecimal amount, String iban, String endToEndReference,
+            String purpose) {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        rows = new Row[1024];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Row(
+                    LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365)),
+                    BigDecimal.valueOf(random.nextInt(2_000_000) - 1_000_000, 2),
+                    i % 10 == 0 ? "" : "DE89 3704 0044 0532 " + (1000 + random.nextInt(9000)) + " 00",
+                    random.nextInt(100) < endToEndPercent ? "E2E-" + random.nextLong() : null,
+                    "SVWZ+Rechnung " + random.nextInt(100_000) + " vom " + (1 + random.nextInt(28))
+                            + ".03.2025 Mitgliedsbeitrag Förderverein Kundennr. " + random.nextInt(1_000_000));
+        }
+    }
+
+    @Benchmark
+    public String legacyComputeHash() {
+        Row row = nextRow();
+        return legacyHash(row.bookingDate(), row.amount(), row.iban(), row.endToEndReference(), row.purpose());
+    }
+
+    @Benchmark
+    public String computeHash() {
+        Row row = nextRow();
+        return service.computeHash(row.bookingDate(), row.amount(), row.iban(), row.endToEndReference(),
+                row.purpose());
+    }
+
+    @Benchmark
+    public DedupeKey computeKey() {
+        Row row = nextRow();
+        return service.computeKey(row.bookingDate(), row.amount(), row.iban(), row.endToEndReference(),
+                row.purpose());
+    }
+
+    /** Hash plus in-chunk dedupe lookup, as done per row by the import, with hex strings. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void legacyChunkMembership(Blackhole blackhole) {
+        Set<String> seen = new HashSet<>();
+        for (Row row : rows) {
+            blackhole.consume(seen.add(legacyHash(row.bookingDate(), row.amount(), row.iban(),
+                    row.endToEndReference(), row.purpose())));
+        }
+    }
+
+    /** Hash plus in-chunk dedupe lookup, as done per row by the import, with binary keys. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void keyChunkMembership(Blackhole blackhole) {
+        Set<DedupeKey> seen = new HashSet<>();
+        for (Row row : rows) {
+            blackhole.consume(seen.add(service.computeKey(row.bookingDate(), row.amount(), row.iban(),
+                    row.endToEndReference(), row.purpose())));
+        }
+    }
+
+    private Row nextRow() {
+        Row row = rows[next];
+        next = (next + 1) & (rows.length - 1);
+        return row;
+    }
+
+    /** The implementation before the allocation-free rewrite, kept as the baseline. */
+    private static String legacyHash(LocalDate bookingDate, BigDecimal amount, String counterpartyIban,
+            String endToEndReference, String purpose) {
+        StringBuilder material = new StringBuilder(128);
+        material.append(bookingDate != null ? bookingDate.toString() : "");
+        material.append('|');
+        material.append(amount != null ? amount.stripTrailingZeros().toPlainString() : "");
+        material.append('|');
+        String iban = "";
+        if (counterpartyIban != null) {
+            String cleaned = counterpartyIban.toUpperCase().replaceAll("\\s+", "");
+            if (cleaned.length() >= 4 && Character.isLetter(cleaned.charAt(0))
+                    && Character.isLetter(cleaned.charAt(1))) {
+                iban = cleaned;
+            }
+        }
+        material.append(iban);
+        material.append('|');
+        if (endToEndReference != null && !endToEndReference.isBlank()) {
+            material.append("eref:").append(endToEndReference.trim());
+        } else {
+            String normalized = purpose == null ? ""
+                    : NON_ALNUM.matcher(Normalizer.normalize(purpose, Normalizer.Form.NFKC))
+                            .replaceAll("")
+                            .toLowerCase();
+            material.append("svwz:").append(normalized);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of()
+                    .formatHex(digest.digest(material.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
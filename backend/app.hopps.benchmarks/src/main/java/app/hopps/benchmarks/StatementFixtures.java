@@ -0,0 +1,172 @@
+package app.hopps.benchmarks;
+
+import app.hopps.bankimport.domain.BankCsvSchema;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Generates realistic bank statement files for the benchmarks: Sparkasse CSV exports (CAMT.052 v8 layout) and MT940
+ * statements, with the mix of card payments, direct debits and transfers (umlauts, SEPA references, long purposes) a
+ * club account typically has. Output is deterministic for a given seed.
+ */
+final class StatementFixtures {
+
+    private static final DateTimeFormatter SPARKASSE_DATE = DateTimeFormatter.ofPattern("dd.MM.yy");
+    private static final DateTimeFormatter MT940_DATE = DateTimeFormatter.ofPattern("yyMMdd");
+    private static final LocalDate FIRST_BOOKING = LocalDate.of(2025, 1, 2);
+
+    private static final String[] COUNTERPARTIES = { "Stadtwerke München GmbH", "Müller, Jürgen",
+            "Sportverein Grün-Weiß e.V.", "REWE Markt GmbH", "Deutsche Telekom AG", "Förderkreis Jugendarbeit",
+            "Bäckerei Schäfer", "Finanzamt Nürnberg-Süd" };
+    private static final String[] BOOKING_TEXTS = { "GUTSCHRIFT UEBERWEISUNG", "FOLGELASTSCHRIFT", "KARTENZAHLUNG",
+            "ONLINE-UEBERWEISUNG", "ENTGELTABSCHLUSS", "DAUERAUFTRAG" };
+    private static final String[] PURPOSES = { "Mitgliedsbeitrag %d Quartal", "Abschlag Strom Vertragskonto %d",
+            "Spende Jugendfreizeit Sommerlager Kundennr. %d", "Rechnung Nr. %d vom 31.03.2025 Getränke Vereinsheim",
+            "2025-03-09T09:33 Debitk.1 Karte %d", "Abrechnung 31.03.2025 siehe Anlage %d" };
+
+    private StatementFixtures() {
+    }
+
+    /**
+     * Sparkasse CSV export with header row, 17 columns, {@code ;}-separated, {@code dd.MM.yy} dates and German amounts.
+     */
+    static String sparkasseCsv(int rows, long seed) {
+        Random random = new Random(seed);
+        StringBuilder csv = new StringBuilder(rows * 320);
+        csv.append("\"Auftragskonto\";\"Buchungstag\";\"Valutadatum\";\"Buchungstext\";\"Verwendungszweck\";"
+                + "\"Glaeubiger ID\";\"Mandatsreferenz\";\"Kundenreferenz (End-to-End)\";\"Sammlerreferenz\";"
+                + "\"Lastschrift Ursprungsbetrag\";\"Auslagenersatz Ruecklastschrift\";"
+                + "\"Beguenstigter/Zahlungspflichtiger\";\"Kontonummer/IBAN\";\"BIC (SWIFT-Code)\";\"Betrag\";"
+                + "\"Waehrung\";\"Info\"\n");
+        for (int i = 0; i < rows; i++) {
+            LocalDate date = FIRST_BOOKING.plusDays(i / 20);
+            BigDecimal amount = amount(random);
+            boolean debit = amount.signum() < 0;
+            csv.append('"')
+                    .append("DE12500105170648489890")
+                    .append("\";\"")
+                    .append(SPARKASSE_DATE.format(date))
+                    .append("\";\"")
+                    .append(SPARKASSE_DATE.format(date.plusDays(random.nextInt(2))))
+                    .append("\";\"")
+                    .append(pick(random, BOOKING_TEXTS))
+                    .append("\";\"")
+                    .append(purpose(random))
+                    .append("\";\"")
+                    .append(debit ? "DE98ZZZ09999999999" : "")
+                    .append("\";\"")
+                    .append(debit ? "MNDT-" + random.nextInt(100_000) : "")
+                    .append("\";\"")
+                    .append(random.nextBoolean() ? "E2E-" + Long.toHexString(random.nextLong()) : "NOTPROVIDED")
+                    .append("\";\"\";\"\";\"\";\"")
+                    .append(pick(random, COUNTERPARTIES))
+                    .append("\";\"")
+                    .append(iban(random))
+                    .append("\";\"")
+                    .append("COBADEFFXXX")
+                    .append("\";\"")
+                    .append(germanAmount(amount))
+                    .append("\";\"EUR\";\"Umsatz gebucht\"\n");
+        }
+        return csv.toString();
+    }
+
+    /** Schema matching {@link #sparkasseCsv}, as created from the Sparkasse CAMT v8 template. */
+    static BankCsvSchema sparkasseSchema(String encoding) {
+        BankCsvSchema schema = new BankCsvSchema();
+        schema.setDelimiter(';');
+        schema.setQuoteChar('"');
+        schema.setEncoding(encoding);
+        schema.setHasHeader(true);
+        schema.setDateFormat("dd.MM.yy");
+        schema.setDecimalSeparator(',');
+        schema.setThousandSeparator('.');
+        return schema;
+    }
+
+    /** MT940 statement with one {@code :61:}/{@code :86:} pair per row, split into daily statements. */
+    static String mt940(int rows, long seed) {
+        Random random = new Random(seed);
+        StringBuilder mt940 = new StringBuilder(rows * 260);
+        BigDecimal balance = new BigDecimal("10000.00");
+        LocalDate statementDate = null;
+        int statement = 0;
+        for (int i = 0; i < rows; i++) {
+            LocalDate date = FIRST_BOOKING.plusDays(i / 20);
+            if (!date.equals(statementDate)) {
+                if (statementDate != null) {
+                    closeStatement(mt940, statementDate, balance);
+                }
+                statementDate = date;
+                mt940.append(":20:STARTUMS\n:25:50010517/0648489890\n:28C:")
+                        .append(String.format("%05d/001", ++statement))
+                        .append('\n')
+                        .append(":60F:")
+                        .append(balance.signum() < 0 ? 'D' : 'C')
+                        .append(MT940_DATE.format(date))
+                        .append("EUR")
+                        .append(germanAmount(balance.abs()))
+                        .append('\n');
+            }
+            BigDecimal amount = amount(random);
+            balance = balance.add(amount);
+            String date6 = MT940_DATE.format(date);
+            mt940.append(":61:")
+                    .append(date6)
+                    .append(date6, 2, 6)
+                    .append(amount.signum() < 0 ? "D" : "C")
+                    .append(germanAmount(amount.abs()))
+                    .append("NTRFNONREF\n")
+                    .append(":86:166?00")
+                    .append(pick(random, BOOKING_TEXTS))
+                    .append("?20EREF+E2E-")
+                    .append(Long.toHexString(random.nextLong()))
+                    .append("?21SVWZ+")
+                    .append(purpose(random))
+                    .append("?30COBADEFFXXX?31")
+                    .append(iban(random))
+                    .append("?32")
+                    .append(pick(random, COUNTERPARTIES))
+                    .append('\n');
+        }
+        if (statementDate != null) {
+            closeStatement(mt940, statementDate, balance);
+        }
+        return mt940.toString();
+    }
+
+    private static void closeStatement(StringBuilder mt940, LocalDate date, BigDecimal balance) {
+        mt940.append(":62F:")
+                .append(balance.signum() < 0 ? 'D' : 'C')
+                .append(MT940_DATE.format(date))
+                .append("EUR")
+                .append(germanAmount(balance.abs()))
+                .append("\n-\n");
+    }
+
+    private static BigDecimal amount(Random random) {
+        // Mostly small debits, some larger credits — roughly the shape of a club account.
+        int cents = random.nextInt(10) < 7 ? -(100 + random.nextInt(50_000)) : 500 + random.nextInt(250_000);
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static String germanAmount(BigDecimal amount) {
+        return amount.toPlainString().replace('.', ',');
+    }
+
+    private static String purpose(Random random) {
+        return String.format(pick(random, PURPOSES), random.nextInt(1_000_000));
+    }
+
+    private static String iban(Random random) {
+        return String.format("DE%02d%08d%010d", random.nextInt(100), random.nextInt(100_000_000),
+                random.nextInt(1_000_000_000));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
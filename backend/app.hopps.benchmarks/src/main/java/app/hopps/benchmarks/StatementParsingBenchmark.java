@@ -0,0 +1,97 @@
+package app.hopps.benchmarks;
+
+import app.hopps.bankimport.domain.BankCsvSchema;
+import app.hopps.bankimport.parser.CsvParser;
+import app.hopps.bankimport.parser.EncodingDetector;
+import app.hopps.bankimport.parser.Mt940Parser;
+import app.hopps.bankimport.parser.Mt940Parser.ParsedMt940Transaction;
+import app.hopps.bankimport.service.DedupeHashService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Whole-file throughput of the bank import stages, one operation being one statement file: encoding detection,
+ * decoding, streaming CSV parsing, MT940 parsing and dedupe hashing of the parsed rows. Sizes cover a monthly export up to
+ * several years of a busy account; encodings cover the Sparkasse default (Windows-1252) and UTF-8.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatementParsingBenchmark {
+
+    @Param({ "100", "10000", "100000" })
+    public int rows;
+
+    @Param({ "windows-1252", "UTF-8" })
+    public String encoding;
+
+    private final DedupeHashService dedupeHashService = new DedupeHashService();
+
+    private BankCsvSchema schema;
+    private Charset charset;
+    private byte[] csvBytes;
+    private String mt940Text;
+    private List<ParsedMt940Transaction> mt940Transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        charset = Charset.forName(encoding);
+        schema = StatementFixtures.sparkasseSchema(encoding);
+        csvBytes = StatementFixtures.sparkasseCsv(rows, 42).getBytes(charset);
+        mt940Text = StatementFixtures.mt940(rows, 42);
+        mt940Transactions = Mt940Parser.parse(mt940Text);
+    }
+
+    @Benchmark
+    public Charset detectEncoding() {
+        return EncodingDetector.detect(csvBytes);
+    }
+
+    @Benchmark
+    public String decodeStrict() {
+        return EncodingDetector.decodeStrict(csvBytes, charset);
+    }
+
+    /** The import's CSV path: strict decoding while reading, records split lazily one at a time. */
+    @Benchmark
+    public void csvStream(Blackhole blackhole) {
+        Reader reader = EncodingDetector.strictReader(new ByteArrayInputStream(csvBytes), charset);
+        try (Stream<List<String>> records = CsvParser.stream(reader, schema)) {
+            records.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public List<ParsedMt940Transaction> mt940Parse() {
+        return Mt940Parser.parse(mt940Text);
+    }
+
+    @Benchmark
+    public void dedupeHashMt940Rows(Blackhole blackhole) {
+        for (ParsedMt940Transaction tx : mt940Transactions) {
+            blackhole.consume(dedupeHashService.computeKey(tx.bookingDate(), tx.amount(), tx.counterpartyIban(),
+                    tx.endToEndReference(), tx.purpose()));
+        }
+    }
+}
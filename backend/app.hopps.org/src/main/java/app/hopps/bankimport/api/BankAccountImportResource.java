@@ -86,7 +86,7 @@ public class BankAccountImportResource {
     @POST
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     @Produces(MediaType.APPLICATION_JSON)
-    @Operation(summary = "Queue a bank file import", description = "Uploads the file (CSV or MT940), archives it in S3, creates a BankImport job in QUEUED state and returns 202 Accepted. MT940 files are auto-detected and require no schemaId. The worker picks it up within a few seconds. Poll GET /imports/{id} for status.")
+    @Operation(summary = "Queue a bank file import", description = "Uploads the file (CSV, MT940 or CAMT.052/.053 XML), archives it in S3, creates a BankImport job in QUEUED state and returns 202 Accepted. MT940 and CAMT files are auto-detected and require no schemaId. The worker picks it up within a few seconds. Poll GET /imports/{id} for status.")
     @APIResponse(responseCode = "202", description = "Import queued", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = BankImportResponse.class)))
     @APIResponse(responseCode = "400", description = "File missing, schemaId missing, or duplicate file already queued")
     @APIResponse(responseCode = "401", description = "User not logged in")
@@ -5,6 +5,7 @@ import app.hopps.bankimport.api.dto.BankAccountResponse;
 import app.hopps.bankimport.api.dto.BankAccountUpdateRequest;
 import app.hopps.bankimport.domain.BankAccount;
 import app.hopps.bankimport.service.BankAccountService;
+import app.hopps.bankimport.service.BankBalanceService;
 import io.quarkus.security.Authenticated;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
@@ -28,7 +29,9 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST API for bank account management. See bank-import-feature.md §4.4.
@@ -44,15 +47,19 @@ public class BankAccountResource {
     @Inject
     BankAccountService bankAccountService;
 
+    @Inject
+    BankBalanceService bankBalanceService;
+
     @GET
     @Operation(summary = "List bank accounts", description = "Returns all bank accounts of the current organization. Archived accounts are excluded by default.")
     @APIResponse(responseCode = "200", description = "List of bank accounts", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = BankAccountResponse[].class)))
     @APIResponse(responseCode = "401", description = "User not logged in")
     public List<BankAccountResponse> listBankAccounts(
             @QueryParam("includeArchived") @DefaultValue("false") @Parameter(description = "Include archived (soft-deleted) accounts") boolean includeArchived) {
+        Map<Long, BigDecimal> balances = bankBalanceService.balancesForCurrentOrganization();
         return bankAccountService.list(includeArchived)
                 .stream()
-                .map(account -> BankAccountResponse.from(account, bankAccountService.computeBalance(account)))
+                .map(account -> BankAccountResponse.from(account, balances.get(account.getId())))
                 .toList();
     }
 
@@ -65,7 +72,7 @@ public class BankAccountResource {
     public BankAccountResponse getBankAccount(
             @PathParam("id") @Parameter(description = "Bank account ID") Long id) {
         BankAccount account = bankAccountService.get(id);
-        return BankAccountResponse.from(account, bankAccountService.computeBalance(account));
+        return BankAccountResponse.from(account, bankBalanceService.balanceOf(account));
     }
 
     @POST
@@ -77,7 +84,7 @@ public class BankAccountResource {
         BankAccount account = bankAccountService.create(request);
         LOG.info("Bank account created: id={}, iban={}", account.getId(), account.getIban());
         return Response.status(Response.Status.CREATED)
-                .entity(BankAccountResponse.from(account, bankAccountService.computeBalance(account)))
+                .entity(BankAccountResponse.from(account, bankBalanceService.balanceOf(account)))
                 .build();
     }
 
@@ -93,7 +100,7 @@ public class BankAccountResource {
             @Valid BankAccountUpdateRequest request) {
         BankAccount account = bankAccountService.update(id, request);
         LOG.info("Bank account updated: id={}", account.getId());
-        return BankAccountResponse.from(account, bankAccountService.computeBalance(account));
+        return BankAccountResponse.from(account, bankBalanceService.balanceOf(account));
     }
 
     @DELETE
@@ -118,6 +125,6 @@ public class BankAccountResource {
             @PathParam("id") @Parameter(description = "Bank account ID") Long id) {
         BankAccount account = bankAccountService.restore(id);
         LOG.info("Bank account restored: id={}", id);
-        return BankAccountResponse.from(account, bankAccountService.computeBalance(account));
+        return BankAccountResponse.from(account, bankBalanceService.balanceOf(account));
     }
 }
@@ -5,12 +5,17 @@ import app.hopps.bankimport.api.dto.BankTransactionResponse;
 import app.hopps.bankimport.api.dto.MatchAllocationResponse;
 import app.hopps.bankimport.api.dto.MatchAmountRequest;
 import app.hopps.bankimport.api.dto.MatchRequest;
+import app.hopps.bankimport.api.dto.MatchSuggestionRefreshResponse;
+import app.hopps.bankimport.api.dto.MatchSuggestionResponse;
 import app.hopps.bankimport.domain.BankTransaction;
 import app.hopps.bankimport.domain.BankTransactionStatus;
 import app.hopps.bankimport.repository.BankTransactionRepository;
 import app.hopps.bankimport.service.BankTransactionMatchService;
+import app.hopps.bankimport.service.BankTransactionMatchSuggestionService;
 import app.hopps.bankimport.service.BankTransactionReceiptService;
 import app.hopps.document.api.dto.DocumentResponse;
+import app.hopps.shared.repository.CursorPage;
+import app.hopps.shared.security.OrganizationContext;
 import io.quarkus.panache.common.Page;
 import io.quarkus.security.Authenticated;
 import jakarta.inject.Inject;
@@ -33,6 +38,8 @@ import jakarta.ws.rs.core.SecurityContext;
 import org.jboss.resteasy.reactive.RestForm;
 import org.jboss.resteasy.reactive.multipart.FileUpload;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.headers.Header;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
@@ -62,11 +69,17 @@ public class BankTransactionResource {
     @Inject
     BankTransactionReceiptService receiptService;
 
+    @Inject
+    BankTransactionMatchSuggestionService suggestionService;
+
+    @Inject
+    OrganizationContext organizationContext;
+
     @GET
     @Operation(summary = "List bank transactions", description = "Cross-account listing scoped to the current org. Filters: accountIds, dateFrom/dateTo, status (multi), search (purpose/counterparty), minAmount/maxAmount (magnitude range).")
-    @APIResponse(responseCode = "200", description = "List of transactions", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = BankTransactionResponse[].class)))
+    @APIResponse(responseCode = "200", description = "List of transactions", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = BankTransactionResponse[].class)), headers = @Header(name = CursorPage.NEXT_CURSOR_HEADER, description = "Cursor for the next page; absent on the last page", schema = @Schema(type = SchemaType.STRING)))
     @APIResponse(responseCode = "401", description = "User not logged in")
-    public List<BankTransactionResponse> list(
+    public Response list(
             @QueryParam("accountIds") @Parameter(description = "Comma-separated bank account IDs (omit for all accounts)") String accountIdsCsv,
             @QueryParam("dateFrom") @Parameter(description = "Booking date inclusive (ISO-8601)") String dateFrom,
             @QueryParam("dateTo") @Parameter(description = "Booking date inclusive (ISO-8601)") String dateTo,
@@ -76,6 +89,7 @@ public class BankTransactionResource {
             @QueryParam("maxAmount") @Parameter(description = "Maximum transaction amount by magnitude (absolute value, inclusive)") String maxAmount,
             @QueryParam("sort") @DefaultValue("bookingDate") @Parameter(description = "Sort field: bookingDate, amount or counterpartyName") String sort,
             @QueryParam("direction") @DefaultValue("desc") @Parameter(description = "Sort direction: asc or desc") String direction,
+            @QueryParam("cursor") @Parameter(description = "Cursor from the X-Next-Cursor header of the previous page; when set, page is ignored") String cursor,
             @QueryParam("page") @DefaultValue("0") @Parameter(description = "Page index (0-based)") int pageIndex,
             @QueryParam("size") @DefaultValue("50") @Parameter(description = "Page size") int pageSize) {
         List<Long> accountIds = parseLongList(accountIdsCsv);
@@ -83,10 +97,10 @@ public class BankTransactionResource {
         LocalDate from = parseDate(dateFrom);
         LocalDate to = parseDate(dateTo);
 
-        List<BankTransaction> rows = transactionRepository.findFiltered(
+        CursorPage<BankTransaction> rows = transactionRepository.findFiltered(
                 accountIds, from, to, statuses, search, parseAmount(minAmount), parseAmount(maxAmount), sort,
-                isAscending(direction), new Page(pageIndex, pageSize));
-        return rows.stream().map(BankTransactionResponse::from).toList();
+                isAscending(direction), cursor, new Page(pageIndex, pageSize));
+        return toListResponse(rows);
     }
 
     @GET
@@ -115,6 +129,41 @@ public class BankTransactionResource {
         return new BankTransactionAggregateResponse(incoming, outgoing, incoming.add(outgoing), count);
     }
 
+    @GET
+    @Path("/suggestions")
+    @Operation(summary = "List match suggestions", description = "Returns the stored match suggestions for the still unmatched bank transactions of the current org — newest booking first, best score first per bank transaction. Suggestions are computed after every import and by POST /bank-transactions/suggestions/refresh.")
+    @APIResponse(responseCode = "200", description = "List of suggestions", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = MatchSuggestionResponse[].class)))
+    @APIResponse(responseCode = "401", description = "User not logged in")
+    public List<MatchSuggestionResponse> listSuggestions(
+            @QueryParam("accountIds") @Parameter(description = "Comma-separated bank account IDs (omit for all accounts)") String accountIdsCsv,
+            @QueryParam("page") @DefaultValue("0") @Parameter(description = "Page index (0-based)") int pageIndex,
+            @QueryParam("size") @DefaultValue("50") @Parameter(description = "Page size") int pageSize) {
+        Long orgId = organizationContext.getCurrentOrganizationId();
+        if (orgId == null) {
+            return List.of();
+        }
+        return suggestionService.listForOrganization(orgId, parseLongList(accountIdsCsv), new Page(pageIndex, pageSize))
+                .stream()
+                .map(MatchSuggestionResponse::from)
+                .toList();
+    }
+
+    @POST
+    @Path("/suggestions/refresh")
+    @Operation(summary = "Recompute match suggestions", description = "Scores every unmatched bank transaction of the current org (optionally only of some accounts) against the open bookkeeping transactions and replaces their stored suggestions.")
+    @APIResponse(responseCode = "200", description = "Suggestions recomputed", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = MatchSuggestionRefreshResponse.class)))
+    @APIResponse(responseCode = "401", description = "User not logged in")
+    public MatchSuggestionRefreshResponse refreshSuggestions(
+            @QueryParam("accountIds") @Parameter(description = "Comma-separated bank account IDs (omit for all accounts)") String accountIdsCsv) {
+        Long orgId = organizationContext.getCurrentOrganizationId();
+        if (orgId == null) {
+            return new MatchSuggestionRefreshResponse(0, 0);
+        }
+        BankTransactionMatchSuggestionService.RefreshResult result = suggestionService.refreshForOrganization(orgId,
+                parseLongList(accountIdsCsv));
+        return new MatchSuggestionRefreshResponse(result.bankTransactions(), result.suggestions());
+    }
+
     @GET
     @Path("/{id}")
     @Operation(summary = "Get a bank transaction", description = "Returns a bank transaction by ID, including matched transaction IDs")
@@ -182,6 +231,20 @@ public class BankTransactionResource {
                 .toList();
     }
 
+    @GET
+    @Path("/{id}/suggestions")
+    @Operation(summary = "List match suggestions of a bank transaction", description = "Returns the stored match suggestions for one bank transaction, best score first.")
+    @APIResponse(responseCode = "200", description = "List of suggestions", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = MatchSuggestionResponse[].class)))
+    @APIResponse(responseCode = "401", description = "User not logged in")
+    @APIResponse(responseCode = "404", description = "Bank transaction not found")
+    public List<MatchSuggestionResponse> listSuggestionsForBankTransaction(
+            @PathParam("id") @Parameter(description = "Bank transaction ID") Long id) {
+        return suggestionService.listForBankTransaction(id)
+                .stream()
+                .map(MatchSuggestionResponse::from)
+                .toList();
+    }
+
     @POST
     @Path("/{id}/receipt")
     @Consumes(MediaType.MULTIPART_FORM_DATA)
@@ -257,9 +320,9 @@ public class BankTransactionResource {
     @GET
     @Path("/by-account/{accountId}")
     @Operation(summary = "List transactions of one account", description = "Convenience endpoint equivalent to GET /bank-transactions?accountIds={accountId} — used by the bank account detail screen.")
-    @APIResponse(responseCode = "200", description = "List of transactions", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = BankTransactionResponse[].class)))
+    @APIResponse(responseCode = "200", description = "List of transactions", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = BankTransactionResponse[].class)), headers = @Header(name = CursorPage.NEXT_CURSOR_HEADER, description = "Cursor for the next page; absent on the last page", schema = @Schema(type = SchemaType.STRING)))
     @APIResponse(responseCode = "401", description = "User not logged in")
-    public List<BankTransactionResponse> listForAccount(
+    public Response listForAccount(
             @PathParam("accountId") @Parameter(description = "Bank account ID") Long accountId,
             @QueryParam("dateFrom") String dateFrom,
             @QueryParam("dateTo") String dateTo,
@@ -269,15 +332,22 @@ public class BankTransactionResource {
             @QueryParam("maxAmount") @Parameter(description = "Maximum transaction amount by magnitude (absolute value, inclusive)") String maxAmount,
             @QueryParam("sort") @DefaultValue("bookingDate") @Parameter(description = "Sort field: bookingDate, amount or counterpartyName") String sort,
             @QueryParam("direction") @DefaultValue("desc") @Parameter(description = "Sort direction: asc or desc") String direction,
+            @QueryParam("cursor") @Parameter(description = "Cursor from the X-Next-Cursor header of the previous page; when set, page is ignored") String cursor,
             @QueryParam("page") @DefaultValue("0") int pageIndex,
             @QueryParam("size") @DefaultValue("50") int pageSize) {
         List<BankTransactionStatus> statuses = parseStatusList(statusesCsv);
         LocalDate from = parseDate(dateFrom);
         LocalDate to = parseDate(dateTo);
-        List<BankTransaction> rows = transactionRepository.findFiltered(
+        CursorPage<BankTransaction> rows = transactionRepository.findFiltered(
                 List.of(accountId), from, to, statuses, search, parseAmount(minAmount), parseAmount(maxAmount), sort,
-                isAscending(direction), new Page(pageIndex, pageSize));
-        return rows.stream().map(BankTransactionResponse::from).toList();
+                isAscending(direction), cursor, new Page(pageIndex, pageSize));
+        return toListResponse(rows);
+    }
+
+    /** The page as a plain array, with the cursor of the next page in the {@code X-Next-Cursor} header. */
+    private static Response toListResponse(CursorPage<BankTransaction> rows) {
+        List<BankTransactionResponse> body = rows.items().stream().map(BankTransactionResponse::from).toList();
+        return Response.ok(body).header(CursorPage.NEXT_CURSOR_HEADER, rows.nextCursor()).build();
     }
 
     private static List<Long> parseLongList(String csv) {
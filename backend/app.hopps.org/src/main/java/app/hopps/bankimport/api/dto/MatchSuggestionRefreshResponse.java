@@ -0,0 +1,10 @@
+package app.hopps.bankimport.api.dto;
+
+/**
+ * Result of recomputing match suggestions: how many unmatched bank transactions were scored and how many suggestions
+ * were stored for them.
+ */
+public record MatchSuggestionRefreshResponse(
+        int bankTransactions,
+        int suggestions) {
+}
@@ -0,0 +1,38 @@
+package app.hopps.bankimport.api.dto;
+
+import app.hopps.bankimport.domain.BankTransactionSuggestion;
+import app.hopps.transaction.domain.Transaction;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A suggested bookkeeping transaction for an unmatched bank transaction, with enough of the transaction to render it in
+ * the reconciliation worklist. {@code score} is between 0 and 1; {@code reasons} lists what matched (AMOUNT_OPEN,
+ * AMOUNT_TOTAL, COUNTERPARTY, IBAN, REFERENCE, DATE).
+ */
+public record MatchSuggestionResponse(
+        Long bankTransactionId,
+        Long transactionId,
+        String transactionName,
+        BigDecimal transactionTotal,
+        Instant transactionTime,
+        String counterpartyName,
+        double score,
+        List<String> reasons) {
+
+    public static MatchSuggestionResponse from(BankTransactionSuggestion suggestion) {
+        Transaction tx = suggestion.getTransaction();
+        return new MatchSuggestionResponse(
+                suggestion.getBankTransaction().getId(),
+                tx.getId(),
+                tx.getName(),
+                tx.getTotal(),
+                tx.getTransactionTime(),
+                tx.getSenderName(),
+                suggestion.getScore(),
+                Arrays.asList(suggestion.getReasons().split(",")));
+    }
+}
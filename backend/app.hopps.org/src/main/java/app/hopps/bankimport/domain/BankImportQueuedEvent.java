@@ -0,0 +1,11 @@
+package app.hopps.bankimport.domain;
+
+/**
+ * Fired when a new {@link BankImport} job has been enqueued, so the import worker can pick it up right after the
+ * enqueueing transaction commits instead of waiting for its next poll.
+ *
+ * @param importId
+ *            the ID of the queued import
+ */
+public record BankImportQueuedEvent(Long importId) {
+}
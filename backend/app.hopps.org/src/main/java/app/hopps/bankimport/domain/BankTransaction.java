@@ -90,6 +90,10 @@ public class BankTransaction extends PanacheEntity {
     @Column(name = "matchedamount", nullable = false, precision = 38, scale = 2)
     private BigDecimal matchedAmount = BigDecimal.ZERO;
 
+    /** Lower-cased purpose and counterparty name for the free-text search; a generated column. */
+    @Column(name = "searchtext", insertable = false, updatable = false)
+    private String searchText;
+
     @Column(name = "createdat", nullable = false, updatable = false)
     private Instant createdAt;
 
@@ -0,0 +1,85 @@
+package app.hopps.bankimport.domain;
+
+import app.hopps.transaction.domain.Transaction;
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * A suggested (not yet confirmed) link between an unmatched {@link BankTransaction} and an open {@link Transaction},
+ * computed by {@code BankTransactionMatchSuggestionService}. Suggestions are recomputed wholesale per bank transaction;
+ * accepting one creates a regular {@link BankTransactionMatch}.
+ */
+@Entity
+@Table(name = "BankTransactionSuggestion")
+public class BankTransactionSuggestion extends PanacheEntity {
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "banktransaction_id", nullable = false)
+    private BankTransaction bankTransaction;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id", nullable = false)
+    private Transaction transaction;
+
+    /** Match confidence between 0 and 1. */
+    @Column(nullable = false)
+    private double score;
+
+    /** Comma-separated {@code MatchCandidateIndex.Reason} names explaining the score. */
+    @Column(nullable = false)
+    private String reasons;
+
+    @Column(name = "createdat", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    public BankTransactionSuggestion() {
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public BankTransaction getBankTransaction() {
+        return bankTransaction;
+    }
+
+    public void setBankTransaction(BankTransaction bankTransaction) {
+        this.bankTransaction = bankTransaction;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public String getReasons() {
+        return reasons;
+    }
+
+    public void setReasons(String reasons) {
+        this.reasons = reasons;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,417 @@
+package app.hopps.bankimport.parser;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parses ISO 20022 CAMT.053 (statement) and CAMT.052 (account report) XML files into {@link ParsedCamtTransaction}
+ * records. Both message versions in use by German banks (.001.02 and .001.08) are supported.
+ * <p>
+ * Parsing is streaming: a StAX cursor walks the document and only the {@code <Ntry>} currently being read is held in
+ * memory, so daily statements with thousands of entries are parsed in constant memory. Parsing happens in two steps —
+ * {@link #stream(InputStream)} collects the raw values of each entry, {@link #toTransaction(CamtEntry)} interprets them
+ * — so that a single malformed entry can be reported without aborting the whole file.
+ * <p>
+ * Field semantics follow {@link Mt940Parser} so that the same booking imported from CAMT and from MT940 yields the same
+ * dedupe hash: {@code <Ustrd>} lines are concatenated without inserting separators (like {@code ?20}–{@code ?29}), the
+ * end-to-end reference is taken verbatim (including {@code NOTPROVIDED}) and the statement's closing balance is set as
+ * balance of every entry. Only booked entries ({@code <Sts>BOOK}) are returned; pending and informational entries of
+ * intraday CAMT.052 reports are skipped. For batch bookings with several {@code <TxDtls>}, the first one provides the
+ * counterparty and references.
+ */
+public final class CamtParser {
+
+    private static final String TX = "NtryDtls/TxDtls/";
+    private static final String USTRD = TX + "RmtInf/Ustrd";
+
+    private CamtParser() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Public API
+    // -------------------------------------------------------------------------
+
+    /**
+     * Heuristic detection: returns {@code true} when the first 1024 bytes of {@code content} declare a CAMT.052/.053
+     * namespace.
+     */
+    public static boolean isCamt(byte[] content) {
+        int limit = Math.min(content.length, 1024);
+        String head = new String(content, 0, limit, StandardCharsets.ISO_8859_1);
+        return head.contains("urn:iso:std:iso:20022:tech:xsd:camt.053")
+                || head.contains("urn:iso:std:iso:20022:tech:xsd:camt.052");
+    }
+
+    /**
+     * Lazily reads the booked entries of a CAMT document. The encoding is taken from the XML declaration. Structural
+     * errors (malformed XML) surface as {@link IllegalArgumentException} while consuming the stream. The stream must be
+     * closed; the underlying input stream is left to the caller.
+     */
+    public static Stream<CamtEntry> stream(InputStream in) {
+        EntryIterator iterator = new EntryIterator(createReader(in));
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * Interprets the raw values of one entry.
+     *
+     * @throws IllegalArgumentException
+     *             if a mandatory value (amount, credit/debit indicator, booking date) is missing or malformed
+     */
+    public static ParsedCamtTransaction toTransaction(CamtEntry entry) {
+        Map<String, String> f = entry.fields();
+
+        BigDecimal magnitude = parseDecimal(require(f, "Amt"), "Amt");
+        String indicator = require(f, "CdtDbtInd");
+        boolean debit = switch (indicator) {
+            case "DBIT" -> true;
+            case "CRDT" -> false;
+            default -> throw new IllegalArgumentException("Unknown CdtDbtInd: " + indicator);
+        };
+        BigDecimal amount = debit ? magnitude.negate() : magnitude;
+
+        LocalDate bookingDate = parseDate(first(f, "BookgDt/Dt", "BookgDt/DtTm"));
+        if (bookingDate == null) {
+            throw new IllegalArgumentException("Entry has no booking date");
+        }
+        LocalDate valueDate = parseDate(first(f, "ValDt/Dt", "ValDt/DtTm"));
+
+        // The counterparty is the creditor of an outgoing and the debtor of an incoming payment.
+        String party = debit ? "Cdtr" : "Dbtr";
+        String counterpartyName = first(f, TX + "RltdPties/" + party + "/Nm",
+                TX + "RltdPties/Ultmt" + party + "/Nm");
+        String counterpartyIban = first(f, TX + "RltdPties/" + party + "Acct/Id/IBAN");
+        String counterpartyBic = first(f, TX + "RltdAgts/" + party + "Agt/FinInstnId/BIC");
+
+        String endToEnd = first(f, TX + "Refs/EndToEndId");
+        String mandate = first(f, TX + "Refs/MndtId", TX + "RltdPties/Cdtr/Id/PrvtId/Othr/MndtId");
+        String creditor = first(f, TX + "RltdPties/Cdtr/Id/PrvtId/Othr/Id", TX + "CdtrSchmeId/Id/PrvtId/Othr/Id");
+
+        // Some banks still put SEPA tags (EREF+/SVWZ+...) into <Ustrd>; the MT940 purpose parser strips them and passes
+        // plain text through unchanged.
+        Mt940PurposeParser.ParsedPurpose purpose = Mt940PurposeParser.parse(f.get(USTRD));
+        if (endToEnd == null) {
+            endToEnd = purpose.endToEndReference();
+        }
+        if (mandate == null) {
+            mandate = purpose.mandateReference();
+        }
+        if (creditor == null) {
+            creditor = purpose.creditorId();
+        }
+
+        return new ParsedCamtTransaction(
+                valueDate,
+                bookingDate,
+                amount,
+                f.get("Amt@Ccy"),
+                first(f, "AddtlNtryInf", TX + "AddtlTxInf"),
+                purpose.purpose(),
+                counterpartyName,
+                counterpartyIban,
+                counterpartyBic,
+                first(f, "AcctSvcrRef", TX + "Refs/AcctSvcrRef"),
+                endToEnd,
+                mandate,
+                creditor,
+                entry.closingBalance(),
+                entry.rawText());
+    }
+
+    // -------------------------------------------------------------------------
+    // Records
+    // -------------------------------------------------------------------------
+
+    /**
+     * Raw values of one {@code <Ntry>}, keyed by their element path relative to the entry (e.g. {@code BookgDt/Dt},
+     * {@code NtryDtls/TxDtls/Refs/EndToEndId}; attributes as {@code Amt@Ccy}). Version differences are normalised:
+     * {@code Pty} wrappers are dropped and {@code BICFI} is reported as {@code BIC}.
+     *
+     * @param index
+     *            1-based position of the entry in the file
+     * @param closingBalance
+     *            signed closing balance ({@code CLBD}) of the enclosing statement, or null
+     */
+    public record CamtEntry(int index, Map<String, String> fields, BigDecimal closingBalance) {
+
+        /** Human-readable one-line representation, used as raw row in error reports and on the transaction. */
+        public String rawText() {
+            StringBuilder raw = new StringBuilder();
+            for (Map.Entry<String, String> field : fields.entrySet()) {
+                if (!raw.isEmpty()) {
+                    raw.append("; ");
+                }
+                raw.append(field.getKey()).append('=').append(field.getValue());
+            }
+            return raw.toString();
+        }
+    }
+
+    public record ParsedCamtTransaction(
+            LocalDate valueDate,
+            LocalDate bookingDate,
+            BigDecimal amount,
+            String currency,
+            String transactionType,
+            String purpose,
+            String counterpartyName,
+            String counterpartyIban,
+            String counterpartyBic,
+            String bankReference,
+            String endToEndReference,
+            String mandateReference,
+            String creditorId,
+            BigDecimal balanceAfter,
+            String rawLine) {
+    }
+
+    // -------------------------------------------------------------------------
+    // Streaming
+    // -------------------------------------------------------------------------
+
+    private static XMLStreamReader createReader(InputStream in) {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Bank files are untrusted input: no DTDs, no external entities (XXE).
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        try {
+            return factory.createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Invalid CAMT file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pulls the next booked {@code <Ntry>} on demand. Keeps only the closing balance of the current statement and the
+     * values of the entry being read.
+     */
+    private static final class EntryIterator implements Iterator<CamtEntry> {
+
+        private final XMLStreamReader reader;
+        private BigDecimal closingBalance;
+        private int index;
+        private CamtEntry next;
+        private boolean finished;
+
+        EntryIterator(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                next = advance();
+                finished = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public CamtEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CamtEntry entry = next;
+            next = null;
+            return entry;
+        }
+
+        void close() {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                throw new IllegalArgumentException("Invalid CAMT file: " + e.getMessage(), e);
+            }
+        }
+
+        /** Moves the cursor to the end of the next booked entry; returns null at the end of the document. */
+        private CamtEntry advance() {
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if ("Ntry".equals(name)) {
+                            CamtEntry entry = readEntry(++index);
+                            if (isBooked(entry)) {
+                                return entry;
+                            }
+                        } else if ("Bal".equals(name)) {
+                            readBalance();
+                        } else if ("Stmt".equals(name) || "Rpt".equals(name)) {
+                            closingBalance = null;
+                        }
+                    }
+                }
+                return null;
+            } catch (XMLStreamException e) {
+                throw new IllegalArgumentException("Invalid CAMT file: " + e.getMessage(), e);
+            }
+        }
+
+        private static boolean isBooked(CamtEntry entry) {
+            String status = first(entry.fields(), "Sts/Cd", "Sts");
+            return status == null || "BOOK".equals(status);
+        }
+
+        /** Reads the {@code <Ntry>} the cursor is on, up to and including its end tag. */
+        private CamtEntry readEntry(int entryIndex) throws XMLStreamException {
+            Map<String, String> fields = new LinkedHashMap<>();
+            collect(fields);
+            return new CamtEntry(entryIndex, fields, closingBalance);
+        }
+
+        /** Reads a statement-level {@code <Bal>} and remembers it if it is the closing balance. */
+        private void readBalance() throws XMLStreamException {
+            Map<String, String> fields = new LinkedHashMap<>();
+            collect(fields);
+            String type = first(fields, "Tp/CdOrPrtry/Cd", "Tp/CdOrPrtry/Prtry");
+            String amount = fields.get("Amt");
+            if ("CLBD".equals(type) && amount != null) {
+                BigDecimal balance = parseDecimal(amount, "Bal/Amt");
+                closingBalance = "DBIT".equals(fields.get("CdtDbtInd")) ? balance.negate() : balance;
+            }
+        }
+
+        /**
+         * Collects the text content and attributes below the current start element into {@code fields}, keyed by
+         * relative path. Repeated elements keep their first value, except {@code <Ustrd>} lines which are concatenated;
+         * everything below the second and later {@code <TxDtls>} is skipped.
+         */
+        private void collect(Map<String, String> fields) throws XMLStreamException {
+            Deque<String> relative = new ArrayDeque<>();
+            StringBuilder text = new StringBuilder();
+            int txDetails = 0;
+            int skipDepth = 0;
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    String name = reader.getLocalName();
+                    if (skipDepth > 0 || ("TxDtls".equals(name) && ++txDetails > 1)) {
+                        skipDepth++;
+                        continue;
+                    }
+                    relative.addLast(normalize(name));
+                    text.setLength(0);
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        fields.putIfAbsent(key(relative) + "@" + reader.getAttributeLocalName(i),
+                                reader.getAttributeValue(i).trim());
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS && skipDepth == 0) {
+                    text.append(reader.getText());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth-- == 0) {
+                        return;
+                    }
+                    if (skipDepth > 0) {
+                        skipDepth--;
+                        continue;
+                    }
+                    String key = key(relative);
+                    if (USTRD.equals(key)) {
+                        // Like MT940 ?20-?29: lines are split at fixed width, so keep boundary spaces and add none.
+                        fields.merge(key, text.toString(), String::concat);
+                    } else {
+                        String value = text.toString().trim();
+                        if (!value.isEmpty()) {
+                            fields.putIfAbsent(key, value);
+                        }
+                    }
+                    text.setLength(0);
+                    relative.removeLast();
+                }
+            }
+        }
+
+        private static String key(Deque<String> relative) {
+            StringBuilder key = new StringBuilder();
+            for (String segment : relative) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (!key.isEmpty()) {
+                    key.append('/');
+                }
+                key.append(segment);
+            }
+            return key.toString();
+        }
+
+        /** Maps .001.08 element names onto their .001.02 equivalents; an empty name is left out of the path. */
+        private static String normalize(String name) {
+            return switch (name) {
+                case "Pty" -> "";
+                case "BICFI" -> "BIC";
+                default -> name;
+            };
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Value helpers
+    // -------------------------------------------------------------------------
+
+    private static String first(Map<String, String> fields, String... keys) {
+        for (String key : keys) {
+            String value = fields.get(key);
+            if (value != null && !value.isBlank()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static String require(Map<String, String> fields, String key) {
+        String value = fields.get(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Entry has no " + key);
+        }
+        return value;
+    }
+
+    private static BigDecimal parseDecimal(String value, String field) {
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    /**
+     * Accepts ISO dates and date-times ({@code
+     * <Dt>} / {@code <DtTm>}); only the date part is used.
+     */
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        String date = value.length() > 10 ? value.substring(0, 10) : value;
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+}
@@ -8,13 +8,15 @@ import org.apache.commons.csv.CSVRecord;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Thin wrapper around Apache Commons CSV that applies a {@link BankCsvSchema} (delimiter, quote, header, skip lines) to
  * a decoded text input and yields raw row data. Field-level interpretation (mapping → typed values) lives in
- * {@code CsvImportService}.
+ * {@code CsvStatementParser}.
  */
 public final class CsvParser {
 
@@ -26,11 +28,7 @@ public final class CsvParser {
         try (CSVParser parser = buildFormat(schema, false)
                 .parse(new StringReader(line))) {
             for (CSVRecord record : parser) {
-                List<String> values = new ArrayList<>(record.size());
-                for (int i = 0; i < record.size(); i++) {
-                    values.add(record.get(i));
-                }
-                return values;
+                return toValues(record);
             }
             return List.of();
         } catch (IOException e) {
@@ -43,38 +41,59 @@ public final class CsvParser {
      * {@code skipLines}/{@code hasHeader} are honoured.
      */
     public static List<List<String>> parseAll(String text, BankCsvSchema schema) {
-        List<List<String>> rows = new ArrayList<>();
-        try (CSVParser parser = buildFormat(schema, true).parse(textReader(text, schema))) {
-            for (CSVRecord record : parser) {
-                List<String> values = new ArrayList<>(record.size());
-                for (int i = 0; i < record.size(); i++) {
-                    values.add(record.get(i));
-                }
-                rows.add(values);
-            }
-        } catch (IOException e) {
+        try (Stream<List<String>> rows = stream(new StringReader(text), schema)) {
+            return rows.toList();
+        } catch (UncheckedIOException e) {
             throw new IllegalArgumentException("Failed to parse CSV: " + e.getMessage(), e);
         }
-        return rows;
     }
 
-    private static Reader textReader(String text, BankCsvSchema schema) {
-        if (schema.getSkipLines() <= 0) {
-            return new StringReader(text);
+    /**
+     * Parses {@code reader} lazily, one record at a time, so arbitrarily large files can be processed with constant
+     * memory. Lines configured via {@code skipLines}/{@code hasHeader} are honoured. The stream must be closed, which
+     * also closes {@code reader}. I/O and decoding errors surface as {@link UncheckedIOException}, either right away
+     * (while the header is read) or while consuming the stream.
+     */
+    public static Stream<List<String>> stream(Reader reader, BankCsvSchema schema) {
+        try {
+            skipLines(reader, schema.getSkipLines());
+            CSVParser parser = buildFormat(schema, true).parse(reader);
+            return parser.stream()
+                    .map(CsvParser::toValues)
+                    .onClose(() -> {
+                        try {
+                            parser.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> toValues(CSVRecord record) {
+        List<String> values = new ArrayList<>(record.size());
+        for (int i = 0; i < record.size(); i++) {
+            values.add(record.get(i));
         }
-        // Drop the configured number of leading lines (metadata banners some banks export before the header).
+        return values;
+    }
+
+    /**
+     * Drops the configured number of leading lines (metadata banners some banks export before the header).
+     */
+    private static void skipLines(Reader reader, int lines) throws IOException {
         int skipped = 0;
-        int idx = 0;
-        while (skipped < schema.getSkipLines() && idx < text.length()) {
-            int newline = text.indexOf('\n', idx);
-            if (newline < 0) {
-                idx = text.length();
-                break;
+        while (skipped < lines) {
+            int c = reader.read();
+            if (c < 0) {
+                return;
+            }
+            if (c == '\n') {
+                skipped++;
             }
-            idx = newline + 1;
-            skipped++;
         }
-        return new StringReader(text.substring(idx));
     }
 
     private static CSVFormat buildFormat(BankCsvSchema schema, boolean honourHeader) {
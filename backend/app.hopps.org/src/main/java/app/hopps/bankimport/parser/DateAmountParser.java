@@ -2,17 +2,21 @@ package app.hopps.bankimport.parser;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoField;
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Parses dates and decimal amounts from CSV cells. Handles two-digit years via a configurable pivot year (Sparkasse
  * exports use {@code dd.MM.yy} — see bank-import-feature.md §2.3).
+ * <p>
+ * Imports and previews run on many threads at once, so compiled date patterns live in a bounded concurrent cache.
+ * Callers that parse many cells with the same settings should obtain a {@link CellFormat} once via {@link #forSchema}.
  */
 public final class DateAmountParser {
 
@@ -21,7 +25,16 @@ public final class DateAmountParser {
      */
     public static final int DEFAULT_PIVOT_YEAR = 2050;
 
-    private static final Map<String, DateTimeFormatter> FORMATTER_CACHE = new HashMap<>();
+    /**
+     * Schemas are user-defined, so the number of distinct patterns is unbounded in theory; in practice there are a
+     * handful. When the limit is hit the cache is simply dropped and refilled.
+     */
+    private static final int MAX_CACHED_PATTERNS = 256;
+
+    private static final ConcurrentMap<PatternKey, DatePattern> PATTERN_CACHE = new ConcurrentHashMap<>();
+
+    private record PatternKey(String pattern, int pivotYear) {
+    }
 
     private DateAmountParser() {
     }
@@ -31,39 +44,42 @@ public final class DateAmountParser {
     }
 
     public static LocalDate parseDate(String value, String pattern, int pivotYear) {
-        if (value == null) {
-            throw new IllegalArgumentException("Date value is null");
-        }
-        String trimmed = value.trim();
-        if (trimmed.isEmpty()) {
-            throw new IllegalArgumentException("Date value is empty");
-        }
-        DateTimeFormatter formatter = formatterFor(pattern, pivotYear);
+        return datePattern(pattern, pivotYear).parse(value);
+    }
+
+    /**
+     * Returns the parser for the cells of one schema. The date pattern is compiled once (and shared through the cache);
+     * the returned instance is immutable and safe to use from any thread. A blank or invalid pattern is not rejected
+     * here but, as with {@link #parseDate(String, String, int)}, by every date cell.
+     */
+    public static CellFormat forSchema(String datePattern, int pivotYear, char decimalSeparator,
+            Character thousandSeparator) {
+        DatePattern compiled;
         try {
-            return LocalDate.parse(trimmed, formatter);
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException(
-                    "Cannot parse '" + trimmed + "' as date with pattern '" + pattern + "'", e);
+            compiled = datePattern(datePattern, pivotYear);
+        } catch (IllegalArgumentException e) {
+            compiled = null;
         }
+        return new CellFormat(datePattern, pivotYear, compiled, decimalSeparator, thousandSeparator);
     }
 
-    private static DateTimeFormatter formatterFor(String pattern, int pivotYear) {
+    private static DatePattern datePattern(String pattern, int pivotYear) {
         if (pattern == null || pattern.isBlank()) {
             throw new IllegalArgumentException("Date pattern is blank");
         }
-        // Patterns containing a 2-digit year ("yy" but not "yyyy") need a pivot. Build a custom formatter once.
+        // Patterns containing a 2-digit year ("yy" but not "yyyy") need a pivot; for all others it is irrelevant.
         boolean hasTwoDigitYear = pattern.contains("yy") && !pattern.contains("yyyy");
-        String cacheKey = pattern + "|" + (hasTwoDigitYear ? pivotYear : "default");
-        DateTimeFormatter cached = FORMATTER_CACHE.get(cacheKey);
+        PatternKey key = new PatternKey(pattern, hasTwoDigitYear ? pivotYear : 0);
+        DatePattern cached = PATTERN_CACHE.get(key);
         if (cached != null) {
             return cached;
         }
-
-        DateTimeFormatter formatter = hasTwoDigitYear
+        if (PATTERN_CACHE.size() >= MAX_CACHED_PATTERNS) {
+            PATTERN_CACHE.clear();
+        }
+        return PATTERN_CACHE.computeIfAbsent(key, k -> new DatePattern(pattern, hasTwoDigitYear
                 ? buildFormatterWithPivot(pattern, pivotYear)
-                : DateTimeFormatter.ofPattern(pattern, Locale.GERMAN);
-        FORMATTER_CACHE.put(cacheKey, formatter);
-        return formatter;
+                : DateTimeFormatter.ofPattern(pattern, Locale.GERMAN), hasTwoDigitYear ? pivotYear - 100 : 0));
     }
 
     /**
@@ -118,6 +134,63 @@ public final class DateAmountParser {
      * ({@code 1,234.56}). Sign is preserved if present in the value.
      */
     public static BigDecimal parseAmount(String value, char decimalSeparator, Character thousandSeparator) {
+        if (value != null) {
+            BigDecimal fast = parsePlainAmount(value, decimalSeparator, thousandSeparator);
+            if (fast != null) {
+                return fast;
+            }
+        }
+        return parseAmountGeneral(value, decimalSeparator, thousandSeparator);
+    }
+
+    /**
+     * Single pass over the cell for the usual shape (optional leading sign, ASCII digits, separators, whitespace) with
+     * at most 18 digits. Returns {@code null} for anything else, which then goes through {@link #parseAmountGeneral} —
+     * so both paths accept and reject exactly the same input.
+     */
+    static BigDecimal parsePlainAmount(String value, char decimalSeparator, Character thousandSeparator) {
+        boolean hasThousandSeparator = thousandSeparator != null;
+        char thousand = hasThousandSeparator ? thousandSeparator : 0;
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        boolean signSeen = false;
+        boolean negative = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (hasThousandSeparator && c == thousand) {
+                continue;
+            }
+            if (c == decimalSeparator) {
+                if (scale >= 0) {
+                    return null;
+                }
+                scale = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (++digits > 18) {
+                    return null;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '+' || c == '-') {
+                if (signSeen || digits > 0 || scale >= 0) {
+                    return null;
+                }
+                signSeen = true;
+                negative = c == '-';
+            } else if (!Character.isWhitespace(c) && c != '\u00A0') {
+                return null;
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    private static BigDecimal parseAmountGeneral(String value, char decimalSeparator, Character thousandSeparator) {
         if (value == null) {
             throw new IllegalArgumentException("Amount value is null");
         }
@@ -148,4 +221,160 @@ public final class DateAmountParser {
             throw new IllegalArgumentException("Cannot parse '" + trimmed + "' as amount", e);
         }
     }
+
+    /**
+     * Parser for the date, amount and balance cells of one schema, obtained from {@link #forSchema}. Immutable and
+     * thread-safe.
+     */
+    public static final class CellFormat {
+
+        private final String pattern;
+        private final int pivotYear;
+        private final DatePattern datePattern;
+        private final char decimalSeparator;
+        private final Character thousandSeparator;
+
+        private CellFormat(String pattern, int pivotYear, DatePattern datePattern, char decimalSeparator,
+                Character thousandSeparator) {
+            this.pattern = pattern;
+            this.pivotYear = pivotYear;
+            this.datePattern = datePattern;
+            this.decimalSeparator = decimalSeparator;
+            this.thousandSeparator = thousandSeparator;
+        }
+
+        /** Same as {@link DateAmountParser#parseDate(String, String, int)} with this schema's pattern and pivot. */
+        public LocalDate parseDate(String value) {
+            if (datePattern == null) {
+                // Unusable pattern: report it for this cell, exactly like the static method does.
+                return DateAmountParser.parseDate(value, pattern, pivotYear);
+            }
+            return datePattern.parse(value);
+        }
+
+        /** Same as {@link DateAmountParser#parseAmount} with this schema's separators. */
+        public BigDecimal parseAmount(String value) {
+            return DateAmountParser.parseAmount(value, decimalSeparator, thousandSeparator);
+        }
+    }
+
+    /**
+     * A compiled date pattern. Purely numeric patterns made of {@code dd}, {@code MM}, {@code yy}/{@code yyyy} and
+     * separator characters (e.g. {@code dd.MM.yy}, {@code yyyy-MM-dd}) are parsed positionally, without the
+     * {@link DateTimeFormatter} machinery; every other pattern, and every cell the positional parser is not sure about
+     * (wrong length, out-of-range day), goes through the formatter so results and error messages stay the same.
+     */
+    private static final class DatePattern {
+
+        private final String pattern;
+        private final DateTimeFormatter formatter;
+        private final int twoDigitYearBase;
+        private final boolean positional;
+        private int dayIndex = -1;
+        private int monthIndex = -1;
+        private int yearIndex = -1;
+        private int yearLength;
+
+        DatePattern(String pattern, DateTimeFormatter formatter, int twoDigitYearBase) {
+            this.pattern = pattern;
+            this.formatter = formatter;
+            this.twoDigitYearBase = twoDigitYearBase;
+            this.positional = compile();
+        }
+
+        private boolean compile() {
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                int run = 1;
+                while (i + run < pattern.length() && pattern.charAt(i + run) == c) {
+                    run++;
+                }
+                if (c == 'd' && run == 2 && dayIndex < 0) {
+                    dayIndex = i;
+                } else if (c == 'M' && run == 2 && monthIndex < 0) {
+                    monthIndex = i;
+                } else if (c == 'y' && (run == 2 || run == 4) && yearIndex < 0) {
+                    yearIndex = i;
+                    yearLength = run;
+                } else if (Character.isLetter(c) || c == '\'' || c == '[' || c == ']' || c == '{' || c == '}'
+                        || c == '#') {
+                    return false;
+                }
+                i += run;
+            }
+            return dayIndex >= 0 && monthIndex >= 0 && yearIndex >= 0;
+        }
+
+        LocalDate parse(String value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Date value is null");
+            }
+            int start = 0;
+            int end = value.length();
+            while (start < end && value.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && value.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start == end) {
+                throw new IllegalArgumentException("Date value is empty");
+            }
+            if (positional && end - start == pattern.length()) {
+                LocalDate date = parsePositional(value, start);
+                if (date != null) {
+                    return date;
+                }
+            }
+            String trimmed = value.substring(start, end);
+            try {
+                return LocalDate.parse(trimmed, formatter);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(
+                        "Cannot parse '" + trimmed + "' as date with pattern '" + pattern + "'", e);
+            }
+        }
+
+        private LocalDate parsePositional(String value, int offset) {
+            for (int i = 0; i < pattern.length(); i++) {
+                boolean inField = (i >= dayIndex && i < dayIndex + 2) || (i >= monthIndex && i < monthIndex + 2)
+                        || (i >= yearIndex && i < yearIndex + yearLength);
+                if (!inField && value.charAt(offset + i) != pattern.charAt(i)) {
+                    return null;
+                }
+            }
+            int day = digits(value, offset + dayIndex, 2);
+            int month = digits(value, offset + monthIndex, 2);
+            int year = digits(value, offset + yearIndex, yearLength);
+            if (day < 1 || month < 1 || month > 12 || year < 0) {
+                return null;
+            }
+            if (yearLength == 2) {
+                // Same window as appendValueReduced(YEAR, 2, 2, base): the year in [base, base + 99] ending in yy.
+                year += twoDigitYearBase - Math.floorMod(twoDigitYearBase, 100);
+                if (year < twoDigitYearBase) {
+                    year += 100;
+                }
+            } else if (year == 0) {
+                return null;
+            }
+            if (day > 28 && day > YearMonth.of(year, month).lengthOfMonth()) {
+                return null;
+            }
+            return LocalDate.of(year, month, day);
+        }
+
+        private static int digits(String value, int from, int length) {
+            int result = 0;
+            for (int i = from; i < from + length; i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                result = result * 10 + (c - '0');
+            }
+            return result;
+        }
+    }
 }
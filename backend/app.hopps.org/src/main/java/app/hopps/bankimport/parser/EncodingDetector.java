@@ -2,7 +2,13 @@ package app.hopps.bankimport.parser;
 
 import org.mozilla.universalchardet.UniversalDetector;
 
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -54,6 +60,18 @@ public final class EncodingDetector {
         return decoded;
     }
 
+    /**
+     * Streaming counterpart of {@link #decodeStrict(byte[], Charset)}: wraps {@code in} in a {@link Reader} that
+     * decodes with {@code charset} and fails with a {@link java.nio.charset.CharacterCodingException} on the first
+     * malformed or unmappable byte sequence instead of silently substituting U+FFFD.
+     */
+    public static Reader strictReader(InputStream in, Charset charset) {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        return new BufferedReader(new InputStreamReader(in, decoder));
+    }
+
     /**
      * Convenience: detect and decode in one call. UTF-8 / UTF-16 with BOM are passed through; otherwise we fall back to
      * Windows-1252 if detection fails.
@@ -33,6 +33,39 @@ public class BankImportRepository implements PanacheRepository<BankImport> {
         return find("status = ?1", Sort.ascending("importedAt"), BankImportStatus.QUEUED).firstResultOptional();
     }
 
+    /**
+     * Worker-side: atomically moves up to {@code limit} QUEUED jobs to PROCESSING and returns their IDs, oldest first
+     * (no org scoping — runs as a system task). Safe to call concurrently from several threads and app replicas:
+     * <ul>
+     * <li>{@code FOR UPDATE SKIP LOCKED} lets concurrent claimers pass over rows another claimer is taking.</li>
+     * <li>Only the oldest QUEUED job of a bank account is eligible, and only while no job of that account is
+     * PROCESSING, so imports into the same account run strictly one after another and dedupe always sees the rows of
+     * the previous import.</li>
+     * </ul>
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> claimQueued(int limit) {
+        List<Number> ids = getEntityManager().createNativeQuery("""
+                UPDATE BankImport SET status = 'PROCESSING', startedAt = now()
+                WHERE id IN (
+                    SELECT b.id FROM BankImport b
+                    WHERE b.status = 'QUEUED'
+                      AND NOT EXISTS (SELECT 1 FROM BankImport p
+                                      WHERE p.bankAccount_id = b.bankAccount_id AND p.status = 'PROCESSING')
+                      AND NOT EXISTS (SELECT 1 FROM BankImport o
+                                      WHERE o.bankAccount_id = b.bankAccount_id AND o.status = 'QUEUED'
+                                        AND (o.importedAt < b.importedAt
+                                             OR (o.importedAt = b.importedAt AND o.id < b.id)))
+                    ORDER BY b.importedAt, b.id
+                    LIMIT :limit
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING id
+                """)
+                .setParameter("limit", limit)
+                .getResultList();
+        return ids.stream().map(Number::longValue).toList();
+    }
+
     /** Returns true if a QUEUED or PROCESSING import already references this file SHA for the given account. */
     public boolean existsActiveBySha(Long bankAccountId, String sha256) {
         return count(
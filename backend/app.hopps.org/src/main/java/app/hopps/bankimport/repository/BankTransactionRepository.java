@@ -2,6 +2,8 @@ package app.hopps.bankimport.repository;
 
 import app.hopps.bankimport.domain.BankTransaction;
 import app.hopps.bankimport.domain.BankTransactionStatus;
+import app.hopps.shared.repository.CursorPage;
+import app.hopps.shared.repository.SeekCursor;
 import app.hopps.shared.security.OrganizationContext;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.panache.common.Page;
@@ -22,6 +24,9 @@ import java.util.Set;
 @ApplicationScoped
 public class BankTransactionRepository implements PanacheRepository<BankTransaction> {
 
+    private static final String EXACT_AMOUNT_RANK = "CASE WHEN abs(t.amount) = :searchAmount "
+            + "OR abs(t.amount - t.matchedAmount) = :searchAmount THEN 0 ELSE 1 END";
+
     @Inject
     OrganizationContext organizationContext;
 
@@ -52,8 +57,12 @@ public class BankTransactionRepository implements PanacheRepository<BankTransact
      * When {@code search} is a numeric amount, exact amount matches (full or still-open) are ordered first so the
      * intended reconciliation candidate surfaces at the top and cannot be pushed off the page by the many
      * same-/similar-amount or textually matching transactions that a large account accumulates.
+     * <p>
+     * When a {@code cursor} from a previous page is given, the page starts right after it (keyset pagination, see
+     * {@link SeekCursor}) and {@code page.index} is ignored; otherwise the classic offset page is returned. Either way
+     * the result carries the cursor for the next page.
      */
-    public List<BankTransaction> findFiltered(
+    public CursorPage<BankTransaction> findFiltered(
             List<Long> accountIds,
             LocalDate fromDate,
             LocalDate toDate,
@@ -63,45 +72,83 @@ public class BankTransactionRepository implements PanacheRepository<BankTransact
             BigDecimal maxAmount,
             String sortBy,
             boolean ascending,
+            String cursor,
             Page page) {
         if (accountIds != null && accountIds.isEmpty()) {
-            return List.of();
+            return new CursorPage<>(List.of(), null);
         }
         Map<String, Object> params = new HashMap<>();
         String where = buildAggregateWhere(accountIds, fromDate, toDate, statuses, search, minAmount, maxAmount,
                 params);
-        String orderBy = buildOrderBy(sortBy, ascending, params.containsKey("searchAmount"));
+        BigDecimal searchAmount = (BigDecimal) params.get("searchAmount");
+        String column = sortColumn(sortBy);
+        List<SeekCursor.Key> keys = buildSortKeys(column, ascending, searchAmount != null);
+        String signature = "bank-transactions:" + column + (ascending ? ":asc" : ":desc")
+                + (searchAmount != null ? ":amount-first" : "");
+
+        SeekCursor after = SeekCursor.decode(cursor, signature);
+        int first = page.index * page.size;
+        if (after != null) {
+            where += " AND " + after.predicate(keys, params);
+            first = 0;
+        }
 
         var query = getEntityManager().createQuery(
-                "SELECT t FROM BankTransaction t WHERE " + where + " ORDER BY " + orderBy, BankTransaction.class);
+                "SELECT t FROM BankTransaction t WHERE " + where + " ORDER BY " + SeekCursor.orderBy(keys),
+                BankTransaction.class);
         params.forEach(query::setParameter);
-        query.setFirstResult(page.index * page.size);
-        query.setMaxResults(page.size);
-        return query.getResultList();
+        query.setFirstResult(first);
+        query.setMaxResults(page.size + 1);
+        return SeekCursor.page(query.getResultList(), page.size,
+                tx -> searchAmount != null
+                        ? SeekCursor.after(signature, exactAmountRank(tx, searchAmount), sortValue(tx, column),
+                                tx.getId())
+                        : SeekCursor.after(signature, sortValue(tx, column), tx.getId()));
     }
 
     /**
-     * Builds a whitelisted ORDER BY clause for the transaction listing. Only a fixed set of columns may be sorted on
-     * (to prevent injecting arbitrary JPQL paths); anything else falls back to {@code bookingDate}. When a numeric
-     * amount was searched for ({@code searchAmount} bound), exact amount matches are ranked first. A descending
-     * {@code id} is always appended as a stable tie-breaker.
+     * Whitelists the sortable columns (to prevent injecting arbitrary JPQL paths); anything else falls back to
+     * {@code bookingDate}.
      */
-    private static String buildOrderBy(String sortBy, boolean ascending, boolean hasSearchAmount) {
-        String column = switch (sortBy == null ? "" : sortBy) {
+    private static String sortColumn(String sortBy) {
+        return switch (sortBy == null ? "" : sortBy) {
             case "amount" -> "amount";
             case "counterpartyName" -> "counterpartyName";
             default -> "bookingDate";
         };
-        String direction = ascending ? "ASC" : "DESC";
-        StringBuilder orderBy = new StringBuilder();
+    }
+
+    /**
+     * The sort keys of the transaction listing. When a numeric amount was searched for ({@code searchAmount} bound),
+     * exact amount matches are ranked first. The {@code id} in the same direction is always appended as a stable
+     * tie-breaker, so one (column, id) index serves both directions.
+     */
+    private static List<SeekCursor.Key> buildSortKeys(String column, boolean ascending, boolean hasSearchAmount) {
+        List<SeekCursor.Key> keys = new ArrayList<>(3);
         if (hasSearchAmount) {
             // Exact amount matches (full amount or the still-open remainder) come first — same predicate as the
             // amount clause built in buildAggregateWhere, reusing its :searchAmount parameter.
-            orderBy.append(
-                    "CASE WHEN abs(t.amount) = :searchAmount OR abs(t.amount - t.matchedAmount) = :searchAmount THEN 0 ELSE 1 END ASC, ");
+            keys.add(SeekCursor.Key.of(EXACT_AMOUNT_RANK, true));
         }
-        orderBy.append("t.").append(column).append(' ').append(direction).append(", t.id DESC");
-        return orderBy.toString();
+        keys.add("counterpartyName".equals(column) ? SeekCursor.Key.nullable("t." + column, ascending)
+                : SeekCursor.Key.of("t." + column, ascending));
+        keys.add(SeekCursor.Key.of("t.id", ascending));
+        return keys;
+    }
+
+    /** Java side of {@link #EXACT_AMOUNT_RANK}, to put the rank of the last row of a page into the cursor. */
+    private static int exactAmountRank(BankTransaction tx, BigDecimal searchAmount) {
+        boolean exact = tx.getAmount().abs().compareTo(searchAmount) == 0
+                || tx.getAmount().subtract(tx.getMatchedAmount()).abs().compareTo(searchAmount) == 0;
+        return exact ? 0 : 1;
+    }
+
+    private static Object sortValue(BankTransaction tx, String column) {
+        return switch (column) {
+            case "amount" -> tx.getAmount();
+            case "counterpartyName" -> tx.getCounterpartyName();
+            default -> tx.getBookingDate();
+        };
     }
 
     /** Returns [sumIncoming, sumOutgoing] for the same filter set. Net = sumIncoming + sumOutgoing (signed). */
@@ -202,7 +249,8 @@ public class BankTransactionRepository implements PanacheRepository<BankTransact
             params.put("maxAmount", maxAmount.abs());
         }
         if (search != null && !search.isBlank()) {
-            where.append(" AND (lower(t.purpose) LIKE :search OR lower(t.counterpartyName) LIKE :search");
+            // searchText is the generated lower(purpose || ' ' || counterpartyName) column with a trigram index.
+            where.append(" AND (t.searchText LIKE :search");
             params.put("search", "%" + search.toLowerCase() + "%");
             BigDecimal amount = parseSearchAmount(search);
             if (amount != null) {
@@ -224,27 +272,9 @@ public class BankTransactionRepository implements PanacheRepository<BankTransact
         return delete("bankImport.id = ?1", importId);
     }
 
-    /**
-     * Computes the current balance as the account's opening balance plus the sum of all transaction amounts booked
-     * strictly after the opening balance date. Only transactions after that date are added, because the opening balance
-     * already reflects everything up to and including it — so after a gap-free import the result matches the balance
-     * shown by the bank. When no opening date is set, all transactions of the account are summed.
-     */
-    public BigDecimal computeBalance(Long bankAccountId, BigDecimal opening, LocalDate openingDate) {
-        String jpql = "SELECT COALESCE(SUM(t.amount), 0) FROM BankTransaction t WHERE t.bankAccount.id = :id"
-                + (openingDate != null ? " AND t.bookingDate > :openingDate" : "");
-        var query = getEntityManager().createQuery(jpql, BigDecimal.class)
-                .setParameter("id", bankAccountId);
-        if (openingDate != null) {
-            query.setParameter("openingDate", openingDate);
-        }
-        BigDecimal sum = query.getSingleResult();
-        return (opening == null ? BigDecimal.ZERO : opening).add(sum);
-    }
-
     public List<BankTransaction> findForAccount(Long bankAccountId, Page page) {
         return findFiltered(new ArrayList<>(List.of(bankAccountId)), null, null, null, null, null, null, null, false,
-                page);
+                null, page).items();
     }
 
     /**
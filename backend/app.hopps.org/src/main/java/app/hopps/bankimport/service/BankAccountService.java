@@ -5,7 +5,6 @@ import app.hopps.bankimport.api.dto.BankAccountUpdateRequest;
 import app.hopps.bankimport.domain.BankAccount;
 import app.hopps.bankimport.domain.BankCsvSchema;
 import app.hopps.bankimport.repository.BankAccountRepository;
-import app.hopps.bankimport.repository.BankTransactionRepository;
 import app.hopps.bommel.domain.Bommel;
 import app.hopps.bommel.repository.BommelRepository;
 import app.hopps.organization.domain.Organization;
@@ -17,7 +16,6 @@ import jakarta.transaction.Transactional;
 import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.NotFoundException;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -34,9 +32,6 @@ public class BankAccountService {
     @Inject
     BankAccountRepository bankAccountRepository;
 
-    @Inject
-    BankTransactionRepository bankTransactionRepository;
-
     @Inject
     BommelRepository bommelRepository;
 
@@ -58,15 +53,6 @@ public class BankAccountService {
         return account;
     }
 
-    /**
-     * Current balance of the account: the opening balance plus all transaction amounts booked after the opening balance
-     * date. After a gap-free import this matches the balance reported by the bank.
-     */
-    public BigDecimal computeBalance(BankAccount account) {
-        return bankTransactionRepository.computeBalance(
-                account.getId(), account.getOpeningBalance(), account.getOpeningBalanceDate());
-    }
-
     @Transactional
     public BankAccount create(BankAccountCreateRequest request) {
         Organization organization = requireOrganization();
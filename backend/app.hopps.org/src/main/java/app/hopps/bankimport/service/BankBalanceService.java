@@ -0,0 +1,160 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.BankAccount;
+import app.hopps.shared.security.OrganizationContext;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Current balances of bank accounts, read from the monthly {@code BankBalanceCheckpoint} rows that a trigger on
+ * {@code BankTransaction} keeps up to date (see migration V1.0.25). A balance is the opening balance plus all amounts
+ * booked strictly after the opening balance date: whole months come from the checkpoints, only the rest of the opening
+ * month is summed from the bank transactions. After a gap-free import this matches the balance reported by the bank.
+ * <p>
+ * The balances of all accounts of an organization are computed in one query. {@link #rebuild(long)} and
+ * {@link #rebuildAll()} recompute the checkpoints from the bank transactions for repair; a scheduled job runs the full
+ * rebuild periodically.
+ */
+@ApplicationScoped
+public class BankBalanceService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BankBalanceService.class);
+
+    private static final String BALANCE_SELECT = """
+            SELECT a.id,
+                   COALESCE(a.openingBalance, 0)
+                   + COALESCE((SELECT SUM(c.amount) FROM BankBalanceCheckpoint c
+                               WHERE c.bankAccount_id = a.id
+                                 AND (a.openingBalanceDate IS NULL OR c.month > a.openingBalanceDate)), 0)
+                   + COALESCE((SELECT SUM(t.amount) FROM BankTransaction t
+                               WHERE t.bankAccount_id = a.id
+                                 AND t.bookingDate > a.openingBalanceDate
+                                 AND t.bookingDate < CAST(date_trunc('month', a.openingBalanceDate)
+                                                          + INTERVAL '1 month' AS date)), 0)
+            FROM BankAccount a
+            """;
+
+    private static final String REBUILD_INSERT = """
+            INSERT INTO BankBalanceCheckpoint (bankAccount_id, month, amount, transactionCount)
+            SELECT bankAccount_id, CAST(date_trunc('month', bookingDate) AS date), SUM(amount), COUNT(*)
+            FROM BankTransaction
+            """;
+
+    private static final String REBUILD_GROUP_BY = " GROUP BY bankAccount_id, CAST(date_trunc('month', bookingDate) AS date)";
+
+    /** Rebuilt checkpoints replace whatever a concurrent rebuild wrote in the meantime. */
+    private static final String REBUILD_ON_CONFLICT = """
+             ON CONFLICT (bankAccount_id, month) DO UPDATE
+                 SET amount = excluded.amount, transactionCount = excluded.transactionCount
+            """;
+
+    /** Advisory lock namespace of the checkpoints; the triggers lock (25, organization id), see migration V1.0.25. */
+    private static final int LOCK_NAMESPACE = 25;
+    /** Advisory lock key of the scheduled full rebuild; organization keys are never negative. */
+    private static final int SCHEDULED_REBUILD_KEY = -1;
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    OrganizationContext organizationContext;
+
+    /** Balances of all bank accounts (including archived ones) of the current organization, by account id. */
+    public Map<Long, BigDecimal> balancesForCurrentOrganization() {
+        Long orgId = organizationContext.getCurrentOrganizationId();
+        if (orgId == null) {
+            return Map.of();
+        }
+        return balancesForOrganization(orgId);
+    }
+
+    /** Balances of all bank accounts (including archived ones) of the organization, by account id. */
+    public Map<Long, BigDecimal> balancesForOrganization(long organizationId) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(BALANCE_SELECT + " WHERE a.organization_id = :orgId")
+                .setParameter("orgId", organizationId)
+                .getResultList();
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (Object[] row : rows) {
+            balances.put(((Number) row[0]).longValue(), (BigDecimal) row[1]);
+        }
+        return balances;
+    }
+
+    /** Balance of a single account. */
+    public BigDecimal balanceOf(BankAccount account) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(BALANCE_SELECT + " WHERE a.id = :id")
+                .setParameter("id", account.getId())
+                .getResultList();
+        if (rows.isEmpty()) {
+            return account.getOpeningBalance() != null ? account.getOpeningBalance() : BigDecimal.ZERO;
+        }
+        return (BigDecimal) rows.get(0)[1];
+    }
+
+    /**
+     * Recomputes the checkpoints of one organization's accounts. Takes the organization's checkpoint lock exclusively;
+     * the triggers hold it shared from an import's first inserted chunk row until the chunk commits. So the rebuild
+     * starts only once in-flight chunks have committed, and chunks written meanwhile wait until the rebuild has
+     * committed and then add their rows on top of it.
+     */
+    @Transactional
+    public void rebuild(long organizationId) {
+        entityManager.createNativeQuery("SELECT true FROM pg_advisory_xact_lock(:namespace, "
+                + "CAST(mod(:orgId, 2147483647) AS integer))")
+                .setParameter("namespace", LOCK_NAMESPACE)
+                .setParameter("orgId", organizationId)
+                .getSingleResult();
+        entityManager.createNativeQuery("DELETE FROM BankBalanceCheckpoint WHERE bankAccount_id IN "
+                + "(SELECT id FROM BankAccount WHERE organization_id = :orgId)")
+                .setParameter("orgId", organizationId)
+                .executeUpdate();
+        entityManager.createNativeQuery(REBUILD_INSERT + " WHERE organization_id = :orgId" + REBUILD_GROUP_BY
+                + REBUILD_ON_CONFLICT)
+                .setParameter("orgId", organizationId)
+                .executeUpdate();
+    }
+
+    /**
+     * Recomputes the checkpoints of all accounts in one transaction. The {@code SHARE} lock on {@code BankTransaction}
+     * waits for in-flight import chunks and blocks new ones until the rebuild has committed.
+     */
+    @Transactional
+    public void rebuildAll() {
+        entityManager.createNativeQuery("LOCK TABLE BankTransaction IN SHARE MODE").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM BankBalanceCheckpoint").executeUpdate();
+        int rows = entityManager.createNativeQuery(REBUILD_INSERT + REBUILD_GROUP_BY + REBUILD_ON_CONFLICT)
+                .executeUpdate();
+        LOG.info("Rebuilt bank balance checkpoints ({} rows)", rows);
+    }
+
+    /**
+     * Runs the full rebuild on one replica only: every replica fires at the same cron tick, and those that find the
+     * lock taken skip the run.
+     */
+    @Scheduled(cron = "{app.hopps.bankimport.balance.rebuild-cron}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void scheduledRebuild() {
+        boolean acquired = (Boolean) entityManager
+                .createNativeQuery("SELECT pg_try_advisory_xact_lock(:namespace, :key)")
+                .setParameter("namespace", LOCK_NAMESPACE)
+                .setParameter("key", SCHEDULED_REBUILD_KEY)
+                .getSingleResult();
+        if (!acquired) {
+            LOG.info("Bank balance checkpoint rebuild is running on another replica, skipping");
+            return;
+        }
+        rebuildAll();
+    }
+}
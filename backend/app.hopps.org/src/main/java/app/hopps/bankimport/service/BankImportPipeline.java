@@ -0,0 +1,288 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.BankImport;
+import app.hopps.bankimport.domain.BankTransaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Format-agnostic bank import: runs a claimed {@link BankImport} (status=PROCESSING) through the
+ * {@link BankStatementParser} registered for its file type and persists the finished status (COMPLETED / PARTIAL /
+ * FAILED) before returning. Called by {@code BankImportWorker} from its worker pool; imports into the same bank account
+ * never run concurrently.
+ * <p>
+ * The file is streamed from S3 into the parser. Entries are collected in chunks of
+ * {@link BankTransactionBatchWriter#CHUNK_SIZE}, mapped to {@link BankTransaction}s with their dedupe key and handed to
+ * {@link BankTransactionBatchWriter}, which dedupes, batch-inserts and commits each chunk on its own. Row-level errors
+ * are skipped and reported (Q15); fatal errors abort the whole job and remove the rows already committed. The time
+ * spent parsing, mapping/hashing and persisting is logged with the result of every import. Once the import is complete,
+ * match suggestions are computed for its unmatched rows.
+ */
+@ApplicationScoped
+public class BankImportPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BankImportPipeline.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+    /** Cap on the number of error rows reported back; everything past this is just counted. */
+    private static final int MAX_REPORTED_ERRORS = 500;
+
+    @Inject
+    Instance<BankStatementParser> parsers;
+
+    @Inject
+    DedupeHashService dedupeHashService;
+
+    @Inject
+    ImportFileStorageService fileStorage;
+
+    @Inject
+    BankTransactionBatchWriter batchWriter;
+
+    @Inject
+    BankTransactionMatchSuggestionService suggestionService;
+
+    public void runImport(Long importId) {
+        ImportRun run;
+        try {
+            run = startRun(importId);
+        } catch (RuntimeException e) {
+            LOG.error("Import {} could not be started", importId, e);
+            batchWriter.abort(importId, e.getMessage());
+            return;
+        }
+        if (run == null) {
+            LOG.warn("BankImport {} not found, skipping", importId);
+            return;
+        }
+
+        try {
+            streamEntries(run);
+            batchWriter.complete(importId, run.counters, run.errors);
+            LOG.info("{} import {} done: total={}, imported={}, duplicate={}, error={}, {}",
+                    run.fileType, importId, run.counters.getTotalRows(), run.counters.getImportedRows(),
+                    run.counters.getDuplicateRows(), run.counters.getErrorRows(), run.timings);
+
+        } catch (RuntimeException fatal) {
+            LOG.error("{} import {} failed", run.fileType, importId, fatal);
+            // Fatal errors (e.g. wrong encoding) may only show up halfway through the file, after earlier chunks have
+            // been committed — abort() removes them again.
+            batchWriter.abort(importId, fatal.getMessage());
+            return;
+        }
+        suggestMatches(importId);
+    }
+
+    /**
+     * Pre-matches the imported rows against the open bookkeeping transactions. Runs after the import is committed and
+     * must never fail it — the suggestions can always be recomputed on request.
+     */
+    private void suggestMatches(Long importId) {
+        try {
+            suggestionService.refreshForImport(importId);
+        } catch (RuntimeException e) {
+            LOG.warn("Match suggestions for import {} failed", importId, e);
+        }
+    }
+
+    /** Loads everything the import needs from the job, so the rest of the run does not depend on a session. */
+    @Transactional
+    ImportRun startRun(Long importId) {
+        BankImport job = BankImport.findById(importId);
+        if (job == null) {
+            return null;
+        }
+        BankStatementParser parser = parserFor(job.getFileType());
+        return new ImportRun(job, parser.prepare(job));
+    }
+
+    private BankStatementParser parserFor(String fileType) {
+        for (BankStatementParser parser : parsers) {
+            if (parser.getFileType().equals(fileType)) {
+                return parser;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported file type: " + fileType);
+    }
+
+    private void streamEntries(ImportRun run) {
+        try (CountingInputStream in = new CountingInputStream(fileStorage.openImportFile(run.s3FileKey));
+                Stream<StatementEntry> entries = run.reader.read(in)) {
+            List<StatementEntry> chunk = new ArrayList<>(BankTransactionBatchWriter.CHUNK_SIZE);
+            Iterator<StatementEntry> it = entries.iterator();
+            long started = System.nanoTime();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == BankTransactionBatchWriter.CHUNK_SIZE) {
+                    run.timings.parseNanos += System.nanoTime() - started;
+                    processChunk(run, chunk, percent(in.count(), run.fileSize));
+                    chunk.clear();
+                    started = System.nanoTime();
+                }
+            }
+            run.timings.parseNanos += System.nanoTime() - started;
+            processChunk(run, chunk, 99);
+        } catch (UncheckedIOException e) {
+            if (e.getCause() instanceof CharacterCodingException) {
+                throw new IllegalArgumentException("File cannot be decoded with the configured encoding — wrong "
+                        + "encoding?", e);
+            }
+            throw new IllegalArgumentException("Failed to read " + run.fileType + " file: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Maps and dedupe-hashes one chunk of entries and hands the valid ones to the batch writer. */
+    private void processChunk(ImportRun run, List<StatementEntry> chunk, int progress) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        run.counters.addTotal(chunk.size());
+
+        List<BankTransactionBatchWriter.KeyedTransaction> transactions = new ArrayList<>(chunk.size());
+        for (StatementEntry entry : chunk) {
+            if (entry.isFailed()) {
+                run.counters.addError();
+                appendError(run.errors, entry, entry.error());
+                continue;
+            }
+            try {
+                transactions.add(toTransaction(entry, run.defaultCurrency));
+            } catch (Exception rowError) {
+                run.counters.addError();
+                appendError(run.errors, entry, rowError.getMessage());
+            }
+        }
+        long mapped = System.nanoTime();
+        run.timings.mapNanos += mapped - started;
+
+        batchWriter.persistChunk(run.target, transactions, run.counters, progress);
+        run.timings.persistNanos += System.nanoTime() - mapped;
+    }
+
+    private BankTransactionBatchWriter.KeyedTransaction toTransaction(StatementEntry entry, String defaultCurrency) {
+        StatementEntry.Row row = entry.row();
+        BankTransaction tx = new BankTransaction();
+        tx.setBookingDate(row.bookingDate());
+        tx.setValueDate(row.valueDate());
+        tx.setAmount(row.amount());
+        tx.setCurrency(row.currency() != null ? row.currency() : defaultCurrency);
+        tx.setPurpose(row.purpose());
+        tx.setCounterpartyName(row.counterpartyName());
+        tx.setCounterpartyIban(row.counterpartyIban());
+        tx.setCounterpartyBic(row.counterpartyBic());
+        tx.setTransactionType(row.transactionType());
+        tx.setBankReference(row.bankReference());
+        tx.setEndToEndReference(row.endToEndReference());
+        tx.setMandateReference(row.mandateReference());
+        tx.setCreditorId(row.creditorId());
+        tx.setBalanceAfter(row.balanceAfter());
+        tx.setRawRow(entry.rawRow());
+        DedupeKey key = dedupeHashService.computeKey(
+                row.bookingDate(),
+                row.amount(),
+                row.counterpartyIban(),
+                row.endToEndReference(),
+                row.purpose());
+        return new BankTransactionBatchWriter.KeyedTransaction(key, tx);
+    }
+
+    private static int percent(long done, long total) {
+        return total == 0 ? 100 : (int) Math.min(99, (done * 100) / total);
+    }
+
+    private static void appendError(ArrayNode errors, StatementEntry entry, String message) {
+        if (errors.size() >= MAX_REPORTED_ERRORS) {
+            return;
+        }
+        ObjectNode error = JSON.createObjectNode();
+        error.put("rowNumber", entry.rowNumber());
+        error.put("rawRow", entry.rawRow() == null ? "" : entry.rawRow());
+        error.put("message", message);
+        errors.add(error);
+    }
+
+    /** State of one import run, carried across chunks. */
+    static final class ImportRun {
+        final BankTransactionBatchWriter.ImportTarget target;
+        final String fileType;
+        final String s3FileKey;
+        final long fileSize;
+        final String defaultCurrency;
+        final BankStatementParser.StatementReader reader;
+        final ImportCounters counters = new ImportCounters();
+        final ArrayNode errors = JSON.createArrayNode();
+        final StageTimings timings = new StageTimings();
+
+        ImportRun(BankImport job, BankStatementParser.StatementReader reader) {
+            this.target = BankTransactionBatchWriter.ImportTarget.of(job);
+            this.fileType = job.getFileType();
+            this.s3FileKey = job.getS3FileKey();
+            this.fileSize = job.getFileSize();
+            this.defaultCurrency = job.getBankAccount().getCurrency();
+            this.reader = reader;
+        }
+    }
+
+    /** Wall-clock time spent per pipeline stage, summed over all chunks. */
+    static final class StageTimings {
+        long parseNanos;
+        long mapNanos;
+        long persistNanos;
+
+        @Override
+        public String toString() {
+            return "parse=" + parseNanos / 1_000_000 + "ms, map=" + mapNanos / 1_000_000 + "ms, persist="
+                    + persistNanos / 1_000_000 + "ms";
+        }
+    }
+
+    /** Counts the bytes read from the underlying stream, used to report progress without knowing the row count. */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
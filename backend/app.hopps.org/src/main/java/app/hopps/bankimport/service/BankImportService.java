@@ -3,13 +3,16 @@ package app.hopps.bankimport.service;
 import app.hopps.bankimport.domain.BankAccount;
 import app.hopps.bankimport.domain.BankCsvSchema;
 import app.hopps.bankimport.domain.BankImport;
+import app.hopps.bankimport.domain.BankImportQueuedEvent;
 import app.hopps.bankimport.domain.BankImportStatus;
+import app.hopps.bankimport.parser.CamtParser;
 import app.hopps.bankimport.parser.Mt940Parser;
 import app.hopps.bankimport.repository.BankImportRepository;
 import app.hopps.bankimport.repository.BankTransactionRepository;
 import app.hopps.shared.security.OrganizationContext;
 import io.quarkus.security.identity.SecurityIdentity;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.BadRequestException;
@@ -26,7 +29,7 @@ import java.util.List;
 /**
  * Coordinates the user-facing side of the import lifecycle: enqueueing a new job, listing per-account history, fetching
  * status, and rolling back transactions of a failed/unwanted import. The actual parsing happens in
- * {@link CsvImportService}, kicked off asynchronously by {@link BankImportWorker}.
+ * {@link BankImportPipeline}, kicked off asynchronously by {@link BankImportWorker}.
  */
 @ApplicationScoped
 public class BankImportService {
@@ -54,9 +57,12 @@ public class BankImportService {
     @Inject
     SecurityIdentity securityIdentity;
 
+    @Inject
+    Event<BankImportQueuedEvent> importQueuedEvent;
+
     /**
      * Reads the uploaded file, validates the request, archives the original to S3 and enqueues a {@link BankImport}
-     * record in {@code QUEUED} state. The worker will pick it up within a few seconds.
+     * record in {@code QUEUED} state. The worker is woken up as soon as the enqueueing transaction commits.
      */
     @Transactional
     public BankImport enqueueImport(Long bankAccountId, Long schemaId, String fileName, long fileSize,
@@ -75,7 +81,9 @@ public class BankImportService {
         // Detect file type
         String fileType;
         BankCsvSchema schema = null;
-        if (Mt940Parser.isMt940(content)) {
+        if (CamtParser.isCamt(content)) {
+            fileType = "CAMT";
+        } else if (Mt940Parser.isMt940(content)) {
             fileType = "MT940";
         } else {
             if (schemaId == null) {
@@ -107,6 +115,7 @@ public class BankImportService {
         job.persist();
         LOG.info("Bank import queued: id={}, account={}, file={}, sha={}",
                 job.getId(), bankAccountId, fileName, sha256);
+        importQueuedEvent.fire(new BankImportQueuedEvent(job.getId()));
         return job;
     }
 
@@ -1,96 +1,184 @@
 package app.hopps.bankimport.service;
 
 import app.hopps.bankimport.domain.BankImport;
+import app.hopps.bankimport.domain.BankImportQueuedEvent;
 import app.hopps.bankimport.domain.BankImportStatus;
+import app.hopps.bankimport.repository.BankImportRepository;
+import app.hopps.bankimport.repository.BankTransactionRepository;
 import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * In-process polling worker that picks up QUEUED {@link BankImport} jobs and runs them via {@link CsvImportService}.
- * Runs at most one job per tick; with {@code concurrentExecution = SKIP} long imports do not back up the scheduler. A
- * second scheduled task acts as a watchdog for crashed workers (Q13 / §4.6).
+ * In-process worker pool that picks up QUEUED {@link BankImport} jobs and runs them through the
+ * {@link BankImportPipeline}. Up to {@code app.hopps.bankimport.worker.concurrency} jobs run in parallel; jobs are
+ * claimed with {@link BankImportRepository#claimQueued(int)}, which keeps imports into the same bank account strictly
+ * serialized and lets several app replicas share the queue.
+ * <p>
+ * The pool is refilled whenever a job finishes and right after a new job is enqueued on this node; the scheduled poll
+ * only picks up jobs enqueued on other replicas. A second scheduled task acts as a watchdog for crashed workers (Q13 /
+ * §4.6).
  */
 @ApplicationScoped
 public class BankImportWorker {
 
     private static final Logger LOG = LoggerFactory.getLogger(BankImportWorker.class);
-    /** A worker that has been PROCESSING this long is presumed dead — flip it to FAILED so it doesn't hang forever. */
+    /**
+     * A worker that has not committed a chunk for this long is presumed dead — flip it to FAILED so it doesn't hang
+     * forever. Every committed chunk refreshes {@code startedAt}, so long imports stay alive as long as they progress.
+     */
     private static final Duration STUCK_THRESHOLD = Duration.ofMinutes(30);
 
     @Inject
-    CsvImportService importService;
+    BankImportPipeline pipeline;
 
     @Inject
-    Mt940ImportService mt940ImportService;
+    BankImportRepository importRepository;
+
+    @Inject
+    BankTransactionRepository transactionRepository;
+
+    @Inject
+    ManagedExecutor executor;
+
+    @ConfigProperty(name = "app.hopps.bankimport.worker.concurrency", defaultValue = "4")
+    int concurrency;
+
+    /** Number of jobs claimed by this node that have not finished yet. */
+    private final AtomicInteger running = new AtomicInteger();
 
     @Scheduled(every = "5s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
     public void pollQueue() {
-        Long claimedId = claimNextJob();
-        if (claimedId == null) {
+        dispatch();
+    }
+
+    /**
+     * Wakes the pool as soon as the enqueueing transaction has committed. Dispatching happens on the executor so the
+     * claim runs in its own transaction and the request thread is not held up.
+     */
+    void onImportQueued(@Observes(during = TransactionPhase.AFTER_SUCCESS) BankImportQueuedEvent event) {
+        executor.runAsync(this::dispatch);
+    }
+
+    /**
+     * Claims as many jobs as there are free slots and submits them to the executor. Synchronized so concurrent triggers
+     * (poll, enqueue, job completion) do not over-claim beyond {@link #concurrency}.
+     */
+    synchronized void dispatch() {
+        int free = concurrency - running.get();
+        if (free <= 0) {
             return;
         }
-        try {
-            String fileType = getFileType(claimedId);
-            if ("MT940".equals(fileType)) {
-                mt940ImportService.runImport(claimedId);
-            } else {
-                importService.runImport(claimedId);
+        List<Long> claimed = claimJobs(free);
+        for (Long importId : claimed) {
+            running.incrementAndGet();
+            try {
+                executor.runAsync(() -> process(importId))
+                        .whenComplete((ignored, error) -> {
+                            running.decrementAndGet();
+                            // Refill the freed slot right away — this is also what starts the next queued import of
+                            // the same account.
+                            dispatch();
+                        });
+            } catch (RejectedExecutionException e) {
+                running.decrementAndGet();
+                LOG.warn("Executor rejected import {}, re-queueing", importId);
+                requeue(importId);
             }
+        }
+    }
+
+    void process(Long importId) {
+        try {
+            pipeline.runImport(importId);
         } catch (Exception e) {
-            // CsvImportService is supposed to set FAILED on its own in the unhappy path, but if the transaction
+            // BankImportPipeline is supposed to set FAILED on its own in the unhappy path, but if the transaction
             // itself blew up we mark the job here.
-            LOG.error("Worker failed processing import {}", claimedId, e);
-            markFailed(claimedId, "Worker exception: " + e.getMessage());
+            LOG.error("Worker failed processing import {}", importId, e);
+            markFailed(importId, "Worker exception: " + e.getMessage());
         }
     }
 
+    /**
+     * Fails imports whose last heartbeat is older than {@link #STUCK_THRESHOLD}. Their worker may already have
+     * committed some chunks, so the transactions of a failed import are deleted as well.
+     */
     @Scheduled(every = "10m")
     @Transactional
     public void watchdog() {
         Instant cutoff = Instant.now().minus(STUCK_THRESHOLD);
-        long stuck = BankImport.update(
-                "status = ?1, finishedAt = ?2, failureReason = ?3 " +
-                        "where status = ?4 and startedAt < ?5",
-                BankImportStatus.FAILED, Instant.now(), "Worker timeout (>30m PROCESSING)",
-                BankImportStatus.PROCESSING, cutoff);
-        if (stuck > 0) {
-            LOG.warn("Watchdog reset {} stuck import job(s) to FAILED", stuck);
+        List<BankImport> stuck = BankImport.list("status = ?1 and startedAt < ?2", BankImportStatus.PROCESSING,
+                cutoff);
+        int failed = 0;
+        for (BankImport job : stuck) {
+            // Re-checks the heartbeat, so a chunk committed since the list was read keeps its job alive
+            if (fail(job.getId(), "Worker timeout (>30m PROCESSING)", cutoff)) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            LOG.warn("Watchdog reset {} stuck import job(s) to FAILED", failed);
         }
     }
 
     @Transactional
-    String getFileType(Long importId) {
-        BankImport job = BankImport.findById(importId);
-        return job != null ? job.getFileType() : "CSV";
+    List<Long> claimJobs(int limit) {
+        return importRepository.claimQueued(limit);
     }
 
     @Transactional
-    Long claimNextJob() {
-        Optional<BankImport> next = BankImport.find("status", BankImportStatus.QUEUED).firstResultOptional();
-        if (next.isEmpty()) {
-            return null;
+    void requeue(Long importId) {
+        BankImport job = BankImport.findById(importId);
+        if (job != null && job.getStatus() == BankImportStatus.PROCESSING) {
+            job.setStatus(BankImportStatus.QUEUED);
+            job.setStartedAt(null);
         }
-        BankImport job = next.get();
-        job.setStatus(BankImportStatus.PROCESSING);
-        job.setStartedAt(Instant.now());
-        return job.getId();
     }
 
     @Transactional
     void markFailed(Long importId, String reason) {
-        BankImport job = BankImport.findById(importId);
-        if (job != null && job.getStatus() == BankImportStatus.PROCESSING) {
-            job.setStatus(BankImportStatus.FAILED);
-            job.setFailureReason(reason);
-            job.setFinishedAt(Instant.now());
+        fail(importId, reason, null);
+    }
+
+    /**
+     * Flips the job to FAILED if it is still PROCESSING, then deletes the transactions of the chunks it already
+     * committed, so a failed import leaves nothing behind (like
+     * {@link BankTransactionBatchWriter#abort(Long, String)}). The status is flipped first: a chunk committing
+     * concurrently either holds the job's row until it is done, which makes the update re-check its heartbeat, or finds
+     * the job FAILED and rolls back.
+     *
+     * @param heartbeatBefore
+     *            if not null, the job is only failed if its last heartbeat is older than this
+     *
+     * @return whether the job was failed
+     */
+    private boolean fail(Long importId, String reason, Instant heartbeatBefore) {
+        String query = "status = ?1, failureReason = ?2, finishedAt = ?3 where id = ?4 and status = ?5";
+        int updated = heartbeatBefore == null
+                ? BankImport.update(query, BankImportStatus.FAILED, reason, Instant.now(), importId,
+                        BankImportStatus.PROCESSING)
+                : BankImport.update(query + " and startedAt < ?6", BankImportStatus.FAILED, reason, Instant.now(),
+                        importId, BankImportStatus.PROCESSING, heartbeatBefore);
+        if (updated == 0) {
+            return false;
+        }
+        long deleted = transactionRepository.deleteByImport(importId);
+        if (deleted > 0) {
+            LOG.info("Deleted {} transaction(s) of failed import {}", deleted, importId);
         }
+        return true;
     }
 }
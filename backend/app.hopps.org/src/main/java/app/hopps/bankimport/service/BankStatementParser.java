@@ -0,0 +1,52 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.BankImport;
+
+import java.io.InputStream;
+import java.util.stream.Stream;
+
+/**
+ * SPI for the file formats a bank statement can be imported from. Implementations only turn a file into normalized
+ * {@link StatementEntry statement entries}; hashing, dedupe, persistence and progress reporting are done once for all
+ * formats by {@link BankImportPipeline}. Implementations are CDI beans and are picked by
+ * {@link BankImport#getFileType()}.
+ */
+public interface BankStatementParser {
+
+    /**
+     * Returns the file type this parser handles, as stored in {@link BankImport#getFileType()}.
+     *
+     * @return the file type (e.g. "CSV", "MT940")
+     */
+    String getFileType();
+
+    /**
+     * Captures everything the parser needs from the job (e.g. the CSV schema). Called inside the transaction that loads
+     * the job; the returned reader runs later without a session and must not touch the entity any more.
+     *
+     * @param job
+     *            the import job, managed
+     *
+     * @return a reader bound to the job's configuration
+     */
+    StatementReader prepare(BankImport job);
+
+    /** Parser bound to the configuration of one import job. */
+    @FunctionalInterface
+    interface StatementReader {
+
+        /**
+         * Parses the statement file. The stream should be lazy where the format allows it, so that memory use does not
+         * grow with the file size; it is closed by the caller. Rows that cannot be parsed are emitted as
+         * {@link StatementEntry#failed failed entries}; problems with the file as a whole (wrong encoding, broken
+         * structure) are thrown as {@link IllegalArgumentException} or {@link java.io.UncheckedIOException} and abort
+         * the import.
+         *
+         * @param in
+         *            the raw file content
+         *
+         * @return the statement entries in file order
+         */
+        Stream<StatementEntry> read(InputStream in);
+    }
+}
@@ -0,0 +1,157 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.BankAccount;
+import app.hopps.bankimport.domain.BankImport;
+import app.hopps.bankimport.domain.BankImportStatus;
+import app.hopps.bankimport.domain.BankTransaction;
+import app.hopps.bankimport.repository.BankTransactionRepository;
+import app.hopps.organization.domain.Organization;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk persistence path for {@link BankTransaction}s created by an import. Each call to
+ * {@link #persistChunk(ImportTarget, List, ImportCounters, int)} runs in its own transaction: it drops duplicates,
+ * inserts the remaining rows as JDBC batches ({@code quarkus.hibernate-orm.jdbc.statement-batch-size}), flushes and
+ * clears the persistence context after every batch and records the job's progress — so a large import neither holds one
+ * huge transaction open nor accumulates managed entities, and its progress is visible to other sessions while it runs.
+ * <p>
+ * Because chunks are committed independently, a failing import has to be rolled back explicitly with
+ * {@link #abort(Long, String)}. The progress update of every chunk doubles as the job's heartbeat for the
+ * {@link BankImportWorker#watchdog() watchdog}: it refreshes {@code startedAt} and only applies while the job is still
+ * PROCESSING, so a job the watchdog has failed in the meantime cannot receive further rows or be completed.
+ */
+@ApplicationScoped
+public class BankTransactionBatchWriter {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    /** Rows an importer hands over per {@link #persistChunk} call, i.e. per committed transaction. */
+    public static final int CHUNK_SIZE = 500;
+
+    @Inject
+    BankTransactionRepository transactionRepository;
+
+    @ConfigProperty(name = "quarkus.hibernate-orm.jdbc.statement-batch-size", defaultValue = "50")
+    int batchSize;
+
+    /** The import the written transactions belong to. */
+    public record ImportTarget(Long importId, Long organizationId, Long bankAccountId) {
+
+        public static ImportTarget of(BankImport job) {
+            return new ImportTarget(job.getId(), job.getOrganization().getId(), job.getBankAccount().getId());
+        }
+    }
+
+    /** A transaction to import with its dedupe key; the stored hex hash is derived from the key when it is written. */
+    public record KeyedTransaction(DedupeKey key, BankTransaction transaction) {
+    }
+
+    /**
+     * Inserts the given transactions in a new transaction, skipping those whose dedupe hash already exists on the
+     * account (including rows committed by earlier chunks of the same import) or occurs twice within the chunk.
+     * Organization, account, import and dedupe hash are set by this method; everything else must be filled in by the
+     * caller.
+     *
+     * @param counters
+     *            updated with the imported and duplicate rows of this chunk; total and error rows are maintained by the
+     *            caller
+     * @param progress
+     *            the job's progress in percent after this chunk
+     *
+     * @throws IllegalStateException
+     *             if the import is no longer PROCESSING; the chunk is rolled back
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void persistChunk(ImportTarget target, List<KeyedTransaction> transactions, ImportCounters counters,
+            int progress) {
+        Set<String> hashes = new HashSet<>();
+        for (KeyedTransaction keyed : transactions) {
+            hashes.add(keyed.key().hex());
+        }
+        Set<DedupeKey> existing = new HashSet<>();
+        for (String hash : transactionRepository.findExistingDedupeHashes(target.bankAccountId(), hashes)) {
+            existing.add(DedupeKey.fromHex(hash));
+        }
+
+        EntityManager em = transactionRepository.getEntityManager();
+        Set<DedupeKey> seenInThisChunk = new HashSet<>();
+        int pending = 0;
+        for (KeyedTransaction keyed : transactions) {
+            DedupeKey key = keyed.key();
+            if (existing.contains(key) || !seenInThisChunk.add(key)) {
+                counters.addDuplicate();
+                continue;
+            }
+            BankTransaction tx = keyed.transaction();
+            tx.setDedupeHash(key.hex());
+            // References are re-obtained per row: they are cheap proxies, but become detached by clear() below.
+            tx.setOrganization(em.getReference(Organization.class, target.organizationId()));
+            tx.setBankAccount(em.getReference(BankAccount.class, target.bankAccountId()));
+            tx.setBankImport(em.getReference(BankImport.class, target.importId()));
+            em.persist(tx);
+            counters.addImported();
+
+            if (++pending == batchSize) {
+                em.flush();
+                em.clear();
+                pending = 0;
+            }
+        }
+        em.flush();
+        em.clear();
+
+        int updated = BankImport.update("progress = ?1, totalRows = ?2, importedRows = ?3, duplicateRows = ?4, "
+                + "errorRows = ?5, startedAt = ?6 where id = ?7 and status = ?8",
+                progress, counters.getTotalRows(), counters.getImportedRows(), counters.getDuplicateRows(),
+                counters.getErrorRows(), Instant.now(), target.importId(), BankImportStatus.PROCESSING);
+        if (updated == 0) {
+            throw new IllegalStateException("Import " + target.importId() + " is no longer PROCESSING");
+        }
+    }
+
+    /**
+     * Marks the import as finished (COMPLETED, or PARTIAL when rows failed) with its final counters and error report.
+     *
+     * @throws IllegalStateException
+     *             if the import is no longer PROCESSING, e.g. because the watchdog failed it
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void complete(Long importId, ImportCounters counters, ArrayNode errors) {
+        String errorReport = null;
+        if (errors.size() > 0) {
+            ObjectNode report = JSON.createObjectNode();
+            report.set("errors", errors);
+            errorReport = report.toString();
+        }
+        BankImportStatus status = counters.getErrorRows() > 0 ? BankImportStatus.PARTIAL : BankImportStatus.COMPLETED;
+        int updated = BankImport.update("status = ?1, totalRows = ?2, importedRows = ?3, duplicateRows = ?4, "
+                + "errorRows = ?5, progress = 100, finishedAt = ?6, errorReport = ?7 where id = ?8 and status = ?9",
+                status, counters.getTotalRows(), counters.getImportedRows(), counters.getDuplicateRows(),
+                counters.getErrorRows(), Instant.now(), errorReport, importId, BankImportStatus.PROCESSING);
+        if (updated == 0) {
+            throw new IllegalStateException("Import " + importId + " is no longer PROCESSING");
+        }
+    }
+
+    /**
+     * Marks the import as FAILED and deletes every transaction its already committed chunks inserted, so a failed
+     * import leaves nothing behind. A job that is no longer PROCESSING keeps the status and reason it already has.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void abort(Long importId, String reason) {
+        transactionRepository.deleteByImport(importId);
+        BankImport.update("status = ?1, failureReason = ?2, finishedAt = ?3 where id = ?4 and status = ?5",
+                BankImportStatus.FAILED, reason, Instant.now(), importId, BankImportStatus.PROCESSING);
+    }
+}
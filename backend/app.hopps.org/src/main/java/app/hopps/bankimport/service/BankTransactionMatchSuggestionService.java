@@ -0,0 +1,250 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.BankImport;
+import app.hopps.bankimport.domain.BankTransaction;
+import app.hopps.bankimport.domain.BankTransactionStatus;
+import app.hopps.bankimport.domain.BankTransactionSuggestion;
+import app.hopps.bankimport.repository.BankTransactionRepository;
+import app.hopps.bankimport.service.MatchCandidateIndex.BankRow;
+import app.hopps.bankimport.service.MatchCandidateIndex.Candidate;
+import app.hopps.bankimport.service.MatchCandidateIndex.Reason;
+import app.hopps.bankimport.service.MatchCandidateIndex.Suggestion;
+import app.hopps.transaction.domain.Transaction;
+import io.quarkus.panache.common.Page;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Suggests bookkeeping transactions for unmatched bank transactions. All open transactions of the organization are
+ * loaded once into a {@link MatchCandidateIndex} and every unmatched bank row is scored against it in one pass; the
+ * best few candidates per row are stored as {@link BankTransactionSuggestion}s, replacing the previous suggestions of
+ * that row. Runs after every import (see {@link BankImportPipeline}) and on request.
+ * <p>
+ * The organization is passed explicitly rather than taken from the {@code OrganizationContext}, because the import
+ * worker has no request.
+ */
+@ApplicationScoped
+public class BankTransactionMatchSuggestionService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BankTransactionMatchSuggestionService.class);
+    /** Upper bound for the ids of one {@code IN} clause when replacing suggestions. */
+    private static final int DELETE_CHUNK = 1000;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    BankTransactionRepository bankTransactionRepository;
+
+    @ConfigProperty(name = "app.hopps.bankimport.suggestions.date-window-days", defaultValue = "30")
+    int dateWindowDays;
+
+    @ConfigProperty(name = "app.hopps.bankimport.suggestions.per-transaction", defaultValue = "3")
+    int suggestionsPerTransaction;
+
+    @ConfigProperty(name = "quarkus.hibernate-orm.jdbc.statement-batch-size", defaultValue = "50")
+    int batchSize;
+
+    /** Result of a refresh: how many unmatched bank transactions were scored and how many suggestions were stored. */
+    public record RefreshResult(int bankTransactions, int suggestions) {
+    }
+
+    /**
+     * Recomputes the suggestions for all unmatched bank transactions of the organization, optionally restricted to some
+     * bank accounts ({@code null} or empty for all).
+     */
+    @Transactional
+    public RefreshResult refreshForOrganization(Long organizationId, List<Long> accountIds) {
+        String jpql = "SELECT b.id, b.amount, b.bookingDate, b.counterpartyName, b.counterpartyIban, b.purpose "
+                + "FROM BankTransaction b WHERE b.organization.id = :orgId AND b.status = :status";
+        boolean filterAccounts = accountIds != null && !accountIds.isEmpty();
+        if (filterAccounts) {
+            jpql += " AND b.bankAccount.id IN :accountIds";
+        }
+        TypedQuery<Object[]> query = em.createQuery(jpql, Object[].class)
+                .setParameter("orgId", organizationId)
+                .setParameter("status", BankTransactionStatus.UNMATCHED);
+        if (filterAccounts) {
+            query.setParameter("accountIds", accountIds);
+        }
+        return refresh(organizationId, toBankRows(query.getResultList()));
+    }
+
+    /** Recomputes the suggestions for the unmatched bank transactions of one import. */
+    @Transactional
+    public RefreshResult refreshForImport(Long importId) {
+        BankImport job = em.find(BankImport.class, importId);
+        if (job == null) {
+            return new RefreshResult(0, 0);
+        }
+        List<Object[]> rows = em.createQuery(
+                "SELECT b.id, b.amount, b.bookingDate, b.counterpartyName, b.counterpartyIban, b.purpose "
+                        + "FROM BankTransaction b WHERE b.bankImport.id = :importId AND b.status = :status",
+                Object[].class)
+                .setParameter("importId", importId)
+                .setParameter("status", BankTransactionStatus.UNMATCHED)
+                .getResultList();
+        return refresh(job.getOrganization().getId(), toBankRows(rows));
+    }
+
+    /**
+     * Stored suggestions for the still unmatched bank transactions of the organization, newest booking first and best
+     * score first within a bank transaction. The suggested transactions are fetched with their trade parties, which the
+     * response reads for the counterparty name.
+     */
+    public List<BankTransactionSuggestion> listForOrganization(Long organizationId, List<Long> accountIds,
+            Page page) {
+        String jpql = "SELECT s FROM BankTransactionSuggestion s JOIN FETCH s.transaction t "
+                + "LEFT JOIN FETCH t.sender LEFT JOIN FETCH t.recipient JOIN s.bankTransaction b "
+                + "WHERE b.organization.id = :orgId AND b.status = :status";
+        boolean filterAccounts = accountIds != null && !accountIds.isEmpty();
+        if (filterAccounts) {
+            jpql += " AND b.bankAccount.id IN :accountIds";
+        }
+        jpql += " ORDER BY b.bookingDate DESC, b.id DESC, s.score DESC";
+        TypedQuery<BankTransactionSuggestion> query = em.createQuery(jpql, BankTransactionSuggestion.class)
+                .setParameter("orgId", organizationId)
+                .setParameter("status", BankTransactionStatus.UNMATCHED);
+        if (filterAccounts) {
+            query.setParameter("accountIds", accountIds);
+        }
+        return query.setFirstResult(page.index * page.size)
+                .setMaxResults(page.size)
+                .getResultList();
+    }
+
+    /** Stored suggestions for one bank transaction of the current organization, best score first. */
+    public List<BankTransactionSuggestion> listForBankTransaction(Long bankTxId) {
+        BankTransaction bankTx = bankTransactionRepository.findByIdScoped(bankTxId);
+        if (bankTx == null) {
+            throw new NotFoundException("Bank transaction not found");
+        }
+        return em.createQuery(
+                "SELECT s FROM BankTransactionSuggestion s JOIN FETCH s.transaction t "
+                        + "LEFT JOIN FETCH t.sender LEFT JOIN FETCH t.recipient "
+                        + "WHERE s.bankTransaction.id = :bankTxId ORDER BY s.score DESC",
+                BankTransactionSuggestion.class)
+                .setParameter("bankTxId", bankTxId)
+                .getResultList();
+    }
+
+    private RefreshResult refresh(Long organizationId, List<BankRow> rows) {
+        if (rows.isEmpty()) {
+            return new RefreshResult(0, 0);
+        }
+        long started = System.nanoTime();
+        List<Candidate> candidates = loadCandidates(organizationId);
+        MatchCandidateIndex index = new MatchCandidateIndex(candidates, loadKnownIbans(organizationId),
+                dateWindowDays);
+        long indexed = System.nanoTime();
+
+        deleteSuggestions(rows);
+        int stored = 0;
+        for (BankRow row : rows) {
+            for (Suggestion suggestion : index.suggest(row, suggestionsPerTransaction)) {
+                BankTransactionSuggestion entity = new BankTransactionSuggestion();
+                entity.setBankTransaction(em.getReference(BankTransaction.class, suggestion.bankTransactionId()));
+                entity.setTransaction(em.getReference(Transaction.class, suggestion.transactionId()));
+                entity.setScore(suggestion.score());
+                entity.setReasons(suggestion.reasons()
+                        .stream()
+                        .map(Reason::name)
+                        .collect(Collectors.joining(",")));
+                em.persist(entity);
+                if (++stored % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        }
+        LOG.info("Match suggestions for organization {}: {} bank transactions against {} open transactions, {} "
+                + "suggestions, index={}ms, scoring={}ms", organizationId, rows.size(), candidates.size(), stored,
+                (indexed - started) / 1_000_000, (System.nanoTime() - indexed) / 1_000_000);
+        return new RefreshResult(rows.size(), stored);
+    }
+
+    /**
+     * Loads every transaction of the organization whose signed total is not yet covered by its matches, with its open
+     * amount and counterparty, in one grouped query.
+     */
+    private List<Candidate> loadCandidates(Long organizationId) {
+        List<Object[]> rows = em.createQuery(
+                "SELECT t.id, t.total, "
+                        + "t.total - COALESCE(SUM(CASE WHEN b.amount < 0 THEN -m.matchedAmount ELSE m.matchedAmount END), 0), "
+                        + "COALESCE(t.transactionTime, t.dueDate), "
+                        + "CASE WHEN t.total >= 0 THEN r.name ELSE s.name END, t.invoiceId, t.orderNumber "
+                        + "FROM Transaction t LEFT JOIN t.sender s LEFT JOIN t.recipient r "
+                        + "LEFT JOIN BankTransactionMatch m ON m.transaction = t LEFT JOIN m.bankTransaction b "
+                        + "WHERE t.organization.id = :orgId AND t.total IS NOT NULL AND t.total <> 0 "
+                        + "GROUP BY t.id, t.total, t.transactionTime, t.dueDate, s.name, r.name, t.invoiceId, t.orderNumber "
+                        + "HAVING t.total <> COALESCE(SUM(CASE WHEN b.amount < 0 THEN -m.matchedAmount ELSE m.matchedAmount END), 0)",
+                Object[].class)
+                .setParameter("orgId", organizationId)
+                .getResultList();
+        List<Candidate> candidates = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Instant time = (Instant) row[3];
+            candidates.add(new Candidate((Long) row[0], (BigDecimal) row[1], (BigDecimal) row[2],
+                    time != null ? LocalDate.ofInstant(time, ZoneOffset.UTC) : null, (String) row[4],
+                    (String) row[5], (String) row[6]));
+        }
+        return candidates;
+    }
+
+    /** IBAN to the counterparties it was matched to before, so a known IBAN recognises the counterparty by itself. */
+    private Map<String, Set<String>> loadKnownIbans(Long organizationId) {
+        List<Object[]> rows = em.createQuery(
+                "SELECT DISTINCT b.counterpartyIban, CASE WHEN t.total >= 0 THEN r.name ELSE s.name END "
+                        + "FROM BankTransactionMatch m JOIN m.bankTransaction b JOIN m.transaction t "
+                        + "LEFT JOIN t.sender s LEFT JOIN t.recipient r "
+                        + "WHERE b.organization.id = :orgId AND b.counterpartyIban IS NOT NULL",
+                Object[].class)
+                .setParameter("orgId", organizationId)
+                .getResultList();
+        Map<String, Set<String>> known = new HashMap<>();
+        for (Object[] row : rows) {
+            String counterparty = MatchCandidateIndex.counterpartyKey((String) row[1]);
+            if (counterparty != null) {
+                known.computeIfAbsent((String) row[0], k -> new HashSet<>()).add(counterparty);
+            }
+        }
+        return known;
+    }
+
+    private void deleteSuggestions(List<BankRow> rows) {
+        List<Long> ids = rows.stream().map(BankRow::bankTransactionId).toList();
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK) {
+            em.createQuery("DELETE FROM BankTransactionSuggestion s WHERE s.bankTransaction.id IN :ids")
+                    .setParameter("ids", ids.subList(from, Math.min(ids.size(), from + DELETE_CHUNK)))
+                    .executeUpdate();
+        }
+    }
+
+    private static List<BankRow> toBankRows(List<Object[]> rows) {
+        List<BankRow> bankRows = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            bankRows.add(new BankRow((Long) row[0], (BigDecimal) row[1], (LocalDate) row[2], (String) row[3],
+                    (String) row[4], (String) row[5]));
+        }
+        return bankRows;
+    }
+}
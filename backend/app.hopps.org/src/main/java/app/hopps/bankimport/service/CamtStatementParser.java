@@ -0,0 +1,50 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.BankImport;
+import app.hopps.bankimport.parser.CamtParser;
+import app.hopps.bankimport.parser.CamtParser.CamtEntry;
+import app.hopps.bankimport.parser.CamtParser.ParsedCamtTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * {@link BankStatementParser} for ISO 20022 CAMT.053 / CAMT.052 XML files. Needs no schema; the file is parsed lazily
+ * by {@link CamtParser}, so there is no row cap. An entry with unusable values is reported as a failed row.
+ */
+@ApplicationScoped
+public class CamtStatementParser implements BankStatementParser {
+
+    @Override
+    public String getFileType() {
+        return "CAMT";
+    }
+
+    @Override
+    public StatementReader prepare(BankImport job) {
+        return in -> CamtParser.stream(in).map(CamtStatementParser::toEntry);
+    }
+
+    private static StatementEntry toEntry(CamtEntry entry) {
+        String rawRow = entry.rawText();
+        ParsedCamtTransaction tx;
+        try {
+            tx = CamtParser.toTransaction(entry);
+        } catch (IllegalArgumentException e) {
+            return StatementEntry.failed(entry.index(), rawRow, e.getMessage());
+        }
+        return StatementEntry.parsed(entry.index(), rawRow, new StatementEntry.Row(
+                tx.bookingDate(),
+                tx.valueDate(),
+                tx.amount(),
+                tx.currency(),
+                tx.purpose(),
+                tx.counterpartyName(),
+                tx.counterpartyIban(),
+                tx.counterpartyBic(),
+                tx.transactionType(),
+                tx.bankReference(),
+                tx.endToEndReference(),
+                tx.mandateReference(),
+                tx.creditorId(),
+                tx.balanceAfter()));
+    }
+}
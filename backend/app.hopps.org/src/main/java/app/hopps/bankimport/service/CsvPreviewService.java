@@ -1,6 +1,9 @@
 package app.hopps.bankimport.service;
 
 import app.hopps.bankimport.api.dto.CsvPreviewResponse;
+import app.hopps.bankimport.parser.CamtParser;
+import app.hopps.bankimport.parser.CamtParser.CamtEntry;
+import app.hopps.bankimport.parser.CamtParser.ParsedCamtTransaction;
 import app.hopps.bankimport.parser.DelimiterDetector;
 import app.hopps.bankimport.parser.EncodingDetector;
 import app.hopps.bankimport.parser.Mt940Parser;
@@ -10,6 +13,7 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.math.BigDecimal;
@@ -17,6 +21,7 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Decodes a freshly uploaded CSV file and returns a small preview (encoding/delimiter detection + first 20 lines) for
@@ -28,11 +33,14 @@ public class CsvPreviewService {
     /** Maximum number of raw lines returned to the UI. Tuned for visual scanning, not full validation. */
     private static final int PREVIEW_LINES = 20;
 
-    /** Maximum number of MT940 sample transactions returned in the preview. */
-    private static final int MT940_PREVIEW_TRANSACTIONS = 5;
+    /** Maximum number of MT940 / CAMT sample transactions returned in the preview. */
+    private static final int PREVIEW_TRANSACTIONS = 5;
 
     public CsvPreviewResponse preview(byte[] content) {
-        // Fast-path: detect MT940 before CSV processing
+        // Fast-path: detect CAMT / MT940 before CSV processing
+        if (CamtParser.isCamt(content)) {
+            return previewCamt(content);
+        }
         if (Mt940Parser.isMt940(content)) {
             return previewMt940(content);
         }
@@ -134,8 +142,8 @@ public class CsvPreviewService {
         }
 
         int totalTransactions = transactions.size();
-        List<ParsedMt940Transaction> sample = transactions.size() > MT940_PREVIEW_TRANSACTIONS
-                ? transactions.subList(0, MT940_PREVIEW_TRANSACTIONS)
+        List<ParsedMt940Transaction> sample = transactions.size() > PREVIEW_TRANSACTIONS
+                ? transactions.subList(0, PREVIEW_TRANSACTIONS)
                 : transactions;
 
         // Build sample rows: [date, amount, currency, purpose, counterparty]
@@ -163,6 +171,43 @@ public class CsvPreviewService {
                 "MT940");
     }
 
+    private CsvPreviewResponse previewCamt(byte[] content) {
+        String warning = null;
+        int totalTransactions = 0;
+        List<List<String>> sampleRows = new ArrayList<>();
+        // The encoding is declared in the XML prolog, so there is nothing to detect; entries are streamed so that only
+        // the sample is kept in memory.
+        try (Stream<CamtEntry> entries = CamtParser.stream(new ByteArrayInputStream(content))) {
+            for (CamtEntry entry : (Iterable<CamtEntry>) entries::iterator) {
+                totalTransactions++;
+                if (sampleRows.size() < PREVIEW_TRANSACTIONS) {
+                    ParsedCamtTransaction tx = CamtParser.toTransaction(entry);
+                    sampleRows.add(Arrays.asList(
+                            tx.bookingDate().toString(),
+                            tx.amount().toPlainString(),
+                            tx.currency() != null ? tx.currency() : "",
+                            tx.purpose() != null ? tx.purpose() : "",
+                            tx.counterpartyName() != null ? tx.counterpartyName() : ""));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            warning = "CAMT parsing failed: " + e.getMessage();
+        }
+
+        List<String> headerColumns = List.of("bookingDate", "amount", "currency", "purpose", "counterpartyName");
+
+        return new CsvPreviewResponse(
+                null,
+                null,
+                true,
+                warning,
+                totalTransactions,
+                List.of(),
+                headerColumns,
+                sampleRows,
+                "CAMT");
+    }
+
     private static List<String> splitLines(String text) {
         List<String> lines = new ArrayList<>();
         int start = 0;
@@ -0,0 +1,235 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.AmountStrategy;
+import app.hopps.bankimport.domain.BankCsvColumnMapping;
+import app.hopps.bankimport.domain.BankCsvSchema;
+import app.hopps.bankimport.domain.BankFieldType;
+import app.hopps.bankimport.domain.BankImport;
+import app.hopps.bankimport.parser.CsvParser;
+import app.hopps.bankimport.parser.DateAmountParser;
+import app.hopps.bankimport.parser.EncodingDetector;
+import app.hopps.bankimport.parser.Mt940PurposeParser;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link BankStatementParser} for CSV files, configured by the {@link BankCsvSchema} chosen at upload. The file is
+ * decoded strictly with the schema's encoding and parsed record by record; each record is mapped to a
+ * {@link StatementEntry.Row} via the schema's column mappings. Rows that fail to map are reported (Q15); a wrong
+ * encoding aborts the whole import.
+ */
+@ApplicationScoped
+public class CsvStatementParser implements BankStatementParser {
+
+    @Override
+    public String getFileType() {
+        return "CSV";
+    }
+
+    @Override
+    public StatementReader prepare(BankImport job) {
+        BankCsvSchema schema = job.getSchema();
+        if (schema == null) {
+            throw new IllegalArgumentException("CSV import has no schema");
+        }
+        // indexMappings initializes the lazy mapping collection while the session is still open.
+        Map<BankFieldType, BankCsvColumnMapping> mappingByField = indexMappings(schema);
+        Set<String> positiveIndicators = parsePositiveIndicators(schema.getAmountTypePositiveValues());
+        Charset charset = Charset.forName(schema.getEncoding());
+        DateAmountParser.CellFormat cells = DateAmountParser.forSchema(schema.getDateFormat(),
+                DateAmountParser.DEFAULT_PIVOT_YEAR, schema.getDecimalSeparator(), schema.getThousandSeparator());
+        int firstRowNumber = 1 + (schema.isHasHeader() ? 1 : 0) + schema.getSkipLines();
+
+        return in -> {
+            AtomicInteger rowNumber = new AtomicInteger(firstRowNumber);
+            return CsvParser.stream(EncodingDetector.strictReader(in, charset), schema)
+                    .map(values -> toEntry(rowNumber.getAndIncrement(), values, schema, cells, mappingByField,
+                            positiveIndicators));
+        };
+    }
+
+    private StatementEntry toEntry(
+            int rowNumber,
+            List<String> values,
+            BankCsvSchema schema,
+            DateAmountParser.CellFormat cells,
+            Map<BankFieldType, BankCsvColumnMapping> mappingByField,
+            Set<String> positiveIndicators) {
+        String rawRow = String.join(";", values);
+        try {
+            return StatementEntry.parsed(rowNumber, rawRow,
+                    parseRow(values, schema, cells, mappingByField, positiveIndicators));
+        } catch (Exception rowError) {
+            return StatementEntry.failed(rowNumber, rawRow, rowError.getMessage());
+        }
+    }
+
+    private static Map<BankFieldType, BankCsvColumnMapping> indexMappings(BankCsvSchema schema) {
+        EnumMap<BankFieldType, BankCsvColumnMapping> map = new EnumMap<>(BankFieldType.class);
+        for (BankCsvColumnMapping m : schema.getColumnMappings()) {
+            map.put(m.getTargetField(), m);
+        }
+        return map;
+    }
+
+    private static Set<String> parsePositiveIndicators(String csv) {
+        if (csv == null || csv.isBlank()) {
+            return Set.of();
+        }
+        Set<String> set = new HashSet<>();
+        for (String s : csv.split(",")) {
+            String trimmed = s.trim();
+            if (!trimmed.isEmpty()) {
+                set.add(trimmed.toLowerCase(Locale.ROOT));
+            }
+        }
+        return set;
+    }
+
+    private StatementEntry.Row parseRow(
+            List<String> row,
+            BankCsvSchema schema,
+            DateAmountParser.CellFormat cells,
+            Map<BankFieldType, BankCsvColumnMapping> mappingByField,
+            Set<String> positiveIndicators) {
+
+        String bookingDateRaw = require(row, mappingByField, BankFieldType.BOOKING_DATE);
+        LocalDate bookingDate = cells.parseDate(bookingDateRaw);
+        String valueDateRaw = optional(row, mappingByField, BankFieldType.VALUE_DATE);
+        LocalDate valueDate = (valueDateRaw == null || valueDateRaw.isBlank())
+                ? null
+                : cells.parseDate(valueDateRaw);
+
+        BigDecimal amount = computeAmount(row, schema, cells, mappingByField, positiveIndicators);
+        String currency = optional(row, mappingByField, BankFieldType.CURRENCY);
+        String purpose = optional(row, mappingByField, BankFieldType.PURPOSE);
+
+        String counterpartyName = trimOrNull(optional(row, mappingByField, BankFieldType.COUNTERPARTY_NAME));
+        String counterpartyIban = trimOrNull(optional(row, mappingByField, BankFieldType.COUNTERPARTY_IBAN));
+        String counterpartyBic = trimOrNull(optional(row, mappingByField, BankFieldType.COUNTERPARTY_BIC));
+        String transactionType = trimOrNull(optional(row, mappingByField, BankFieldType.TRANSACTION_TYPE));
+        String bankReference = trimOrNull(optional(row, mappingByField, BankFieldType.BANK_REFERENCE));
+        String endToEnd = trimOrNull(optional(row, mappingByField, BankFieldType.END_TO_END_REFERENCE));
+        String mandate = trimOrNull(optional(row, mappingByField, BankFieldType.MANDATE_REFERENCE));
+        String creditor = trimOrNull(optional(row, mappingByField, BankFieldType.CREDITOR_ID));
+        String balanceRaw = optional(row, mappingByField, BankFieldType.BALANCE_AFTER);
+        BigDecimal balance = (balanceRaw == null || balanceRaw.isBlank())
+                ? null
+                : cells.parseAmount(balanceRaw);
+
+        // MT940: PURPOSE column is a tagged blob — split it into purpose / EREF / MREF / CRED.
+        BankCsvColumnMapping purposeMapping = mappingByField.get(BankFieldType.PURPOSE);
+        if (purposeMapping != null && SystemTemplateService.TRANSFORM_MT940_BLOB.equals(purposeMapping.getTransform())
+                && purpose != null) {
+            Mt940PurposeParser.ParsedPurpose parsedBlob = Mt940PurposeParser.parse(purpose);
+            purpose = parsedBlob.purpose();
+            if (endToEnd == null) {
+                endToEnd = parsedBlob.endToEndReference();
+            }
+            if (mandate == null) {
+                mandate = parsedBlob.mandateReference();
+            }
+            if (creditor == null) {
+                creditor = parsedBlob.creditorId();
+            }
+        }
+
+        return new StatementEntry.Row(
+                bookingDate,
+                valueDate,
+                amount,
+                currency,
+                purpose,
+                counterpartyName,
+                counterpartyIban,
+                counterpartyBic,
+                transactionType,
+                bankReference,
+                endToEnd,
+                mandate,
+                creditor,
+                balance);
+    }
+
+    private BigDecimal computeAmount(
+            List<String> row,
+            BankCsvSchema schema,
+            DateAmountParser.CellFormat cells,
+            Map<BankFieldType, BankCsvColumnMapping> mappingByField,
+            Set<String> positiveIndicators) {
+        AmountStrategy strategy = schema.getAmountStrategy();
+        switch (strategy) {
+            case SIGNED_SINGLE_COLUMN -> {
+                String raw = require(row, mappingByField, BankFieldType.AMOUNT);
+                return cells.parseAmount(raw);
+            }
+            case DEBIT_CREDIT_COLUMNS -> {
+                String debit = optional(row, mappingByField, BankFieldType.DEBIT_AMOUNT);
+                String credit = optional(row, mappingByField, BankFieldType.CREDIT_AMOUNT);
+                boolean hasDebit = debit != null && !debit.isBlank();
+                boolean hasCredit = credit != null && !credit.isBlank();
+                if (hasDebit && hasCredit) {
+                    throw new IllegalArgumentException("Both DEBIT_AMOUNT and CREDIT_AMOUNT are populated");
+                }
+                if (!hasDebit && !hasCredit) {
+                    throw new IllegalArgumentException("Neither DEBIT_AMOUNT nor CREDIT_AMOUNT is populated");
+                }
+                BigDecimal magnitude = cells.parseAmount(hasDebit ? debit : credit).abs();
+                return hasDebit ? magnitude.negate() : magnitude;
+            }
+            case AMOUNT_PLUS_TYPE_COLUMN -> {
+                String raw = require(row, mappingByField, BankFieldType.AMOUNT);
+                String indicator = require(row, mappingByField, BankFieldType.AMOUNT_TYPE_INDICATOR);
+                BigDecimal magnitude = cells.parseAmount(raw).abs();
+                boolean positive = positiveIndicators.contains(indicator.trim().toLowerCase(Locale.ROOT));
+                return positive ? magnitude : magnitude.negate();
+            }
+            default -> throw new IllegalStateException("Unknown amount strategy: " + strategy);
+        }
+    }
+
+    private static String require(
+            List<String> row,
+            Map<BankFieldType, BankCsvColumnMapping> mappingByField,
+            BankFieldType field) {
+        String value = optional(row, mappingByField, field);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Required field " + field + " is empty");
+        }
+        return value;
+    }
+
+    private static String optional(
+            List<String> row,
+            Map<BankFieldType, BankCsvColumnMapping> mappingByField,
+            BankFieldType field) {
+        BankCsvColumnMapping mapping = mappingByField.get(field);
+        if (mapping == null) {
+            return null;
+        }
+        Integer index = mapping.getSourceColumnIndex();
+        if (index == null || index < 0 || index >= row.size()) {
+            return null;
+        }
+        String value = row.get(index);
+        return value == null ? null : value.trim();
+    }
+
+    private static String trimOrNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -4,10 +4,12 @@ import jakarta.enterprise.context.ApplicationScoped;
 
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.Normalizer;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.HexFormat;
 import java.util.regex.Pattern;
 
@@ -30,30 +32,207 @@ public class DedupeHashService {
 
     private static final Pattern NON_ALNUM = Pattern.compile("[^\\p{L}\\p{N}]");
 
+    /**
+     * Per-thread digest and buffers: {@link MessageDigest#getInstance} and the hash material dominated the per-row cost
+     * on large imports. Import workers are long-lived pool threads, so the scratch space is allocated once per worker.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Returns the hex form of {@link #computeKey}; this is the value stored on
+     * {@link app.hopps.bankimport.domain.BankTransaction#getDedupeHash()}.
+     */
     public String computeHash(
             LocalDate bookingDate,
             BigDecimal amount,
             String counterpartyIban,
             String endToEndReference,
             String purpose) {
-        StringBuilder material = new StringBuilder(128);
-        material.append(bookingDate != null ? bookingDate.toString() : "");
-        material.append('|');
-        material.append(amount != null ? amount.stripTrailingZeros().toPlainString() : "");
-        material.append('|');
-        material.append(normalizeIban(counterpartyIban));
-        material.append('|');
-        if (endToEndReference != null && !endToEndReference.isBlank()) {
-            material.append("eref:").append(endToEndReference.trim());
+        return computeKey(bookingDate, amount, counterpartyIban, endToEndReference, purpose).hex();
+    }
+
+    /**
+     * Computes the dedupe hash in its binary form. The hash material is normalised and encoded straight into a reused
+     * per-thread buffer; rows made up of Latin-1 text (virtually all German bank data) take a path without regex,
+     * Unicode normalisation or intermediate strings. Other input falls back to the general normalisation, so both paths
+     * always produce the same hash.
+     */
+    public DedupeKey computeKey(
+            LocalDate bookingDate,
+            BigDecimal amount,
+            String counterpartyIban,
+            String endToEndReference,
+            String purpose) {
+        Scratch scratch = SCRATCH.get();
+        scratch.length = 0;
+        appendDate(scratch, bookingDate);
+        scratch.appendAscii('|');
+        appendAmount(scratch, amount);
+        scratch.appendAscii('|');
+        appendIban(scratch, counterpartyIban);
+        scratch.appendAscii('|');
+        if (endToEndReference != null && !isBlank(endToEndReference)) {
+            scratch.appendAscii("eref:");
+            appendTrimmed(scratch, endToEndReference);
         } else {
-            material.append("svwz:").append(normalizePurpose(purpose));
+            scratch.appendAscii("svwz:");
+            appendPurpose(scratch, purpose);
+        }
+        return scratch.digest();
+    }
+
+    private static void appendDate(Scratch scratch, LocalDate date) {
+        if (date == null) {
+            return;
+        }
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            scratch.appendString(date.toString());
+            return;
         }
-        return sha256(material.toString());
+        scratch.appendDigits(year, 4);
+        scratch.appendAscii('-');
+        scratch.appendDigits(date.getMonthValue(), 2);
+        scratch.appendAscii('-');
+        scratch.appendDigits(date.getDayOfMonth(), 2);
+    }
+
+    /** Same output as {@code amount.stripTrailingZeros().toPlainString()}. */
+    private static void appendAmount(Scratch scratch, BigDecimal amount) {
+        if (amount == null) {
+            return;
+        }
+        // The unscaled value has to fit a long, and 10^scale as well for the divisor below
+        if (amount.precision() > 18 || amount.scale() > 18) {
+            scratch.appendString(amount.stripTrailingZeros().toPlainString());
+            return;
+        }
+        long unscaled = amount.unscaledValue().longValue();
+        int scale = amount.scale();
+        while (scale > 0 && unscaled % 10 == 0) {
+            unscaled /= 10;
+            scale--;
+        }
+        if (unscaled == 0) {
+            scratch.appendAscii('0');
+            return;
+        }
+        if (unscaled < 0) {
+            scratch.appendAscii('-');
+            unscaled = -unscaled;
+        }
+        if (scale <= 0) {
+            scratch.appendDigits(unscaled, 1);
+            for (int i = scale; i < 0; i++) {
+                scratch.appendAscii('0');
+            }
+            return;
+        }
+        long divisor = 1;
+        for (int i = 0; i < scale; i++) {
+            divisor *= 10;
+        }
+        scratch.appendDigits(unscaled / divisor, 1);
+        scratch.appendAscii('.');
+        scratch.appendDigits(unscaled % divisor, scale);
+    }
+
+    private static void appendIban(Scratch scratch, String iban) {
+        if (iban == null) {
+            return;
+        }
+        int letters = 0;
+        int length = 0;
+        for (int i = 0; i < iban.length(); i++) {
+            char c = iban.charAt(i);
+            if (c >= 0x80) {
+                scratch.appendString(normalizeIban(iban));
+                return;
+            }
+            if (isRegexWhitespace(c)) {
+                continue;
+            }
+            if (length < 2 && isAsciiLetter(c)) {
+                letters++;
+            }
+            length++;
+        }
+        // Reject plain account numbers (e.g. "0000000000") — a real IBAN starts with 2-letter country code
+        if (length < 4 || letters < 2) {
+            return;
+        }
+        for (int i = 0; i < iban.length(); i++) {
+            char c = iban.charAt(i);
+            if (!isRegexWhitespace(c)) {
+                scratch.appendAscii(c >= 'a' && c <= 'z' ? (char) (c - 32) : c);
+            }
+        }
+    }
+
+    private static void appendTrimmed(Scratch scratch, String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        scratch.appendUtf8(value, start, end);
+    }
+
+    private static void appendPurpose(Scratch scratch, String purpose) {
+        if (purpose == null) {
+            return;
+        }
+        for (int i = 0; i < purpose.length(); i++) {
+            if (!isNfkcStableLatin1(purpose.charAt(i))) {
+                scratch.appendString(normalizePurpose(purpose));
+                return;
+            }
+        }
+        for (int i = 0; i < purpose.length(); i++) {
+            char c = purpose.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                scratch.appendLatin1(Character.toLowerCase(c));
+            }
+        }
+    }
+
+    /**
+     * Whether NFKC leaves {@code c} unchanged as far as the hash is concerned. The Latin-1 characters NFKC does change
+     * either decompose into non-alphanumerics (which are stripped anyway, e.g. NBSP, acute accent) or are listed here
+     * because they turn into letters or digits (ª, º, ², ³, ¹, µ, ¼, ½, ¾).
+     */
+    private static boolean isNfkcStableLatin1(char c) {
+        if (c >= 0x100) {
+            return false;
+        }
+        return switch (c) {
+            case '\u00AA', '\u00B2', '\u00B3', '\u00B5', '\u00B9', '\u00BA', '\u00BC', '\u00BD', '\u00BE' -> false;
+            default -> true;
+        };
+    }
+
+    private static boolean isBlank(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The characters matched by the regex class {@code \\s}. */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
     }
 
     private static String normalizeIban(String iban) {
-        if (iban == null)
-            return "";
         String cleaned = iban.toUpperCase().replaceAll("\\s+", "");
         if (cleaned.isEmpty())
             return "";
@@ -67,9 +246,6 @@ public class DedupeHashService {
     }
 
     private static String normalizePurpose(String purpose) {
-        if (purpose == null) {
-            return "";
-        }
         String nfkc = Normalizer.normalize(purpose, Normalizer.Form.NFKC);
         return NON_ALNUM.matcher(nfkc).replaceAll("").toLowerCase();
     }
@@ -86,4 +262,104 @@ public class DedupeHashService {
     public static String sha256(String value) {
         return sha256(value.getBytes(StandardCharsets.UTF_8));
     }
+
+    /** Hash material buffer plus digest, reused by one thread. */
+    private static final class Scratch {
+
+        private final MessageDigest digest = newSha256();
+        private final byte[] hash = new byte[32];
+        private byte[] buffer = new byte[256];
+        private int length;
+
+        void appendAscii(char c) {
+            ensureCapacity(1);
+            buffer[length++] = (byte) c;
+        }
+
+        void appendAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                appendAscii(value.charAt(i));
+            }
+        }
+
+        void appendLatin1(char c) {
+            if (c < 0x80) {
+                appendAscii(c);
+                return;
+            }
+            ensureCapacity(2);
+            buffer[length++] = (byte) (0xC0 | (c >> 6));
+            buffer[length++] = (byte) (0x80 | (c & 0x3F));
+        }
+
+        /** Appends {@code value} zero-padded to at least {@code width} digits; {@code value} must not be negative. */
+        void appendDigits(long value, int width) {
+            int digits = 1;
+            for (long rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            int total = Math.max(digits, width);
+            ensureCapacity(total);
+            for (int i = length + total - 1; i >= length; i--) {
+                buffer[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += total;
+        }
+
+        void appendString(String value) {
+            appendUtf8(value, 0, value.length());
+        }
+
+        /** Encodes like {@link String#getBytes} with UTF-8, including the {@code '?'} for unpaired surrogates. */
+        void appendUtf8(String value, int start, int end) {
+            ensureCapacity((end - start) * 3);
+            for (int i = start; i < end; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[length++] = (byte) (0xC0 | (c >> 6));
+                    buffer[length++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < end
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[length++] = (byte) (0xF0 | (cp >> 18));
+                    buffer[length++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buffer[length++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buffer[length++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buffer[length++] = '?';
+                } else {
+                    buffer[length++] = (byte) (0xE0 | (c >> 12));
+                    buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[length++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        DedupeKey digest() {
+            digest.update(buffer, 0, length);
+            try {
+                digest.digest(hash, 0, hash.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException("SHA-256 digest failed", e);
+            }
+            return DedupeKey.fromBytes(hash);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
@@ -0,0 +1,71 @@
+package app.hopps.bankimport.service;
+
+/**
+ * Binary form of a dedupe hash: the 32 SHA-256 bytes as four big-endian longs. Used for in-memory set membership during
+ * an import, where it is cheaper to hash and compare than the 64-character hex string stored on
+ * {@link app.hopps.bankimport.domain.BankTransaction#getDedupeHash()}. Both forms are interchangeable via
+ * {@link #hex()} and {@link #fromHex(String)}.
+ */
+public record DedupeKey(long h0, long h1, long h2, long h3) {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Parses the stored (lower- or uppercase) hex form.
+     *
+     * @throws IllegalArgumentException
+     *             if {@code hex} is not 64 hex characters
+     */
+    public static DedupeKey fromHex(String hex) {
+        if (hex == null || hex.length() != 64) {
+            throw new IllegalArgumentException("Dedupe hash must be 64 hex characters");
+        }
+        return new DedupeKey(parseLong(hex, 0), parseLong(hex, 16), parseLong(hex, 32), parseLong(hex, 48));
+    }
+
+    static DedupeKey fromBytes(byte[] digest) {
+        return new DedupeKey(readLong(digest, 0), readLong(digest, 8), readLong(digest, 16), readLong(digest, 24));
+    }
+
+    /** Returns the lowercase hex form, as stored on the transaction. */
+    public String hex() {
+        char[] out = new char[64];
+        writeHex(out, 0, h0);
+        writeHex(out, 16, h1);
+        writeHex(out, 32, h2);
+        writeHex(out, 48, h3);
+        return new String(out);
+    }
+
+    @Override
+    public String toString() {
+        return hex();
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static long parseLong(String hex, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 16; i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Dedupe hash must be 64 hex characters");
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private static void writeHex(char[] out, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            out[offset + i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
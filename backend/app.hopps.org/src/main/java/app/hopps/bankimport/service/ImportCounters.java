@@ -0,0 +1,50 @@
+package app.hopps.bankimport.service;
+
+/**
+ * Running row counters of one bank import, carried across the chunks written by {@link BankTransactionBatchWriter}. Not
+ * thread-safe — an import runs on a single worker thread.
+ */
+public final class ImportCounters {
+
+    private int totalRows;
+    private int importedRows;
+    private int duplicateRows;
+    private int errorRows;
+
+    public void addTotal(int rows) {
+        totalRows += rows;
+    }
+
+    public void addImported() {
+        importedRows++;
+    }
+
+    public void addDuplicate() {
+        duplicateRows++;
+    }
+
+    public void addError() {
+        errorRows++;
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public int getImportedRows() {
+        return importedRows;
+    }
+
+    public int getDuplicateRows() {
+        return duplicateRows;
+    }
+
+    public int getErrorRows() {
+        return errorRows;
+    }
+
+    /** Rows handled so far (imported, duplicate or failed). */
+    public int getProcessedRows() {
+        return importedRows + duplicateRows + errorRows;
+    }
+}
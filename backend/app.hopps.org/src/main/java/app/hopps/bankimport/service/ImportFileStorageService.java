@@ -4,6 +4,7 @@ import app.hopps.shared.infrastructure.storage.S3Handler;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import java.io.InputStream;
 import java.util.UUID;
 
 /**
@@ -27,6 +28,11 @@ public class ImportFileStorageService {
         return s3Handler.getFile(s3Key);
     }
 
+    /** Streams the archived file from S3 without loading it into memory. The caller must close the stream. */
+    public InputStream openImportFile(String s3Key) {
+        return s3Handler.openFile(s3Key);
+    }
+
     private String buildKey(Long organizationId, String fileName) {
         String safeName = fileName == null ? "import.csv" : fileName.replaceAll("[^A-Za-z0-9._-]", "_");
         return "bank-imports/" + organizationId + "/" + UUID.randomUUID() + "/" + safeName;
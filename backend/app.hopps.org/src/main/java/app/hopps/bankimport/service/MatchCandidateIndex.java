@@ -0,0 +1,301 @@
+package app.hopps.bankimport.service;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory index of the open bookkeeping transactions of one organization, used to suggest matches for unmatched bank
+ * transactions in bulk. Candidates are looked up by signed amount (the full total and the still-open amount) and by
+ * normalized counterparty-name tokens and IBANs; only candidates found that way are scored, so scoring a bank row costs
+ * a few hash lookups instead of a search over all transactions.
+ * <p>
+ * A candidate is scored on amount (exact open amount beats exact total), counterparty (name-token overlap, or an IBAN
+ * that was already matched to a transaction of the same counterparty), reference (invoice id or order number found in
+ * the purpose) and date proximity within {@link #dateWindowDays}. The date only scores and is not a lookup key: an
+ * invoice paid months late still has to be found by its amount or reference. Candidates pointing the other way (income
+ * vs. expense) are never suggested. Instances are immutable and safe to share between threads.
+ */
+public final class MatchCandidateIndex {
+
+    /** Suggestions below this score are dropped, e.g. a counterparty and date hit without amount or reference. */
+    static final double MIN_SCORE = 0.45;
+
+    private static final double AMOUNT_OPEN_SCORE = 0.5;
+    private static final double AMOUNT_TOTAL_SCORE = 0.4;
+    private static final double COUNTERPARTY_SCORE = 0.25;
+    private static final double REFERENCE_SCORE = 0.3;
+    private static final double DATE_SCORE = 0.15;
+    private static final int MIN_TOKEN_LENGTH = 3;
+    private static final int MIN_REFERENCE_LENGTH = 4;
+    /** Legal forms and filler words that appear in many counterparty names and say nothing about who it is. */
+    private static final Set<String> STOP_WORDS = Set.of("gmbh", "mbh", "und", "der", "die", "das", "von", "fuer",
+            "for", "the", "and", "ltd", "inc", "ohg", "gbr", "ggmbh", "co");
+
+    /** Why a candidate was suggested; stored with the suggestion so the UI can explain it. */
+    public enum Reason {
+        AMOUNT_OPEN,
+        AMOUNT_TOTAL,
+        COUNTERPARTY,
+        IBAN,
+        REFERENCE,
+        DATE
+    }
+
+    /**
+     * An open bookkeeping transaction. {@code total} and {@code openAmount} are signed (expense negative);
+     * {@code openAmount} is the total minus the signed coverage of existing matches.
+     */
+    public record Candidate(Long transactionId, BigDecimal total, BigDecimal openAmount, LocalDate date,
+            String counterpartyName, String invoiceId, String orderNumber) {
+    }
+
+    /** An unmatched bank transaction to find candidates for. {@code amount} is signed. */
+    public record BankRow(Long bankTransactionId, BigDecimal amount, LocalDate bookingDate, String counterpartyName,
+            String counterpartyIban, String purpose) {
+    }
+
+    /** A scored candidate for one bank row; {@code score} is between {@link #MIN_SCORE} and 1. */
+    public record Suggestion(Long bankTransactionId, Long transactionId, double score, Set<Reason> reasons) {
+    }
+
+    private final int dateWindowDays;
+    private final Map<BigDecimal, List<Entry>> byAmount = new HashMap<>();
+    private final Map<String, List<Entry>> byToken = new HashMap<>();
+    private final Map<String, List<Entry>> byCounterparty = new HashMap<>();
+    private final Map<String, Set<String>> counterpartiesByIban;
+
+    /**
+     * @param candidates
+     *            the open transactions of the organization
+     * @param knownIbans
+     *            IBAN (as stored on bank transactions) to the normalized counterparty keys (see
+     *            {@link #counterpartyKey}) of the transactions it was matched to before; may be empty
+     * @param dateWindowDays
+     *            how far (in days, either direction) a candidate date may be from the booking date to score on date
+     */
+    public MatchCandidateIndex(Collection<Candidate> candidates, Map<String, Set<String>> knownIbans,
+            int dateWindowDays) {
+        this.dateWindowDays = dateWindowDays;
+        this.counterpartiesByIban = knownIbans;
+        for (Candidate candidate : candidates) {
+            if (candidate.total() == null || candidate.total().signum() == 0) {
+                continue;
+            }
+            Entry entry = new Entry(candidate);
+            byAmount.computeIfAbsent(amountKey(candidate.total()), k -> new ArrayList<>()).add(entry);
+            if (entry.openKey != null && !entry.openKey.equals(amountKey(candidate.total()))) {
+                byAmount.computeIfAbsent(entry.openKey, k -> new ArrayList<>()).add(entry);
+            }
+            for (String token : entry.tokens) {
+                byToken.computeIfAbsent(token, k -> new ArrayList<>()).add(entry);
+            }
+            if (entry.counterpartyKey != null) {
+                byCounterparty.computeIfAbsent(entry.counterpartyKey, k -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    /** Returns the best {@code limit} suggestions for the bank row, highest score first. */
+    public List<Suggestion> suggest(BankRow row, int limit) {
+        if (row.amount() == null || row.amount().signum() == 0 || limit <= 0) {
+            return List.of();
+        }
+        Set<Entry> found = new LinkedHashSet<>(byAmount.getOrDefault(amountKey(row.amount()), List.of()));
+        Set<String> rowTokens = tokens(row.counterpartyName());
+        for (String token : rowTokens) {
+            found.addAll(byToken.getOrDefault(token, List.of()));
+        }
+        Set<String> ibanCounterparties = row.counterpartyIban() == null ? Set.of()
+                : counterpartiesByIban.getOrDefault(row.counterpartyIban(), Set.of());
+        for (String counterparty : ibanCounterparties) {
+            found.addAll(byCounterparty.getOrDefault(counterparty, List.of()));
+        }
+        if (found.isEmpty()) {
+            return List.of();
+        }
+
+        String compactPurpose = compact(row.purpose());
+        List<Scored> scored = new ArrayList<>();
+        for (Entry entry : found) {
+            if (entry.candidate.total().signum() != row.amount().signum()) {
+                continue;
+            }
+            Scored result = score(entry, row, rowTokens, ibanCounterparties, compactPurpose);
+            if (result.score >= MIN_SCORE) {
+                scored.add(result);
+            }
+        }
+        scored.sort(Comparator.comparingDouble(Scored::score)
+                .reversed()
+                .thenComparingLong(Scored::dayDistance)
+                .thenComparing(s -> s.entry.candidate.transactionId()));
+
+        List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, scored.size()));
+        for (Scored s : scored) {
+            if (suggestions.size() == limit) {
+                break;
+            }
+            suggestions.add(new Suggestion(row.bankTransactionId(), s.entry.candidate.transactionId(),
+                    Math.min(1.0, s.score), s.reasons));
+        }
+        return suggestions;
+    }
+
+    private Scored score(Entry entry, BankRow row, Set<String> rowTokens, Set<String> ibanCounterparties,
+            String compactPurpose) {
+        Set<Reason> reasons = EnumSet.noneOf(Reason.class);
+        double score = 0;
+
+        BigDecimal rowKey = amountKey(row.amount());
+        if (rowKey.equals(entry.openKey)) {
+            score += AMOUNT_OPEN_SCORE;
+            reasons.add(Reason.AMOUNT_OPEN);
+        } else if (rowKey.equals(amountKey(entry.candidate.total()))) {
+            score += AMOUNT_TOTAL_SCORE;
+            reasons.add(Reason.AMOUNT_TOTAL);
+        }
+
+        double counterparty = 0;
+        if (!entry.tokens.isEmpty() && !rowTokens.isEmpty()) {
+            int shared = 0;
+            for (String token : entry.tokens) {
+                if (rowTokens.contains(token)) {
+                    shared++;
+                }
+            }
+            counterparty = COUNTERPARTY_SCORE * shared / entry.tokens.size();
+            if (shared > 0) {
+                reasons.add(Reason.COUNTERPARTY);
+            }
+        }
+        if (entry.counterpartyKey != null && ibanCounterparties.contains(entry.counterpartyKey)) {
+            counterparty = COUNTERPARTY_SCORE;
+            reasons.add(Reason.IBAN);
+        }
+        score += counterparty;
+
+        if (!compactPurpose.isEmpty() && (containsReference(compactPurpose, entry.invoiceId)
+                || containsReference(compactPurpose, entry.orderNumber))) {
+            score += REFERENCE_SCORE;
+            reasons.add(Reason.REFERENCE);
+        }
+
+        long dayDistance = Long.MAX_VALUE;
+        if (entry.candidate.date() != null && row.bookingDate() != null) {
+            dayDistance = Math.abs(ChronoUnit.DAYS.between(entry.candidate.date(), row.bookingDate()));
+            if (dayDistance <= dateWindowDays) {
+                score += DATE_SCORE * (1.0 - (double) dayDistance / (dateWindowDays + 1));
+                reasons.add(Reason.DATE);
+            }
+        }
+        return new Scored(entry, score, reasons, dayDistance);
+    }
+
+    private static boolean containsReference(String compactPurpose, String reference) {
+        return reference != null && compactPurpose.contains(reference);
+    }
+
+    /** Amounts are compared by value, so {@code -12.5} and {@code -12.50} land in the same bucket. */
+    private static BigDecimal amountKey(BigDecimal amount) {
+        return amount.stripTrailingZeros();
+    }
+
+    /**
+     * Normalized form of a counterparty name used to recognise the same counterparty across transactions: its tokens
+     * (see {@link #tokens}) joined by a space. {@code null} if the name has no significant token.
+     */
+    public static String counterpartyKey(String name) {
+        Set<String> tokens = tokens(name);
+        return tokens.isEmpty() ? null : String.join(" ", tokens);
+    }
+
+    /**
+     * Splits a name into lower-case ASCII tokens: umlauts are transliterated ({@code ü -> ue}), other accents dropped,
+     * and short tokens and {@link #STOP_WORDS} removed, so "Müller GmbH" and "MUELLER GMBH" yield the same token.
+     */
+    static Set<String> tokens(String name) {
+        if (name == null || name.isBlank()) {
+            return Set.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        StringBuilder token = new StringBuilder();
+        String folded = fold(name);
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                token.append(c);
+            } else if (!token.isEmpty()) {
+                if (token.length() >= MIN_TOKEN_LENGTH && !STOP_WORDS.contains(token.toString())) {
+                    tokens.add(token.toString());
+                }
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    /** Lower-case letters and digits only, e.g. {@code "RE-2025/0042"} becomes {@code "re20250042"}. */
+    static String compact(String value) {
+        if (value == null) {
+            return "";
+        }
+        String folded = fold(value);
+        StringBuilder compact = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                compact.append(c);
+            }
+        }
+        return compact.toString();
+    }
+
+    private static String fold(String value) {
+        String lower = value.toLowerCase(Locale.ROOT)
+                .replace("ä", "ae")
+                .replace("ö", "oe")
+                .replace("ü", "ue")
+                .replace("ß", "ss");
+        return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    private static String referenceKey(String reference) {
+        String compact = compact(reference);
+        return compact.length() >= MIN_REFERENCE_LENGTH ? compact : null;
+    }
+
+    /** A candidate with everything derived from it that scoring needs, computed once when the index is built. */
+    private static final class Entry {
+        final Candidate candidate;
+        final BigDecimal openKey;
+        final Set<String> tokens;
+        final String counterpartyKey;
+        final String invoiceId;
+        final String orderNumber;
+
+        Entry(Candidate candidate) {
+            this.candidate = candidate;
+            this.openKey = candidate.openAmount() == null || candidate.openAmount().signum() == 0 ? null
+                    : amountKey(candidate.openAmount());
+            this.tokens = tokens(candidate.counterpartyName());
+            this.counterpartyKey = tokens.isEmpty() ? null : String.join(" ", tokens);
+            this.invoiceId = referenceKey(candidate.invoiceId());
+            this.orderNumber = referenceKey(candidate.orderNumber());
+        }
+    }
+
+    private record Scored(Entry entry, double score, Set<Reason> reasons, long dayDistance) {
+    }
+}
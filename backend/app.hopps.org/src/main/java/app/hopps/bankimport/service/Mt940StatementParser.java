@@ -0,0 +1,83 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.BankImport;
+import app.hopps.bankimport.parser.EncodingDetector;
+import app.hopps.bankimport.parser.Mt940Parser;
+import app.hopps.bankimport.parser.Mt940Parser.ParsedMt940Transaction;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * {@link BankStatementParser} for MT940 files. Needs no schema: the encoding is detected, and the SWIFT tags carry all
+ * fields. {@link Mt940Parser} works on the whole text, so unlike CSV the file is read into memory and capped at
+ * {@link #MAX_ROWS} transactions.
+ */
+@ApplicationScoped
+public class Mt940StatementParser implements BankStatementParser {
+
+    private static final int MAX_ROWS = 5000;
+
+    @Override
+    public String getFileType() {
+        return "MT940";
+    }
+
+    @Override
+    public StatementReader prepare(BankImport job) {
+        return in -> {
+            List<ParsedMt940Transaction> transactions = Mt940Parser.parse(decodeWithFallback(readAll(in)));
+            if (transactions.size() > MAX_ROWS) {
+                throw new IllegalArgumentException(
+                        "Datei enthält " + transactions.size() + " Transaktionen — Maximum sind " + MAX_ROWS);
+            }
+            return IntStream.range(0, transactions.size())
+                    .mapToObj(i -> toEntry(i + 1, transactions.get(i)));
+        };
+    }
+
+    private static StatementEntry toEntry(int rowNumber, ParsedMt940Transaction tx) {
+        String rawRow = tx.rawLine() != null ? tx.rawLine() : "";
+        return StatementEntry.parsed(rowNumber, rawRow, new StatementEntry.Row(
+                tx.bookingDate(),
+                tx.valueDate(),
+                tx.amount(),
+                tx.currency(),
+                tx.purpose(),
+                tx.counterpartyName(),
+                tx.counterpartyIban(),
+                tx.counterpartyBic(),
+                tx.transactionType(),
+                null,
+                tx.endToEndReference(),
+                tx.mandateReference(),
+                tx.creditorId(),
+                tx.balanceAfter()));
+    }
+
+    private static byte[] readAll(InputStream in) {
+        try {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String decodeWithFallback(byte[] bytes) {
+        try {
+            Charset charset = EncodingDetector.detect(bytes);
+            return EncodingDetector.decodeStrict(bytes, charset);
+        } catch (IllegalArgumentException e) {
+            try {
+                return EncodingDetector.decodeStrict(bytes, EncodingDetector.FALLBACK_CHARSET);
+            } catch (IllegalArgumentException e2) {
+                return new String(bytes, EncodingDetector.FALLBACK_CHARSET);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package app.hopps.bankimport.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One entry of a bank statement as produced by a {@link BankStatementParser}: either a normalized {@link Row} or, if
+ * the entry could not be parsed, the error message. {@code rowNumber} and {@code rawRow} identify the entry in the
+ * error report and are kept on the imported transaction.
+ */
+public record StatementEntry(int rowNumber, String rawRow, Row row, String error) {
+
+    public static StatementEntry parsed(int rowNumber, String rawRow, Row row) {
+        return new StatementEntry(rowNumber, rawRow, row, null);
+    }
+
+    public static StatementEntry failed(int rowNumber, String rawRow, String error) {
+        return new StatementEntry(rowNumber, rawRow, null, error);
+    }
+
+    public boolean isFailed() {
+        return row == null;
+    }
+
+    /** Format-independent transaction data; {@code currency} may be null to fall back to the account's currency. */
+    public record Row(
+            LocalDate bookingDate,
+            LocalDate valueDate,
+            BigDecimal amount,
+            String currency,
+            String purpose,
+            String counterpartyName,
+            String counterpartyIban,
+            String counterpartyBic,
+            String transactionType,
+            String bankReference,
+            String endToEndReference,
+            String mandateReference,
+            String creditorId,
+            BigDecimal balanceAfter) {
+    }
+}
@@ -6,53 +6,61 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.ColumnResult;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityResult;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
-import jakarta.persistence.NamedQuery;
+import jakarta.persistence.NamedNativeQuery;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.SqlResultSetMapping;
 import jakarta.persistence.Table;
+import org.hibernate.jpa.HibernateHints;
 
 import java.util.Objects;
 import java.util.Set;
 
+/**
+ * A node of an organization's bommel tree. Tree lookups ({@code Bommel.GetAncestors}, {@code Bommel.GetDescendants})
+ * read the {@code bommel_closure} table (see migration V1.0.27); both return the bommel, whether it lies on a cycle (it
+ * is its own ancestor), and a path of IDs in the {@code {1,2,3}} form {@link TreeSearchBommel} parses.
+ */
 @Entity
 @Table(indexes = @Index(columnList = "parent_id"))
-@NamedQuery(name = "Bommel.GetParentsRecursive", query = """
-                    with parents as (
-                        select n.parent.id as bommel
-                        from Bommel n
-                        where n.id = :startId
-
-                        union
-
-                        select n.parent.id as bommel
-                        from Bommel n
-                        join parents c on n.id = c.bommel
-                    ) cycle bommel set cycleMark using cyclePath
-                    select n as bommel, cycleMark as cycleMark, cyclePath as cyclePath
-                    from Bommel n
-                    join parents c on n.id = c.bommel
-        """)
-@NamedQuery(name = "Bommel.GetChildrenRecursive", query = """
-                    with children_query as (
-                        select n.id as bommel
-                        from Bommel n
-                        where n.id = :startId
-
-                        union
-
-                        select n.id as bommel
-                        from Bommel n
-                        join children_query c on n.parent.id = c.bommel
-                    ) cycle bommel set cycleMark using cyclePath
-                    select n as bommel, cycleMark as cycleMark, cyclePath as cyclePath
-                    from Bommel n
-                    join children_query c on n.id = c.bommel
-                    where n.id != :startId or cycleMark = true
-        """)
+@NamedNativeQuery(name = "Bommel.GetAncestors", query = """
+                    select b.*,
+                           exists(select 1 from bommel_closure s
+                                  where s.ancestor_id = c.ancestor_id and s.descendant_id = c.ancestor_id) as cyclemark,
+                           cast((select array_agg(p.ancestor_id order by p.depth)
+                                 from bommel_closure p
+                                 where p.descendant_id = c.descendant_id and p.depth <= c.depth) as text) as cyclepath
+                    from bommel_closure c
+                    join bommel b on b.id = c.ancestor_id
+                    where c.descendant_id = :startId
+                    order by c.depth, c.ancestor_id
+        """, resultSetMapping = "Bommel.TreeSearch",
+        // Flushes pending bommel changes before the lookup, like the JPQL queries do
+        hints = @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "bommel"))
+@NamedNativeQuery(name = "Bommel.GetDescendants", query = """
+                    select b.*,
+                           exists(select 1 from bommel_closure s
+                                  where s.ancestor_id = c.descendant_id and s.descendant_id = c.descendant_id) as cyclemark,
+                           cast(array[cast(:startId as bigint)]
+                                || coalesce((select array_agg(p.ancestor_id order by p.depth desc)
+                                             from bommel_closure p
+                                             where p.descendant_id = c.descendant_id and p.depth < c.depth), '{}')
+                                || c.descendant_id as text) as cyclepath
+                    from bommel_closure c
+                    join bommel b on b.id = c.descendant_id
+                    where c.ancestor_id = :startId
+                    order by c.depth, c.descendant_id
+        """, resultSetMapping = "Bommel.TreeSearch", hints = @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "bommel"))
+@SqlResultSetMapping(name = "Bommel.TreeSearch", entities = @EntityResult(entityClass = Bommel.class), columns = {
+        @ColumnResult(name = "cyclemark", type = Boolean.class),
+        @ColumnResult(name = "cyclepath", type = String.class) })
 public class Bommel extends PanacheEntity {
     public static final String DEFAULT_ROOT_BOMMEL_EMOJI = "\uD83C\uDF33"; // tree
 
@@ -14,6 +14,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Tree operations on bommels. Subtree and lineage lookups read the {@code bommel_closure} table, which a database
+ * trigger keeps in sync with the parent links (see migration V1.0.27).
+ * <p>
+ * Writes to a tree are serialized per organization by an advisory lock on its root bommel, which the trigger takes for
+ * every parent change. Inserts, moves and deletes take it up front, so their checks see the result of concurrent ones.
+ */
 @ApplicationScoped
 public class BommelRepository implements PanacheRepository<Bommel> {
 
@@ -22,20 +29,7 @@ public class BommelRepository implements PanacheRepository<Bommel> {
      * itself. Goes upwards towards the root element, i.e. the root element will always be the last.
      */
     public List<TreeSearchBommel> getParents(Bommel base) throws WebApplicationException {
-        List<TreeSearchBommel> possibleCycleBommels = this.getEntityManager()
-                .createNamedQuery("Bommel.GetParentsRecursive", TreeSearchBommel.class)
-                .setParameter("startId", base.id)
-                .getResultList();
-
-        Optional<TreeSearchBommel> cycle = possibleCycleBommels.stream()
-                .filter(TreeSearchBommel::cycleMark)
-                .findAny();
-
-        if (cycle.isPresent()) {
-            throw new WebApplicationException("Cycle detected on bommel " + cycle.get());
-        }
-
-        return possibleCycleBommels;
+        return treeSearch("Bommel.GetAncestors", base);
     }
 
     public Organization getOrganization(Bommel base) throws WebApplicationException {
@@ -62,20 +56,32 @@ public class BommelRepository implements PanacheRepository<Bommel> {
      *             when there has been a cycle
      */
     public List<TreeSearchBommel> getChildrenRecursive(Bommel base) throws IllegalStateException {
-        List<TreeSearchBommel> possibleCycleBommels = this.getEntityManager()
-                .createNamedQuery("Bommel.GetChildrenRecursive", TreeSearchBommel.class)
-                .setParameter("startId", base.id)
-                .getResultList();
-
-        Optional<TreeSearchBommel> cycle = possibleCycleBommels.stream()
-                .filter(TreeSearchBommel::cycleMark)
-                .findAny();
+        return treeSearch("Bommel.GetDescendants", base);
+    }
 
-        if (cycle.isPresent()) {
-            throw new WebApplicationException("Cycle detected on bommel " + cycle.get());
-        }
+    /**
+     * Number of bommels below base, at any depth.
+     */
+    public long countDescendants(Bommel base) {
+        return ((Number) getEntityManager()
+                .createNativeQuery("SELECT count(*) FROM bommel_closure WHERE ancestor_id = :id")
+                .setParameter("id", base.id)
+                .getSingleResult()).longValue();
+    }
 
-        return possibleCycleBommels;
+    /**
+     * Whether candidate lies in the subtree below ancestor.
+     */
+    public boolean isDescendant(Bommel ancestor, Bommel candidate) {
+        return getEntityManager()
+                .createNativeQuery("""
+                        SELECT 1 FROM bommel_closure WHERE ancestor_id = :ancestor AND descendant_id = :candidate
+                        """)
+                .setParameter("ancestor", ancestor.id)
+                .setParameter("candidate", candidate.id)
+                .getResultStream()
+                .findAny()
+                .isPresent();
     }
 
     public Optional<Bommel> getRootBommel(long orgId) {
@@ -125,6 +131,7 @@ public class BommelRepository implements PanacheRepository<Bommel> {
             throw new WebApplicationException("non-root Bommel cannot have an organization");
         }
 
+        lockTree(child.getParent());
         if (!child.isPersistent()) {
             child.persist();
         }
@@ -134,6 +141,15 @@ public class BommelRepository implements PanacheRepository<Bommel> {
         return child;
     }
 
+    /**
+     * Deletes the bommel, and with {@code recursive} its whole subtree, with one statement per table: transactions and
+     * documents of the subtree are detached (they are preserved without a bommel), its bank accounts move to the
+     * deleted bommel's parent, and the bommels are deleted in bulk. The subtree comes from the closure table, so the
+     * cost does not depend on the depth of the tree and the transaction stays short.
+     * <p>
+     * The statements bypass the persistence context, so it is cleared afterwards; previously loaded entities are
+     * detached.
+     */
     @Transactional
     public void deleteBommel(Bommel bommel, boolean recursive) {
         if (!recursive && !bommel.getChildren().isEmpty()) {
@@ -142,25 +158,35 @@ public class BommelRepository implements PanacheRepository<Bommel> {
                     Response.Status.BAD_REQUEST);
         }
 
-        if (recursive && !bommel.getChildren().isEmpty()) {
-            // Unlink transactions for all descendant bommels before cascade delete
-            List<TreeSearchBommel> descendants = getChildrenRecursive(bommel);
-            for (TreeSearchBommel descendant : descendants) {
-                getEntityManager()
-                        .createQuery("UPDATE Transaction t SET t.bommel = NULL WHERE t.bommel.id = :bommelId")
-                        .setParameter("bommelId", descendant.bommel().id)
-                        .executeUpdate();
-            }
+        if (bommel.getParent() == null) {
+            throw new WebApplicationException("Cannot delete the root bommel", Response.Status.BAD_REQUEST);
         }
 
-        // Unlink all transactions referencing this bommel before deletion
-        // This sets bommel_id = NULL so transactions are preserved but detached
+        lockTree(bommel);
+        // Pending changes have to reach the database before the bulk statements read it
+        flush();
+
+        String subtree = "(SELECT :id UNION ALL SELECT descendant_id FROM bommel_closure WHERE ancestor_id = :id)";
         getEntityManager()
-                .createQuery("UPDATE Transaction t SET t.bommel = NULL WHERE t.bommel.id = :bommelId")
-                .setParameter("bommelId", bommel.id)
+                .createNativeQuery("UPDATE transaction SET bommel_id = NULL WHERE bommel_id IN " + subtree)
+                .setParameter("id", bommel.id)
+                .executeUpdate();
+        getEntityManager()
+                .createNativeQuery("UPDATE document SET bommel_id = NULL WHERE bommel_id IN " + subtree)
+                .setParameter("id", bommel.id)
+                .executeUpdate();
+        getEntityManager()
+                .createNativeQuery("UPDATE BankAccount SET bommel_id = (SELECT parent_id FROM bommel WHERE id = :id)"
+                        + " WHERE bommel_id IN " + subtree)
+                .setParameter("id", bommel.id)
+                .executeUpdate();
+        // A single statement may delete parents together with their children; the foreign keys are checked at its end
+        getEntityManager()
+                .createNativeQuery("DELETE FROM bommel WHERE id IN " + subtree)
+                .setParameter("id", bommel.id)
                 .executeUpdate();
 
-        delete(bommel);
+        getEntityManager().clear();
     }
 
     @Transactional
@@ -174,13 +200,29 @@ public class BommelRepository implements PanacheRepository<Bommel> {
             throw new WebApplicationException("Cannot move the root bommel");
         }
 
+        lockTree(destination);
+        if (bommel.id.equals(destination.id) || isDescendant(bommel, destination)) {
+            throw new WebApplicationException("Cannot move a bommel into its own subtree",
+                    Response.Status.BAD_REQUEST);
+        }
+
         persist(bommel);
         bommel.setParent(destination);
-        ensureNoCycleFromBommel(bommel);
 
         return bommel;
     }
 
+    /**
+     * Takes the organization's tree lock until the transaction ends (see {@code bommel_tree_lock} in migration
+     * V1.0.27).
+     */
+    private void lockTree(Bommel member) {
+        getEntityManager()
+                .createNativeQuery("SELECT true FROM bommel_tree_lock(:id)")
+                .setParameter("id", member.id)
+                .getSingleResult();
+    }
+
     /**
      * Counts the number of edges (k) and vertices (n) in all trees, and uses the property n = k - 1 to ensure that no
      * illegal subtrees have separated and no cycles exist. This is expensive, especially with a large number of
@@ -203,7 +245,7 @@ public class BommelRepository implements PanacheRepository<Bommel> {
 
         long reachableNodes = roots.size();
         for (Bommel treeRoot : roots) {
-            reachableNodes += getChildrenRecursive(treeRoot).size();
+            reachableNodes += countDescendants(treeRoot);
         }
 
         if (reachableNodes != nodesCount) {
@@ -212,6 +254,34 @@ public class BommelRepository implements PanacheRepository<Bommel> {
         }
     }
 
+    /**
+     * Runs a tree lookup on the closure table (named native queries on {@link Bommel}).
+     *
+     * @throws WebApplicationException
+     *             when one of the found bommels lies on a cycle
+     */
+    @SuppressWarnings("unchecked")
+    private List<TreeSearchBommel> treeSearch(String queryName, Bommel base) throws WebApplicationException {
+        List<Object[]> rows = getEntityManager()
+                .createNamedQuery(queryName)
+                .setParameter("startId", base.id)
+                .getResultList();
+
+        List<TreeSearchBommel> possibleCycleBommels = rows.stream()
+                .map(row -> new TreeSearchBommel((Bommel) row[0], (Boolean) row[1], (String) row[2]))
+                .toList();
+
+        Optional<TreeSearchBommel> cycle = possibleCycleBommels.stream()
+                .filter(TreeSearchBommel::cycleMark)
+                .findAny();
+
+        if (cycle.isPresent()) {
+            throw new WebApplicationException("Cycle detected on bommel " + cycle.get());
+        }
+
+        return possibleCycleBommels;
+    }
+
     /**
      * Ensures that, starting from child, there is no cycle in the graph. Uses getParents internally.
      */
@@ -1,30 +1,49 @@
 package app.hopps.document.api;
 
+import app.hopps.document.service.DocumentChangeBroadcaster;
+import app.hopps.shared.security.OrganizationContext;
 import io.quarkus.websockets.next.OnClose;
 import io.quarkus.websockets.next.OnOpen;
 import io.quarkus.websockets.next.WebSocket;
 import io.quarkus.websockets.next.WebSocketConnection;
+import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * WebSocket endpoint the frontend connects to in order to receive live document-change notifications. The endpoint
- * itself only keeps the connection open; messages are pushed by {@code DocumentChangeBroadcaster}. The payload carries
- * the changed document ID (and organization ID) — the frontend always reloads the full list via the authenticated REST
- * API in response.
+ * WebSocket endpoint the frontend connects to in order to receive live document-change notifications. The upgrade
+ * request is authenticated (browsers pass the bearer token as a {@code Sec-WebSocket-Protocol} value, see
+ * {@code quarkus.websockets-next.server.supported-subprotocols}); the connection is registered with the user's
+ * organization and only receives changes of that organization. Messages are pushed by
+ * {@code DocumentChangeBroadcaster}; the payload carries the changed document IDs — the frontend always reloads the
+ * full list via the authenticated REST API in response.
  */
 @WebSocket(path = "/ws/documents")
 public class DocumentEventSocket {
 
     private static final Logger LOG = LoggerFactory.getLogger(DocumentEventSocket.class);
 
+    @Inject
+    DocumentChangeBroadcaster broadcaster;
+
+    @Inject
+    OrganizationContext organizationContext;
+
     @OnOpen
     public void onOpen(WebSocketConnection connection) {
-        LOG.debug("Document WebSocket opened: {}", connection.id());
+        Long organizationId = organizationContext.getCurrentOrganizationId();
+        if (organizationId == null) {
+            LOG.debug("Document WebSocket {} has no organization, closing", connection.id());
+            connection.closeAndAwait();
+            return;
+        }
+        broadcaster.register(connection, organizationId);
+        LOG.debug("Document WebSocket opened: {} (organization {})", connection.id(), organizationId);
     }
 
     @OnClose
     public void onClose(WebSocketConnection connection) {
+        broadcaster.unregister(connection);
         LOG.debug("Document WebSocket closed: {}", connection.id());
     }
 }
@@ -2,12 +2,18 @@ package app.hopps.document.api;
 
 import app.hopps.bommel.domain.Bommel;
 import app.hopps.bommel.repository.BommelRepository;
+import app.hopps.document.api.dto.BulkUploadResult;
 import app.hopps.document.api.dto.DocumentResponse;
 import app.hopps.document.api.dto.DocumentUpdateRequest;
 import app.hopps.document.domain.*;
+import app.hopps.document.repository.DocumentListItem;
 import app.hopps.document.repository.DocumentRepository;
+import app.hopps.document.service.ByteRange;
+import app.hopps.document.service.DocumentBulkUploadService;
 import app.hopps.document.service.DocumentFileService;
 import app.hopps.organization.domain.Organization;
+import app.hopps.shared.infrastructure.storage.TieredFileCache.CachedFile;
+import app.hopps.shared.repository.CursorPage;
 import app.hopps.shared.security.OrganizationContext;
 import app.hopps.transaction.domain.Transaction;
 import app.hopps.transaction.domain.TransactionDeletedEvent;
@@ -19,9 +25,12 @@ import io.quarkus.security.identity.SecurityIdentity;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.headers.Header;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
@@ -30,9 +39,14 @@ import org.jboss.resteasy.reactive.RestForm;
 import org.jboss.resteasy.reactive.multipart.FileUpload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.List;
@@ -45,8 +59,10 @@ import java.util.Objects;
 @Path("/documents")
 public class DocumentResource {
     private static final Logger LOG = LoggerFactory.getLogger(DocumentResource.class);
-    private static final List<String> ALLOWED_CONTENT_TYPES = List.of(
-            "image/png", "image/jpeg", "application/pdf");
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+    // Caches may keep the file but must revalidate it (answered with 304 while the ETag matches).
+    private static final String FILE_CACHE_CONTROL = "private, no-cache";
 
     @Inject
     DocumentRepository documentRepository;
@@ -57,6 +73,9 @@ public class DocumentResource {
     @Inject
     DocumentFileService fileService;
 
+    @Inject
+    DocumentBulkUploadService bulkUploadService;
+
     @Inject
     TransactionRepository transactionRepository;
 
@@ -96,10 +115,11 @@ public class DocumentResource {
         }
 
         LOG.info("File details: name={}, contentType={}, size={}", file.fileName(), file.contentType(), file.size());
-        if (!ALLOWED_CONTENT_TYPES.contains(file.contentType())) {
+        if (!DocumentFileService.ALLOWED_CONTENT_TYPES.contains(file.contentType())) {
             LOG.warn("Unsupported content type: {}", file.contentType());
             throw new ClientErrorException(
-                    "Unsupported file type: " + file.contentType() + ". Allowed: " + ALLOWED_CONTENT_TYPES,
+                    "Unsupported file type: " + file.contentType() + ". Allowed: "
+                            + DocumentFileService.ALLOWED_CONTENT_TYPES,
                     Response.Status.UNSUPPORTED_MEDIA_TYPE);
         }
 
@@ -141,22 +161,65 @@ public class DocumentResource {
         return Response.status(Response.Status.CREATED).entity(response).build();
     }
 
-    @GET
+    @POST
+    @Path("/bulk")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
     @Produces(MediaType.APPLICATION_JSON)
-    @Operation(summary = "List all documents", description = "Returns all documents for the current organization")
-    @APIResponse(responseCode = "200", description = "List of documents", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = DocumentResponse[].class)))
-    public List<DocumentResponse> listDocuments(
-            @QueryParam("bommelId") @Parameter(description = "Filter by bommel ID") Long bommelId) {
-        List<Document> documents;
-        if (bommelId != null) {
-            documents = documentRepository.findByBommelId(bommelId);
-        } else {
-            documents = documentRepository.findAllOrderedByDate();
+    @Operation(summary = "Upload several documents", description = "Uploads several document files at once. Files are stored in parallel, duplicates are skipped, all documents are created in one transaction and analyzed as one batch. Returns one result per file, in upload order.")
+    @APIResponse(responseCode = "200", description = "Per-file results", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = BulkUploadResult[].class)))
+    @APIResponse(responseCode = "400", description = "No files, too many files, or user is not part of an organization")
+    @APIResponse(responseCode = "401", description = "Not authenticated")
+    public List<BulkUploadResult> uploadDocuments(
+            @RestForm("files") List<FileUpload> files,
+            @QueryParam("analyze") @DefaultValue("true") @Parameter(description = "Whether to trigger automatic AI analysis after upload") boolean analyze,
+            @QueryParam("direction") @Parameter(description = "Document direction of all files: INCOMING (Eingangsbeleg, expense) or OUTGOING (Ausgangsbeleg, income). Defaults to INCOMING.") DocumentDirection direction) {
+        Organization organization = organizationContext.getCurrentOrganization();
+        if (organization == null) {
+            throw new BadRequestException("User is not part of an organization");
         }
+        LOG.info("Bulk upload request received: files={}", files != null ? files.size() : 0);
 
-        return documents.stream()
-                .map(DocumentResponse::from)
-                .toList();
+        // Not transactional itself: the S3 uploads run outside the transaction, which only covers the inserts.
+        return bulkUploadService.upload(files, organization, securityIdentity.getPrincipal().getName(), direction,
+                analyze);
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "List all documents", description = "Returns the documents of the current organization with optional filters; paged when size or cursor is given")
+    @APIResponse(responseCode = "200", description = "List of documents", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = DocumentResponse[].class)), headers = @Header(name = CursorPage.NEXT_CURSOR_HEADER, description = "Cursor for the next page when paginating; absent on the last page", schema = @Schema(type = SchemaType.STRING)))
+    public Response listDocuments(
+            @QueryParam("bommelId") @Parameter(description = "Filter by bommel ID") Long bommelId,
+            @QueryParam("detached") @Parameter(description = "Filter unassigned documents (no bommel)") Boolean detached,
+            @QueryParam("search") @Parameter(description = "Search in document name, file name and sender name") String search,
+            @QueryParam("startDate") @Parameter(description = "Filter documents from this transaction date (ISO format: YYYY-MM-DD)") String startDate,
+            @QueryParam("endDate") @Parameter(description = "Filter documents until this transaction date (ISO format: YYYY-MM-DD)") String endDate,
+            @QueryParam("status") @Parameter(description = "Filter by document status") DocumentStatus status,
+            @QueryParam("analysisStatus") @Parameter(description = "Filter by analysis status") AnalysisStatus analysisStatus,
+            @QueryParam("direction") @Parameter(description = "Filter by direction (INCOMING or OUTGOING)") DocumentDirection direction,
+            @QueryParam("cursor") @Parameter(description = "Cursor from the X-Next-Cursor header of the previous page") String cursor,
+            @QueryParam("size") @Parameter(description = "Page size (1 to 1000); omit together with cursor to list all documents") Integer size) {
+
+        if (size != null && (size < 1 || size > MAX_PAGE_SIZE)) {
+            throw new BadRequestException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Instant startInstant = null;
+        Instant endInstant = null;
+        if (startDate != null && !startDate.isBlank()) {
+            startInstant = LocalDate.parse(startDate).atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+        if (endDate != null && !endDate.isBlank()) {
+            // End of day for inclusive range
+            endInstant = LocalDate.parse(endDate).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+
+        // Without size and cursor the whole list is returned, as before pagination was added.
+        Integer pageSize = size == null && cursor != null ? Integer.valueOf(DEFAULT_PAGE_SIZE) : size;
+        CursorPage<DocumentListItem> page = documentRepository.findListing(search, startInstant, endInstant,
+                bommelId, detached, status, analysisStatus, direction, cursor, pageSize);
+        List<DocumentResponse> body = page.items().stream().map(DocumentResponse::from).toList();
+        return Response.ok(body).header(CursorPage.NEXT_CURSOR_HEADER, page.nextCursor()).build();
     }
 
     @GET
@@ -305,28 +368,93 @@ public class DocumentResource {
     @GET
     @Path("/{id}/file")
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
-    @Operation(summary = "Download document file", description = "Downloads the document file from storage")
+    @Operation(summary = "Download document file", description = "Streams the document file from storage. Supports a single byte range (Range, If-Range) and revalidation of cached copies (If-None-Match against the ETag derived from the file content).")
     @APIResponse(responseCode = "200", description = "File content")
+    @APIResponse(responseCode = "206", description = "Requested byte range of the file")
+    @APIResponse(responseCode = "304", description = "Cached copy is still current")
     @APIResponse(responseCode = "404", description = "Document or file not found")
+    @APIResponse(responseCode = "416", description = "Requested range lies outside the file")
     public Response downloadFile(
-            @PathParam("id") @Parameter(description = "Document ID") Long id) {
+            @PathParam("id") @Parameter(description = "Document ID") Long id,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @HeaderParam("Range") String rangeHeader,
+            @HeaderParam("If-Range") String ifRange) {
         Document document = documentRepository.findByIdScoped(id);
         if (document == null || !document.hasFile()) {
             throw new NotFoundException("Document or file not found");
         }
 
+        // The content hash changes whenever the file is replaced, so it is a strong validator. Legacy documents without
+        // a hash get no ETag and are always sent in full.
+        String etag = document.getFileHash() != null ? "\"" + document.getFileHash() + "\"" : null;
+        if (etag != null && etagMatches(ifNoneMatch, etag)) {
+            return Response.notModified()
+                    .header(HttpHeaders.ETAG, etag)
+                    .header(HttpHeaders.CACHE_CONTROL, FILE_CACHE_CONTROL)
+                    .build();
+        }
+        // A range is only served if the client's partial copy is still current (If-Range); otherwise the whole file.
+        ByteRange range = ifRange == null || ifRange.trim().equals(etag)
+                ? ByteRange.parse(rangeHeader, document.getFileSize())
+                : null;
+
         try {
-            var inputStream = fileService.downloadFile(document.getFileKey());
-            return Response.ok(inputStream)
+            // The stream is handed to the response as is: it is read and written in chunks as the client consumes it,
+            // and closed afterwards. Whole files come from the file cache where possible; ranges and files too large
+            // for the cache are streamed from S3 without being buffered in memory.
+            Response.ResponseBuilder response;
+            InputStream stream;
+            long contentLength;
+            if (range != null) {
+                ResponseInputStream<GetObjectResponse> object = fileService.downloadFile(document.getFileKey(), range);
+                response = Response.status(Response.Status.PARTIAL_CONTENT)
+                        .header("Content-Range", object.response().contentRange());
+                stream = object;
+                contentLength = object.response().contentLength();
+            } else {
+                CachedFile file = fileService.openFile(document.getFileKey());
+                response = Response.ok();
+                stream = file.stream();
+                contentLength = file.size();
+            }
+            return response.entity(stream)
                     .header("Content-Disposition", "attachment; filename=\"" + document.getFileName() + "\"")
                     .header("Content-Type", document.getFileContentType())
+                    .header(HttpHeaders.CONTENT_LENGTH, contentLength)
+                    .header("Accept-Ranges", "bytes")
+                    .header(HttpHeaders.ETAG, etag)
+                    .header(HttpHeaders.CACHE_CONTROL, FILE_CACHE_CONTROL)
                     .build();
         } catch (NoSuchKeyException e) {
             // The DB record exists but the stored object is gone (e.g. ephemeral local storage was reset). Return a
             // clean 404 instead of leaking a 500 with internal storage details.
             LOG.warn("File missing in storage for document {}: key={}", id, document.getFileKey());
             throw new NotFoundException("File is no longer available in storage");
+        } catch (S3Exception e) {
+            // Without a stored file size the range is only checked by S3
+            if (e.statusCode() == Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE.getStatusCode()) {
+                throw new ClientErrorException("Requested range not satisfiable",
+                        Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE);
+            }
+            throw e;
+        }
+    }
+
+    /** Whether an {@code If-None-Match} header names the ETag; compared weakly, as RFC 9110 requires for it. */
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
         }
+        return false;
     }
 
     @POST
@@ -349,9 +477,10 @@ public class DocumentResource {
         if (file == null || file.fileName() == null || file.fileName().isBlank()) {
             throw new BadRequestException("File is required");
         }
-        if (!ALLOWED_CONTENT_TYPES.contains(file.contentType())) {
+        if (!DocumentFileService.ALLOWED_CONTENT_TYPES.contains(file.contentType())) {
             throw new ClientErrorException(
-                    "Unsupported file type: " + file.contentType() + ". Allowed: " + ALLOWED_CONTENT_TYPES,
+                    "Unsupported file type: " + file.contentType() + ". Allowed: "
+                            + DocumentFileService.ALLOWED_CONTENT_TYPES,
                     Response.Status.UNSUPPORTED_MEDIA_TYPE);
         }
 
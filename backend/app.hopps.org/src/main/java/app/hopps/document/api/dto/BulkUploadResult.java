@@ -0,0 +1,39 @@
+package app.hopps.document.api.dto;
+
+/**
+ * Outcome of a single file of a bulk upload. Results are returned in the order the files were sent.
+ *
+ * @param fileName
+ *            the name of the uploaded file
+ * @param status
+ *            what happened to the file
+ * @param document
+ *            the created document, only set for {@link Status#CREATED}
+ * @param error
+ *            why the file was not stored, only set for the other states
+ */
+public record BulkUploadResult(
+        String fileName,
+        Status status,
+        DocumentResponse document,
+        String error) {
+
+    public enum Status {
+        /** Stored and persisted as a new document. */
+        CREATED,
+        /** Same content as an existing document of the organization or an earlier file of the same upload. */
+        DUPLICATE,
+        /** Not accepted, e.g. because of an unsupported file type. */
+        REJECTED,
+        /** Could not be stored. */
+        FAILED
+    }
+
+    public static BulkUploadResult created(String fileName, DocumentResponse document) {
+        return new BulkUploadResult(fileName, Status.CREATED, document, null);
+    }
+
+    public static BulkUploadResult failed(String fileName, Status status, String error) {
+        return new BulkUploadResult(fileName, status, null, error);
+    }
+}
@@ -5,6 +5,7 @@ import app.hopps.document.domain.Document;
 import app.hopps.document.domain.DocumentDirection;
 import app.hopps.document.domain.DocumentStatus;
 import app.hopps.document.domain.ExtractionSource;
+import app.hopps.document.repository.DocumentListItem;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -87,4 +88,44 @@ public record DocumentResponse(
                 doc.getUpdatedAt(),
                 doc.getUploadedBy());
     }
+
+    /**
+     * Creates a DocumentResponse from a listing row, with the same fallbacks as {@link #from(Document)} for a missing
+     * sender or recipient.
+     */
+    public static DocumentResponse from(DocumentListItem item) {
+        boolean hasSender = item.senderId() != null;
+        String senderName = item.senderName() != null && !item.senderName().isBlank()
+                ? item.senderName()
+                : item.name() != null ? item.name() : "";
+
+        return new DocumentResponse(
+                item.id(),
+                item.transactionId(),
+                item.fileName(),
+                item.fileContentType(),
+                item.fileSize(),
+                item.bommelId(),
+                item.privatelyPaid(),
+                item.documentStatus(),
+                item.direction(),
+                item.analysisStatus(),
+                item.analysisError(),
+                item.extractionSource(),
+                item.name(),
+                item.legalDocumentId(),
+                item.total(),
+                item.totalTax(),
+                item.currencyCode(),
+                item.transactionTime(),
+                senderName,
+                hasSender ? item.senderStreet() : "",
+                hasSender ? item.senderZipCode() : "",
+                hasSender ? item.senderCity() : "",
+                item.recipientName() != null ? item.recipientName() : "",
+                item.tags(),
+                item.createdAt(),
+                item.updatedAt(),
+                item.uploadedBy());
+    }
 }
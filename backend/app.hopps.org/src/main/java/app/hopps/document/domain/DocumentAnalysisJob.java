@@ -0,0 +1,80 @@
+package app.hopps.document.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * Queue entry for the analysis of a single document, keyed by the document ID. Created when a document is queued for
+ * analysis and deleted once the analysis finished; the worker transitions it from QUEUED to PROCESSING (see
+ * {@link DocumentAnalysisJobStatus}). Jobs are written with native SQL by
+ * {@link app.hopps.document.repository.DocumentAnalysisJobRepository}; the entity is read-only for the application.
+ */
+@Entity
+@Table(name = "document_analysis_job")
+public class DocumentAnalysisJob extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Column(nullable = false)
+    private int priority;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DocumentAnalysisJobStatus status;
+
+    @Column(name = "queuedat", nullable = false)
+    private Instant queuedAt;
+
+    @Column(name = "startedat")
+    private Instant startedAt;
+
+    @Column(name = "claimedby")
+    private String claimedBy;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private boolean rerun;
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public DocumentAnalysisJobStatus getStatus() {
+        return status;
+    }
+
+    public Instant getQueuedAt() {
+        return queuedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public boolean isRerun() {
+        return rerun;
+    }
+}
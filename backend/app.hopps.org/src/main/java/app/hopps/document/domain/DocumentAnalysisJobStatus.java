@@ -0,0 +1,10 @@
+package app.hopps.document.domain;
+
+/**
+ * States of a {@link DocumentAnalysisJob}. Finished jobs are deleted, their outcome is the document's
+ * {@link AnalysisStatus}.
+ */
+public enum DocumentAnalysisJobStatus {
+    QUEUED,
+    PROCESSING
+}
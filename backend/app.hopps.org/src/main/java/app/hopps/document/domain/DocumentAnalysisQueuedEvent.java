@@ -0,0 +1,8 @@
+package app.hopps.document.domain;
+
+/**
+ * Fired when documents have been queued for analysis, so the analysis worker can pick them up right after the
+ * enqueueing transaction commits instead of waiting for its next poll.
+ */
+public record DocumentAnalysisQueuedEvent() {
+}
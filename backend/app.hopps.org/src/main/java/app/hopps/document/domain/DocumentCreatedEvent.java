@@ -1,8 +1,8 @@
 package app.hopps.document.domain;
 
 /**
- * Event fired when a new document is created and persisted. Used to trigger async document analysis after the
- * transaction commits.
+ * Event fired when a new document is created and persisted, or re-analysis is requested. Queues the document for
+ * analysis with interactive priority.
  *
  * @param documentId
  *            the ID of the created document
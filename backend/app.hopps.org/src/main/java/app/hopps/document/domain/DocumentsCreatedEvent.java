@@ -0,0 +1,13 @@
+package app.hopps.document.domain;
+
+import java.util.List;
+
+/**
+ * Event fired once for a bulk upload after all of its documents have been persisted. Queues the whole batch for
+ * analysis with bulk priority.
+ *
+ * @param documentIds
+ *            the IDs of the created documents, in upload order
+ */
+public record DocumentsCreatedEvent(List<Long> documentIds) {
+}
@@ -0,0 +1,183 @@
+package app.hopps.document.repository;
+
+import app.hopps.document.domain.DocumentAnalysisJob;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Query;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Worker-side access to the document analysis queue (no org scoping — runs as a system task). All writes are single
+ * native statements so they stay correct with several threads and app replicas working on the queue.
+ * <p>
+ * A worker finishes a job through the {@link Claim} it got from {@link #claimQueued(int, String)}. The claim time is
+ * stored as the job's {@code startedat}, so once the watchdog has handed an expired job to another worker, the first
+ * worker's late {@link #complete(Claim)} or {@link #release(Claim, int)} no longer matches and leaves the job alone.
+ */
+@ApplicationScoped
+public class DocumentAnalysisJobRepository implements PanacheRepositoryBase<DocumentAnalysisJob, Long> {
+
+    /** A job claimed by a worker, identified by its document and the time it was claimed. */
+    public record Claim(Long documentId, Instant claimedAt) {
+    }
+
+    /**
+     * Queues the documents for analysis. A document that is already queued keeps its place and gets the higher of both
+     * priorities; a document that is being analyzed right now is analyzed once more after the current run, because its
+     * file or the request may have changed in the meantime.
+     */
+    public void enqueue(Collection<Long> documentIds, int priority) {
+        if (documentIds.isEmpty()) {
+            return;
+        }
+        getEntityManager().createNativeQuery("""
+                INSERT INTO document_analysis_job AS j (document_id, priority)
+                SELECT d.id, :priority FROM document d WHERE d.id IN (:ids)
+                ON CONFLICT (document_id) DO UPDATE
+                    SET priority = GREATEST(j.priority, excluded.priority),
+                        attempts = 0,
+                        rerun = j.status = 'PROCESSING'
+                """)
+                .setParameter("priority", priority)
+                .setParameter("ids", documentIds)
+                .executeUpdate();
+    }
+
+    /**
+     * Atomically claims up to {@code limit} QUEUED jobs, highest priority first and oldest first within a priority,
+     * flips them to PROCESSING and counts the attempt. {@code FOR UPDATE SKIP LOCKED} lets concurrent claimers pass
+     * over rows another claimer is taking.
+     *
+     * @param node
+     *            the claiming node, see {@link #requeueStale(Instant, String, int)}
+     *
+     * @return the claimed jobs
+     */
+    @SuppressWarnings("unchecked")
+    public List<Claim> claimQueued(int limit, String node) {
+        // Truncated to the precision of the column, so the claim matches the stored value exactly
+        Instant claimedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<Number> ids = getEntityManager().createNativeQuery("""
+                UPDATE document_analysis_job
+                SET status = 'PROCESSING', startedat = :claimedAt, claimedby = :node, attempts = attempts + 1
+                WHERE document_id IN (
+                    SELECT document_id FROM document_analysis_job
+                    WHERE status = 'QUEUED'
+                    ORDER BY priority DESC, queuedat, document_id
+                    LIMIT :limit
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING document_id
+                """)
+                .setParameter("limit", limit)
+                .setParameter("claimedAt", claimedAt)
+                .setParameter("node", node)
+                .getResultList();
+        return ids.stream().map(id -> new Claim(id.longValue(), claimedAt)).toList();
+    }
+
+    /**
+     * Finishes a claimed job: deletes it, or queues it again if the document was re-queued while it was analyzed.
+     *
+     * @return {@code false} if the claim was lost, i.e. the job was handed to another worker in the meantime
+     */
+    public boolean complete(Claim claim) {
+        int deleted = getEntityManager().createNativeQuery("""
+                DELETE FROM document_analysis_job
+                WHERE document_id = :id AND status = 'PROCESSING' AND startedat = :claimedAt AND NOT rerun
+                """)
+                .setParameter("id", claim.documentId())
+                .setParameter("claimedAt", claim.claimedAt())
+                .executeUpdate();
+        int requeued = getEntityManager().createNativeQuery("""
+                UPDATE document_analysis_job SET status = 'QUEUED', startedat = NULL, claimedby = NULL, rerun = false
+                WHERE document_id = :id AND status = 'PROCESSING' AND startedat = :claimedAt
+                """)
+                .setParameter("id", claim.documentId())
+                .setParameter("claimedAt", claim.claimedAt())
+                .executeUpdate();
+        return deleted + requeued > 0;
+    }
+
+    /**
+     * Puts a claimed job whose run failed back into the queue if it has attempts left.
+     *
+     * @return {@code true} if the job was re-queued, {@code false} if it has no attempts left or the claim was lost
+     */
+    public boolean release(Claim claim, int maxAttempts) {
+        return getEntityManager().createNativeQuery("""
+                UPDATE document_analysis_job SET status = 'QUEUED', startedat = NULL, claimedby = NULL
+                WHERE document_id = :id AND status = 'PROCESSING' AND startedat = :claimedAt
+                    AND attempts < :maxAttempts
+                """)
+                .setParameter("id", claim.documentId())
+                .setParameter("claimedAt", claim.claimedAt())
+                .setParameter("maxAttempts", maxAttempts)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Deletes a claimed job that is given up.
+     *
+     * @return {@code false} if the claim was lost, i.e. the job was handed to another worker in the meantime
+     */
+    public boolean delete(Claim claim) {
+        return getEntityManager().createNativeQuery("""
+                DELETE FROM document_analysis_job
+                WHERE document_id = :id AND status = 'PROCESSING' AND startedat = :claimedAt
+                """)
+                .setParameter("id", claim.documentId())
+                .setParameter("claimedAt", claim.claimedAt())
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Puts PROCESSING jobs back into the queue whose worker has not reported back since {@code startedBefore} and that
+     * have attempts left. Jobs that were already tried {@code maxAttempts} times are left alone for
+     * {@link #deleteExhausted(Instant, String, int)}.
+     *
+     * @param node
+     *            if not null, only jobs claimed by this node are re-queued; a restarted node passes its own name with
+     *            its start time, as none of the jobs it claimed before are running any more
+     *
+     * @return the number of re-queued jobs
+     */
+    public int requeueStale(Instant startedBefore, String node, int maxAttempts) {
+        Query query = getEntityManager().createNativeQuery("""
+                UPDATE document_analysis_job SET status = 'QUEUED', startedat = NULL, claimedby = NULL
+                WHERE status = 'PROCESSING' AND startedat < :cutoff AND attempts < :maxAttempts
+                """ + claimedBy(node));
+        return bindStale(query, startedBefore, node, maxAttempts).executeUpdate();
+    }
+
+    /**
+     * Deletes stale PROCESSING jobs that have no attempts left.
+     *
+     * @param node
+     *            if not null, only jobs claimed by this node are deleted, see
+     *            {@link #requeueStale(Instant, String, int)}
+     *
+     * @return the document IDs of the deleted jobs
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> deleteExhausted(Instant startedBefore, String node, int maxAttempts) {
+        Query query = getEntityManager().createNativeQuery("""
+                DELETE FROM document_analysis_job
+                WHERE status = 'PROCESSING' AND startedat < :cutoff AND attempts >= :maxAttempts
+                """ + claimedBy(node) + "RETURNING document_id");
+        List<Number> ids = bindStale(query, startedBefore, node, maxAttempts).getResultList();
+        return ids.stream().map(Number::longValue).toList();
+    }
+
+    private static String claimedBy(String node) {
+        return node != null ? "AND claimedby = :node\n" : "";
+    }
+
+    private static Query bindStale(Query query, Instant startedBefore, String node, int maxAttempts) {
+        query.setParameter("cutoff", startedBefore).setParameter("maxAttempts", maxAttempts);
+        return node != null ? query.setParameter("node", node) : query;
+    }
+}
@@ -0,0 +1,58 @@
+package app.hopps.document.repository;
+
+import app.hopps.document.domain.AnalysisStatus;
+import app.hopps.document.domain.DocumentDirection;
+import app.hopps.document.domain.DocumentStatus;
+import app.hopps.document.domain.ExtractionSource;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One row of the document listing, read by a single projection query (see {@link DocumentRepository#findListing})
+ * instead of loading the {@code Document} entity with its bommel, trade parties, transaction and tags. The tag names
+ * arrive aggregated into one string, joined by {@link #TAG_SEPARATOR}.
+ */
+public record DocumentListItem(
+        Long id,
+        Long transactionId,
+        String fileName,
+        String fileContentType,
+        Long fileSize,
+        Long bommelId,
+        boolean privatelyPaid,
+        DocumentStatus documentStatus,
+        DocumentDirection direction,
+        AnalysisStatus analysisStatus,
+        String analysisError,
+        ExtractionSource extractionSource,
+        String name,
+        String legalDocumentId,
+        BigDecimal total,
+        BigDecimal totalTax,
+        String currencyCode,
+        Instant transactionTime,
+        Long senderId,
+        String senderName,
+        String senderStreet,
+        String senderZipCode,
+        String senderCity,
+        String recipientName,
+        String tagNames,
+        Instant createdAt,
+        Instant updatedAt,
+        String uploadedBy) {
+
+    /** Joins the tag names in the aggregate; the ASCII unit separator cannot be typed into a tag name. */
+    public static final String TAG_SEPARATOR = "\u001F";
+
+    /** The tag names in the order they were assigned, or an empty list. */
+    public List<String> tags() {
+        if (tagNames == null || tagNames.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.asList(tagNames.split(TAG_SEPARATOR));
+    }
+}
@@ -1,12 +1,23 @@
 package app.hopps.document.repository;
 
+import app.hopps.document.domain.AnalysisStatus;
 import app.hopps.document.domain.Document;
+import app.hopps.document.domain.DocumentDirection;
+import app.hopps.document.domain.DocumentStatus;
+import app.hopps.shared.repository.CursorPage;
+import app.hopps.shared.repository.SeekCursor;
 import app.hopps.shared.security.OrganizationContext;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @ApplicationScoped
 public class DocumentRepository implements PanacheRepository<Document> {
@@ -14,36 +25,111 @@ public class DocumentRepository implements PanacheRepository<Document> {
     OrganizationContext organizationContext;
 
     /**
-     * Finds all documents for the current organization, ordered by date.
-     *
-     * @return List of documents in the current organization
+     * Select list of the listing projection, in the component order of {@link DocumentListItem}. The transaction, trade
+     * parties and tag names are read in the same statement, so a listing costs one query however many rows it has. The
+     * transaction is a subquery rather than a join: the database does not prevent several transactions from referencing
+     * one document, and a join would then list the document once per transaction. The first one booked is shown.
      */
-    public List<Document> findAllOrderedByDate() {
-        Long orgId = organizationContext.getCurrentOrganizationId();
-        if (orgId == null) {
-            return List.of();
-        }
-        return find(
-                "SELECT DISTINCT d FROM Document d LEFT JOIN FETCH d.documentTags WHERE d.organization.id = ?1 ORDER BY d.createdAt DESC",
-                orgId).list();
-    }
+    private static final String LISTING_SELECT = "SELECT new app.hopps.document.repository.DocumentListItem("
+            + "d.id, (SELECT min(t.id) FROM Transaction t WHERE t.document = d), d.fileName, d.fileContentType, d.fileSize, d.bommel.id, d.privatelyPaid, "
+            + "d.documentStatus, d.direction, d.analysisStatus, d.analysisError, d.extractionSource, d.name, "
+            + "d.legalDocumentId, d.total, d.totalTax, d.currencyCode, d.transactionTime, "
+            + "s.id, s.name, s.street, s.zipCode, s.city, r.name, "
+            + "(SELECT listagg(tg.name, '" + DocumentListItem.TAG_SEPARATOR + "') WITHIN GROUP (ORDER BY dt.id) "
+            + "FROM DocumentTag dt JOIN dt.tag tg WHERE dt.document = d), "
+            + "d.createdAt, d.updatedAt, d.uploadedBy) "
+            + "FROM Document d LEFT JOIN d.sender s LEFT JOIN d.recipient r";
 
     /**
-     * Finds all documents for a specific bommel within the current organization.
+     * The document listing of the current organization as {@link DocumentListItem} projections: newest upload first, or
+     * latest transaction date first when filtered by bommel, with the id as tie-breaker. All filters are optional.
+     * <p>
+     * With a {@code size} the listing is paged: the page starts after {@code cursor} (keyset pagination, see
+     * {@link SeekCursor}), or at the top when it is {@code null}. Without a size all matching documents are returned.
      *
-     * @param bommelId
-     *            The bommel ID
-     *
-     * @return List of documents for the bommel
+     * @param search
+     *            case-insensitive infix of the document name, file name or sender name
+     * @param startDate
+     *            inclusive lower bound of the transaction time
+     * @param endDate
+     *            exclusive upper bound of the transaction time
+     * @param detached
+     *            {@code true} for documents not assigned to a bommel; takes precedence over {@code bommelId}
      */
-    public List<Document> findByBommelId(Long bommelId) {
+    public CursorPage<DocumentListItem> findListing(
+            String search,
+            Instant startDate,
+            Instant endDate,
+            Long bommelId,
+            Boolean detached,
+            DocumentStatus status,
+            AnalysisStatus analysisStatus,
+            DocumentDirection direction,
+            String cursor,
+            Integer size) {
         Long orgId = organizationContext.getCurrentOrganizationId();
         if (orgId == null) {
-            return List.of();
+            return new CursorPage<>(List.of(), null);
+        }
+
+        StringBuilder where = new StringBuilder(" WHERE d.organization.id = :orgId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("orgId", orgId);
+
+        if (search != null && !search.isBlank()) {
+            where.append(" AND (lower(d.name) LIKE :search OR lower(d.fileName) LIKE :search"
+                    + " OR lower(s.name) LIKE :search)");
+            params.put("search", "%" + search.toLowerCase() + "%");
+        }
+        if (startDate != null) {
+            where.append(" AND d.transactionTime >= :startDate");
+            params.put("startDate", startDate);
+        }
+        if (endDate != null) {
+            where.append(" AND d.transactionTime < :endDate");
+            params.put("endDate", endDate);
+        }
+        boolean byBommel = false;
+        if (detached != null && detached) {
+            where.append(" AND d.bommel IS NULL");
+        } else if (bommelId != null) {
+            where.append(" AND d.bommel.id = :bommelId");
+            params.put("bommelId", bommelId);
+            byBommel = true;
+        }
+        if (status != null) {
+            where.append(" AND d.documentStatus = :status");
+            params.put("status", status);
         }
-        return find(
-                "SELECT DISTINCT d FROM Document d LEFT JOIN FETCH d.documentTags WHERE d.bommel.id = ?1 AND d.organization.id = ?2 ORDER BY d.transactionTime DESC",
-                bommelId, orgId).list();
+        if (analysisStatus != null) {
+            where.append(" AND d.analysisStatus = :analysisStatus");
+            params.put("analysisStatus", analysisStatus);
+        }
+        if (direction != null) {
+            where.append(" AND d.direction = :direction");
+            params.put("direction", direction);
+        }
+
+        List<SeekCursor.Key> keys = List.of(
+                byBommel ? SeekCursor.Key.nullable("d.transactionTime", false)
+                        : SeekCursor.Key.of("d.createdAt", false),
+                SeekCursor.Key.of("d.id", false));
+        String signature = byBommel ? "documents:bommel:transactionTime:desc" : "documents:createdAt:desc";
+        SeekCursor after = size != null ? SeekCursor.decode(cursor, signature) : null;
+        if (after != null) {
+            where.append(" AND ").append(after.predicate(keys, params));
+        }
+
+        var query = getEntityManager().createQuery(
+                LISTING_SELECT + where + " ORDER BY " + SeekCursor.orderBy(keys), DocumentListItem.class);
+        params.forEach(query::setParameter);
+        if (size == null) {
+            return new CursorPage<>(query.getResultList(), null);
+        }
+        boolean sortByTransactionTime = byBommel;
+        return SeekCursor.page(query.setMaxResults(size + 1).getResultList(), size,
+                item -> SeekCursor.after(signature,
+                        sortByTransactionTime ? item.transactionTime() : item.createdAt(), item.id()));
     }
 
     /**
@@ -91,4 +177,26 @@ public class DocumentRepository implements PanacheRepository<Document> {
         }
         return find("fileHash = ?1 and organization.id = ?2", fileHash, orgId).firstResult();
     }
+
+    /**
+     * Bulk variant of {@link #findByFileHash(String)}: which of the given content hashes already belong to a document
+     * of the current organization, checked with a single query.
+     *
+     * @param fileHashes
+     *            SHA-256 hex digests of the file contents
+     *
+     * @return the subset of {@code fileHashes} that is already taken (empty if no org or no hashes)
+     */
+    public Set<String> findExistingFileHashes(Collection<String> fileHashes) {
+        Long orgId = organizationContext.getCurrentOrganizationId();
+        if (orgId == null || fileHashes.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(getEntityManager()
+                .createQuery("SELECT d.fileHash FROM Document d WHERE d.organization.id = :orgId"
+                        + " AND d.fileHash IN :hashes", String.class)
+                .setParameter("orgId", orgId)
+                .setParameter("hashes", fileHashes)
+                .getResultList());
+    }
 }
@@ -0,0 +1,65 @@
+package app.hopps.document.service;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * A single byte range of a file download, parsed from an HTTP {@code Range} header (RFC 9110 §14.1). Both bounds are
+ * inclusive; a suffix range ({@code bytes=-500}, the last 500 bytes) keeps {@code first = null}, an open range
+ * ({@code bytes=100-}) keeps {@code last = null}. The range is passed on to S3 unchanged, which resolves open and
+ * suffix ranges against the object size itself.
+ */
+public record ByteRange(Long first, Long last) {
+
+    private static final String UNIT = "bytes=";
+
+    /**
+     * Parses a {@code Range} header.
+     *
+     * @param header
+     *            the header value, may be {@code null}
+     * @param length
+     *            the file size if known, used to reject ranges that start beyond the end of the file; may be
+     *            {@code null}
+     *
+     * @return the range, or {@code null} if the header is absent, malformed or asks for several ranges — the whole file
+     *         is sent then, as the RFC permits
+     *
+     * @throws WebApplicationException
+     *             (416 Range Not Satisfiable, with the file size in {@code Content-Range}) if the range lies completely
+     *             outside a file of the given length
+     */
+    public static ByteRange parse(String header, Long length) {
+        if (header == null || !header.regionMatches(true, 0, UNIT, 0, UNIT.length())) {
+            return null;
+        }
+        String spec = header.substring(UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0 || spec.indexOf(',') >= 0) {
+            return null;
+        }
+        Long first;
+        Long last;
+        try {
+            first = dash == 0 ? null : Long.parseLong(spec.substring(0, dash).trim());
+            last = dash == spec.length() - 1 ? null : Long.parseLong(spec.substring(dash + 1).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if ((first == null && last == null) || (first != null && first < 0) || (last != null && last < 0)
+                || (first != null && last != null && last < first)) {
+            return null;
+        }
+        if (length != null && (first != null ? first >= length : last == 0)) {
+            throw new WebApplicationException(Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header("Content-Range", "bytes */" + length)
+                    .build());
+        }
+        return new ByteRange(first, last);
+    }
+
+    /** The range in header syntax, e.g. {@code bytes=0-1023}, as understood by S3 {@code GetObject}. */
+    public String toHeaderValue() {
+        return UNIT + (first != null ? first : "") + "-" + (last != null ? last : "");
+    }
+}
@@ -13,16 +13,16 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
-import org.eclipse.microprofile.context.ManagedExecutor;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
-import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.InputStream;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
- * Service for asynchronous document analysis. Handles document processing using ZugFerd and AI services.
+ * Service for document analysis. Handles document processing using ZugFerd and AI services; documents are analyzed in
+ * the background by the {@link DocumentAnalysisWorker}.
  */
 @ApplicationScoped
 public class DocumentAnalysisService {
@@ -35,9 +35,6 @@ public class DocumentAnalysisService {
      */
     public static final String ANALYSIS_SERVICE_UNAVAILABLE = "ANALYSIS_SERVICE_UNAVAILABLE";
 
-    @Inject
-    ManagedExecutor executor;
-
     @Inject
     Event<DocumentChangedEvent> documentChangedEvent;
 
@@ -45,7 +42,7 @@ public class DocumentAnalysisService {
     DocumentRepository documentRepository;
 
     @Inject
-    StorageService storageService;
+    DocumentFileService fileService;
 
     @Inject
     DocumentDataApplier dataApplier;
@@ -58,23 +55,6 @@ public class DocumentAnalysisService {
     @RestClient
     DocumentAiClient documentAiClient;
 
-    /**
-     * Triggers async document analysis. Returns immediately, analysis runs in background thread.
-     *
-     * @param documentId
-     *            the ID of the document to analyze
-     */
-    public void analyzeAsync(Long documentId) {
-        LOG.info("Scheduling async analysis for document: id={}", documentId);
-        executor.runAsync(() -> {
-            try {
-                analyzeDocument(documentId);
-            } catch (Exception e) {
-                LOG.error("Unhandled exception during document analysis: id={}", documentId, e);
-            }
-        });
-    }
-
     /**
      * Performs synchronous document analysis. This method runs in a separate transaction to ensure changes are
      * persisted.
@@ -107,8 +87,7 @@ public class DocumentAnalysisService {
             // Try ZugFerd first for PDF files
             if (document.isPdf()) {
                 LOG.debug("Attempting ZugFerd extraction for document: id={}", documentId);
-                try (ResponseInputStream<GetObjectResponse> fileStream = storageService
-                        .downloadFile(document.getFileKey())) {
+                try (InputStream fileStream = fileService.openFile(document.getFileKey()).stream()) {
                     data = zugFerdClient.scanDocument(fileStream, documentId);
                     source = ExtractionSource.ZUGFERD;
                     LOG.info("ZugFerd extraction successful: id={}", documentId);
@@ -122,8 +101,7 @@ public class DocumentAnalysisService {
             // Fallback to AI analysis
             if (data == null) {
                 LOG.debug("Attempting AI analysis for document: id={}", documentId);
-                try (ResponseInputStream<GetObjectResponse> fileStream = storageService
-                        .downloadFile(document.getFileKey())) {
+                try (InputStream fileStream = fileService.openFile(document.getFileKey()).stream()) {
                     data = documentAiClient.scanDocument(fileStream, documentId);
                     source = ExtractionSource.AI;
                     LOG.info("AI analysis successful: id={}", documentId);
@@ -0,0 +1,224 @@
+package app.hopps.document.service;
+
+import app.hopps.document.domain.Document;
+import app.hopps.document.domain.DocumentAnalysisQueuedEvent;
+import app.hopps.document.domain.DocumentChangedEvent;
+import app.hopps.document.repository.DocumentAnalysisJobRepository;
+import app.hopps.document.repository.DocumentAnalysisJobRepository.Claim;
+import app.hopps.document.repository.DocumentRepository;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable, bounded queue for document analysis. Documents are queued in the transaction that creates them (a
+ * {@code document_analysis_job} row, see migration V1.0.26), so no analysis is lost when the app stops before it ran.
+ * Up to {@code app.hopps.documents.analysis.concurrency} analyses run in parallel per app instance, which caps the load
+ * on the ZugFerd and AI services; jobs are claimed with {@link DocumentAnalysisJobRepository#claimQueued(int)},
+ * interactive requests ({@link #PRIORITY_INTERACTIVE}) before a bulk backlog ({@link #PRIORITY_BULK}), and several app
+ * replicas can share the queue.
+ * <p>
+ * Like the {@link app.hopps.bankimport.service.BankImportWorker}, the pool is refilled whenever a job finishes and
+ * right after documents are queued on this node; the scheduled poll only picks up jobs queued on other replicas. The
+ * watchdog re-queues jobs whose worker has not reported back within the lease (a crash or restart) and gives up on a
+ * document after {@code app.hopps.documents.analysis.max-attempts} attempts; it also runs once at startup. A node that
+ * starts also re-queues the jobs it claimed before it stopped right away, recognizing them by
+ * {@code app.hopps.documents.analysis.node-id}.
+ */
+@ApplicationScoped
+public class DocumentAnalysisWorker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DocumentAnalysisWorker.class);
+
+    /** Priority of a single upload or an explicit re-analysis, where a user waits for the result. */
+    public static final int PRIORITY_INTERACTIVE = 10;
+    /** Priority of bulk uploads; analyzed when no interactive request is waiting. */
+    public static final int PRIORITY_BULK = 0;
+
+    @Inject
+    DocumentAnalysisService analysisService;
+
+    @Inject
+    DocumentAnalysisJobRepository jobRepository;
+
+    @Inject
+    DocumentRepository documentRepository;
+
+    @Inject
+    ManagedExecutor executor;
+
+    @Inject
+    Event<DocumentAnalysisQueuedEvent> queuedEvent;
+
+    @Inject
+    Event<DocumentChangedEvent> documentChangedEvent;
+
+    @ConfigProperty(name = "app.hopps.documents.analysis.concurrency", defaultValue = "2")
+    int concurrency;
+
+    @ConfigProperty(name = "app.hopps.documents.analysis.max-attempts", defaultValue = "3")
+    int maxAttempts;
+
+    /** A job PROCESSING for longer than this is presumed dead; must exceed the longest analysis. */
+    @ConfigProperty(name = "app.hopps.documents.analysis.lease", defaultValue = "10m")
+    Duration lease;
+
+    /** Name of this node in the claims it makes; must be unique among the replicas and stable across restarts. */
+    @ConfigProperty(name = "app.hopps.documents.analysis.node-id", defaultValue = "local")
+    String nodeId;
+
+    /** Number of jobs claimed by this node that have not finished yet. */
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * Queues the documents for analysis. Must be called inside the transaction that creates or changes the documents,
+     * so the job commits (or rolls back) together with them.
+     *
+     * @param documentIds
+     *            the IDs of the documents to analyze
+     * @param priority
+     *            {@link #PRIORITY_INTERACTIVE} or {@link #PRIORITY_BULK}
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void enqueue(Collection<Long> documentIds, int priority) {
+        jobRepository.enqueue(documentIds, priority);
+        queuedEvent.fire(new DocumentAnalysisQueuedEvent());
+        LOG.info("Queued {} document(s) for analysis: priority={}", documentIds.size(), priority);
+    }
+
+    @Scheduled(every = "5s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void pollQueue() {
+        dispatch();
+    }
+
+    /**
+     * Wakes the pool as soon as the enqueueing transaction has committed. Dispatching happens on the executor so the
+     * claim runs in its own transaction and the request thread is not held up.
+     */
+    void onQueued(@Observes(during = TransactionPhase.AFTER_SUCCESS) DocumentAnalysisQueuedEvent event) {
+        executor.runAsync(this::dispatch);
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        Instant started = Instant.now();
+        executor.runAsync(() -> {
+            requeueOwn(started);
+            watchdog();
+        });
+    }
+
+    /**
+     * Claims as many jobs as there are free slots and submits them to the executor. Synchronized so concurrent triggers
+     * (poll, enqueue, job completion) do not over-claim beyond {@link #concurrency}.
+     */
+    synchronized void dispatch() {
+        int free = concurrency - running.get();
+        if (free <= 0) {
+            return;
+        }
+        List<Claim> claimed = claimJobs(free);
+        for (Claim claim : claimed) {
+            running.incrementAndGet();
+            try {
+                executor.runAsync(() -> process(claim))
+                        .whenComplete((ignored, error) -> {
+                            running.decrementAndGet();
+                            dispatch();
+                        });
+            } catch (RejectedExecutionException e) {
+                running.decrementAndGet();
+                LOG.warn("Executor rejected analysis of document {}, re-queueing", claim.documentId());
+                release(claim, "Executor rejected the analysis");
+            }
+        }
+    }
+
+    void process(Claim claim) {
+        try {
+            // Analysis errors are handled inside and stored on the document; only a broken transaction gets here.
+            analysisService.analyzeDocument(claim.documentId());
+            complete(claim);
+        } catch (Exception e) {
+            LOG.error("Worker failed analyzing document {}", claim.documentId(), e);
+            release(claim, "Worker exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Re-queues jobs whose worker has not reported back within the lease, or marks their document as failed once the
+     * attempts are used up.
+     */
+    @Scheduled(every = "1m", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    public void watchdog() {
+        requeueStale(Instant.now().minus(lease), null);
+    }
+
+    /**
+     * Re-queues the jobs this node claimed before {@code started}: their analyses died with the previous run of the
+     * node, so there is no need to wait for their lease.
+     */
+    @Transactional
+    void requeueOwn(Instant started) {
+        requeueStale(started, nodeId);
+    }
+
+    private void requeueStale(Instant cutoff, String node) {
+        int requeued = jobRepository.requeueStale(cutoff, node, maxAttempts);
+        if (requeued > 0) {
+            LOG.warn("Watchdog re-queued {} stale analysis job(s)", requeued);
+        }
+        List<Long> exhausted = jobRepository.deleteExhausted(cutoff, node, maxAttempts);
+        if (!exhausted.isEmpty()) {
+            LOG.warn("Watchdog gave up on {} analysis job(s) after {} attempts", exhausted.size(), maxAttempts);
+            markFailed(exhausted, "Analysis timed out");
+        }
+    }
+
+    @Transactional
+    List<Claim> claimJobs(int limit) {
+        return jobRepository.claimQueued(limit, nodeId);
+    }
+
+    @Transactional
+    void complete(Claim claim) {
+        if (!jobRepository.complete(claim)) {
+            LOG.warn("Analysis job of document {} was claimed again while it ran", claim.documentId());
+        }
+    }
+
+    /**
+     * Puts the job back into the queue, or gives up on the document once its attempts are used up. Does nothing if the
+     * job was claimed again in the meantime, the other worker owns it now.
+     */
+    @Transactional
+    void release(Claim claim, String reason) {
+        if (!jobRepository.release(claim, maxAttempts) && jobRepository.delete(claim)) {
+            markFailed(List.of(claim.documentId()), reason);
+        }
+    }
+
+    private void markFailed(List<Long> documentIds, String reason) {
+        for (Document document : documentRepository.list("id in ?1", documentIds)) {
+            analysisService.markAnalysisFailed(document, reason);
+            Long orgId = document.getOrganization() != null ? document.getOrganization().getId() : null;
+            documentChangedEvent.fire(new DocumentChangedEvent(document.getId(), orgId));
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package app.hopps.document.service;
+
+import app.hopps.document.api.dto.BulkUploadResult;
+import app.hopps.document.api.dto.DocumentResponse;
+import app.hopps.document.domain.AnalysisStatus;
+import app.hopps.document.domain.Document;
+import app.hopps.document.domain.DocumentChangedEvent;
+import app.hopps.document.domain.DocumentDirection;
+import app.hopps.document.domain.DocumentStatus;
+import app.hopps.document.domain.DocumentsCreatedEvent;
+import app.hopps.document.repository.DocumentRepository;
+import app.hopps.organization.domain.Organization;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.BadRequestException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.jboss.resteasy.reactive.multipart.FileUpload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Stores many uploaded files as documents at once. The files are streamed to S3 in parallel, at most
+ * {@code app.hopps.documents.bulk-upload.concurrency} at a time, and hashed while they are stored. Duplicates within
+ * the upload and against the organization's documents are found with a single query and removed from storage again. All
+ * new documents are persisted in one transaction (the inserts are batched by Hibernate) and handed to the analysis as
+ * one {@link DocumentsCreatedEvent}.
+ * <p>
+ * A file that cannot be stored does not fail the others; each file gets its own {@link BulkUploadResult}.
+ */
+@ApplicationScoped
+public class DocumentBulkUploadService {
+    private static final Logger LOG = LoggerFactory.getLogger(DocumentBulkUploadService.class);
+
+    @Inject
+    ManagedExecutor executor;
+
+    @Inject
+    StorageService storageService;
+
+    @Inject
+    DocumentFileService fileService;
+
+    @Inject
+    DocumentRepository documentRepository;
+
+    @Inject
+    Event<DocumentsCreatedEvent> documentsCreatedEvent;
+
+    @Inject
+    Event<DocumentChangedEvent> documentChangedEvent;
+
+    @ConfigProperty(name = "app.hopps.documents.bulk-upload.concurrency", defaultValue = "4")
+    int concurrency;
+
+    @ConfigProperty(name = "app.hopps.documents.bulk-upload.max-files", defaultValue = "100")
+    int maxFiles;
+
+    /** A file that is in storage but not yet persisted as a document; {@code index} is its position in the upload. */
+    record StoredFile(int index, FileUpload file, String fileKey, String fileHash) {
+    }
+
+    /**
+     * Stores the files and creates a document for every file that is neither rejected nor a duplicate.
+     *
+     * @param files
+     *            the uploaded files
+     * @param organization
+     *            the organization the documents belong to
+     * @param uploadedBy
+     *            the principal name of the uploader
+     * @param direction
+     *            the direction of all documents
+     * @param analyze
+     *            whether to analyze the new documents after the upload
+     *
+     * @return one result per file, in the order of {@code files}
+     *
+     * @throws BadRequestException
+     *             if no files or more than {@code app.hopps.documents.bulk-upload.max-files} files are given
+     */
+    public List<BulkUploadResult> upload(List<FileUpload> files, Organization organization, String uploadedBy,
+            DocumentDirection direction, boolean analyze) {
+        if (files == null || files.isEmpty()) {
+            throw new BadRequestException("At least one file is required");
+        }
+        if (files.size() > maxFiles) {
+            throw new BadRequestException("At most " + maxFiles + " files can be uploaded at once");
+        }
+        BulkUploadResult[] results = new BulkUploadResult[files.size()];
+        List<StoredFile> stored = store(files, results);
+
+        // The first file with a given content wins; later copies in the same upload and content the organization
+        // already has are removed from storage again.
+        Set<String> existing = documentRepository
+                .findExistingFileHashes(stored.stream().map(StoredFile::fileHash).toList());
+        Set<String> seen = new HashSet<>();
+        List<StoredFile> accepted = new ArrayList<>();
+        for (StoredFile file : stored) {
+            if (existing.contains(file.fileHash()) || !seen.add(file.fileHash())) {
+                fileService.deleteFile(file.fileKey());
+                results[file.index()] = BulkUploadResult.failed(file.file().fileName(),
+                        BulkUploadResult.Status.DUPLICATE, "Dieser Beleg wurde bereits hochgeladen");
+            } else {
+                accepted.add(file);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            List<DocumentResponse> documents;
+            try {
+                documents = persist(accepted, organization, uploadedBy, direction, analyze);
+            } catch (RuntimeException e) {
+                accepted.forEach(file -> fileService.deleteFile(file.fileKey()));
+                throw e;
+            }
+            for (int i = 0; i < accepted.size(); i++) {
+                StoredFile file = accepted.get(i);
+                results[file.index()] = BulkUploadResult.created(file.file().fileName(), documents.get(i));
+            }
+        }
+
+        LOG.info("Bulk upload finished: files={}, created={}", files.size(), accepted.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Validates the files and streams the valid ones to S3 on the managed executor. The semaphore keeps at most
+     * {@link #concurrency} uploads in flight, so a large upload neither floods S3 nor occupies the whole executor.
+     * Rejected and failed files get their result here; the others are returned.
+     */
+    private List<StoredFile> store(List<FileUpload> files, BulkUploadResult[] results) {
+        Semaphore permits = new Semaphore(concurrency);
+        List<CompletableFuture<StoredFile>> pending = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            FileUpload file = files.get(i);
+            String rejection = validate(file);
+            if (rejection != null) {
+                results[i] = BulkUploadResult.failed(file != null ? file.fileName() : null,
+                        BulkUploadResult.Status.REJECTED, rejection);
+                continue;
+            }
+            int index = i;
+            permits.acquireUninterruptibly();
+            pending.add(executor.supplyAsync(() -> storeFile(index, file, results))
+                    .whenComplete((stored, error) -> permits.release()));
+        }
+
+        List<StoredFile> stored = new ArrayList<>();
+        for (CompletableFuture<StoredFile> future : pending) {
+            StoredFile file = future.join();
+            if (file != null) {
+                stored.add(file);
+            }
+        }
+        return stored;
+    }
+
+    private StoredFile storeFile(int index, FileUpload file, BulkUploadResult[] results) {
+        String fileKey = "documents/" + UUID.randomUUID() + "/" + file.fileName();
+        try {
+            String fileHash = storageService.uploadFileAndHash(fileKey, file.uploadedFile(), file.contentType());
+            LOG.info("File uploaded to storage: key={}, size={}", fileKey, file.size());
+            return new StoredFile(index, file, fileKey, fileHash);
+        } catch (Exception e) {
+            LOG.error("Failed to upload file: name={}", file.fileName(), e);
+            results[index] = BulkUploadResult.failed(file.fileName(), BulkUploadResult.Status.FAILED,
+                    "Fehler beim Hochladen der Datei");
+            return null;
+        }
+    }
+
+    private static String validate(FileUpload file) {
+        if (file == null || file.fileName() == null || file.fileName().isBlank()) {
+            return "File is required";
+        }
+        if (!DocumentFileService.ALLOWED_CONTENT_TYPES.contains(file.contentType())) {
+            return "Unsupported file type: " + file.contentType() + ". Allowed: "
+                    + DocumentFileService.ALLOWED_CONTENT_TYPES;
+        }
+        return null;
+    }
+
+    /**
+     * Persists the documents of the stored files in one transaction and schedules their analysis as one batch after the
+     * commit.
+     *
+     * @return the created documents, in the order of {@code files}
+     */
+    @Transactional
+    List<DocumentResponse> persist(List<StoredFile> files, Organization organization, String uploadedBy,
+            DocumentDirection direction, boolean analyze) {
+        List<Document> documents = new ArrayList<>(files.size());
+        for (StoredFile file : files) {
+            Document document = new Document();
+            document.setOrganization(organization);
+            document.setUploadedBy(uploadedBy);
+            document.setDirection(direction != null ? direction : DocumentDirection.INCOMING);
+            document.setFileKey(file.fileKey());
+            document.setFileName(file.file().fileName());
+            document.setFileContentType(file.file().contentType());
+            document.setFileSize(file.file().size());
+            document.setFileHash(file.fileHash());
+            document.setDocumentStatus(DocumentStatus.UPLOADED);
+            document.setAnalysisStatus(analyze ? AnalysisStatus.PENDING : AnalysisStatus.SKIPPED);
+            documents.add(document);
+        }
+        // Flush so the @CreationTimestamp/@UpdateTimestamp values are populated before the response.
+        documentRepository.persist(documents);
+        documentRepository.flush();
+
+        List<Long> ids = documents.stream().map(Document::getId).toList();
+        if (analyze) {
+            documentsCreatedEvent.fire(new DocumentsCreatedEvent(ids));
+        }
+        for (Long id : ids) {
+            documentChangedEvent.fire(new DocumentChangedEvent(id, organization.getId()));
+        }
+        return documents.stream().map(DocumentResponse::from).toList();
+    }
+}
@@ -0,0 +1,57 @@
+package app.hopps.document.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changed documents of one organization, in the JSON form sent to WebSocket clients and between app nodes:
+ * {@code {"organizationId":4,"documentIds":[10,11]}}.
+ */
+public record DocumentChangeBatch(Long organizationId, List<Long> documentIds) {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public DocumentChangeBatch {
+        documentIds = List.copyOf(documentIds);
+    }
+
+    public String toJson() {
+        try {
+            return JSON.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the JSON is not a change batch
+     */
+    public static DocumentChangeBatch fromJson(String json) {
+        try {
+            DocumentChangeBatch batch = JSON.readValue(json, DocumentChangeBatch.class);
+            if (batch.organizationId() == null) {
+                throw new IllegalArgumentException("Change batch without organization: " + json);
+            }
+            return batch;
+        } catch (JsonProcessingException | NullPointerException e) {
+            throw new IllegalArgumentException("Malformed change batch: " + json, e);
+        }
+    }
+
+    /** Splits the batch into batches of at most {@code maxDocuments} document IDs each. */
+    public List<DocumentChangeBatch> split(int maxDocuments) {
+        if (documentIds.size() <= maxDocuments) {
+            return List.of(this);
+        }
+        List<DocumentChangeBatch> parts = new ArrayList<>();
+        for (int from = 0; from < documentIds.size(); from += maxDocuments) {
+            parts.add(new DocumentChangeBatch(organizationId,
+                    documentIds.subList(from, Math.min(from + maxDocuments, documentIds.size()))));
+        }
+        return parts;
+    }
+}
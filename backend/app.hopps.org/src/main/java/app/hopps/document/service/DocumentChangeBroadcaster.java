@@ -1,44 +1,95 @@
 package app.hopps.document.service;
 
 import app.hopps.document.domain.DocumentChangedEvent;
-import io.quarkus.websockets.next.OpenConnections;
 import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
 import jakarta.enterprise.event.TransactionPhase;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
 /**
- * Pushes document-change notifications to all connected WebSocket clients. Observes {@link DocumentChangedEvent} after
- * the producing transaction has committed, so clients that reload always see the persisted state.
+ * Pushes document-change notifications to the WebSocket clients of the affected organization. Observes
+ * {@link DocumentChangedEvent} after the producing transaction has committed, so clients that reload always see the
+ * persisted state, and publishes it on the {@link DocumentChangeBus}; every replica, this one included, receives the
+ * change from there and {@linkplain #deliver(DocumentChangeBatch) delivers} it to its own clients. Connections are
+ * registered with their organization when they open (see {@code DocumentEventSocket}); routing, coalescing and the
+ * non-blocking sends are done by {@link DocumentChangeFanout}, so the committing thread never waits for a client.
  */
 @ApplicationScoped
 public class DocumentChangeBroadcaster {
 
     private static final Logger LOG = LoggerFactory.getLogger(DocumentChangeBroadcaster.class);
 
+    @ConfigProperty(name = "app.hopps.documents.events.coalesce-window", defaultValue = "250ms")
+    Duration coalesceWindow;
+
+    @ConfigProperty(name = "app.hopps.documents.events.max-pending", defaultValue = "16")
+    int maxPending;
+
     @Inject
-    OpenConnections connections;
+    DocumentChangeBus bus;
 
-    public void onDocumentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) DocumentChangedEvent event) {
-        broadcast(event.documentId(), event.organizationId());
+    private ScheduledExecutorService scheduler;
+    private DocumentChangeFanout fanout;
+
+    @PostConstruct
+    void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "document-change-fanout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        fanout = new DocumentChangeFanout(scheduler, coalesceWindow, maxPending);
     }
 
-    void broadcast(Long documentId, Long organizationId) {
-        if (documentId == null) {
-            return;
-        }
-        String message = String.format("{\"documentId\":%d,\"organizationId\":%s}",
-                documentId, organizationId != null ? organizationId.toString() : "null");
-        for (WebSocketConnection connection : connections) {
-            try {
-                connection.sendTextAndAwait(message);
-            } catch (Exception e) {
-                LOG.debug("Failed to push document-change notification to connection {}: {}", connection.id(),
-                        e.getMessage());
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public void register(WebSocketConnection connection, Long organizationId) {
+        fanout.subscribe(organizationId, new DocumentChangeFanout.Subscriber() {
+            @Override
+            public String id() {
+                return connection.id();
+            }
+
+            @Override
+            public Uni<Void> send(String message) {
+                return connection.sendText(message);
             }
+
+            @Override
+            public void close() {
+                connection.close().subscribe().with(ignored -> {
+                }, failure -> LOG.debug("Failed to close connection {}: {}", connection.id(), failure.getMessage()));
+            }
+        });
+    }
+
+    public void unregister(WebSocketConnection connection) {
+        fanout.unsubscribe(connection.id());
+    }
+
+    public void onDocumentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) DocumentChangedEvent event) {
+        if (event.documentId() == null || event.organizationId() == null) {
+            return;
         }
+        bus.publish(event.organizationId(), event.documentId());
+    }
+
+    /** Sends changes received from the {@link DocumentChangeBus} to the clients connected to this replica. */
+    public void deliver(DocumentChangeBatch batch) {
+        fanout.publish(batch.organizationId(), batch.documentIds());
     }
 }
@@ -0,0 +1,176 @@
+package app.hopps.document.service;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distributes document changes to all app replicas through PostgreSQL {@code LISTEN/NOTIFY}, so WebSocket clients see
+ * live updates no matter which replica committed the change.
+ * <p>
+ * Publishing is batched: {@link #publish(Long, Long)} only records the change, and every
+ * {@code app.hopps.documents.events.publish-interval} the changes collected per organization go out as one
+ * {@code NOTIFY} on the {@value #CHANNEL} channel (split into several when there are more than
+ * {@value #MAX_DOCUMENTS_PER_NOTIFICATION} documents, to stay below PostgreSQL's 8000-byte payload limit). A listener
+ * thread on every replica, including the publishing one, holds one pooled connection with {@code LISTEN} and hands each
+ * notification to {@link DocumentChangeBroadcaster#deliver(DocumentChangeBatch)}; delivering local changes the same way
+ * means no client gets a change twice. The listener reconnects after a lost connection; notifications sent while it was
+ * disconnected are lost, which the clients tolerate because they reload when they reconnect.
+ */
+@ApplicationScoped
+public class DocumentChangeBus {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DocumentChangeBus.class);
+
+    static final String CHANNEL = "document_changes";
+
+    /** Keeps a notification's JSON payload below PostgreSQL's limit of 8000 bytes, even with 19-digit IDs. */
+    static final int MAX_DOCUMENTS_PER_NOTIFICATION = 300;
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    DocumentChangeBroadcaster broadcaster;
+
+    @ConfigProperty(name = "app.hopps.documents.events.publish-interval", defaultValue = "100ms")
+    Duration publishInterval;
+
+    @ConfigProperty(name = "app.hopps.documents.events.listen-timeout", defaultValue = "5s")
+    Duration listenTimeout;
+
+    @ConfigProperty(name = "app.hopps.documents.events.reconnect-delay", defaultValue = "5s")
+    Duration reconnectDelay;
+
+    private final Map<Long, Set<Long>> outgoing = new ConcurrentHashMap<>();
+    private ScheduledExecutorService publisher;
+    private Thread listener;
+    private volatile boolean running;
+
+    void onStart(@Observes StartupEvent event) {
+        running = true;
+        publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "document-change-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleWithFixedDelay(this::flush, publishInterval.toMillis(), publishInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        listener = new Thread(this::listen, "document-change-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        if (publisher != null) {
+            publisher.shutdown();
+        }
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    /**
+     * Records a committed change; it is sent to all replicas with the next batch.
+     */
+    public void publish(Long organizationId, Long documentId) {
+        outgoing.compute(organizationId, (id, documentIds) -> {
+            if (documentIds == null) {
+                documentIds = new LinkedHashSet<>();
+            }
+            documentIds.add(documentId);
+            return documentIds;
+        });
+    }
+
+    /** Sends the changes recorded since the last flush, one notification per organization. */
+    void flush() {
+        List<DocumentChangeBatch> batches = new ArrayList<>();
+        for (Long organizationId : outgoing.keySet()) {
+            Set<Long> documentIds = outgoing.remove(organizationId);
+            if (documentIds != null) {
+                batches.addAll(new DocumentChangeBatch(organizationId, new ArrayList<>(documentIds))
+                        .split(MAX_DOCUMENTS_PER_NOTIFICATION));
+            }
+        }
+        if (batches.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            for (DocumentChangeBatch batch : batches) {
+                statement.setString(1, CHANNEL);
+                statement.setString(2, batch.toJson());
+                statement.execute();
+            }
+        } catch (SQLException e) {
+            LOG.warn("Failed to publish {} document change notification(s)", batches.size(), e);
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                LOG.info("Listening for document changes on channel {}", CHANNEL);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) listenTimeout.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("UNLISTEN " + CHANNEL);
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                LOG.warn("Lost document change listener connection, reconnecting in {}", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void receive(String payload) {
+        try {
+            broadcaster.deliver(DocumentChangeBatch.fromJson(payload));
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Ignoring malformed document change notification: {}", payload);
+        }
+    }
+}
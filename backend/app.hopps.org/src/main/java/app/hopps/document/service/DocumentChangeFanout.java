@@ -0,0 +1,166 @@
+package app.hopps.document.service;
+
+import io.smallrye.mutiny.Uni;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes document-change notifications to the subscribers of the affected organization only. Changes are coalesced per
+ * organization: the first change opens a window of {@code window}, and every document changed until it closes goes out
+ * in one message, so a burst such as the analysis of a bulk upload costs one send per window instead of one per
+ * document.
+ * <p>
+ * Sends never block the caller. Each subscriber has an outbound queue of at most {@code maxPending} messages that is
+ * drained one send at a time; a subscriber whose queue overflows is too slow to keep up and is closed — the client
+ * reconnects and reloads anyway.
+ */
+public class DocumentChangeFanout {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DocumentChangeFanout.class);
+
+    /** A connected client, e.g. a WebSocket connection. */
+    public interface Subscriber {
+        String id();
+
+        Uni<Void> send(String message);
+
+        void close();
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final Duration window;
+    private final int maxPending;
+
+    private final Map<Long, Set<Outbox>> subscribersByOrganization = new ConcurrentHashMap<>();
+    private final Map<String, Outbox> outboxesById = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> pendingChanges = new ConcurrentHashMap<>();
+
+    public DocumentChangeFanout(ScheduledExecutorService scheduler, Duration window, int maxPending) {
+        this.scheduler = scheduler;
+        this.window = window;
+        this.maxPending = maxPending;
+    }
+
+    public void subscribe(Long organizationId, Subscriber subscriber) {
+        Outbox outbox = new Outbox(organizationId, subscriber);
+        Outbox previous = outboxesById.put(subscriber.id(), outbox);
+        if (previous != null) {
+            remove(previous);
+        }
+        subscribersByOrganization.computeIfAbsent(organizationId, id -> ConcurrentHashMap.newKeySet()).add(outbox);
+    }
+
+    public void unsubscribe(String subscriberId) {
+        Outbox outbox = outboxesById.remove(subscriberId);
+        if (outbox != null) {
+            remove(outbox);
+        }
+    }
+
+    /** Number of subscribers of the organization. */
+    public int subscriberCount(Long organizationId) {
+        Set<Outbox> outboxes = subscribersByOrganization.get(organizationId);
+        return outboxes != null ? outboxes.size() : 0;
+    }
+
+    /**
+     * Records a change; it is sent to the organization's subscribers when the current window closes.
+     */
+    public void publish(Long organizationId, Long documentId) {
+        publish(organizationId, List.of(documentId));
+    }
+
+    /**
+     * Records changes of several documents; they are sent to the organization's subscribers when the current window
+     * closes.
+     */
+    public void publish(Long organizationId, Collection<Long> changedDocumentIds) {
+        if (subscriberCount(organizationId) == 0) {
+            return;
+        }
+        pendingChanges.compute(organizationId, (id, documentIds) -> {
+            if (documentIds == null) {
+                documentIds = new LinkedHashSet<>();
+                scheduler.schedule(() -> flush(organizationId), window.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            documentIds.addAll(changedDocumentIds);
+            return documentIds;
+        });
+    }
+
+    /** Sends the changes collected for the organization as one message and opens a new window. */
+    void flush(Long organizationId) {
+        Set<Long> documentIds = pendingChanges.remove(organizationId);
+        Set<Outbox> outboxes = subscribersByOrganization.get(organizationId);
+        if (documentIds == null || outboxes == null) {
+            return;
+        }
+        String message = new DocumentChangeBatch(organizationId, new ArrayList<>(documentIds)).toJson();
+        for (Outbox outbox : outboxes) {
+            outbox.offer(message);
+        }
+    }
+
+    private void remove(Outbox outbox) {
+        subscribersByOrganization.computeIfPresent(outbox.organizationId, (id, outboxes) -> {
+            outboxes.remove(outbox);
+            return outboxes.isEmpty() ? null : outboxes;
+        });
+    }
+
+    /** Outbound queue of one subscriber; at most one send is in flight. */
+    private final class Outbox {
+        private final Long organizationId;
+        private final Subscriber subscriber;
+        private final Deque<String> queue = new ArrayDeque<>();
+        private boolean sending;
+
+        Outbox(Long organizationId, Subscriber subscriber) {
+            this.organizationId = organizationId;
+            this.subscriber = subscriber;
+        }
+
+        synchronized void offer(String message) {
+            if (queue.size() >= maxPending) {
+                LOG.info("Closing slow document-change subscriber {} ({} messages pending)", subscriber.id(),
+                        queue.size());
+                queue.clear();
+                unsubscribe(subscriber.id());
+                subscriber.close();
+                return;
+            }
+            queue.add(message);
+            if (!sending) {
+                sendNext();
+            }
+        }
+
+        private synchronized void sendNext() {
+            String message = queue.poll();
+            sending = message != null;
+            if (message == null) {
+                return;
+            }
+            subscriber.send(message)
+                    .subscribe()
+                    .with(ignored -> sendNext(), failure -> {
+                        LOG.debug("Failed to push document-change notification to {}: {}", subscriber.id(),
+                                failure.getMessage());
+                        sendNext();
+                    });
+        }
+    }
+}
@@ -1,33 +1,46 @@
 package app.hopps.document.service;
 
 import app.hopps.document.domain.DocumentCreatedEvent;
+import app.hopps.document.domain.DocumentsCreatedEvent;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
-import jakarta.enterprise.event.TransactionPhase;
 import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 /**
- * Observes document lifecycle events and triggers appropriate actions. Uses TransactionPhase.AFTER_SUCCESS to ensure
- * the document is committed before processing.
+ * Observes document lifecycle events and triggers appropriate actions. The events are observed inside the producing
+ * transaction, so the analysis job is committed together with the document; the {@link DocumentAnalysisWorker} starts
+ * it once the transaction has committed.
  */
 @ApplicationScoped
 public class DocumentEventObserver {
     private static final Logger LOG = LoggerFactory.getLogger(DocumentEventObserver.class);
 
     @Inject
-    DocumentAnalysisService analysisService;
+    DocumentAnalysisWorker analysisWorker;
 
     /**
-     * Handles document created events after the transaction has successfully committed. This ensures the document is
-     * visible to the analysis service's new transaction.
+     * Queues a single new or re-analyzed document with interactive priority.
      *
      * @param event
      *            the document created event
      */
-    public void onDocumentCreated(@Observes(during = TransactionPhase.AFTER_SUCCESS) DocumentCreatedEvent event) {
-        LOG.info("Document created event received after commit: documentId={}", event.documentId());
-        analysisService.analyzeAsync(event.documentId());
+    public void onDocumentCreated(@Observes DocumentCreatedEvent event) {
+        LOG.info("Document created event received: documentId={}", event.documentId());
+        analysisWorker.enqueue(List.of(event.documentId()), DocumentAnalysisWorker.PRIORITY_INTERACTIVE);
+    }
+
+    /**
+     * Queues the documents of a bulk upload as one batch with bulk priority, behind interactive requests.
+     *
+     * @param event
+     *            the documents created event
+     */
+    public void onDocumentsCreated(@Observes DocumentsCreatedEvent event) {
+        LOG.info("Documents created event received: count={}", event.documentIds().size());
+        analysisWorker.enqueue(event.documentIds(), DocumentAnalysisWorker.PRIORITY_BULK);
     }
 }
@@ -1,8 +1,9 @@
 package app.hopps.document.service;
 
-import app.hopps.bankimport.service.DedupeHashService;
 import app.hopps.document.domain.Document;
 import app.hopps.document.repository.DocumentRepository;
+import app.hopps.shared.infrastructure.storage.TieredFileCache;
+import app.hopps.shared.infrastructure.storage.TieredFileCache.CachedFile;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.ClientErrorException;
@@ -13,7 +14,7 @@ import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -23,15 +24,23 @@ import static org.slf4j.LoggerFactory.getLogger;
 public class DocumentFileService {
     private static final Logger LOG = getLogger(DocumentFileService.class);
 
+    /** Content types accepted for document files. */
+    public static final List<String> ALLOWED_CONTENT_TYPES = List.of(
+            "image/png", "image/jpeg", "application/pdf");
+
     @Inject
     StorageService storageService;
 
     @Inject
     DocumentRepository documentRepository;
 
+    @Inject
+    TieredFileCache fileCache;
+
     /**
-     * Handles file upload for a document: rejects duplicate content, stores the file in S3 and updates document
-     * metadata (including the content hash).
+     * Handles file upload for a document: streams the file to S3 while hashing it, rejects duplicate content and
+     * updates document metadata (including the content hash). The file is never held in memory as a whole; the
+     * duplicate check therefore runs after the upload, and the just-stored object is removed again if it is rejected.
      *
      * @param document
      *            the document to attach the file to
@@ -42,36 +51,29 @@ public class DocumentFileService {
      *             (409 Conflict) if another document in the same organization already has identical content
      */
     public void handleFileUpload(Document document, FileUpload file) {
-        byte[] bytes;
+        String fileKey = "documents/" + UUID.randomUUID() + "/" + file.fileName();
+        String fileHash;
         try {
-            bytes = Files.readAllBytes(file.uploadedFile());
-        } catch (IOException e) {
-            LOG.error("Failed to read uploaded file", e);
-            throw new RuntimeException("Fehler beim Lesen der Datei", e);
+            fileHash = storageService.uploadFileAndHash(fileKey, file.uploadedFile(), file.contentType());
+            LOG.info("File uploaded to storage: key={}, size={}", fileKey, file.size());
+        } catch (Exception e) {
+            LOG.error("Failed to upload file", e);
+            throw new RuntimeException("Fehler beim Hochladen der Datei", e);
         }
 
         // Reject re-uploads of a file that already exists in this organization. Comparing the document id lets a file
         // replacement keep its own identical content without tripping the check.
-        String fileHash = DedupeHashService.sha256(bytes);
         Document existing = documentRepository.findByFileHash(fileHash);
         if (existing != null && !Objects.equals(existing.getId(), document.getId())) {
+            deleteFile(fileKey);
             throw new ClientErrorException("Dieser Beleg wurde bereits hochgeladen", Response.Status.CONFLICT);
         }
 
-        String fileKey = "documents/" + UUID.randomUUID() + "/" + file.fileName();
-        try {
-            storageService.uploadFile(fileKey, bytes, file.contentType());
-            LOG.info("File uploaded to storage: key={}, size={}", fileKey, file.size());
-
-            document.setFileKey(fileKey);
-            document.setFileName(file.fileName());
-            document.setFileContentType(file.contentType());
-            document.setFileSize(file.size());
-            document.setFileHash(fileHash);
-        } catch (Exception e) {
-            LOG.error("Failed to upload file", e);
-            throw new RuntimeException("Fehler beim Hochladen der Datei", e);
-        }
+        document.setFileKey(fileKey);
+        document.setFileName(file.fileName());
+        document.setFileContentType(file.contentType());
+        document.setFileSize(file.size());
+        document.setFileHash(fileHash);
     }
 
     /**
@@ -85,6 +87,7 @@ public class DocumentFileService {
             return;
         }
 
+        fileCache.invalidate(fileKey);
         try {
             storageService.deleteFile(fileKey);
             LOG.info("File deleted from storage: key={}", fileKey);
@@ -94,6 +97,39 @@ public class DocumentFileService {
         }
     }
 
+    /**
+     * Opens a whole file, served from the {@link TieredFileCache} when possible. On a miss the file is downloaded and,
+     * if the cache admits it, read into the cache on the way; larger files are streamed straight from storage. File
+     * keys are never reused for other content, so a cached file cannot be stale.
+     *
+     * @param fileKey
+     *            the S3 key of the file
+     *
+     * @return the file content and its size; the caller must close the stream
+     */
+    public CachedFile openFile(String fileKey) {
+        CachedFile cached = fileCache.open(fileKey);
+        if (cached != null) {
+            return cached;
+        }
+        ResponseInputStream<GetObjectResponse> stream = storageService.downloadFile(fileKey);
+        long size = stream.response().contentLength();
+        CachedFile stored;
+        try {
+            stored = fileCache.put(fileKey, stream, size);
+        } catch (IOException e) {
+            // The S3 stream may be partially consumed: serve this read from a fresh one, uncached
+            LOG.warn("Failed to cache file: key={}", fileKey, e);
+            closeQuietly(stream);
+            return new CachedFile(storageService.downloadFile(fileKey), size);
+        }
+        if (stored == null) {
+            return new CachedFile(stream, size);
+        }
+        closeQuietly(stream);
+        return stored;
+    }
+
     /**
      * Downloads a file from storage.
      *
@@ -105,4 +141,26 @@ public class DocumentFileService {
     public ResponseInputStream<GetObjectResponse> downloadFile(String fileKey) {
         return storageService.downloadFile(fileKey);
     }
+
+    /**
+     * Downloads a byte range of a file from storage, or the whole file when {@code range} is {@code null}.
+     *
+     * @param fileKey
+     *            the S3 key of the file
+     * @param range
+     *            the requested byte range, may be {@code null}
+     *
+     * @return ResponseInputStream of the requested bytes; its response holds the length and content range
+     */
+    public ResponseInputStream<GetObjectResponse> downloadFile(String fileKey, ByteRange range) {
+        return storageService.downloadFile(fileKey, range);
+    }
+
+    private static void closeQuietly(ResponseInputStream<GetObjectResponse> stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            LOG.debug("Failed to close storage stream", e);
+        }
+    }
 }
@@ -8,12 +8,22 @@ import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
 
 @ApplicationScoped
 public class StorageService {
@@ -22,9 +32,15 @@ public class StorageService {
     @Inject
     S3Client s3Client;
 
+    /** S3 rejects multipart parts below 5 MiB (except the last one). */
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
     @ConfigProperty(name = "bucket.name")
     String bucketName;
 
+    @ConfigProperty(name = "app.hopps.documents.upload.part-size", defaultValue = "8388608")
+    int partSize;
+
     public void uploadFile(String key, Path filePath, String contentType) {
         LOG.info("Uploading file to S3: key={}, contentType={}", key, contentType);
         LOG.debug("Upload source path: {}", filePath);
@@ -52,6 +68,83 @@ public class StorageService {
         LOG.info("File uploaded successfully: key={}", key);
     }
 
+    /**
+     * Streams a file to S3 and computes its SHA-256 on the way, reading the file once. Files up to the part size are
+     * stored with a single put; larger files by a multipart upload, one part at a time. Either way only one part-sized
+     * buffer is held per upload, whatever the file size.
+     *
+     * @return the hex SHA-256 digest of the file content
+     */
+    public String uploadFileAndHash(String key, Path filePath, String contentType) throws IOException {
+        long size = Files.size(filePath);
+        int bufferSize = Math.max(partSize, MIN_PART_SIZE);
+        LOG.info("Streaming file to S3: key={}, contentType={}, size={} bytes", key, contentType, size);
+
+        MessageDigest digest = newSha256();
+        try (InputStream in = Files.newInputStream(filePath)) {
+            if (size <= bufferSize) {
+                byte[] buffer = in.readNBytes((int) size);
+                digest.update(buffer);
+                s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .build(), RequestBody.fromBytes(buffer));
+            } else {
+                uploadMultipart(key, contentType, in, new byte[bufferSize], digest);
+            }
+        }
+        LOG.info("File uploaded successfully: key={}", key);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Uploads the stream part by part through the reused {@code buffer}, feeding every part into {@code digest} before
+     * it is sent. A failed upload is aborted so S3 does not keep the parts already stored.
+     */
+    private void uploadMultipart(String key, String contentType, InputStream in, byte[] buffer,
+            MessageDigest digest) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(builder -> builder.bucket(bucketName)
+                .key(key)
+                .contentType(contentType))
+                .uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            int read;
+            while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                digest.update(buffer, 0, read);
+                int partNumber = parts.size() + 1;
+                int length = read;
+                // ByteArrayInputStream supports mark/reset, so the SDK can retry the part without copying the buffer
+                String eTag = s3Client.uploadPart(builder -> builder.bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) length),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length))
+                        .eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+            }
+            s3Client.completeMultipartUpload(builder -> builder.bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(parts)));
+            LOG.debug("Multipart upload completed: key={}, parts={}", key, parts.size());
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Aborting multipart upload: key={}", key, e);
+            s3Client.abortMultipartUpload(builder -> builder.bucket(bucketName).key(key).uploadId(uploadId));
+            throw e;
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     public ResponseInputStream<GetObjectResponse> downloadFile(String key) {
         LOG.info("Downloading file from S3: key={}", key);
 
@@ -65,6 +158,22 @@ public class StorageService {
         return response;
     }
 
+    /**
+     * Opens the object for streaming, optionally only a byte range of it. The range is resolved by S3, and the response
+     * carries the resulting {@code Content-Length} and {@code Content-Range}. The caller must close the stream.
+     */
+    public ResponseInputStream<GetObjectResponse> downloadFile(String key, ByteRange range) {
+        LOG.info("Downloading file from S3: key={}, range={}", key, range != null ? range.toHeaderValue() : "all");
+
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range(range != null ? range.toHeaderValue() : null)
+                .build();
+
+        return s3Client.getObject(request);
+    }
+
     public void deleteFile(String key) {
         LOG.info("Deleting file from S3: key={}", key);
 
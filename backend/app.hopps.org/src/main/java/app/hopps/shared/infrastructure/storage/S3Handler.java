@@ -1,10 +1,6 @@
 package app.hopps.shared.infrastructure.storage;
 
 import app.hopps.transaction.domain.Transaction;
-import io.quarkus.cache.Cache;
-import io.quarkus.cache.CacheName;
-import io.quarkus.cache.CacheResult;
-import io.quarkus.cache.CaffeineCache;
 import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
@@ -18,11 +14,12 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
-import java.util.concurrent.CompletableFuture;
 
 /**
- * S3 storage handler for managing document uploads and downloads. Provides caching for frequently accessed documents.
+ * S3 storage handler for bank import files. Documents are read through
+ * {@link app.hopps.document.service.DocumentFileService}, which serves them from the {@link TieredFileCache}.
  */
 @ApplicationScoped
 public class S3Handler {
@@ -30,15 +27,13 @@ public class S3Handler {
     private static final Logger LOG = LoggerFactory.getLogger(S3Handler.class);
 
     private final S3Client s3;
-    private final Cache documentCache;
 
     @ConfigProperty(name = "bucket.name")
     String bucketName;
 
     @Inject
-    public S3Handler(S3Client s3, @CacheName("document-cache") Cache documentCache) {
+    public S3Handler(S3Client s3) {
         this.s3 = s3;
-        this.documentCache = documentCache;
     }
 
     @Deprecated
@@ -46,7 +41,6 @@ public class S3Handler {
         return getFile(transaction.getDocumentKey());
     }
 
-    @CacheResult(cacheName = "document-cache")
     public byte[] getFile(String documentKey) {
         var object = s3.getObjectAsBytes(GetObjectRequest.builder()
                 .bucket(bucketName)
@@ -57,15 +51,23 @@ public class S3Handler {
         return object.asByteArray();
     }
 
+    /**
+     * Opens the object as a stream straight from S3. The caller must close the stream. Meant for large one-shot reads
+     * (e.g. bank import files) that should not be held in memory as a whole.
+     */
+    public InputStream openFile(String documentKey) {
+        return s3.getObject(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(documentKey)
+                .build());
+    }
+
     public void saveFile(String documentKey, String contentType, byte[] fileContents) {
         s3.putObject(PutObjectRequest.builder()
                 .bucket(bucketName)
                 .key(documentKey)
                 .contentType(contentType)
                 .build(), RequestBody.fromBytes(fileContents));
-
-        documentCache.as(CaffeineCache.class)
-                .put(documentKey, CompletableFuture.completedFuture(fileContents));
     }
 
     public void saveFile(String documentKey, FileUpload file) throws IOException {
@@ -0,0 +1,225 @@
+package app.hopps.shared.infrastructure.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Two-tier cache for document files read from S3, bounded by bytes instead of entries:
+ * <ul>
+ * <li>a heap tier for small files (up to {@code heap.max-entry-size}), bounded by the total size of its entries;</li>
+ * <li>a local-disk tier for larger files, bounded by the total size on disk and streamed from there, so large files
+ * never occupy the heap as a whole.</li>
+ * </ul>
+ * Both tiers evict by size-weighted W-TinyLFU, so a burst of one-off reads does not push out small, frequently read
+ * files. Files larger than {@code max-entry-size} are not admitted at all. Hits, misses and evictions are recorded per
+ * tier, see {@link #stats()}.
+ * <p>
+ * The disk tier's index lives in memory, so its files are only valid for this process: each process writes to its own
+ * subdirectory of {@code disk.directory} and removes it again on shutdown. Other processes sharing the directory are
+ * left alone, which also means the files of a process that crashed stay behind.
+ */
+@ApplicationScoped
+public class TieredFileCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TieredFileCache.class);
+
+    /** Hit, miss and eviction counts and the current fill level of one tier. */
+    public record TierStats(long hits, long misses, long evictions, long entries, long bytes) {
+    }
+
+    /** Statistics of both tiers. */
+    public record Stats(TierStats heap, TierStats disk) {
+    }
+
+    /** An opened cached file; the caller must close the stream. */
+    public record CachedFile(InputStream stream, long size) {
+    }
+
+    /** A file of the disk tier; each entry gets its own file so an eviction never deletes a newer copy. */
+    private record DiskEntry(Path path, int size) {
+    }
+
+    private final Cache<String, byte[]> heap;
+    private final Cache<String, DiskEntry> disk;
+    private final Path directory;
+    private final long heapMaxEntrySize;
+    private final long maxEntrySize;
+
+    @Inject
+    public TieredFileCache(
+            @ConfigProperty(name = "app.hopps.storage.cache.heap.max-size") long heapMaxSize,
+            @ConfigProperty(name = "app.hopps.storage.cache.heap.max-entry-size") long heapMaxEntrySize,
+            @ConfigProperty(name = "app.hopps.storage.cache.disk.max-size") long diskMaxSize,
+            @ConfigProperty(name = "app.hopps.storage.cache.disk.directory") String directory,
+            @ConfigProperty(name = "app.hopps.storage.cache.max-entry-size") long maxEntrySize) {
+        this.directory = prepareDirectory(Path.of(directory));
+        this.heapMaxEntrySize = heapMaxEntrySize;
+        this.maxEntrySize = maxEntrySize;
+        // Maintenance runs on the calling thread: evicted disk files are deleted right away and the bounds hold after
+        // every write.
+        this.heap = Caffeine.newBuilder()
+                .maximumWeight(heapMaxSize)
+                .weigher((String key, byte[] content) -> content.length)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        this.disk = Caffeine.newBuilder()
+                .maximumWeight(diskMaxSize)
+                .weigher((String key, DiskEntry entry) -> entry.size())
+                .executor(Runnable::run)
+                .removalListener(this::onDiskRemoval)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Opens the cached file, or returns {@code null} if it is not cached.
+     */
+    public CachedFile open(String key) {
+        byte[] content = heap.getIfPresent(key);
+        if (content != null) {
+            return new CachedFile(new ByteArrayInputStream(content), content.length);
+        }
+        DiskEntry entry = disk.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            // An open file stays readable if the entry is evicted and its file deleted in the meantime
+            return new CachedFile(Files.newInputStream(entry.path()), entry.size());
+        } catch (NoSuchFileException e) {
+            LOG.warn("Cached file vanished from disk, dropping entry: key={}", key);
+            // Only drop this entry; a concurrent put may already have replaced it with a newer file
+            disk.asMap().remove(key, entry);
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the file of the given size from {@code content} into the tier matching its size, if the file is admitted,
+     * and opens the cached copy. A file that is not admitted is left unread.
+     *
+     * @return the cached file, or {@code null} if the file is not admitted
+     *
+     * @throws IOException
+     *             if reading the file or writing it to the disk tier fails; {@code content} may then be partially read
+     */
+    public CachedFile put(String key, InputStream content, long size) throws IOException {
+        if (!admits(size)) {
+            return null;
+        }
+        // A copy in the other tier is superseded; removing only that copy never drops a newer one put concurrently
+        if (size <= heapMaxEntrySize) {
+            byte[] bytes = content.readAllBytes();
+            DiskEntry stale = disk.asMap().get(key);
+            heap.put(key, bytes);
+            if (stale != null) {
+                disk.asMap().remove(key, stale);
+            }
+            return new CachedFile(new ByteArrayInputStream(bytes), bytes.length);
+        }
+        Path path = directory.resolve(UUID.randomUUID().toString());
+        Path temp = directory.resolve(path.getFileName() + ".tmp");
+        try {
+            long written = Files.copy(content, temp);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            // Opened before the entry becomes visible, so an immediate eviction cannot delete the file under us
+            InputStream stream = Files.newInputStream(path);
+            byte[] stale = heap.asMap().get(key);
+            disk.put(key, new DiskEntry(path, Math.toIntExact(written)));
+            if (stale != null) {
+                heap.asMap().remove(key, stale);
+            }
+            return new CachedFile(stream, written);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    public void invalidate(String key) {
+        heap.invalidate(key);
+        disk.invalidate(key);
+    }
+
+    /** Whether a file of this size is cached at all. */
+    public boolean admits(long size) {
+        return size >= 0 && size <= maxEntrySize;
+    }
+
+    @Scheduled(every = "{app.hopps.storage.cache.stats-interval}")
+    void logStats() {
+        Stats stats = stats();
+        LOG.info("File cache: heap {}, disk {}", stats.heap(), stats.disk());
+    }
+
+    public Stats stats() {
+        return new Stats(tierStats(heap), tierStats(disk));
+    }
+
+    private static TierStats tierStats(Cache<String, ?> cache) {
+        CacheStats stats = cache.stats();
+        long bytes = cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+        return new TierStats(stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.estimatedSize(),
+                bytes);
+    }
+
+    private void onDiskRemoval(String key, DiskEntry entry, RemovalCause cause) {
+        if (entry == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(entry.path());
+        } catch (IOException e) {
+            LOG.warn("Failed to delete cached file: path={}", entry.path(), e);
+        }
+    }
+
+    /** Creates this process's own directory below {@code base}; it is removed with its files on shutdown. */
+    private static Path prepareDirectory(Path base) {
+        try {
+            Files.createDirectories(base);
+            Path directory = Files.createTempDirectory(base, "cache-" + ProcessHandle.current().pid() + "-");
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare file cache directory below " + base, e);
+        }
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    @PreDestroy
+    void removeDirectory() {
+        heap.invalidateAll();
+        disk.invalidateAll();
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            LOG.warn("Failed to remove file cache directory: path={}", directory, e);
+        }
+    }
+}
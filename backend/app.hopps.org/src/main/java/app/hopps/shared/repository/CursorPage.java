@@ -0,0 +1,12 @@
+package app.hopps.shared.repository;
+
+import java.util.List;
+
+/**
+ * One page of a listing (see {@link SeekCursor}). {@code nextCursor} is {@code null} when the page is the last one.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    /** Response header carrying {@link #nextCursor} on the listing endpoints, which keep returning a plain array. */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+}
@@ -0,0 +1,220 @@
+package app.hopps.shared.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.BadRequestException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keyset ("seek") pagination for the listing endpoints. Instead of skipping {@code page * size} rows, the next page
+ * starts right after the last row of the previous one, identified by the values of its sort keys. The database can then
+ * read the page straight from an index, so every page costs the same however deep the client has scrolled.
+ * <p>
+ * The cursor handed to clients is opaque: base64url of the sort signature (which sort it belongs to) and the sort-key
+ * values of the last row. A cursor created for another sort, or one that cannot be decoded, is rejected with 400.
+ * <p>
+ * The generated predicate follows PostgreSQL's default null ordering (nulls last ascending, first descending), which is
+ * also what the plain {@code ORDER BY} of the listings produces.
+ */
+public final class SeekCursor {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<List<String>> TOKENS = new TypeReference<>() {
+    };
+
+    /**
+     * One sort key of a listing: a JPQL expression, its direction and whether it can be null. The last key must be
+     * unique and not null, e.g. the id.
+     */
+    public record Key(String expression, boolean ascending, boolean nullable) {
+
+        public static Key of(String expression, boolean ascending) {
+            return new Key(expression, ascending, false);
+        }
+
+        public static Key nullable(String expression, boolean ascending) {
+            return new Key(expression, ascending, true);
+        }
+    }
+
+    private final String signature;
+    private final List<Object> values;
+
+    private SeekCursor(String signature, List<Object> values) {
+        this.signature = signature;
+        this.values = values;
+    }
+
+    /**
+     * Cursor pointing after a row with the given sort-key values.
+     *
+     * @param signature
+     *            identifies the sort order (e.g. {@code "bookingDate:desc"}); must be the same when the cursor is read
+     * @param values
+     *            the row's value for each sort key, in key order; supported types are {@link Instant},
+     *            {@link LocalDate}, {@link BigDecimal}, {@link Long}, {@link Integer}, {@link String} and {@code null}
+     */
+    public static SeekCursor after(String signature, Object... values) {
+        // Arrays.asList rather than List.of: a nullable sort column legitimately has null values.
+        return new SeekCursor(signature, Arrays.asList(values));
+    }
+
+    /**
+     * Decodes a cursor received from a client; {@code null} or blank means "first page" and returns {@code null}.
+     *
+     * @throws BadRequestException
+     *             if the cursor is malformed or was created for a different sort order
+     */
+    public static SeekCursor decode(String cursor, String expectedSignature) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        List<String> tokens;
+        try {
+            tokens = JSON.readValue(Base64.getUrlDecoder().decode(cursor.trim()), TOKENS);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        if (tokens.isEmpty() || !tokens.get(0).equals(expectedSignature)) {
+            throw new BadRequestException("Cursor does not match the current sort order");
+        }
+        List<Object> values = new ArrayList<>(tokens.size() - 1);
+        for (String token : tokens.subList(1, tokens.size())) {
+            values.add(decodeValue(token));
+        }
+        return new SeekCursor(expectedSignature, values);
+    }
+
+    /** The opaque form handed to clients. */
+    public String encode() {
+        List<String> tokens = new ArrayList<>(values.size() + 1);
+        tokens.add(signature);
+        for (Object value : values) {
+            tokens.add(encodeValue(value));
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(JSON.writeValueAsBytes(tokens));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cursor cannot be encoded", e);
+        }
+    }
+
+    /**
+     * Builds the JPQL predicate selecting the rows after this cursor for the given sort keys, binding the values as
+     * {@code :seek0}, {@code :seek1}, ... in {@code params}. Rows come after the cursor when they equal it on the first
+     * {@code i} keys and come after it on key {@code i}, for some {@code i}.
+     *
+     * @throws BadRequestException
+     *             if the cursor carries a different number of values than there are keys
+     */
+    public String predicate(List<Key> keys, Map<String, Object> params) {
+        if (keys.size() != values.size()) {
+            throw new BadRequestException("Cursor does not match the current sort order");
+        }
+        List<String> alternatives = new ArrayList<>(keys.size());
+        StringBuilder equalPrefix = new StringBuilder();
+        for (int i = 0; i < keys.size(); i++) {
+            Key key = keys.get(i);
+            Object value = values.get(i);
+            String param = "seek" + i;
+            if (value != null) {
+                params.put(param, value);
+            }
+            String after = after(key, value, param);
+            if (after != null) {
+                alternatives.add(equalPrefix.isEmpty() ? after : "(" + equalPrefix + " AND " + after + ")");
+            }
+            if (!equalPrefix.isEmpty()) {
+                equalPrefix.append(" AND ");
+            }
+            equalPrefix.append(value == null ? key.expression() + " IS NULL" : key.expression() + " = :" + param);
+        }
+        return alternatives.isEmpty() ? "1 = 0" : "(" + String.join(" OR ", alternatives) + ")";
+    }
+
+    /** The {@code ORDER BY} list (without the keyword) matching the given sort keys. */
+    public static String orderBy(List<Key> keys) {
+        List<String> parts = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            parts.add(key.expression() + (key.ascending() ? " ASC" : " DESC"));
+        }
+        return String.join(", ", parts);
+    }
+
+    /**
+     * Turns the rows of a query that asked for {@code size + 1} rows into a page of at most {@code size} rows. The
+     * extra row only tells whether there is a next page; if so, the cursor points after the last returned row.
+     */
+    public static <T> CursorPage<T> page(List<T> rows, int size, Function<T, SeekCursor> cursorOf) {
+        if (size <= 0) {
+            return new CursorPage<>(List.of(), null);
+        }
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, cursorOf.apply(items.get(size - 1)).encode());
+    }
+
+    /** Rows strictly after {@code value} on one key, or {@code null} if there are none (nothing sorts after null). */
+    private static String after(Key key, Object value, String param) {
+        String expression = key.expression();
+        if (key.ascending()) {
+            if (value == null) {
+                return null;
+            }
+            return key.nullable() ? "(" + expression + " > :" + param + " OR " + expression + " IS NULL)"
+                    : expression + " > :" + param;
+        }
+        return value == null ? expression + " IS NOT NULL" : expression + " < :" + param;
+    }
+
+    private static String encodeValue(Object value) {
+        return switch (value) {
+            case null -> "N";
+            case Instant instant -> "I" + instant;
+            case LocalDate date -> "D" + date;
+            case BigDecimal decimal -> "B" + decimal.toPlainString();
+            case Long number -> "L" + number;
+            case Integer number -> "i" + number;
+            case String text -> "S" + text;
+            default -> throw new IllegalArgumentException("Unsupported cursor value: " + value.getClass());
+        };
+    }
+
+    private static Object decodeValue(String token) {
+        if (token.isEmpty()) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        String payload = token.substring(1);
+        try {
+            return switch (token.charAt(0)) {
+                case 'N' -> null;
+                case 'I' -> Instant.parse(payload);
+                case 'D' -> LocalDate.parse(payload);
+                case 'B' -> new BigDecimal(payload);
+                case 'L' -> Long.parseLong(payload);
+                case 'i' -> Integer.parseInt(payload);
+                case 'S' -> payload;
+                default -> throw new BadRequestException("Invalid cursor");
+            };
+        } catch (RuntimeException e) {
+            if (e instanceof BadRequestException bad) {
+                throw bad;
+            }
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package app.hopps.statistics.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * Financial totals of a set of transactions: the signed sum, income (positive part), expenses (negative part, as a
+ * positive value) and the transaction count. Immutable; {@link #plus(BommelTotals)} is used to roll child subtotals up
+ * the bommel tree.
+ */
+public record BommelTotals(
+        BigDecimal total,
+        BigDecimal income,
+        BigDecimal expenses,
+        long transactionsCount) {
+
+    public static final BommelTotals EMPTY = new BommelTotals(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0);
+
+    public BommelTotals plus(BommelTotals other) {
+        return new BommelTotals(
+                total.add(other.total),
+                income.add(other.income),
+                expenses.add(other.expenses),
+                transactionsCount + other.transactionsCount);
+    }
+}
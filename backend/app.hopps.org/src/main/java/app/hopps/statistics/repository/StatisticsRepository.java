@@ -1,14 +1,23 @@
 package app.hopps.statistics.repository;
 
+import app.hopps.statistics.domain.BommelTotals;
 import app.hopps.transaction.domain.Transaction;
 import app.hopps.transaction.domain.TransactionStatus;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Reads transaction statistics from the {@code statistics_rollup} table, which holds pre-aggregated totals per
+ * organization, bommel, status and month and is kept in sync by a database trigger on {@code transaction} (see
+ * migration V1.0.21). Every query therefore scans a handful of rollup rows instead of the transaction history. Use
+ * {@link app.hopps.statistics.service.StatisticsRollupService} to rebuild the rollup.
+ */
 @ApplicationScoped
 public class StatisticsRepository implements PanacheRepository<Transaction> {
 
@@ -23,23 +32,7 @@ public class StatisticsRepository implements PanacheRepository<Transaction> {
      * @return sum of totals, or ZERO if none found
      */
     public BigDecimal sumTotal(long organizationId, boolean includeDrafts) {
-        StringBuilder query = new StringBuilder("SELECT COALESCE(SUM(t.total), 0) FROM Transaction t " +
-                "WHERE t.organization.id = :orgId AND t.total IS NOT NULL");
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("orgId", organizationId);
-
-        if (!includeDrafts) {
-            query.append(" AND t.status = :status");
-            params.put("status", TransactionStatus.CONFIRMED);
-        }
-
-        var typedQuery = getEntityManager().createQuery(query.toString(), BigDecimal.class);
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            typedQuery.setParameter(entry.getKey(), entry.getValue());
-        }
-
-        return typedQuery.getSingleResult();
+        return sumRollup("total", "organization_id", organizationId, includeDrafts);
     }
 
     /**
@@ -53,23 +46,7 @@ public class StatisticsRepository implements PanacheRepository<Transaction> {
      * @return sum of totals, or ZERO if none found
      */
     public BigDecimal sumTotalByBommel(long bommelId, boolean includeDrafts) {
-        StringBuilder query = new StringBuilder("SELECT COALESCE(SUM(t.total), 0) FROM Transaction t " +
-                "WHERE t.bommel.id = :bommelId AND t.total IS NOT NULL");
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("bommelId", bommelId);
-
-        if (!includeDrafts) {
-            query.append(" AND t.status = :status");
-            params.put("status", TransactionStatus.CONFIRMED);
-        }
-
-        var typedQuery = getEntityManager().createQuery(query.toString(), BigDecimal.class);
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            typedQuery.setParameter(entry.getKey(), entry.getValue());
-        }
-
-        return typedQuery.getSingleResult();
+        return sumRollup("total", "bommel_id", bommelId, includeDrafts);
     }
 
     /**
@@ -83,23 +60,7 @@ public class StatisticsRepository implements PanacheRepository<Transaction> {
      * @return count of transactions
      */
     public int countTransactions(long organizationId, boolean includeDrafts) {
-        StringBuilder query = new StringBuilder("SELECT COUNT(t) FROM Transaction t " +
-                "WHERE t.organization.id = :orgId");
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("orgId", organizationId);
-
-        if (!includeDrafts) {
-            query.append(" AND t.status = :status");
-            params.put("status", TransactionStatus.CONFIRMED);
-        }
-
-        var typedQuery = getEntityManager().createQuery(query.toString(), Long.class);
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            typedQuery.setParameter(entry.getKey(), entry.getValue());
-        }
-
-        return typedQuery.getSingleResult().intValue();
+        return sumRollup("transactions_count", "organization_id", organizationId, includeDrafts).intValue();
     }
 
     /**
@@ -113,23 +74,7 @@ public class StatisticsRepository implements PanacheRepository<Transaction> {
      * @return count of transactions
      */
     public int countTransactionsByBommel(long bommelId, boolean includeDrafts) {
-        StringBuilder query = new StringBuilder("SELECT COUNT(t) FROM Transaction t " +
-                "WHERE t.bommel.id = :bommelId");
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("bommelId", bommelId);
-
-        if (!includeDrafts) {
-            query.append(" AND t.status = :status");
-            params.put("status", TransactionStatus.CONFIRMED);
-        }
-
-        var typedQuery = getEntityManager().createQuery(query.toString(), Long.class);
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            typedQuery.setParameter(entry.getKey(), entry.getValue());
-        }
-
-        return typedQuery.getSingleResult().intValue();
+        return sumRollup("transactions_count", "bommel_id", bommelId, includeDrafts).intValue();
     }
 
     /**
@@ -143,23 +88,7 @@ public class StatisticsRepository implements PanacheRepository<Transaction> {
      * @return sum of positive totals, or ZERO if none found
      */
     public BigDecimal sumIncome(long organizationId, boolean includeDrafts) {
-        StringBuilder query = new StringBuilder("SELECT COALESCE(SUM(t.total), 0) FROM Transaction t " +
-                "WHERE t.organization.id = :orgId AND t.total IS NOT NULL AND t.total > 0");
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("orgId", organizationId);
-
-        if (!includeDrafts) {
-            query.append(" AND t.status = :status");
-            params.put("status", TransactionStatus.CONFIRMED);
-        }
-
-        var typedQuery = getEntityManager().createQuery(query.toString(), BigDecimal.class);
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            typedQuery.setParameter(entry.getKey(), entry.getValue());
-        }
-
-        return typedQuery.getSingleResult();
+        return sumRollup("income", "organization_id", organizationId, includeDrafts);
     }
 
     /**
@@ -173,23 +102,7 @@ public class StatisticsRepository implements PanacheRepository<Transaction> {
      * @return sum of negative totals (as positive value), or ZERO if none found
      */
     public BigDecimal sumExpenses(long organizationId, boolean includeDrafts) {
-        StringBuilder query = new StringBuilder("SELECT COALESCE(SUM(ABS(t.total)), 0) FROM Transaction t " +
-                "WHERE t.organization.id = :orgId AND t.total IS NOT NULL AND t.total < 0");
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("orgId", organizationId);
-
-        if (!includeDrafts) {
-            query.append(" AND t.status = :status");
-            params.put("status", TransactionStatus.CONFIRMED);
-        }
-
-        var typedQuery = getEntityManager().createQuery(query.toString(), BigDecimal.class);
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            typedQuery.setParameter(entry.getKey(), entry.getValue());
-        }
-
-        return typedQuery.getSingleResult();
+        return sumRollup("expenses", "organization_id", organizationId, includeDrafts);
     }
 
     /**
@@ -203,52 +116,99 @@ public class StatisticsRepository implements PanacheRepository<Transaction> {
      * @return sum of positive totals, or ZERO if none found
      */
     public BigDecimal sumIncomeByBommel(long bommelId, boolean includeDrafts) {
-        StringBuilder query = new StringBuilder("SELECT COALESCE(SUM(t.total), 0) FROM Transaction t " +
-                "WHERE t.bommel.id = :bommelId AND t.total IS NOT NULL AND t.total > 0");
+        return sumRollup("income", "bommel_id", bommelId, includeDrafts);
+    }
+
+    /**
+     * Sum expenses (negative transactions) for a specific bommel.
+     *
+     * @param bommelId
+     *            the bommel ID
+     * @param includeDrafts
+     *            whether to include draft transactions
+     *
+     * @return sum of negative totals (as positive value), or ZERO if none found
+     */
+    public BigDecimal sumExpensesByBommel(long bommelId, boolean includeDrafts) {
+        return sumRollup("expenses", "bommel_id", bommelId, includeDrafts);
+    }
+
+    /**
+     * Direct totals (not including child bommels) of all given bommels in a single grouped query over the rollup.
+     * Bommels without any transaction are absent from the result.
+     *
+     * @param bommelIds
+     *            the bommel IDs
+     * @param includeDrafts
+     *            whether to include draft transactions
+     *
+     * @return map of bommel ID to its direct totals
+     */
+    public Map<Long, BommelTotals> sumByBommels(Collection<Long> bommelIds, boolean includeDrafts) {
+        if (bommelIds == null || bommelIds.isEmpty()) {
+            return Map.of();
+        }
+
+        StringBuilder query = new StringBuilder("SELECT r.bommel_id, " +
+                "SUM(r.total), SUM(r.income), SUM(r.expenses), SUM(r.transactions_count) " +
+                "FROM statistics_rollup r WHERE r.bommel_id IN (:bommelIds)");
 
         Map<String, Object> params = new HashMap<>();
-        params.put("bommelId", bommelId);
+        params.put("bommelIds", bommelIds);
 
         if (!includeDrafts) {
-            query.append(" AND t.status = :status");
-            params.put("status", TransactionStatus.CONFIRMED);
+            query.append(" AND r.status = :status");
+            params.put("status", TransactionStatus.CONFIRMED.name());
         }
+        query.append(" GROUP BY r.bommel_id");
 
-        var typedQuery = getEntityManager().createQuery(query.toString(), BigDecimal.class);
+        var nativeQuery = getEntityManager().createNativeQuery(query.toString());
         for (Map.Entry<String, Object> entry : params.entrySet()) {
-            typedQuery.setParameter(entry.getKey(), entry.getValue());
+            nativeQuery.setParameter(entry.getKey(), entry.getValue());
         }
 
-        return typedQuery.getSingleResult();
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = nativeQuery.getResultList();
+        Map<Long, BommelTotals> result = new HashMap<>();
+        for (Object[] row : rows) {
+            result.put(((Number) row[0]).longValue(), new BommelTotals(
+                    toBigDecimal(row[1]),
+                    toBigDecimal(row[2]),
+                    toBigDecimal(row[3]),
+                    ((Number) row[4]).longValue()));
+        }
+        return result;
     }
 
     /**
-     * Sum expenses (negative transactions) for a specific bommel.
+     * Sums one rollup column over all rollup rows of an organization or a bommel.
      *
-     * @param bommelId
-     *            the bommel ID
-     * @param includeDrafts
-     *            whether to include draft transactions
-     *
-     * @return sum of negative totals (as positive value), or ZERO if none found
+     * @param column
+     *            the rollup column to sum (fixed, never user input)
+     * @param scopeColumn
+     *            {@code organization_id} or {@code bommel_id}
      */
-    public BigDecimal sumExpensesByBommel(long bommelId, boolean includeDrafts) {
-        StringBuilder query = new StringBuilder("SELECT COALESCE(SUM(ABS(t.total)), 0) FROM Transaction t " +
-                "WHERE t.bommel.id = :bommelId AND t.total IS NOT NULL AND t.total < 0");
+    private BigDecimal sumRollup(String column, String scopeColumn, long scopeId, boolean includeDrafts) {
+        StringBuilder query = new StringBuilder("SELECT COALESCE(SUM(r." + column + "), 0) FROM statistics_rollup r " +
+                "WHERE r." + scopeColumn + " = :scopeId");
 
         Map<String, Object> params = new HashMap<>();
-        params.put("bommelId", bommelId);
+        params.put("scopeId", scopeId);
 
         if (!includeDrafts) {
-            query.append(" AND t.status = :status");
-            params.put("status", TransactionStatus.CONFIRMED);
+            query.append(" AND r.status = :status");
+            params.put("status", TransactionStatus.CONFIRMED.name());
         }
 
-        var typedQuery = getEntityManager().createQuery(query.toString(), BigDecimal.class);
+        var nativeQuery = getEntityManager().createNativeQuery(query.toString());
         for (Map.Entry<String, Object> entry : params.entrySet()) {
-            typedQuery.setParameter(entry.getKey(), entry.getValue());
+            nativeQuery.setParameter(entry.getKey(), entry.getValue());
         }
 
-        return typedQuery.getSingleResult();
+        return toBigDecimal(nativeQuery.getSingleResult());
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        return value instanceof BigDecimal bd ? bd : new BigDecimal(value.toString());
     }
 }
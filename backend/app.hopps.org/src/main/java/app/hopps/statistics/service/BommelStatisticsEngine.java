@@ -0,0 +1,108 @@
+package app.hopps.statistics.service;
+
+import app.hopps.bommel.domain.Bommel;
+import app.hopps.bommel.domain.TreeSearchBommel;
+import app.hopps.bommel.repository.BommelRepository;
+import app.hopps.statistics.api.dto.BommelStatistics;
+import app.hopps.statistics.domain.BommelTotals;
+import app.hopps.statistics.repository.StatisticsRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the statistics of a whole bommel subtree with a fixed number of queries: the subtree itself (one recursive
+ * query) and one {@code GROUP BY bommel} row set with the direct totals of every bommel. Aggregated (subtree) totals
+ * are then rolled up in memory, children before parents, so the cost does not grow with the depth of the tree.
+ */
+@ApplicationScoped
+public class BommelStatisticsEngine {
+
+    @Inject
+    StatisticsRepository statisticsRepository;
+
+    @Inject
+    BommelRepository bommelRepository;
+
+    /**
+     * Statistics for {@code base} and every bommel below it, keyed by bommel ID.
+     *
+     * @param base
+     *            the top of the subtree, e.g. the root bommel of an organization
+     * @param includeDrafts
+     *            whether to include draft transactions
+     * @param aggregate
+     *            whether each entry should contain the totals of its whole subtree instead of only its own transactions
+     */
+    public Map<Long, BommelStatistics> computeSubtree(Bommel base, boolean includeDrafts, boolean aggregate) {
+        List<TreeSearchBommel> descendants = bommelRepository.getChildrenRecursive(base);
+
+        List<Node> nodes = new ArrayList<>(descendants.size() + 1);
+        nodes.add(new Node(base.id, null, base.getName(), 0));
+        for (TreeSearchBommel tsb : descendants) {
+            nodes.add(Node.of(tsb));
+        }
+
+        List<Long> ids = nodes.stream().map(Node::id).toList();
+        Map<Long, BommelTotals> direct = statisticsRepository.sumByBommels(ids, includeDrafts);
+
+        Map<Long, BommelTotals> totals = aggregate ? rollUp(nodes, direct) : direct;
+
+        Map<Long, BommelStatistics> result = new LinkedHashMap<>();
+        for (Node node : nodes) {
+            BommelTotals t = totals.getOrDefault(node.id(), BommelTotals.EMPTY);
+            result.put(node.id(), new BommelStatistics(
+                    node.id(),
+                    node.name(),
+                    t.total(),
+                    t.income(),
+                    t.expenses(),
+                    (int) t.transactionsCount(),
+                    aggregate));
+        }
+        return result;
+    }
+
+    /**
+     * Adds the totals of every node to all of its ancestors. Nodes are visited deepest first, so by the time a node is
+     * added to its parent its own subtree total is already complete (a post-order traversal without recursion).
+     */
+    static Map<Long, BommelTotals> rollUp(List<Node> nodes, Map<Long, BommelTotals> direct) {
+        Map<Long, BommelTotals> subtree = new HashMap<>();
+        for (Node node : nodes) {
+            subtree.put(node.id(), direct.getOrDefault(node.id(), BommelTotals.EMPTY));
+        }
+
+        List<Node> deepestFirst = new ArrayList<>(nodes);
+        deepestFirst.sort(Comparator.comparingInt(Node::depth).reversed());
+
+        for (Node node : deepestFirst) {
+            if (node.parentId() != null && subtree.containsKey(node.parentId())) {
+                subtree.merge(node.parentId(), subtree.get(node.id()), BommelTotals::plus);
+            }
+        }
+        return subtree;
+    }
+
+    /**
+     * A bommel reduced to what the roll-up needs. {@code depth} is the distance from the subtree's base.
+     */
+    record Node(Long id, Long parentId, String name, int depth) {
+
+        /**
+         * The cycle path of a {@link TreeSearchBommel} lists the IDs from the base down to the bommel itself, so its
+         * second to last element is the parent and its length is the depth (+1).
+         */
+        static Node of(TreeSearchBommel tsb) {
+            List<Long> path = tsb.cyclePath();
+            Long parentId = path.size() >= 2 ? path.get(path.size() - 2) : null;
+            return new Node(tsb.bommel().id, parentId, tsb.bommel().getName(), path.size() - 1);
+        }
+    }
+}
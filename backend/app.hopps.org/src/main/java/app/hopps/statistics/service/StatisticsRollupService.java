@@ -0,0 +1,111 @@
+package app.hopps.statistics.service;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repair path for the {@code statistics_rollup} table. The rollup is maintained incrementally by a trigger on
+ * {@code transaction}; this service recomputes it from the transactions themselves, either for a single organization or
+ * for all of them. A scheduled job runs the full rebuild periodically so any drift (e.g. rows changed while the trigger
+ * was disabled for a manual data fix) heals on its own.
+ */
+@ApplicationScoped
+public class StatisticsRollupService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StatisticsRollupService.class);
+
+    private static final String REBUILD_SELECT = """
+            SELECT organization_id,
+                   bommel_id,
+                   COALESCE(status, 'DRAFT'),
+                   statistics_rollup_month(transaction_time, created_at),
+                   COALESCE(SUM(total), 0),
+                   COALESCE(SUM(CASE WHEN total > 0 THEN total ELSE 0 END), 0),
+                   COALESCE(SUM(CASE WHEN total < 0 THEN ABS(total) ELSE 0 END), 0),
+                   COUNT(*)
+            FROM transaction
+            """;
+
+    private static final String REBUILD_GROUP_BY = """
+             GROUP BY organization_id, bommel_id, COALESCE(status, 'DRAFT'),
+                      statistics_rollup_month(transaction_time, created_at)
+            """;
+
+    private static final String REBUILD_INSERT = "INSERT INTO statistics_rollup "
+            + "(organization_id, bommel_id, status, month, total, income, expenses, transactions_count) ";
+
+    /** Rebuilt cells replace whatever a concurrent rebuild wrote in the meantime. */
+    private static final String REBUILD_ON_CONFLICT = """
+             ON CONFLICT (organization_id, COALESCE(bommel_id, 0), status, month) DO UPDATE
+                 SET total = excluded.total, income = excluded.income, expenses = excluded.expenses,
+                     transactions_count = excluded.transactions_count
+            """;
+
+    /** Advisory lock namespace of the rollup; the trigger locks (21, organization id), see migration V1.0.21. */
+    private static final int LOCK_NAMESPACE = 21;
+    /** Advisory lock key of the scheduled full rebuild; organization keys are never negative. */
+    private static final int SCHEDULED_REBUILD_KEY = -1;
+
+    @Inject
+    EntityManager entityManager;
+
+    /**
+     * Recomputes the rollup rows of one organization. Takes the organization's rollup lock exclusively; the trigger
+     * holds it shared from a transaction's first change to the organization's bookings until its commit. So the rebuild
+     * starts only once in-flight bookings have committed, and bookings that start meanwhile wait until the rebuild has
+     * committed and then apply their delta on top of it.
+     */
+    @Transactional
+    public void rebuild(long organizationId) {
+        entityManager.createNativeQuery("SELECT true FROM pg_advisory_xact_lock(:namespace, "
+                + "CAST(mod(:orgId, 2147483647) AS integer))")
+                .setParameter("namespace", LOCK_NAMESPACE)
+                .setParameter("orgId", organizationId)
+                .getSingleResult();
+        entityManager.createNativeQuery("DELETE FROM statistics_rollup WHERE organization_id = :orgId")
+                .setParameter("orgId", organizationId)
+                .executeUpdate();
+        entityManager.createNativeQuery(REBUILD_INSERT + REBUILD_SELECT
+                + " WHERE organization_id = :orgId" + REBUILD_GROUP_BY + REBUILD_ON_CONFLICT)
+                .setParameter("orgId", organizationId)
+                .executeUpdate();
+    }
+
+    /**
+     * Recomputes the rollup for all organizations in one transaction. The {@code SHARE} lock on {@code transaction}
+     * waits for in-flight writes and blocks new ones until the rebuild has committed.
+     */
+    @Transactional
+    public void rebuildAll() {
+        entityManager.createNativeQuery("LOCK TABLE transaction IN SHARE MODE").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM statistics_rollup").executeUpdate();
+        int rows = entityManager.createNativeQuery(REBUILD_INSERT + REBUILD_SELECT + REBUILD_GROUP_BY
+                + REBUILD_ON_CONFLICT)
+                .executeUpdate();
+        LOG.info("Rebuilt statistics rollup ({} rows)", rows);
+    }
+
+    /**
+     * Runs the full rebuild on one replica only: every replica fires at the same cron tick, and those that find the
+     * lock taken skip the run.
+     */
+    @Scheduled(cron = "{app.hopps.statistics.rollup.rebuild-cron}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void scheduledRebuild() {
+        boolean acquired = (Boolean) entityManager
+                .createNativeQuery("SELECT pg_try_advisory_xact_lock(:namespace, :key)")
+                .setParameter("namespace", LOCK_NAMESPACE)
+                .setParameter("key", SCHEDULED_REBUILD_KEY)
+                .getSingleResult();
+        if (!acquired) {
+            LOG.info("Statistics rollup rebuild is running on another replica, skipping");
+            return;
+        }
+        rebuildAll();
+    }
+}
@@ -1,7 +1,6 @@
 package app.hopps.statistics.service;
 
 import app.hopps.bommel.domain.Bommel;
-import app.hopps.bommel.domain.TreeSearchBommel;
 import app.hopps.bommel.repository.BommelRepository;
 import app.hopps.statistics.api.dto.BommelStatistics;
 import app.hopps.statistics.api.dto.BommelStatisticsMap;
@@ -11,12 +10,8 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class StatisticsService {
@@ -27,6 +22,9 @@ public class StatisticsService {
     @Inject
     BommelRepository bommelRepository;
 
+    @Inject
+    BommelStatisticsEngine statisticsEngine;
+
     /**
      * Calculate organization-wide statistics.
      *
@@ -45,8 +43,7 @@ public class StatisticsService {
         }
 
         Bommel rootBommel = rootBommelOpt.get();
-        List<TreeSearchBommel> allBommels = bommelRepository.getChildrenRecursive(rootBommel);
-        int totalBommels = allBommels.size() + 1; // +1 for root
+        int totalBommels = (int) bommelRepository.countDescendants(rootBommel) + 1; // +1 for root
 
         // Get financial totals
         BigDecimal total = statisticsRepository.sumTotal(organizationId, includeDrafts);
@@ -78,14 +75,15 @@ public class StatisticsService {
         }
 
         if (aggregate) {
-            return calculateAggregatedStatistics(bommel, includeDrafts);
+            return statisticsEngine.computeSubtree(bommel, includeDrafts, true).get(bommel.id);
         } else {
             return calculateDirectStatistics(bommel, includeDrafts);
         }
     }
 
     /**
-     * Calculate statistics for all bommels in an organization.
+     * Calculate statistics for all bommels in an organization. Costs a constant number of queries regardless of the
+     * size of the tree, see {@link BommelStatisticsEngine}.
      *
      * @param organizationId
      *            the organization ID
@@ -102,25 +100,8 @@ public class StatisticsService {
             return new BommelStatisticsMap(Map.of(), includeDrafts, aggregate);
         }
 
-        Bommel rootBommel = rootBommelOpt.get();
-        List<TreeSearchBommel> allBommels = bommelRepository.getChildrenRecursive(rootBommel);
-
-        Map<Long, BommelStatistics> statisticsMap = new HashMap<>();
-
-        // Add root bommel statistics
-        BommelStatistics rootStats = aggregate
-                ? calculateAggregatedStatistics(rootBommel, includeDrafts)
-                : calculateDirectStatistics(rootBommel, includeDrafts);
-        statisticsMap.put(rootBommel.id, rootStats);
-
-        // Calculate statistics for all child bommels
-        for (TreeSearchBommel tsb : allBommels) {
-            Bommel bommel = tsb.bommel();
-            BommelStatistics stats = aggregate
-                    ? calculateAggregatedStatistics(bommel, includeDrafts)
-                    : calculateDirectStatistics(bommel, includeDrafts);
-            statisticsMap.put(bommel.id, stats);
-        }
+        Map<Long, BommelStatistics> statisticsMap = statisticsEngine.computeSubtree(rootBommelOpt.get(),
+                includeDrafts, aggregate);
 
         return new BommelStatisticsMap(statisticsMap, includeDrafts, aggregate);
     }
@@ -140,34 +121,4 @@ public class StatisticsService {
                 transactionsCount,
                 false);
     }
-
-    private BommelStatistics calculateAggregatedStatistics(Bommel bommel, boolean includeDrafts) {
-        // Get all child bommel IDs recursively
-        List<TreeSearchBommel> children = bommelRepository.getChildrenRecursive(bommel);
-        Set<Long> allBommelIds = children.stream()
-                .map(tsb -> tsb.bommel().id)
-                .collect(Collectors.toSet());
-        allBommelIds.add(bommel.id);
-
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpenses = BigDecimal.ZERO;
-        int totalTransactions = 0;
-
-        for (Long id : allBommelIds) {
-            totalAmount = totalAmount.add(statisticsRepository.sumTotalByBommel(id, includeDrafts));
-            totalIncome = totalIncome.add(statisticsRepository.sumIncomeByBommel(id, includeDrafts));
-            totalExpenses = totalExpenses.add(statisticsRepository.sumExpensesByBommel(id, includeDrafts));
-            totalTransactions += statisticsRepository.countTransactionsByBommel(id, includeDrafts);
-        }
-
-        return new BommelStatistics(
-                bommel.id,
-                bommel.getName(),
-                totalAmount,
-                totalIncome,
-                totalExpenses,
-                totalTransactions,
-                true);
-    }
 }
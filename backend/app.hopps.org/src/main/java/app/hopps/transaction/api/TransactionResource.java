@@ -5,6 +5,7 @@ import app.hopps.document.domain.Document;
 import app.hopps.document.domain.DocumentStatus;
 import app.hopps.document.domain.TradeParty;
 import app.hopps.organization.domain.Organization;
+import app.hopps.shared.repository.CursorPage;
 import app.hopps.shared.security.OrganizationContext;
 import app.hopps.transaction.api.dto.TransactionCreateRequest;
 import app.hopps.transaction.api.dto.TransactionResponse;
@@ -15,7 +16,6 @@ import app.hopps.transaction.domain.TransactionDeletedEvent;
 import app.hopps.transaction.domain.TransactionStatus;
 import app.hopps.transaction.repository.TransactionRepository;
 import io.quarkus.panache.common.Page;
-import io.quarkus.panache.common.Sort;
 import io.quarkus.security.Authenticated;
 import io.quarkus.security.identity.SecurityIdentity;
 import jakarta.enterprise.event.Event;
@@ -26,6 +26,8 @@ import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.headers.Header;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
@@ -78,8 +80,8 @@ public class TransactionResource {
 
     @GET
     @Operation(summary = "List all transactions", description = "Returns all transactions for the current organization with optional filters")
-    @APIResponse(responseCode = "200", description = "List of transactions", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = TransactionResponse[].class)))
-    public List<TransactionResponse> listTransactions(
+    @APIResponse(responseCode = "200", description = "List of transactions", content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = TransactionResponse[].class)), headers = @Header(name = CursorPage.NEXT_CURSOR_HEADER, description = "Cursor for the next page; absent on the last page", schema = @Schema(type = SchemaType.STRING)))
+    public Response listTransactions(
             @QueryParam("search") @Parameter(description = "Search in name and sender name") String search,
             @QueryParam("startDate") @Parameter(description = "Filter transactions from this date (ISO format: YYYY-MM-DD)") String startDate,
             @QueryParam("endDate") @Parameter(description = "Filter transactions until this date (ISO format: YYYY-MM-DD)") String endDate,
@@ -89,11 +91,11 @@ public class TransactionResource {
             @QueryParam("detached") @Parameter(description = "Filter unassigned transactions (no bommel)") Boolean detached,
             @QueryParam("sortBy") @DefaultValue("createdAt") @Parameter(description = "Field to sort by: createdAt, updatedAt, transactionTime or total") String sortBy,
             @QueryParam("sortDir") @DefaultValue("desc") @Parameter(description = "Sort direction: asc or desc") String sortDir,
+            @QueryParam("cursor") @Parameter(description = "Cursor from the X-Next-Cursor header of the previous page; when set, page is ignored") String cursor,
             @QueryParam("page") @DefaultValue("0") @Parameter(description = "Page index (0-based)") int pageIndex,
             @QueryParam("size") @DefaultValue("25") @Parameter(description = "Page size") int pageSize) {
 
         Page page = new Page(pageIndex, pageSize);
-        Sort sort = buildSort(sortBy, sortDir);
 
         // Parse dates
         Instant startInstant = null;
@@ -106,7 +108,7 @@ public class TransactionResource {
             endInstant = LocalDate.parse(endDate).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
         }
 
-        List<Transaction> transactions = transactionRepository.findFiltered(
+        CursorPage<Transaction> result = transactionRepository.findFiltered(
                 search,
                 startInstant,
                 endInstant,
@@ -114,31 +116,20 @@ public class TransactionResource {
                 status,
                 privatelyPaid,
                 detached,
-                sort,
+                sortBy,
+                "asc".equalsIgnoreCase(sortDir),
+                cursor,
                 page);
+        List<Transaction> transactions = result.items();
 
         // Batch the bank coverage for the whole page in a single grouped query (avoids N+1) so each row can show how
         // much of its amount still needs to be reconciled with bank movements.
         List<Long> ids = transactions.stream().map(Transaction::getId).toList();
         Map<Long, BigDecimal> covered = bankTransactionMatchService.getCoveredAmountsForTransactions(ids);
-        return transactions.stream()
+        List<TransactionResponse> body = transactions.stream()
                 .map(tx -> TransactionResponse.from(tx, covered.getOrDefault(tx.getId(), BigDecimal.ZERO)))
                 .toList();
-    }
-
-    /**
-     * Builds a Panache Sort from user input, whitelisting sortable columns to prevent invalid/unsafe JPQL.
-     */
-    private static Sort buildSort(String sortBy, String sortDir) {
-        String column = switch (sortBy == null ? "" : sortBy) {
-            case "updatedAt" -> "updatedAt";
-            case "transactionTime" -> "transactionTime";
-            case "total" -> "total";
-            default -> "createdAt";
-        };
-        Sort.Direction direction = "asc".equalsIgnoreCase(sortDir) ? Sort.Direction.Ascending
-                : Sort.Direction.Descending;
-        return Sort.by(column, direction);
+        return Response.ok(body).header(CursorPage.NEXT_CURSOR_HEADER, result.nextCursor()).build();
     }
 
     @GET
@@ -23,8 +23,20 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "transaction")
+@NamedEntityGraph(name = Transaction.LISTING_GRAPH, attributeNodes = {
+        @NamedAttributeNode("bommel"),
+        @NamedAttributeNode("document"),
+        @NamedAttributeNode("sender"),
+        @NamedAttributeNode("recipient") })
 public class Transaction extends PanacheEntity {
 
+    /**
+     * Fetch plan of the transaction listing: everything {@code TransactionResponse} reads, joined into the page query.
+     * The tags are a collection and would defeat the database-side page limit, so they are loaded separately (see
+     * {@code TransactionRepository#fetchTags}).
+     */
+    public static final String LISTING_GRAPH = "Transaction.listing";
+
     @ManyToOne(optional = false)
     @JoinColumn(name = "organization_id", nullable = false)
     private Organization organization;
@@ -98,6 +110,11 @@ public class Transaction extends PanacheEntity {
     @Column(name = "document_key")
     private String documentKey;
 
+    // Lower-cased name and counterparty names for the free-text search. Maintained by a database trigger (including
+    // trade-party renames); never written by the application.
+    @Column(name = "search_text", insertable = false, updatable = false)
+    private String searchText;
+
     // Set automatically by Hibernate on first insert; never updated afterwards.
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -1,5 +1,7 @@
 package app.hopps.transaction.repository;
 
+import app.hopps.shared.repository.CursorPage;
+import app.hopps.shared.repository.SeekCursor;
 import app.hopps.shared.security.OrganizationContext;
 import app.hopps.transaction.domain.Transaction;
 import app.hopps.transaction.domain.TransactionStatus;
@@ -19,6 +21,8 @@ import java.util.Map;
 @ApplicationScoped
 public class TransactionRepository implements PanacheRepository<Transaction> {
 
+    private static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
+
     @Inject
     OrganizationContext organizationContext;
 
@@ -95,8 +99,13 @@ public class TransactionRepository implements PanacheRepository<Transaction> {
     /**
      * Find transactions with dynamic filtering. Supports search, date range, bommel, category, document type, status,
      * and privatelyPaid filters.
+     * <p>
+     * Sorted by {@code sortBy} (createdAt, updatedAt, transactionTime or total; anything else means createdAt) with the
+     * id as tie-breaker. When a {@code cursor} from a previous page is given, the page starts right after it (keyset
+     * pagination, see {@link SeekCursor}) and {@code page.index} is ignored; otherwise the classic offset page is
+     * returned. Either way the result carries the cursor for the next page.
      */
-    public List<Transaction> findFiltered(
+    public CursorPage<Transaction> findFiltered(
             String search,
             Instant startDate,
             Instant endDate,
@@ -104,7 +113,9 @@ public class TransactionRepository implements PanacheRepository<Transaction> {
             TransactionStatus status,
             Boolean privatelyPaid,
             Boolean detached,
-            Sort sort,
+            String sortBy,
+            boolean ascending,
+            String cursor,
             Page page) {
 
         Long orgId = organizationContext.getCurrentOrganizationId();
@@ -117,12 +128,9 @@ public class TransactionRepository implements PanacheRepository<Transaction> {
         // Search filter: name and counterparty (sender/recipient) by text, plus the amount when the term is numeric —
         // so a bank amount can be pasted to find the matching transaction (mirrors the bank-transaction search).
         if (search != null && !search.isBlank()) {
-            // Match the counterparty name via an id-subquery on TradeParty instead of a path expression
-            // (sender.name / recipient.name), which would force INNER joins and drop every transaction that has only
-            // one side set (the other counterparty is always null) — making the whole search return nothing.
-            query.append(" and (LOWER(name) LIKE :search"
-                    + " OR sender.id IN (SELECT tp.id FROM TradeParty tp WHERE LOWER(tp.name) LIKE :search)"
-                    + " OR recipient.id IN (SELECT tp.id FROM TradeParty tp WHERE LOWER(tp.name) LIKE :search)");
+            // searchText is the lower-cased name plus both counterparty names, maintained by a database trigger and
+            // backed by a trigram index (see V1.0.23__trigram_search.sql), so the infix LIKE does not scan the org.
+            query.append(" and (searchText LIKE :search");
             params.put("search", "%" + search.toLowerCase() + "%");
             BigDecimal searchAmount = parseSearchAmount(search);
             if (searchAmount != null) {
@@ -162,9 +170,59 @@ public class TransactionRepository implements PanacheRepository<Transaction> {
             params.put("privatelyPaid", privatelyPaid);
         }
 
-        return find(query.toString(), sort != null ? sort : Sort.descending("createdAt"), params)
-                .page(page)
+        String column = sortColumn(sortBy);
+        List<SeekCursor.Key> keys = List.of(
+                "createdAt".equals(column) ? SeekCursor.Key.of(column, ascending)
+                        : SeekCursor.Key.nullable(column, ascending),
+                SeekCursor.Key.of("id", ascending));
+        String signature = "transactions:" + column + (ascending ? ":asc" : ":desc");
+        SeekCursor after = SeekCursor.decode(cursor, signature);
+        int first = page.index * page.size;
+        if (after != null) {
+            query.append(" and ").append(after.predicate(keys, params));
+            first = 0;
+        }
+
+        Sort.Direction direction = ascending ? Sort.Direction.Ascending : Sort.Direction.Descending;
+        List<Transaction> rows = find(query.toString(), Sort.by(column, direction).and("id", direction), params)
+                .withHint(FETCH_GRAPH_HINT, getEntityManager().getEntityGraph(Transaction.LISTING_GRAPH))
+                .range(first, first + page.size)
                 .list();
+        fetchTags(rows);
+        return SeekCursor.page(rows, page.size,
+                tx -> SeekCursor.after(signature, sortValue(tx, column), tx.getId()));
+    }
+
+    /**
+     * Initializes the tags of the given (managed) transactions with one query instead of one per transaction. The tags
+     * cannot be part of the listing graph: fetching a collection together with a page limit makes Hibernate paginate in
+     * memory.
+     */
+    private void fetchTags(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        List<Long> ids = transactions.stream().map(Transaction::getId).toList();
+        find("SELECT DISTINCT t FROM Transaction t LEFT JOIN FETCH t.tags WHERE t.id IN ?1", ids).list();
+    }
+
+    /** Whitelists the sortable columns to prevent invalid/unsafe JPQL; anything else falls back to createdAt. */
+    private static String sortColumn(String sortBy) {
+        return switch (sortBy == null ? "" : sortBy) {
+            case "updatedAt" -> "updatedAt";
+            case "transactionTime" -> "transactionTime";
+            case "total" -> "total";
+            default -> "createdAt";
+        };
+    }
+
+    private static Object sortValue(Transaction tx, String column) {
+        return switch (column) {
+            case "updatedAt" -> tx.getUpdatedAt();
+            case "transactionTime" -> tx.getTransactionTime();
+            case "total" -> tx.getTotal();
+            default -> tx.getCreatedAt();
+        };
     }
 
     /**
@@ -200,12 +258,9 @@ public class TransactionRepository implements PanacheRepository<Transaction> {
         params.put("orgId", orgId);
 
         if (search != null && !search.isBlank()) {
-            // Match the counterparty name via an id-subquery on TradeParty instead of a path expression
-            // (sender.name / recipient.name), which would force INNER joins and drop every transaction that has only
-            // one side set (the other counterparty is always null) — making the whole search return nothing.
-            query.append(" and (LOWER(name) LIKE :search"
-                    + " OR sender.id IN (SELECT tp.id FROM TradeParty tp WHERE LOWER(tp.name) LIKE :search)"
-                    + " OR recipient.id IN (SELECT tp.id FROM TradeParty tp WHERE LOWER(tp.name) LIKE :search)");
+            // searchText is the lower-cased name plus both counterparty names, maintained by a database trigger and
+            // backed by a trigram index (see V1.0.23__trigram_search.sql), so the infix LIKE does not scan the org.
+            query.append(" and (searchText LIKE :search");
             params.put("search", "%" + search.toLowerCase() + "%");
             BigDecimal searchAmount = parseSearchAmount(search);
             if (searchAmount != null) {
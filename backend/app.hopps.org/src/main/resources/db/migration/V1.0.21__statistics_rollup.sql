@@ -0,0 +1,119 @@
+-- Materialized statistics rollup: per organization, bommel, status and month the signed total, income, expenses and
+-- number of transactions. The /statistics endpoints read these pre-aggregated rows instead of scanning the whole
+-- transaction history.
+--
+-- The rollup is maintained incrementally by a row trigger on transaction, so every write path (JPA, bulk JPQL updates
+-- such as unlinking transactions from a deleted bommel, native test-data inserts) keeps it in sync within the same
+-- database transaction. StatisticsRollupService can rebuild it from scratch for repair.
+--
+-- Every write takes a shared advisory lock on its organization's rollup (statistics_rollup_lock) until it commits;
+-- StatisticsRollupService.rebuild takes it exclusively, so a rebuild waits for in-flight writes of the organization and
+-- blocks new ones until it has committed. The lock key is (21, organization id), 21 being this migration's number.
+--
+-- bommel_id is NULL for transactions without a bommel; those rows still count towards the organization totals. month
+-- is the first day of the booking month (transaction_time, falling back to created_at).
+create table statistics_rollup (
+    organization_id    bigint         not null references organization on delete cascade,
+    bommel_id          bigint         references bommel on delete cascade,
+    status             varchar(255)   not null,
+    month              date           not null,
+    total              numeric(38, 2) not null default 0,
+    income             numeric(38, 2) not null default 0,
+    expenses           numeric(38, 2) not null default 0,
+    transactions_count bigint         not null default 0
+);
+
+create unique index uq_statistics_rollup_key
+    on statistics_rollup (organization_id, coalesce(bommel_id, 0), status, month);
+create index ix_statistics_rollup_bommel on statistics_rollup (bommel_id, status);
+
+-- Adds (sign = 1) or removes (sign = -1) a single transaction's contribution to its rollup cell.
+create function statistics_rollup_apply(p_organization_id bigint, p_bommel_id bigint, p_status varchar,
+                                        p_month date, p_total numeric, p_sign integer) returns void as
+$$
+begin
+    insert into statistics_rollup as r (organization_id, bommel_id, status, month, total, income, expenses,
+                                        transactions_count)
+    values (p_organization_id, p_bommel_id, p_status, p_month,
+            p_sign * coalesce(p_total, 0),
+            p_sign * greatest(coalesce(p_total, 0), 0),
+            p_sign * abs(least(coalesce(p_total, 0), 0)),
+            p_sign)
+    on conflict (organization_id, coalesce(bommel_id, 0), status, month) do update
+        set total              = r.total + excluded.total,
+            income             = r.income + excluded.income,
+            expenses           = r.expenses + excluded.expenses,
+            transactions_count = r.transactions_count + excluded.transactions_count;
+
+    if p_sign < 0 then
+        delete
+        from statistics_rollup r
+        where r.organization_id = p_organization_id
+          and coalesce(r.bommel_id, 0) = coalesce(p_bommel_id, 0)
+          and r.status = p_status
+          and r.month = p_month
+          and r.transactions_count <= 0;
+    end if;
+end;
+$$ language plpgsql;
+
+create function statistics_rollup_month(p_transaction_time timestamptz, p_created_at timestamptz) returns date as
+$$
+select date_trunc('month', coalesce(p_transaction_time, p_created_at) at time zone 'UTC')::date;
+$$ language sql immutable;
+
+create function statistics_rollup_lock(p_organization_id bigint) returns void as
+$$
+select pg_advisory_xact_lock_shared(21, cast(mod(p_organization_id, 2147483647) as integer));
+$$ language sql;
+
+create function statistics_rollup_trigger() returns trigger as
+$$
+begin
+    if tg_op = 'UPDATE'
+        and old.organization_id is not distinct from new.organization_id
+        and old.bommel_id is not distinct from new.bommel_id
+        and old.status is not distinct from new.status
+        and old.total is not distinct from new.total
+        and statistics_rollup_month(old.transaction_time, old.created_at)
+            = statistics_rollup_month(new.transaction_time, new.created_at) then
+        return null;
+    end if;
+
+    if tg_op in ('UPDATE', 'DELETE') then
+        perform statistics_rollup_lock(old.organization_id);
+        perform statistics_rollup_apply(old.organization_id, old.bommel_id, coalesce(old.status, 'DRAFT'),
+                                        statistics_rollup_month(old.transaction_time, old.created_at),
+                                        old.total, -1);
+    end if;
+
+    if tg_op in ('INSERT', 'UPDATE') then
+        perform statistics_rollup_lock(new.organization_id);
+        perform statistics_rollup_apply(new.organization_id, new.bommel_id, coalesce(new.status, 'DRAFT'),
+                                        statistics_rollup_month(new.transaction_time, new.created_at),
+                                        new.total, 1);
+    end if;
+
+    return null;
+end;
+$$ language plpgsql;
+
+create trigger trg_transaction_statistics_rollup
+    after insert or update or delete
+    on transaction
+    for each row
+execute function statistics_rollup_trigger();
+
+-- Backfill from the existing transactions.
+insert into statistics_rollup (organization_id, bommel_id, status, month, total, income, expenses,
+                               transactions_count)
+select organization_id,
+       bommel_id,
+       coalesce(status, 'DRAFT'),
+       statistics_rollup_month(transaction_time, created_at),
+       coalesce(sum(total), 0),
+       coalesce(sum(case when total > 0 then total else 0 end), 0),
+       coalesce(sum(case when total < 0 then abs(total) else 0 end), 0),
+       count(*)
+from transaction
+group by organization_id, bommel_id, coalesce(status, 'DRAFT'), statistics_rollup_month(transaction_time, created_at);
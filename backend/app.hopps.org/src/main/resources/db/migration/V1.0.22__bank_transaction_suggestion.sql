@@ -0,0 +1,19 @@
+-- Match suggestions for unmatched bank transactions: the open bookkeeping transactions that the suggestion engine
+-- ranked as likely counterparts, with their score and the reasons (amount, counterparty, IBAN, reference, date). They
+-- are recomputed per bank transaction after every import and on request; accepting one creates a BankTransactionMatch.
+create table BankTransactionSuggestion (
+    id bigint not null,
+    bankTransaction_id bigint not null,
+    transaction_id bigint not null,
+    score double precision not null,
+    reasons varchar(255) not null,
+    createdAt timestamp(6) with time zone not null default now(),
+    primary key (id),
+    constraint UQ_banktxsuggestion_pair unique (bankTransaction_id, transaction_id),
+    constraint FK_banktxsuggestion_banktx foreign key (bankTransaction_id) references BankTransaction on delete cascade,
+    constraint FK_banktxsuggestion_transaction foreign key (transaction_id) references Transaction on delete cascade
+);
+
+create sequence BankTransactionSuggestion_SEQ start with 1 increment by 50;
+
+create index IX_banktxsuggestion_transaction on BankTransactionSuggestion(transaction_id);
@@ -0,0 +1,72 @@
+-- Trigram search for the transaction and bank-transaction listings.
+--
+-- The free-text search used to run LOWER(col) LIKE '%term%' over several columns plus id-subqueries on trade_party.
+-- A leading wildcard cannot use a B-tree index, so every search scanned the organization's whole history. Each table
+-- now carries one lower-cased search column that combines everything the search looks at, with a pg_trgm GIN index
+-- that serves LIKE '%term%' directly (for terms of three or more characters).
+create extension if not exists pg_trgm;
+
+-- Bank transactions: purpose and counterparty name live on the row itself, so a generated column keeps the search
+-- text in sync on every write.
+alter table BankTransaction
+    add column searchText text generated always as (lower(coalesce(purpose, '') || ' ' || coalesce(counterpartyName, ''))) stored;
+
+create index IX_banktx_search on BankTransaction using gin (searchText gin_trgm_ops);
+
+-- The numeric search (a pasted amount) is OR-ed with the text search; indexing both amount forms lets the planner
+-- combine the indexes instead of falling back to a scan.
+create index IX_banktx_org_abs_amount on BankTransaction (organization_id, abs(amount));
+create index IX_banktx_org_abs_open on BankTransaction (organization_id, abs(amount - matchedAmount));
+
+-- Transactions: the counterparty names are on trade_party, which a generated column cannot reference. A trigger fills
+-- search_text from the transaction name and both trade parties on insert and update, and a second trigger refreshes
+-- it when a trade party is renamed. This covers every write path, including native inserts.
+alter table transaction
+    add column search_text text;
+
+create function transaction_search_text(p_name varchar, p_sender_id bigint, p_recipient_id bigint) returns text as
+$$
+select lower(concat_ws(' ', p_name,
+                       (select tp.name from trade_party tp where tp.id = p_sender_id),
+                       (select tp.name from trade_party tp where tp.id = p_recipient_id)));
+$$ language sql stable;
+
+create function transaction_search_text_trigger() returns trigger as
+$$
+begin
+    new.search_text := transaction_search_text(new.name, new.sender_id, new.recipient_id);
+    return new;
+end;
+$$ language plpgsql;
+
+create trigger transaction_search_text
+    before insert or update of name, sender_id, recipient_id
+    on transaction
+    for each row
+execute function transaction_search_text_trigger();
+
+create function trade_party_search_text_trigger() returns trigger as
+$$
+begin
+    update transaction t
+    set search_text = transaction_search_text(t.name, t.sender_id, t.recipient_id)
+    where t.sender_id = new.id
+       or t.recipient_id = new.id;
+    return null;
+end;
+$$ language plpgsql;
+
+create trigger trade_party_search_text
+    after update of name
+    on trade_party
+    for each row
+    when (old.name is distinct from new.name)
+execute function trade_party_search_text_trigger();
+
+update transaction t
+set search_text = transaction_search_text(t.name, t.sender_id, t.recipient_id);
+
+create index ix_transaction_search on transaction using gin (search_text gin_trgm_ops);
+create index ix_transaction_org_abs_total on transaction (organization_id, abs(total));
+create index ix_transaction_sender on transaction (sender_id);
+create index ix_transaction_recipient on transaction (recipient_id);
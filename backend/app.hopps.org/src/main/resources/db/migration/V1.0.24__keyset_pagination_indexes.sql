@@ -0,0 +1,25 @@
+-- Composite indexes for keyset pagination of the transaction, bank-transaction and document listings.
+--
+-- Each listing sorts by one column with the id as tie-breaker in the same direction and pages with a
+-- "(column, id) after (last column, last id)" predicate (SeekCursor). With an (organization, column, id) index
+-- PostgreSQL reads each page straight from the index, in either direction, instead of sorting the whole organization
+-- and discarding the preceding pages.
+
+-- Transactions: sortable by created_at (default), transaction_time, updated_at and total.
+create index ix_transaction_org_created on transaction (organization_id, created_at, id);
+create index ix_transaction_org_time on transaction (organization_id, transaction_time, id);
+create index ix_transaction_org_updated on transaction (organization_id, updated_at, id);
+create index ix_transaction_org_total on transaction (organization_id, total, id);
+
+-- Bank transactions: sortable by bookingDate (default), amount and counterpartyName, across all accounts or for one.
+-- The (…, bookingDate desc) indexes are superseded by the new ones, which also carry the id.
+drop index IX_banktx_org_date;
+drop index IX_banktx_account_date;
+create index IX_banktx_org_date on BankTransaction (organization_id, bookingDate, id);
+create index IX_banktx_org_amount on BankTransaction (organization_id, amount, id);
+create index IX_banktx_org_counterparty on BankTransaction (organization_id, counterpartyName, id);
+create index IX_banktx_account_date on BankTransaction (bankAccount_id, bookingDate, id);
+
+-- Documents: newest upload first, or latest transaction date first within a bommel.
+create index ix_document_org_created on document (organization_id, createdat, id);
+create index ix_document_bommel_time on document (bommel_id, transactiontime, id);
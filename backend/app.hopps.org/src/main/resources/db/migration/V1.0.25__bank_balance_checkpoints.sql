@@ -0,0 +1,120 @@
+-- Monthly balance checkpoints: per bank account and booking month the sum of the amounts and the number of bank
+-- transactions. The account balance is the opening balance plus the checkpoints after the opening month plus the few
+-- transactions of the opening month itself, so the accounts page no longer sums the whole history of every account.
+--
+-- The checkpoints are maintained by statement-level triggers with transition tables: an import inserts its rows in
+-- multi-row batches, and each batch updates every touched month once instead of once per row. Updates that change
+-- neither amount, booking date nor account (e.g. status and matched amount while matching) net out to nothing and
+-- write no row. BankBalanceService can rebuild the checkpoints from scratch for repair.
+--
+-- Every write takes a shared advisory lock on the organizations of its rows (bank_balance_lock) until it commits;
+-- BankBalanceService.rebuild takes it exclusively, so a rebuild waits for in-flight imports of the organization and
+-- blocks new ones until it has committed. The lock key is (25, organization id), 25 being this migration's number.
+create table BankBalanceCheckpoint (
+    bankAccount_id   bigint         not null,
+    month            date           not null,
+    amount           numeric(38, 2) not null default 0,
+    transactionCount bigint         not null default 0,
+    primary key (bankAccount_id, month),
+    constraint FK_bankbalance_bankaccount foreign key (bankAccount_id) references BankAccount on delete cascade
+);
+
+create function bank_balance_lock(p_organization_id bigint) returns void as
+$$
+select pg_advisory_xact_lock_shared(25, cast(mod(p_organization_id, 2147483647) as integer));
+$$ language sql;
+
+-- Transition tables are only visible inside the trigger function itself, so each function groups its rows and upserts
+-- the deltas directly.
+create function bank_balance_checkpoint_insert_trigger() returns trigger as
+$$
+begin
+    perform bank_balance_lock(organization_id) from (select distinct organization_id from new_rows) o;
+
+    insert into BankBalanceCheckpoint as c (bankAccount_id, month, amount, transactionCount)
+    select bankAccount_id, date_trunc('month', bookingDate)::date, sum(amount), count(*)
+    from new_rows
+    group by 1, 2
+    on conflict (bankAccount_id, month) do update
+        set amount           = c.amount + excluded.amount,
+            transactionCount = c.transactionCount + excluded.transactionCount;
+    return null;
+end;
+$$ language plpgsql;
+
+create function bank_balance_checkpoint_delete_trigger() returns trigger as
+$$
+begin
+    perform bank_balance_lock(organization_id) from (select distinct organization_id from old_rows) o;
+
+    update BankBalanceCheckpoint c
+    set amount           = c.amount - d.amount,
+        transactionCount = c.transactionCount - d.transactionCount
+    from (select bankAccount_id, date_trunc('month', bookingDate)::date as month, sum(amount) as amount,
+                 count(*) as transactionCount
+          from old_rows
+          group by 1, 2) d
+    where c.bankAccount_id = d.bankAccount_id
+      and c.month = d.month;
+
+    delete
+    from BankBalanceCheckpoint
+    where transactionCount <= 0
+      and bankAccount_id in (select bankAccount_id from old_rows);
+    return null;
+end;
+$$ language plpgsql;
+
+create function bank_balance_checkpoint_update_trigger() returns trigger as
+$$
+begin
+    perform bank_balance_lock(organization_id)
+    from (select organization_id from new_rows union select organization_id from old_rows) o;
+
+    insert into BankBalanceCheckpoint as c (bankAccount_id, month, amount, transactionCount)
+    select bankAccount_id, month, sum(amount), sum(transactionCount)
+    from (select bankAccount_id, date_trunc('month', bookingDate)::date as month, amount, 1 as transactionCount
+          from new_rows
+          union all
+          select bankAccount_id, date_trunc('month', bookingDate)::date, -amount, -1
+          from old_rows) r
+    group by bankAccount_id, month
+    having sum(amount) <> 0 or sum(transactionCount) <> 0
+    on conflict (bankAccount_id, month) do update
+        set amount           = c.amount + excluded.amount,
+            transactionCount = c.transactionCount + excluded.transactionCount;
+
+    delete
+    from BankBalanceCheckpoint
+    where transactionCount <= 0
+      and bankAccount_id in (select bankAccount_id from old_rows);
+    return null;
+end;
+$$ language plpgsql;
+
+create trigger trg_banktx_balance_insert
+    after insert
+    on BankTransaction
+    referencing new table as new_rows
+    for each statement
+execute function bank_balance_checkpoint_insert_trigger();
+
+create trigger trg_banktx_balance_delete
+    after delete
+    on BankTransaction
+    referencing old table as old_rows
+    for each statement
+execute function bank_balance_checkpoint_delete_trigger();
+
+create trigger trg_banktx_balance_update
+    after update
+    on BankTransaction
+    referencing old table as old_rows new table as new_rows
+    for each statement
+execute function bank_balance_checkpoint_update_trigger();
+
+-- Backfill from the existing bank transactions.
+insert into BankBalanceCheckpoint (bankAccount_id, month, amount, transactionCount)
+select bankAccount_id, date_trunc('month', bookingDate)::date, sum(amount), count(*)
+from BankTransaction
+group by bankAccount_id, date_trunc('month', bookingDate)::date;
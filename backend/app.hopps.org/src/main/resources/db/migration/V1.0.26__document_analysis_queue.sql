@@ -0,0 +1,26 @@
+-- Durable queue for document analysis. A document has at most one job; the row exists while the analysis is waiting
+-- (QUEUED) or running (PROCESSING) and is deleted once it finished, the outcome lives on the document itself.
+--
+-- Workers claim the highest priority first (interactive uploads and re-analysis before a bulk backlog) with
+-- FOR UPDATE SKIP LOCKED, so several app replicas can share the queue. A PROCESSING job whose startedAt is older than
+-- the lease is presumed dead and queued again, or given up after too many attempts.
+create table document_analysis_job (
+    document_id bigint                      not null primary key references document on delete cascade,
+    priority    integer                     not null default 0,
+    status      varchar(20)                 not null default 'QUEUED' check (status in ('QUEUED', 'PROCESSING')),
+    queuedat    timestamp(6) with time zone not null default now(),
+    startedat   timestamp(6) with time zone,
+    attempts    integer                     not null default 0,
+    -- Set when the document is queued again while it is being analyzed; the job then runs once more.
+    rerun       boolean                     not null default false
+);
+
+create index ix_document_analysis_job_claim on document_analysis_job (priority desc, queuedat, document_id)
+    where status = 'QUEUED';
+
+-- Documents whose fire-and-forget analysis was lost (e.g. by a restart) are queued now.
+insert into document_analysis_job (document_id)
+select id
+from document
+where analysisstatus in ('PENDING', 'ANALYZING')
+  and filekey is not null;
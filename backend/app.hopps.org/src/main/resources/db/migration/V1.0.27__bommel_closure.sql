@@ -0,0 +1,114 @@
+-- Closure table of the bommel tree: one row per (ancestor, descendant) pair with the distance between them (1 for a
+-- direct child). Subtree and lineage lookups (BommelRepository.getChildrenRecursive/getParents, the cycle check of
+-- moves, subtree statistics) become single indexed queries or plain joins instead of recursive CTEs.
+--
+-- Bommels are not their own ancestors, so a row with ancestor_id = descendant_id only exists if the parent links form
+-- a cycle. The repository treats such a row as a cycle mark. Moves through BommelRepository never create cycles; the
+-- marks exist to detect writes that bypass it.
+--
+-- Like the statistics rollup (V1.0.21), the table is maintained by a row trigger on bommel, so every write path keeps
+-- it in sync within the same database transaction. Rows of deleted bommels go away with the foreign keys.
+--
+-- Tree writes of one organization are serialized: every parent change takes the advisory lock (27, root bommel id) of
+-- its tree (bommel_tree_lock) until it commits, 27 being this migration's number. Without it, two concurrent moves under
+-- READ COMMITTED each compute their closure rows from a state the other one is changing. BommelRepository takes the same
+-- lock before its cycle and subtree checks.
+create table bommel_closure (
+    ancestor_id   bigint  not null references bommel on delete cascade,
+    descendant_id bigint  not null references bommel on delete cascade,
+    depth         integer not null,
+    primary key (ancestor_id, descendant_id)
+);
+
+create index ix_bommel_closure_descendant on bommel_closure (descendant_id, depth);
+
+-- Links p_child (with its whole subtree) below p_parent: every ancestor of p_parent, and p_parent itself, becomes an
+-- ancestor of p_child and of all its descendants.
+create function bommel_closure_link(p_child bigint, p_parent bigint) returns void as
+$$
+begin
+    insert into bommel_closure as c (ancestor_id, descendant_id, depth)
+    select a.ancestor_id, d.descendant_id, min(a.depth + d.depth + 1)
+    from (select p_parent as ancestor_id, 0 as depth
+          union all
+          select ancestor_id, depth from bommel_closure where descendant_id = p_parent) a
+             cross join
+         (select p_child as descendant_id, 0 as depth
+          union all
+          select descendant_id, depth from bommel_closure where ancestor_id = p_child) d
+    group by a.ancestor_id, d.descendant_id
+    on conflict (ancestor_id, descendant_id) do update set depth = least(c.depth, excluded.depth);
+end;
+$$ language plpgsql;
+
+-- Detaches p_child (with its whole subtree) from its current ancestors. Pairs within the subtree are kept.
+create function bommel_closure_unlink(p_child bigint) returns void as
+$$
+begin
+    delete
+    from bommel_closure c
+    where c.ancestor_id in (select ancestor_id from bommel_closure where descendant_id = p_child)
+      and c.ancestor_id <> p_child
+      and c.ancestor_id not in (select descendant_id from bommel_closure where ancestor_id = p_child)
+      and (c.descendant_id = p_child
+        or c.descendant_id in (select descendant_id from bommel_closure where ancestor_id = p_child));
+end;
+$$ language plpgsql;
+
+-- Locks the tree p_bommel belongs to until the transaction ends. Its root is the farthest ancestor, or p_bommel itself;
+-- every committed state of the closure table agrees on it, as bommels never move to another tree.
+create function bommel_tree_lock(p_bommel bigint) returns void as
+$$
+select pg_advisory_xact_lock(27, cast(mod(coalesce((select ancestor_id
+                                                     from bommel_closure
+                                                     where descendant_id = p_bommel
+                                                     order by depth desc
+                                                     limit 1), p_bommel), 2147483647) as integer));
+$$ language sql;
+
+create function bommel_closure_trigger() returns trigger as
+$$
+begin
+    if tg_op = 'UPDATE' then
+        if old.parent_id is not distinct from new.parent_id then
+            return null;
+        end if;
+        perform bommel_tree_lock(coalesce(new.parent_id, old.parent_id));
+        if old.parent_id is not null then
+            perform bommel_closure_unlink(new.id);
+        end if;
+    elsif new.parent_id is not null then
+        perform bommel_tree_lock(new.parent_id);
+    end if;
+
+    if new.parent_id is not null then
+        perform bommel_closure_link(new.id, new.parent_id);
+    end if;
+
+    return null;
+end;
+$$ language plpgsql;
+
+create trigger trg_bommel_closure
+    after insert or update of parent_id
+    on bommel
+    for each row
+execute function bommel_closure_trigger();
+
+-- Backfill from the existing parent links.
+insert into bommel_closure (ancestor_id, descendant_id, depth)
+with recursive paths (ancestor_id, descendant_id, depth) as (
+    select parent_id, id, 1
+    from bommel
+    where parent_id is not null
+
+    union all
+
+    select b.parent_id, p.descendant_id, p.depth + 1
+    from paths p
+             join bommel b on b.id = p.ancestor_id
+    where b.parent_id is not null
+) cycle ancestor_id set is_cycle using path
+select ancestor_id, descendant_id, min(depth)
+from paths
+group by ancestor_id, descendant_id;
@@ -0,0 +1,5 @@
+-- The node that claimed a PROCESSING job. A node that restarts queues the jobs it was running again right away instead
+-- of waiting for their lease to expire. Together with startedAt, which is set to the claim time, it also fences the
+-- completion of a job: a worker whose lease expired and whose job was claimed again cannot finish the new claim.
+alter table document_analysis_job
+    add column claimedby varchar(255);
@@ -0,0 +1,192 @@
+package app.hopps.bankimport.parser;
+
+import app.hopps.bankimport.parser.CamtParser.CamtEntry;
+import app.hopps.bankimport.parser.CamtParser.ParsedCamtTransaction;
+import app.hopps.bankimport.parser.Mt940Parser.ParsedMt940Transaction;
+import app.hopps.bankimport.service.DedupeHashService;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CamtParserTest {
+
+    private static final String CAMT_053_V02 = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <Document xmlns="urn:iso:std:iso:20022:tech:xsd:camt.053.001.02">
+              <BkToCstmrStmt>
+                <Stmt>
+                  <Id>1</Id>
+                  <Bal>
+                    <Tp><CdOrPrtry><Cd>PRCD</Cd></CdOrPrtry></Tp>
+                    <Amt Ccy="EUR">100.00</Amt><CdtDbtInd>CRDT</CdtDbtInd>
+                  </Bal>
+                  <Bal>
+                    <Tp><CdOrPrtry><Cd>CLBD</Cd></CdOrPrtry></Tp>
+                    <Amt Ccy="EUR">140.01</Amt><CdtDbtInd>CRDT</CdtDbtInd>
+                  </Bal>
+                  <Ntry>
+                    <Amt Ccy="EUR">59.99</Amt>
+                    <CdtDbtInd>DBIT</CdtDbtInd>
+                    <Sts>BOOK</Sts>
+                    <BookgDt><Dt>2025-06-02</Dt></BookgDt>
+                    <ValDt><Dt>2025-06-03</Dt></ValDt>
+                    <AcctSvcrRef>REF-1</AcctSvcrRef>
+                    <AddtlNtryInf>FOLGELASTSCHRIFT</AddtlNtryInf>
+                    <NtryDtls><TxDtls>
+                      <Refs><EndToEndId>E2E-1</EndToEndId><MndtId>M-42</MndtId></Refs>
+                      <RltdPties>
+                        <Dbtr><Nm>Hopps e.V.</Nm></Dbtr>
+                        <Cdtr><Nm>Stadtwerke</Nm><Id><PrvtId><Othr><Id>DE98ZZZ09999999999</Id></Othr></PrvtId></Id></Cdtr>
+                        <CdtrAcct><Id><IBAN>DE89370400440532013000</IBAN></Id></CdtrAcct>
+                      </RltdPties>
+                      <RltdAgts><CdtrAgt><FinInstnId><BIC>COBADEFFXXX</BIC></FinInstnId></CdtrAgt></RltdAgts>
+                      <RmtInf><Ustrd>Abschlag Juni </Ustrd><Ustrd>Kundennr 4711</Ustrd></RmtInf>
+                    </TxDtls></NtryDtls>
+                  </Ntry>
+                  <Ntry>
+                    <Amt Ccy="EUR">100.00</Amt>
+                    <CdtDbtInd>CRDT</CdtDbtInd>
+                    <Sts>PDNG</Sts>
+                    <BookgDt><Dt>2025-06-04</Dt></BookgDt>
+                  </Ntry>
+                  <Ntry>
+                    <Amt Ccy="EUR">abc</Amt>
+                    <CdtDbtInd>CRDT</CdtDbtInd>
+                    <Sts>BOOK</Sts>
+                    <BookgDt><Dt>2025-06-05</Dt></BookgDt>
+                  </Ntry>
+                </Stmt>
+              </BkToCstmrStmt>
+            </Document>
+            """;
+
+    private static final String CAMT_052_V08 = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <Document xmlns="urn:iso:std:iso:20022:tech:xsd:camt.052.001.08">
+              <BkToCstmrAcctRpt>
+                <Rpt>
+                  <Ntry>
+                    <Amt Ccy="EUR">25.00</Amt>
+                    <CdtDbtInd>CRDT</CdtDbtInd>
+                    <Sts><Cd>BOOK</Cd></Sts>
+                    <BookgDt><DtTm>2025-06-02T09:33:00+02:00</DtTm></BookgDt>
+                    <NtryDtls>
+                      <TxDtls>
+                        <Refs><EndToEndId>NOTPROVIDED</EndToEndId></Refs>
+                        <RltdPties>
+                          <Dbtr><Pty><Nm>Erika Mustermann</Nm></Pty></Dbtr>
+                          <DbtrAcct><Id><IBAN>DE02120300000000202051</IBAN></Id></DbtrAcct>
+                        </RltdPties>
+                        <RltdAgts><DbtrAgt><FinInstnId><BICFI>BYLADEM1001</BICFI></FinInstnId></DbtrAgt></RltdAgts>
+                        <RmtInf><Ustrd>Mitgliedsbeitrag</Ustrd></RmtInf>
+                      </TxDtls>
+                      <TxDtls>
+                        <RltdPties><Dbtr><Pty><Nm>Someone Else</Nm></Pty></Dbtr></RltdPties>
+                      </TxDtls>
+                    </NtryDtls>
+                  </Ntry>
+                </Rpt>
+              </BkToCstmrAcctRpt>
+            </Document>
+            """;
+
+    @Test
+    void detectsCamtNamespaces() {
+        assertTrue(CamtParser.isCamt(CAMT_053_V02.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(CamtParser.isCamt(CAMT_052_V08.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(CamtParser.isCamt(":20:STARTUMS\n:25:10050000/12345678\n".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void mapsBookedCamt053Entry() {
+        List<CamtEntry> entries = entries(CAMT_053_V02);
+
+        // The pending entry is skipped, the malformed one is still returned so it can be reported.
+        assertEquals(2, entries.size());
+        ParsedCamtTransaction tx = CamtParser.toTransaction(entries.get(0));
+        assertEquals(LocalDate.of(2025, 6, 2), tx.bookingDate());
+        assertEquals(LocalDate.of(2025, 6, 3), tx.valueDate());
+        assertEquals(new BigDecimal("-59.99"), tx.amount());
+        assertEquals("EUR", tx.currency());
+        assertEquals("FOLGELASTSCHRIFT", tx.transactionType());
+        assertEquals("Abschlag Juni Kundennr 4711", tx.purpose());
+        assertEquals("Stadtwerke", tx.counterpartyName());
+        assertEquals("DE89370400440532013000", tx.counterpartyIban());
+        assertEquals("COBADEFFXXX", tx.counterpartyBic());
+        assertEquals("REF-1", tx.bankReference());
+        assertEquals("E2E-1", tx.endToEndReference());
+        assertEquals("M-42", tx.mandateReference());
+        assertEquals("DE98ZZZ09999999999", tx.creditorId());
+        assertEquals(new BigDecimal("140.01"), tx.balanceAfter());
+    }
+
+    @Test
+    void malformedEntryFailsOnItsOwn() {
+        List<CamtEntry> entries = entries(CAMT_053_V02);
+
+        assertEquals(3, entries.get(1).index());
+        assertThrows(IllegalArgumentException.class, () -> CamtParser.toTransaction(entries.get(1)));
+    }
+
+    @Test
+    void normalisesVersion08AndUsesFirstTransactionDetails() {
+        List<CamtEntry> entries = entries(CAMT_052_V08);
+
+        assertEquals(1, entries.size());
+        ParsedCamtTransaction tx = CamtParser.toTransaction(entries.get(0));
+        assertEquals(LocalDate.of(2025, 6, 2), tx.bookingDate());
+        assertEquals(new BigDecimal("25.00"), tx.amount());
+        assertEquals("Erika Mustermann", tx.counterpartyName());
+        assertEquals("DE02120300000000202051", tx.counterpartyIban());
+        assertEquals("BYLADEM1001", tx.counterpartyBic());
+        assertEquals("NOTPROVIDED", tx.endToEndReference());
+        assertNull(tx.balanceAfter());
+    }
+
+    @Test
+    void malformedXmlIsRejected() {
+        String broken = CAMT_052_V08.substring(0, CAMT_052_V08.indexOf("</Ntry>"));
+        assertThrows(IllegalArgumentException.class, () -> entries(broken));
+    }
+
+    @Test
+    void sameBookingHashesLikeMt940() {
+        String mt940 = """
+                :20:STARTUMS
+                :25:10050000/12345678
+                :28C:00001/001
+                :60F:C250602EUR100,00
+                :61:2506020602CR25,00NTRFNONREF
+                :86:166?00GUTSCHRIFT?20EREF+NOTPROVIDED?21SVWZ+Mitgliedsbeitrag?31DE02120300000000202051?32Erika Mustermann
+                :62F:C250602EUR125,00
+                -
+                """;
+        ParsedMt940Transaction fromMt940 = Mt940Parser.parse(mt940).get(0);
+        ParsedCamtTransaction fromCamt = CamtParser.toTransaction(entries(CAMT_052_V08).get(0));
+
+        DedupeHashService hashes = new DedupeHashService();
+        assertEquals(
+                hashes.computeHash(fromMt940.bookingDate(), fromMt940.amount(), fromMt940.counterpartyIban(),
+                        fromMt940.endToEndReference(), fromMt940.purpose()),
+                hashes.computeHash(fromCamt.bookingDate(), fromCamt.amount(), fromCamt.counterpartyIban(),
+                        fromCamt.endToEndReference(), fromCamt.purpose()));
+    }
+
+    private static List<CamtEntry> entries(String xml) {
+        try (Stream<CamtEntry> entries = CamtParser
+                .stream(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))) {
+            return entries.toList();
+        }
+    }
+}
@@ -4,6 +4,15 @@ import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -113,6 +122,13 @@ class DateAmountParserTest {
         assertEquals(new BigDecimal("42.00"), amount);
     }
 
+    @Test
+    void nonBreakingSpaceGroupingOnFastPath() {
+        assertEquals(new BigDecimal("1234567.89"),
+                DateAmountParser.parsePlainAmount("1\u00A0234\u00A0567,89", ',', null));
+        assertEquals(new BigDecimal("-5000.00"), DateAmountParser.parsePlainAmount("-5\u00A0000,00", ',', '.'));
+    }
+
     @Test
     void nullAmountThrows() {
         assertThrows(IllegalArgumentException.class,
@@ -130,4 +146,127 @@ class DateAmountParserTest {
         assertThrows(IllegalArgumentException.class,
                 () -> DateAmountParser.parseAmount("12x34,00", ',', null));
     }
+
+    // ------------------------------------------------------------------ fast paths
+
+    @Test
+    void positionalDateParsingMatchesFormatter() {
+        String[] patterns = { "dd.MM.yyyy", "dd.MM.yy", "yyyy-MM-dd", "MM/dd/yyyy", "yyyyMMdd", "d.M.yyyy" };
+        String[] values = { "01.03.2024", "29.02.2024", "29.02.2023", "31.04.2024", "32.01.2024", "00.01.2024",
+                "15.13.2024", "01.03.0000", "01.03.24", "15.06.49", "31.12.50", "00.01.00", "2024-07-04",
+                "2024-7-4", "07/04/2024", "20240704", "1.3.2024", "01-03-2024", "01.03.2024x", " 01.03.2024 ",
+                "０１.03.2024", "-1.03.2024" };
+        for (String pattern : patterns) {
+            boolean twoDigitYear = pattern.contains("yy") && !pattern.contains("yyyy");
+            DateTimeFormatter reference = twoDigitYear
+                    ? new DateTimeFormatterBuilder().appendPattern("dd.MM.")
+                            .appendValueReduced(ChronoField.YEAR, 2, 2, 1950)
+                            .toFormatter(Locale.GERMAN)
+                    : DateTimeFormatter.ofPattern(pattern, Locale.GERMAN);
+            DateAmountParser.CellFormat cells = DateAmountParser.forSchema(pattern, 2050, ',', '.');
+            for (String value : values) {
+                LocalDate expected;
+                try {
+                    expected = LocalDate.parse(value.trim(), reference);
+                } catch (RuntimeException e) {
+                    expected = null;
+                }
+                LocalDate actual;
+                try {
+                    actual = cells.parseDate(value);
+                } catch (IllegalArgumentException e) {
+                    actual = null;
+                }
+                assertEquals(expected, actual, pattern + " / " + value);
+            }
+        }
+    }
+
+    @Test
+    void plainAmountParsingMatchesGeneralPath() {
+        String[] values = { "0", "-0,00", "1.234,56", "-1.234.567,89", "+5", "5,", ",5", "1,2,3", "1.5", "5,-",
+                "- 5,00", "5 000,00", "5\u00A0000,00", "123456789012345678", "1234567890123456789,12", "١٢٣",
+                "--5", "+", "", "   ", "12x34,00", "1e5" };
+        Character[] thousandSeparators = { '.', null, ' ' };
+        for (String value : values) {
+            for (Character thousand : thousandSeparators) {
+                assertEquals(reference(value, ',', thousand), attempt(value, ',', thousand), value + " / " + thousand);
+                assertEquals(reference(value, '.', thousand), attempt(value, '.', thousand), value + " / " + thousand);
+            }
+        }
+    }
+
+    @Test
+    void cellFormatReportsBlankPatternPerCell() {
+        DateAmountParser.CellFormat cells = DateAmountParser.forSchema(" ", 2050, ',', null);
+
+        assertThrows(IllegalArgumentException.class, () -> cells.parseDate("01.01.2024"));
+        assertEquals(new BigDecimal("-1.50"), cells.parseAmount("-1,50"));
+    }
+
+    @Test
+    void concurrentParsingAcrossManyPatternsIsConsistent() throws Exception {
+        // More distinct (pattern, pivot) pairs than the cache holds, so threads race on lookups, inserts and resets.
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        int pivot = 1900 + ((i * 7 + seed) % 400);
+                        LocalDate twoDigit = DateAmountParser.parseDate("15.06.49", "dd.MM.yy", pivot);
+                        int expectedYear = (pivot - 100) - Math.floorMod(pivot - 100, 100) + 49;
+                        if (expectedYear < pivot - 100) {
+                            expectedYear += 100;
+                        }
+                        assertEquals(LocalDate.of(expectedYear, 6, 15), twoDigit);
+                        assertEquals(LocalDate.of(2024, 3, 1), DateAmountParser.parseDate("01.03.2024", "dd.MM.yyyy"));
+                        assertEquals(new BigDecimal("-1234.56"), DateAmountParser.parseAmount("-1.234,56", ',', '.'));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static BigDecimal attempt(String value, char decimalSeparator, Character thousandSeparator) {
+        try {
+            return DateAmountParser.parseAmount(value, decimalSeparator, thousandSeparator);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** The original regex-free but allocating implementation, as the reference for accepted input and scale. */
+    private static BigDecimal reference(String value, char decimalSeparator, Character thousandSeparator) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder();
+        for (char c : trimmed.toCharArray()) {
+            if (thousandSeparator != null && c == thousandSeparator) {
+                continue;
+            }
+            if (c == decimalSeparator) {
+                normalized.append('.');
+            } else if (c == '+' || c == '-' || Character.isDigit(c) || c == '.') {
+                normalized.append(c);
+            } else if (!Character.isWhitespace(c) && c != '\u00A0') {
+                return null;
+            }
+        }
+        try {
+            return new BigDecimal(normalized.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -2,6 +2,10 @@ package app.hopps.bankimport.parser;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -39,6 +43,31 @@ class EncodingDetectorTest {
         assertTrue(decoded.contains("Buchungsdatum"));
     }
 
+    @Test
+    void strictReaderPassesForCorrectEncoding() throws IOException {
+        try (Reader reader = EncodingDetector.strictReader(new ByteArrayInputStream(WIN1252_BYTES), WIN1252)) {
+            StringBuilder decoded = new StringBuilder();
+            char[] buffer = new char[16];
+            for (int n; (n = reader.read(buffer)) >= 0;) {
+                decoded.append(buffer, 0, n);
+            }
+            assertTrue(decoded.toString().contains("Ärger"));
+        }
+    }
+
+    @Test
+    void strictReaderRejectsWrongEncoding() throws IOException {
+        try (Reader reader = EncodingDetector.strictReader(new ByteArrayInputStream(WIN1252_BYTES),
+                StandardCharsets.UTF_8)) {
+            assertThrows(CharacterCodingException.class, () -> {
+                char[] buffer = new char[16];
+                while (reader.read(buffer) >= 0) {
+                    // drain
+                }
+            });
+        }
+    }
+
     @Test
     void detectAndDecodeUtf8() {
         byte[] utf8WithBom = "﻿Buchungsdatum;Betrag\r\n01.01.2024;100\r\n"
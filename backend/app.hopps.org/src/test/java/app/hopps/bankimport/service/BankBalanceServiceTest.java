@@ -0,0 +1,142 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.BankAccount;
+import app.hopps.bankimport.domain.BankImport;
+import app.hopps.bankimport.domain.BankTransaction;
+import app.hopps.bommel.repository.BommelRepository;
+import app.hopps.organization.domain.Organization;
+import app.hopps.organization.repository.OrganizationRepository;
+import app.hopps.shared.bootstrap.TestdataBootstrapper;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Covers the checkpoint-based balances: the trigger-maintained monthly checkpoints plus the rest of the opening month
+ * must give the same result as summing every transaction after the opening balance date, also after updates, deletes
+ * and a rebuild.
+ */
+@QuarkusTest
+class BankBalanceServiceTest {
+
+    @Inject
+    BankBalanceService bankBalanceService;
+
+    @Inject
+    OrganizationRepository organizationRepository;
+
+    @Inject
+    BommelRepository bommelRepository;
+
+    @Inject
+    Flyway flyway;
+
+    @Inject
+    TestdataBootstrapper testdataBootstrapper;
+
+    @Inject
+    EntityManager em;
+
+    Long accountId;
+
+    @BeforeEach
+    void setup() {
+        flyway.clean();
+        flyway.migrate();
+        testdataBootstrapper.loadTestdata();
+        accountId = seedAccount();
+    }
+
+    /**
+     * Opening balance 1000.00 on 2024-03-10 and four movements: one before the opening date (already contained in the
+     * opening balance), one later in the opening month and two in later months.
+     */
+    @Transactional
+    Long seedAccount() {
+        Organization org = organizationRepository.findById(4L);
+
+        BankAccount account = new BankAccount();
+        account.setOrganization(org);
+        account.setBommel(bommelRepository.findById(23L));
+        account.setName("Balance Account");
+        account.setIban("DE02120300000000202051");
+        account.setCreatedBy("alice@example.test");
+        account.setOpeningBalance(new BigDecimal("1000.00"));
+        account.setOpeningBalanceDate(LocalDate.of(2024, 3, 10));
+        em.persist(account);
+
+        BankImport bankImport = new BankImport();
+        bankImport.setOrganization(org);
+        bankImport.setBankAccount(account);
+        bankImport.setFileName("balance.csv");
+        bankImport.setFileSize(0);
+        bankImport.setFileSha256("test-sha-balance");
+        bankImport.setImportedBy("alice@example.test");
+        em.persist(bankImport);
+
+        persistTx(org, account, bankImport, "-50.00", LocalDate.of(2024, 3, 1), "b1");
+        persistTx(org, account, bankImport, "100.00", LocalDate.of(2024, 3, 20), "b2");
+        persistTx(org, account, bankImport, "-25.00", LocalDate.of(2024, 4, 5), "b3");
+        persistTx(org, account, bankImport, "10.00", LocalDate.of(2024, 5, 1), "b4");
+        return account.getId();
+    }
+
+    private void persistTx(Organization org, BankAccount account, BankImport bankImport, String amount,
+            LocalDate date, String hash) {
+        BankTransaction tx = new BankTransaction();
+        tx.setOrganization(org);
+        tx.setBankAccount(account);
+        tx.setBankImport(bankImport);
+        tx.setBookingDate(date);
+        tx.setAmount(new BigDecimal(amount));
+        tx.setCurrency("EUR");
+        tx.setDedupeHash(hash);
+        em.persist(tx);
+    }
+
+    @Test
+    void shouldAddMovementsAfterOpeningDate() {
+        assertEquals(new BigDecimal("1085.00"), bankBalanceService.balancesForOrganization(4L).get(accountId));
+    }
+
+    @Test
+    void shouldFollowUpdatesAndDeletes() {
+        updateAmount("b3", "-40.00");
+        deleteTx("b4");
+
+        assertEquals(new BigDecimal("1060.00"), bankBalanceService.balancesForOrganization(4L).get(accountId));
+    }
+
+    @Test
+    void shouldRebuildToSameBalance() {
+        bankBalanceService.rebuild(4L);
+        assertEquals(new BigDecimal("1085.00"), bankBalanceService.balancesForOrganization(4L).get(accountId));
+
+        bankBalanceService.rebuildAll();
+        assertEquals(new BigDecimal("1085.00"), bankBalanceService.balancesForOrganization(4L).get(accountId));
+    }
+
+    @Transactional
+    void updateAmount(String hash, String amount) {
+        em.createQuery("UPDATE BankTransaction t SET t.amount = :amount WHERE t.dedupeHash = :hash")
+                .setParameter("amount", new BigDecimal(amount))
+                .setParameter("hash", hash)
+                .executeUpdate();
+    }
+
+    @Transactional
+    void deleteTx(String hash) {
+        em.createQuery("DELETE FROM BankTransaction t WHERE t.dedupeHash = :hash")
+                .setParameter("hash", hash)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,184 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.BankAccount;
+import app.hopps.bankimport.domain.BankImport;
+import app.hopps.bankimport.domain.BankImportStatus;
+import app.hopps.bankimport.domain.BankTransaction;
+import app.hopps.bommel.repository.BommelRepository;
+import app.hopps.organization.domain.Organization;
+import app.hopps.organization.repository.OrganizationRepository;
+import app.hopps.shared.bootstrap.TestdataBootstrapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A worker that dies after its first committed chunk must not leave the chunk's transactions behind, whether the job is
+ * failed by the worker itself or by the watchdog. A worker that is still alive when the watchdog fails its job must not
+ * write to it afterwards.
+ */
+@QuarkusTest
+class BankImportWorkerTest {
+
+    @Inject
+    BankImportWorker worker;
+
+    @Inject
+    BankTransactionBatchWriter batchWriter;
+
+    @Inject
+    OrganizationRepository organizationRepository;
+
+    @Inject
+    BommelRepository bommelRepository;
+
+    @Inject
+    Flyway flyway;
+
+    @Inject
+    TestdataBootstrapper testdataBootstrapper;
+
+    @Inject
+    EntityManager em;
+
+    @BeforeEach
+    void setup() {
+        flyway.clean();
+        flyway.migrate();
+        testdataBootstrapper.loadTestdata();
+    }
+
+    @Test
+    void shouldDeleteCommittedChunkWhenWorkerFails() {
+        Long importId = startImport(Instant.now());
+        writeFirstChunk(importId);
+        assertEquals(2, countTransactions(importId));
+
+        worker.markFailed(importId, "Worker exception: boom");
+
+        assertEquals(0, countTransactions(importId));
+        assertEquals(BankImportStatus.FAILED, status(importId));
+    }
+
+    @Test
+    void shouldDeleteCommittedChunkWhenWatchdogFailsStuckImport() {
+        Long importId = startImport(Instant.now());
+        writeFirstChunk(importId);
+        setHeartbeat(importId, Instant.now().minus(Duration.ofHours(1)));
+
+        worker.watchdog();
+
+        assertEquals(0, countTransactions(importId));
+        assertEquals(BankImportStatus.FAILED, status(importId));
+    }
+
+    @Test
+    void committedChunkKeepsLongRunningImportAlive() {
+        Long importId = startImport(Instant.now().minus(Duration.ofHours(1)));
+        writeFirstChunk(importId);
+
+        worker.watchdog();
+
+        assertEquals(2, countTransactions(importId));
+        assertEquals(BankImportStatus.PROCESSING, status(importId));
+    }
+
+    @Test
+    void shouldRejectChunksAndCompletionAfterWatchdogFailedImport() {
+        Long importId = startImport(Instant.now());
+        writeFirstChunk(importId);
+        setHeartbeat(importId, Instant.now().minus(Duration.ofHours(1)));
+
+        worker.watchdog();
+
+        BankImport job = findImport(importId);
+        ImportCounters counters = new ImportCounters();
+        assertThrows(IllegalStateException.class,
+                () -> batchWriter.persistChunk(BankTransactionBatchWriter.ImportTarget.of(job),
+                        List.of(transaction("7.00", 3)), counters, 100));
+        assertThrows(IllegalStateException.class,
+                () -> batchWriter.complete(importId, counters, JsonNodeFactory.instance.arrayNode()));
+
+        assertEquals(0, countTransactions(importId));
+        assertEquals(BankImportStatus.FAILED, status(importId));
+        assertEquals("Worker timeout (>30m PROCESSING)", findImport(importId).getFailureReason());
+    }
+
+    @Transactional
+    Long startImport(Instant startedAt) {
+        Organization org = organizationRepository.findById(4L);
+
+        BankAccount account = new BankAccount();
+        account.setOrganization(org);
+        account.setBommel(bommelRepository.findById(23L));
+        account.setName("Worker Account");
+        account.setIban("DE02120300000000202051");
+        account.setCreatedBy("alice@example.test");
+        em.persist(account);
+
+        BankImport bankImport = new BankImport();
+        bankImport.setOrganization(org);
+        bankImport.setBankAccount(account);
+        bankImport.setFileName("worker.csv");
+        bankImport.setFileSize(0);
+        bankImport.setFileSha256("test-sha-worker");
+        bankImport.setImportedBy("alice@example.test");
+        bankImport.setStatus(BankImportStatus.PROCESSING);
+        bankImport.setStartedAt(startedAt);
+        em.persist(bankImport);
+        return bankImport.getId();
+    }
+
+    /** Commits one chunk in its own transaction, like the pipeline does before it gets to the next one. */
+    void writeFirstChunk(Long importId) {
+        BankImport job = findImport(importId);
+        batchWriter.persistChunk(BankTransactionBatchWriter.ImportTarget.of(job),
+                List.of(transaction("-12.50", 1), transaction("30.00", 2)), new ImportCounters(), 50);
+    }
+
+    private static BankTransactionBatchWriter.KeyedTransaction transaction(String amount, long key) {
+        BankTransaction tx = new BankTransaction();
+        tx.setBookingDate(LocalDate.of(2024, 3, 1));
+        tx.setAmount(new BigDecimal(amount));
+        tx.setCurrency("EUR");
+        return new BankTransactionBatchWriter.KeyedTransaction(new DedupeKey(key, key, key, key), tx);
+    }
+
+    @Transactional
+    void setHeartbeat(Long importId, Instant startedAt) {
+        BankImport.update("startedAt = ?1 where id = ?2", startedAt, importId);
+    }
+
+    @Transactional
+    BankImport findImport(Long importId) {
+        BankImport job = BankImport.findById(importId);
+        // ImportTarget.of reads the ids of both associations
+        job.getOrganization().getId();
+        job.getBankAccount().getId();
+        return job;
+    }
+
+    @Transactional
+    long countTransactions(Long importId) {
+        return BankTransaction.count("bankImport.id", importId);
+    }
+
+    @Transactional
+    BankImportStatus status(Long importId) {
+        return BankImport.<BankImport> findById(importId).getStatus();
+    }
+}
@@ -0,0 +1,104 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.BankImport;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CamtStatementParserTest {
+
+    private static final String CAMT_053 = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <Document xmlns="urn:iso:std:iso:20022:tech:xsd:camt.053.001.02">
+              <BkToCstmrStmt>
+                <Stmt>
+                  <Bal>
+                    <Tp><CdOrPrtry><Cd>CLBD</Cd></CdOrPrtry></Tp>
+                    <Amt Ccy="EUR">140.01</Amt><CdtDbtInd>CRDT</CdtDbtInd>
+                  </Bal>
+                  <Ntry>
+                    <Amt Ccy="EUR">59.99</Amt>
+                    <CdtDbtInd>DBIT</CdtDbtInd>
+                    <Sts>BOOK</Sts>
+                    <BookgDt><Dt>2025-06-02</Dt></BookgDt>
+                    <NtryDtls><TxDtls>
+                      <Refs><EndToEndId>E2E-1</EndToEndId></Refs>
+                      <RltdPties>
+                        <Cdtr><Nm>Stadtwerke</Nm></Cdtr>
+                        <CdtrAcct><Id><IBAN>DE89370400440532013000</IBAN></Id></CdtrAcct>
+                      </RltdPties>
+                      <RmtInf><Ustrd>Abschlag Juni</Ustrd></RmtInf>
+                    </TxDtls></NtryDtls>
+                  </Ntry>
+                  <Ntry>
+                    <Amt Ccy="EUR">100.00</Amt>
+                    <CdtDbtInd>CRDT</CdtDbtInd>
+                    <Sts>PDNG</Sts>
+                    <BookgDt><Dt>2025-06-04</Dt></BookgDt>
+                  </Ntry>
+                  <Ntry>
+                    <Amt Ccy="EUR">abc</Amt>
+                    <CdtDbtInd>CRDT</CdtDbtInd>
+                    <Sts>BOOK</Sts>
+                    <BookgDt><Dt>2025-06-05</Dt></BookgDt>
+                  </Ntry>
+                </Stmt>
+              </BkToCstmrStmt>
+            </Document>
+            """;
+
+    private final CamtStatementParser parser = new CamtStatementParser();
+
+    @Test
+    void mapsBookedEntriesAndNumbersThemByPositionInTheFile() {
+        List<StatementEntry> entries = read(CAMT_053);
+
+        // The pending entry is skipped; the malformed one is reported with its position
+        assertEquals(2, entries.size());
+        StatementEntry first = entries.get(0);
+        assertFalse(first.isFailed());
+        assertEquals(1, first.rowNumber());
+        assertEquals(LocalDate.of(2025, 6, 2), first.row().bookingDate());
+        assertEquals(new BigDecimal("-59.99"), first.row().amount());
+        assertEquals("EUR", first.row().currency());
+        assertEquals("Abschlag Juni", first.row().purpose());
+        assertEquals("Stadtwerke", first.row().counterpartyName());
+        assertEquals("DE89370400440532013000", first.row().counterpartyIban());
+        assertEquals("E2E-1", first.row().endToEndReference());
+        assertEquals(new BigDecimal("140.01"), first.row().balanceAfter());
+    }
+
+    @Test
+    void malformedEntryBecomesFailedEntry() {
+        StatementEntry failed = read(CAMT_053).get(1);
+
+        assertTrue(failed.isFailed());
+        assertEquals(3, failed.rowNumber());
+        assertTrue(failed.rawRow().contains("abc"));
+    }
+
+    @Test
+    void malformedXmlFailsTheWholeFile() {
+        String broken = CAMT_053.substring(0, CAMT_053.indexOf("</Ntry>"));
+
+        assertThrows(IllegalArgumentException.class, () -> read(broken));
+    }
+
+    private List<StatementEntry> read(String xml) {
+        BankStatementParser.StatementReader reader = parser.prepare(new BankImport());
+        try (Stream<StatementEntry> entries = reader.read(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))) {
+            return entries.toList();
+        }
+    }
+}
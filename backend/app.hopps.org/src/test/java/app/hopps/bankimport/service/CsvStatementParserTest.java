@@ -0,0 +1,100 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.domain.BankCsvColumnMapping;
+import app.hopps.bankimport.domain.BankCsvSchema;
+import app.hopps.bankimport.domain.BankFieldType;
+import app.hopps.bankimport.domain.BankImport;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvStatementParserTest {
+
+    private final CsvStatementParser parser = new CsvStatementParser();
+
+    @Test
+    void mapsRowsAndNumbersThemFromTheFirstDataLine() {
+        String csv = "Buchungstag;Betrag;Verwendungszweck\n"
+                + "01.03.2024;-99,50;Miete\n"
+                + "02.03.2024;1.200,00;Gehalt\n";
+
+        List<StatementEntry> entries = read(csv, StandardCharsets.UTF_8);
+
+        assertEquals(2, entries.size());
+        StatementEntry first = entries.get(0);
+        assertFalse(first.isFailed());
+        assertEquals(2, first.rowNumber());
+        assertEquals("01.03.2024;-99,50;Miete", first.rawRow());
+        assertEquals(LocalDate.of(2024, 3, 1), first.row().bookingDate());
+        assertEquals(new BigDecimal("-99.50"), first.row().amount());
+        assertEquals("Miete", first.row().purpose());
+        assertEquals(new BigDecimal("1200.00"), entries.get(1).row().amount());
+        assertEquals(3, entries.get(1).rowNumber());
+    }
+
+    @Test
+    void unparseableRowBecomesFailedEntry() {
+        String csv = "Buchungstag;Betrag;Verwendungszweck\n"
+                + "kein Datum;-99,50;Miete\n"
+                + "02.03.2024;10,00;Spende\n";
+
+        List<StatementEntry> entries = read(csv, StandardCharsets.UTF_8);
+
+        assertTrue(entries.get(0).isFailed());
+        assertEquals(2, entries.get(0).rowNumber());
+        assertFalse(entries.get(1).isFailed());
+    }
+
+    @Test
+    void wrongEncodingFailsTheWholeFile() {
+        String csv = "Buchungstag;Betrag;Verwendungszweck\n01.03.2024;-99,50;Überweisung\n";
+        byte[] latin1 = csv.getBytes(Charset.forName("windows-1252"));
+
+        BankStatementParser.StatementReader reader = parser.prepare(job("UTF-8"));
+        assertThrows(UncheckedIOException.class, () -> {
+            try (Stream<StatementEntry> entries = reader.read(new ByteArrayInputStream(latin1))) {
+                entries.toList();
+            }
+        });
+    }
+
+    private List<StatementEntry> read(String csv, Charset charset) {
+        BankStatementParser.StatementReader reader = parser.prepare(job(charset.name()));
+        try (Stream<StatementEntry> entries = reader.read(new ByteArrayInputStream(csv.getBytes(charset)))) {
+            return entries.toList();
+        }
+    }
+
+    private static BankImport job(String encoding) {
+        BankCsvSchema schema = new BankCsvSchema();
+        schema.setEncoding(encoding);
+        schema.setThousandSeparator('.');
+        schema.getColumnMappings().add(mapping(schema, BankFieldType.BOOKING_DATE, 0));
+        schema.getColumnMappings().add(mapping(schema, BankFieldType.AMOUNT, 1));
+        schema.getColumnMappings().add(mapping(schema, BankFieldType.PURPOSE, 2));
+
+        BankImport job = new BankImport();
+        job.setSchema(schema);
+        return job;
+    }
+
+    private static BankCsvColumnMapping mapping(BankCsvSchema schema, BankFieldType field, int index) {
+        BankCsvColumnMapping mapping = new BankCsvColumnMapping();
+        mapping.setSchema(schema);
+        mapping.setTargetField(field);
+        mapping.setSourceColumnIndex(index);
+        return mapping;
+    }
+}
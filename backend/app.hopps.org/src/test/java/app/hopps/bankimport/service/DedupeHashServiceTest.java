@@ -3,11 +3,13 @@ package app.hopps.bankimport.service;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.text.Normalizer;
 import java.time.LocalDate;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class DedupeHashServiceTest {
 
@@ -141,4 +143,95 @@ class DedupeHashServiceTest {
         String real = service.computeHash(DATE, AMOUNT, "DE89370400440532013000", null, "Test");
         assertNotEquals(placeholder, real);
     }
+
+    // --- fast path must keep the stored hashes stable ---
+
+    @Test
+    void fastPathMatchesRegexNormalisation() {
+        String[] purposes = { null, "", "Miete März", "SVWZ+Rechnung 2024/03 ÄÖÜ ß", "Kartenzahlung\u00A0Café",
+                "1ª Rate º ² ½ µ", "ｆｕｌｌｗｉｄｔｈ ＡＢＣ", "e\u0301cole", "emoji \uD83D\uDE00 ok", "tab\tand\nnewline" };
+        String[] ibans = { null, "", "   ", "de89 3704 0044 0532 0130 00", "0000000000", "DE1", "D E 8 9", "ÄT12345" };
+        String[] erefs = { null, "", "  ", "\u2003", " EREF-1 ", "NOTPROVIDED", "Zahlung \uD83D\uDE00" };
+        BigDecimal[] amounts = { null, BigDecimal.ZERO, new BigDecimal("0.00"), new BigDecimal("-99.50"),
+                new BigDecimal("0.05"), new BigDecimal("1E+2"), new BigDecimal("100"), new BigDecimal("-0.10"),
+                new BigDecimal("12345678901234567890.10") };
+        LocalDate[] dates = { null, DATE, LocalDate.of(12024, 1, 1), LocalDate.of(-5, 1, 1),
+                LocalDate.of(999, 12, 31) };
+
+        for (String purpose : purposes) {
+            for (String iban : ibans) {
+                for (String eref : erefs) {
+                    assertEquals(legacyHash(DATE, AMOUNT, iban, eref, purpose),
+                            service.computeHash(DATE, AMOUNT, iban, eref, purpose),
+                            () -> iban + " / " + eref + " / " + purpose);
+                }
+            }
+        }
+        for (BigDecimal amount : amounts) {
+            for (LocalDate date : dates) {
+                assertEquals(legacyHash(date, amount, IBAN, null, "Test"),
+                        service.computeHash(date, amount, IBAN, null, "Test"),
+                        () -> date + " / " + amount);
+            }
+        }
+    }
+
+    @Test
+    void amountWithScaleBeyondLongMatchesRegexNormalisation() {
+        BigDecimal[] amounts = { new BigDecimal("1E-21"), new BigDecimal("-1.5E-20"), new BigDecimal("5E-19"),
+                new BigDecimal("1E-18"), new BigDecimal("123.000000000000000000000"),
+                new BigDecimal("999999999999999999E-23"), new BigDecimal("-123456789012345678E-30") };
+
+        for (BigDecimal amount : amounts) {
+            assertEquals(legacyHash(DATE, amount, IBAN, null, "Test"),
+                    service.computeHash(DATE, amount, IBAN, null, "Test"),
+                    amount::toString);
+        }
+    }
+
+    @Test
+    void keyRoundTripsThroughHex() {
+        DedupeKey key = service.computeKey(DATE, AMOUNT, IBAN, "EREF-001", null);
+        String hash = service.computeHash(DATE, AMOUNT, IBAN, "EREF-001", null);
+
+        assertEquals(hash, key.hex());
+        assertEquals(key, DedupeKey.fromHex(hash));
+        assertEquals(key, DedupeKey.fromHex(hash.toUpperCase()));
+    }
+
+    @Test
+    void malformedHexIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> DedupeKey.fromHex("abc"));
+        assertThrows(IllegalArgumentException.class, () -> DedupeKey.fromHex("x".repeat(64)));
+    }
+
+    /** The original implementation, kept as the reference for the stored hash format. */
+    private static String legacyHash(LocalDate bookingDate, BigDecimal amount, String counterpartyIban,
+            String endToEndReference, String purpose) {
+        StringBuilder material = new StringBuilder(128);
+        material.append(bookingDate != null ? bookingDate.toString() : "");
+        material.append('|');
+        material.append(amount != null ? amount.stripTrailingZeros().toPlainString() : "");
+        material.append('|');
+        String iban = "";
+        if (counterpartyIban != null) {
+            String cleaned = counterpartyIban.toUpperCase().replaceAll("\\s+", "");
+            if (cleaned.length() >= 4 && Character.isLetter(cleaned.charAt(0))
+                    && Character.isLetter(cleaned.charAt(1))) {
+                iban = cleaned;
+            }
+        }
+        material.append(iban);
+        material.append('|');
+        if (endToEndReference != null && !endToEndReference.isBlank()) {
+            material.append("eref:").append(endToEndReference.trim());
+        } else {
+            String normalized = purpose == null ? ""
+                    : Normalizer.normalize(purpose, Normalizer.Form.NFKC)
+                            .replaceAll("[^\\p{L}\\p{N}]", "")
+                            .toLowerCase();
+            material.append("svwz:").append(normalized);
+        }
+        return DedupeHashService.sha256(material.toString());
+    }
 }
@@ -0,0 +1,119 @@
+package app.hopps.bankimport.service;
+
+import app.hopps.bankimport.service.MatchCandidateIndex.BankRow;
+import app.hopps.bankimport.service.MatchCandidateIndex.Candidate;
+import app.hopps.bankimport.service.MatchCandidateIndex.Reason;
+import app.hopps.bankimport.service.MatchCandidateIndex.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchCandidateIndexTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 10);
+
+    @Test
+    void exactAmountAndCounterpartyRankFirst() {
+        MatchCandidateIndex index = index(
+                candidate(1L, "-49.90", "-49.90", DATE, "Stadtwerke München GmbH"),
+                candidate(2L, "-49.90", "-49.90", DATE.minusDays(20), "Bäckerei Schäfer"),
+                candidate(3L, "-120.00", "-120.00", DATE, "Stadtwerke München GmbH"));
+
+        List<Suggestion> suggestions = index.suggest(row("-49.9", "STADTWERKE MUENCHEN", null, "Abschlag Strom"), 3);
+
+        assertEquals(List.of(1L, 2L), suggestions.stream().map(Suggestion::transactionId).toList());
+        Set<Reason> reasons = suggestions.get(0).reasons();
+        assertTrue(reasons.containsAll(Set.of(Reason.AMOUNT_OPEN, Reason.COUNTERPARTY, Reason.DATE)));
+        assertTrue(suggestions.get(0).score() > suggestions.get(1).score());
+    }
+
+    @Test
+    void openAmountOfPartiallyMatchedTransactionIsFound() {
+        MatchCandidateIndex index = index(candidate(1L, "-300.00", "-80.00", DATE, "Getränke Hoffmann"));
+
+        List<Suggestion> suggestions = index.suggest(row("-80", "Getraenke Hoffmann", null, null), 3);
+
+        assertEquals(1, suggestions.size());
+        assertTrue(suggestions.get(0).reasons().contains(Reason.AMOUNT_OPEN));
+    }
+
+    @Test
+    void oppositeDirectionIsNeverSuggested() {
+        MatchCandidateIndex index = index(candidate(1L, "25.00", "25.00", DATE, "Müller, Jürgen"));
+
+        assertTrue(index.suggest(row("-25.00", "Müller, Jürgen", null, null), 3).isEmpty());
+    }
+
+    @Test
+    void counterpartyAloneIsBelowThreshold() {
+        MatchCandidateIndex index = index(candidate(1L, "-10.00", "-10.00", DATE.minusDays(200), "REWE Markt GmbH"));
+
+        assertTrue(index.suggest(row("-37.12", "REWE Markt GmbH", null, null), 3).isEmpty());
+    }
+
+    @Test
+    void invoiceIdInPurposeAddsReference() {
+        Candidate candidate = new Candidate(1L, new BigDecimal("-99.00"), new BigDecimal("-99.00"), DATE,
+                "Druckerei Weber", "RE-2025/0042", null);
+        MatchCandidateIndex index = new MatchCandidateIndex(List.of(candidate), Map.of(), 30);
+
+        List<Suggestion> suggestions = index.suggest(row("-99", "Weber Druck", null, "Rechnung RE 2025 0042"), 3);
+
+        assertEquals(1, suggestions.size());
+        assertTrue(suggestions.get(0).reasons().contains(Reason.REFERENCE));
+    }
+
+    @Test
+    void knownIbanRecognisesCounterpartyWithDifferentName() {
+        String iban = "DE89370400440532013000";
+        Map<String, Set<String>> knownIbans = Map.of(iban,
+                Set.of(MatchCandidateIndex.counterpartyKey("Förderkreis Jugendarbeit")));
+        MatchCandidateIndex index = new MatchCandidateIndex(
+                List.of(candidate(1L, "150.00", "150.00", DATE, "Förderkreis Jugendarbeit")), knownIbans, 30);
+
+        List<Suggestion> suggestions = index.suggest(row("150.00", "FK JUGEND", iban, null), 3);
+
+        assertEquals(1, suggestions.size());
+        assertTrue(suggestions.get(0).reasons().contains(Reason.IBAN));
+    }
+
+    @Test
+    void limitsAndOrdersByScoreThenDate() {
+        List<Candidate> candidates = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            candidates.add(candidate(id, "-15.00", "-15.00", DATE.minusDays(id), "Verein"));
+        }
+        MatchCandidateIndex index = new MatchCandidateIndex(candidates, Map.of(), 30);
+
+        List<Suggestion> suggestions = index.suggest(row("-15", null, null, null), 3);
+
+        assertEquals(List.of(1L, 2L, 3L), suggestions.stream().map(Suggestion::transactionId).toList());
+    }
+
+    @Test
+    void tokensFoldUmlautsAndDropLegalForms() {
+        assertEquals(Set.of("mueller", "juergen"), MatchCandidateIndex.tokens("Müller, Jürgen GmbH"));
+        assertEquals(MatchCandidateIndex.tokens("MUELLER JUERGEN"), MatchCandidateIndex.tokens("Müller, Jürgen"));
+        assertEquals("re20250042", MatchCandidateIndex.compact("RE-2025/0042"));
+    }
+
+    private static MatchCandidateIndex index(Candidate... candidates) {
+        return new MatchCandidateIndex(List.of(candidates), Map.of(), 30);
+    }
+
+    private static Candidate candidate(Long id, String total, String open, LocalDate date, String counterparty) {
+        return new Candidate(id, new BigDecimal(total), new BigDecimal(open), date, counterparty, null, null);
+    }
+
+    private static BankRow row(String amount, String counterparty, String iban, String purpose) {
+        return new BankRow(100L, new BigDecimal(amount), DATE, counterparty, iban, purpose);
+    }
+}
@@ -1,11 +1,17 @@
 package app.hopps.bommel.domain;
 
+import app.hopps.bankimport.domain.BankAccount;
 import app.hopps.bommel.domain.Bommel;
 import app.hopps.bommel.domain.TreeSearchBommel;
 import app.hopps.bommel.repository.BommelRepository;
+import app.hopps.document.domain.AnalysisStatus;
+import app.hopps.document.domain.Document;
+import app.hopps.document.domain.DocumentStatus;
 import app.hopps.organization.domain.Organization;
 import app.hopps.organization.repository.OrganizationRepository;
 import app.hopps.shared.bootstrap.TestdataBootstrapper;
+import app.hopps.transaction.domain.Transaction;
+import app.hopps.transaction.domain.TransactionStatus;
 import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.narayana.jta.QuarkusTransactionException;
 import io.quarkus.test.TestTransaction;
@@ -290,6 +296,64 @@ class BommelTest {
         assertEquals(2, repo.count());
     }
 
+    @Test
+    @TestTransaction
+    void recursiveDeletionDetachesTransactionsOfTheSubtree() {
+        // Arrange: a transaction, a document and a bank account on the grandchild
+        var bommels = resourceCreator.setupSimpleTree();
+        Organization organization = orgRepo.findAll().firstResult();
+        Bommel grandchild = repo.findById(bommels.get(3).id);
+
+        Transaction transaction = new Transaction();
+        transaction.setOrganization(organization);
+        transaction.setCreatedBy("tester");
+        transaction.setStatus(TransactionStatus.DRAFT);
+        transaction.setName("Grandchild expense");
+        transaction.setBommel(grandchild);
+        transaction.persist();
+
+        Document document = new Document();
+        document.setOrganization(organization);
+        document.setDocumentStatus(DocumentStatus.ANALYZED);
+        document.setAnalysisStatus(AnalysisStatus.COMPLETED);
+        document.setUploadedBy("tester");
+        document.setBommel(grandchild);
+        document.persist();
+
+        BankAccount account = new BankAccount();
+        account.setOrganization(organization);
+        account.setBommel(grandchild);
+        account.setName("Grandchild account");
+        account.setIban("DE89370400440532013000");
+        account.setCreatedBy("tester");
+        account.persistAndFlush();
+
+        // Act
+        repo.deleteBommel(bommels.get(1), true);
+
+        // Assert: transactions and documents lose their bommel, bank accounts move to the deleted bommel's parent
+        assertEquals(2, repo.count());
+        Transaction detached = Transaction.findById(transaction.getId());
+        assertNotNull(detached);
+        assertNull(detached.getBommel());
+        Document detachedDocument = Document.findById(document.getId());
+        assertNotNull(detachedDocument);
+        assertNull(detachedDocument.getBommel());
+        BankAccount movedAccount = BankAccount.findById(account.getId());
+        assertEquals(bommels.getFirst().id, movedAccount.getBommel().id);
+        repo.ensureConsistency();
+    }
+
+    @Test
+    @TestTransaction
+    void deletingRootFails() {
+        var bommels = resourceCreator.setupSimpleTree();
+
+        assertThrows(
+                WebApplicationException.class,
+                () -> repo.deleteBommel(bommels.getFirst(), true));
+    }
+
     @Test
     @TestTransaction
     void ensureConsistencyDetectsCycle() {
@@ -377,6 +441,74 @@ class BommelTest {
         repo.ensureConsistency();
     }
 
+    @Test
+    @TestTransaction
+    void moveKeepsSubtreeAndLineageUpToDate() {
+        // Arrange: root -> 1 -> 3, root -> 2
+        var bommels = resourceCreator.setupSimpleTree();
+        Bommel root = bommels.getFirst();
+        Bommel formerParent = repo.findById(bommels.get(1).id);
+        Bommel newParent = repo.findById(bommels.get(2).id);
+        Bommel child = repo.findById(bommels.get(3).id);
+
+        // Act: root -> 1, root -> 2 -> 3
+        repo.moveBommel(child, newParent);
+        repo.flush();
+
+        // Assert
+        assertEquals(List.of(newParent, root), repo.getParents(child).stream().map(TreeSearchBommel::bommel).toList());
+        assertEquals(List.of(new TreeSearchBommel(child, false, List.of(newParent.id, child.id))),
+                repo.getChildrenRecursive(newParent));
+        assertTrue(repo.getChildrenRecursive(formerParent).isEmpty());
+        assertEquals(List.of(root.id, newParent.id, child.id),
+                repo.getChildrenRecursive(root).getLast().cyclePath());
+        assertTrue(repo.isDescendant(root, child));
+        assertFalse(repo.isDescendant(formerParent, child));
+        assertEquals(3, repo.countDescendants(root));
+    }
+
+    @Test
+    @TestTransaction
+    void moveHoldsTheTreeLockOfItsOrganization() {
+        // Arrange
+        var bommels = resourceCreator.setupSimpleTree();
+        Bommel child = repo.findById(bommels.get(3).id);
+        Bommel newParent = repo.findById(bommels.get(2).id);
+
+        // Act
+        repo.moveBommel(child, newParent);
+        repo.flush();
+
+        // Assert: other tree writes of the organization wait for this transaction on lock (27, root id)
+        Number held = (Number) repo.getEntityManager()
+                .createNativeQuery("""
+                        SELECT count(*) FROM pg_locks
+                        WHERE locktype = 'advisory' AND CAST(classid AS integer) = 27
+                          AND CAST(objid AS bigint) = :root AND objsubid = 2
+                          AND pid = pg_backend_pid() AND mode = 'ExclusiveLock' AND granted
+                        """)
+                .setParameter("root", bommels.getFirst().id)
+                .getSingleResult();
+        assertEquals(1, held.intValue());
+    }
+
+    @Test
+    @TestTransaction
+    void moveIntoOwnSubtreeFails() {
+        var bommels = resourceCreator.setupSimpleTree();
+        Bommel parent = repo.findById(bommels.get(1).id);
+        Bommel child = repo.findById(bommels.get(3).id);
+
+        assertThrows(
+                WebApplicationException.class,
+                () -> repo.moveBommel(parent, child));
+        assertThrows(
+                WebApplicationException.class,
+                () -> repo.moveBommel(parent, parent));
+
+        repo.ensureConsistency();
+    }
+
     @Test
     void organizationsCanCoexist() throws URISyntaxException, MalformedURLException {
         resourceCreator.setupTwoTreesAndOrgs();
@@ -1,6 +1,7 @@
 package app.hopps.document.api;
 
 import app.hopps.document.domain.AnalysisStatus;
+import app.hopps.document.domain.Document;
 import app.hopps.document.service.DocumentAnalysisService;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.common.http.TestHTTPEndpoint;
@@ -9,10 +10,13 @@ import io.quarkus.test.security.TestSecurity;
 import io.quarkus.test.security.oidc.Claim;
 import io.quarkus.test.security.oidc.OidcSecurity;
 import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import app.hopps.shared.bootstrap.TestdataBootstrapper;
+import app.hopps.transaction.domain.Transaction;
+import app.hopps.transaction.domain.TransactionStatus;
 import org.flywaydb.core.Flyway;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,6 +24,8 @@ import software.amazon.awssdk.services.s3.S3Client;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
@@ -27,6 +33,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 
 @QuarkusTest
 @TestSecurity(user = "alice@example.test")
@@ -58,7 +66,7 @@ class DocumentResourceTest {
         testdataBootstrapper.loadTestdata();
 
         // Mock async analysis to do nothing (we don't want to test actual analysis here)
-        doNothing().when(analysisServiceMock).analyzeAsync(anyLong());
+        doNothing().when(analysisServiceMock).analyzeDocument(anyLong());
     }
 
     @Test
@@ -161,6 +169,69 @@ class DocumentResourceTest {
                 .header("Content-Type", equalTo("application/pdf"));
     }
 
+    @Test
+    void shouldServeRangesAndRevalidateByETag() {
+        byte[] content = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+        int documentId = given()
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .multiPart("file", "range.pdf", content, "application/pdf")
+                .queryParam("analyze", false)
+                .when()
+                .post()
+                .then()
+                .statusCode(Response.Status.CREATED.getStatusCode())
+                .extract()
+                .path("id");
+
+        String etag = given()
+                .when()
+                .get("/{id}/file", documentId)
+                .then()
+                .statusCode(Response.Status.OK.getStatusCode())
+                .header("Accept-Ranges", equalTo("bytes"))
+                .header("Content-Length", equalTo("20"))
+                .extract()
+                .header("ETag");
+        assertNotNull(etag);
+
+        // Cached copy still current
+        given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/{id}/file", documentId)
+                .then()
+                .statusCode(Response.Status.NOT_MODIFIED.getStatusCode());
+
+        // Byte range, also when resumed with a matching If-Range
+        given()
+                .header("Range", "bytes=10-14")
+                .header("If-Range", etag)
+                .when()
+                .get("/{id}/file", documentId)
+                .then()
+                .statusCode(Response.Status.PARTIAL_CONTENT.getStatusCode())
+                .header("Content-Range", equalTo("bytes 10-14/20"))
+                .body(equalTo("abcde"));
+
+        // Outdated If-Range: whole file
+        given()
+                .header("Range", "bytes=10-14")
+                .header("If-Range", "\"outdated\"")
+                .when()
+                .get("/{id}/file", documentId)
+                .then()
+                .statusCode(Response.Status.OK.getStatusCode())
+                .body(equalTo("0123456789abcdefghij"));
+
+        given()
+                .header("Range", "bytes=20-")
+                .when()
+                .get("/{id}/file", documentId)
+                .then()
+                .statusCode(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE.getStatusCode())
+                .header("Content-Range", equalTo("bytes */20"));
+    }
+
     @Test
     void shouldReturnNotFoundForNonExistentFile() {
         given()
@@ -204,6 +275,94 @@ class DocumentResourceTest {
                 .body("size()", greaterThanOrEqualTo(2));
     }
 
+    @Test
+    void shouldPageAndFilterDocuments() {
+        for (int i = 1; i <= 3; i++) {
+            given()
+                    .contentType(MediaType.MULTIPART_FORM_DATA)
+                    .multiPart("file", "paged-" + i + ".pdf",
+                            ("paged test document " + i).getBytes(StandardCharsets.UTF_8), "application/pdf")
+                    .queryParam("analyze", false)
+                    .when()
+                    .post()
+                    .then()
+                    .statusCode(Response.Status.CREATED.getStatusCode());
+        }
+
+        // First page of two, newest upload first, with a cursor for the rest
+        String cursor = given()
+                .queryParam("search", "PAGED-")
+                .queryParam("size", 2)
+                .when()
+                .get()
+                .then()
+                .statusCode(Response.Status.OK.getStatusCode())
+                .body("size()", equalTo(2))
+                .body("[0].fileName", equalTo("paged-3.pdf"))
+                .body("[0].tags", empty())
+                .header("X-Next-Cursor", notNullValue())
+                .extract()
+                .header("X-Next-Cursor");
+
+        given()
+                .queryParam("search", "PAGED-")
+                .queryParam("size", 2)
+                .queryParam("cursor", cursor)
+                .when()
+                .get()
+                .then()
+                .statusCode(Response.Status.OK.getStatusCode())
+                .body("size()", equalTo(1))
+                .body("[0].fileName", equalTo("paged-1.pdf"))
+                .header("X-Next-Cursor", nullValue());
+
+        given()
+                .queryParam("search", "paged-")
+                .queryParam("analysisStatus", AnalysisStatus.COMPLETED)
+                .when()
+                .get()
+                .then()
+                .statusCode(Response.Status.OK.getStatusCode())
+                .body("size()", equalTo(0));
+    }
+
+    @Test
+    void shouldRejectInvalidPageSize() {
+        for (int size : new int[] { -1, 0, 1001 }) {
+            given()
+                    .queryParam("size", size)
+                    .when()
+                    .get()
+                    .then()
+                    .statusCode(Response.Status.BAD_REQUEST.getStatusCode());
+        }
+    }
+
+    @Test
+    void shouldListDocumentOnceWhenBookedTwice() {
+        int documentId = given()
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .multiPart("file", "booked-twice.pdf",
+                        "document with two transactions".getBytes(StandardCharsets.UTF_8), "application/pdf")
+                .queryParam("analyze", false)
+                .when()
+                .post()
+                .then()
+                .statusCode(Response.Status.CREATED.getStatusCode())
+                .extract()
+                .path("id");
+        List<Long> transactionIds = bookTwice((long) documentId);
+
+        given()
+                .queryParam("search", "booked-twice")
+                .when()
+                .get()
+                .then()
+                .statusCode(Response.Status.OK.getStatusCode())
+                .body("size()", equalTo(1))
+                .body("[0].transactionId", equalTo(transactionIds.getFirst().intValue()));
+    }
+
     @Test
     void shouldRejectDuplicateUpload() {
         InputStream first = getClass().getClassLoader().getResourceAsStream("ZUGFeRD.pdf");
@@ -229,6 +388,51 @@ class DocumentResourceTest {
                 .statusCode(Response.Status.CONFLICT.getStatusCode());
     }
 
+    @Test
+    void shouldBulkUploadWithPerFileResults() {
+        byte[] first = "%PDF-1.4 bulk first".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "%PDF-1.4 bulk second".getBytes(StandardCharsets.UTF_8);
+
+        given()
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .multiPart("files", "first.pdf", first, "application/pdf")
+                .multiPart("files", "copy.pdf", first, "application/pdf")
+                .multiPart("files", "notes.txt", "Hello World".getBytes(StandardCharsets.UTF_8), "text/plain")
+                .multiPart("files", "second.pdf", second, "application/pdf")
+                .when()
+                .post("/bulk")
+                .then()
+                .statusCode(Response.Status.OK.getStatusCode())
+                .body("size()", equalTo(4))
+                .body("fileName", contains("first.pdf", "copy.pdf", "notes.txt", "second.pdf"))
+                .body("status", contains("CREATED", "DUPLICATE", "REJECTED", "CREATED"))
+                .body("[0].document.id", notNullValue())
+                .body("[0].document.analysisStatus", equalTo(AnalysisStatus.PENDING.name()))
+                .body("[3].document.id", notNullValue());
+
+        // Both new documents are queued and analyzed by the worker.
+        verify(analysisServiceMock, timeout(10_000).times(2)).analyzeDocument(anyLong());
+
+        // Content that already exists in the organization is a duplicate in a later upload, too.
+        given()
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .multiPart("files", "again.pdf", second, "application/pdf")
+                .when()
+                .post("/bulk")
+                .then()
+                .statusCode(Response.Status.OK.getStatusCode())
+                .body("status", contains("DUPLICATE"));
+
+        given()
+                .when()
+                .get()
+                .then()
+                .statusCode(Response.Status.OK.getStatusCode())
+                .body("fileName", hasItems("first.pdf", "second.pdf"))
+                .body("fileName", not(hasItem("copy.pdf")))
+                .body("fileName", not(hasItem("again.pdf")));
+    }
+
     @Test
     void shouldDeleteDocument() {
         // First upload a document
@@ -303,4 +507,21 @@ class DocumentResourceTest {
                 .body("privatelyPaid", equalTo(true))
                 .body("extractionSource", equalTo("MANUAL"));
     }
+
+    @Transactional
+    List<Long> bookTwice(Long documentId) {
+        Document document = Document.findById(documentId);
+        List<Long> ids = new ArrayList<>();
+        for (String name : List.of("First booking", "Second booking")) {
+            Transaction transaction = new Transaction();
+            transaction.setOrganization(document.getOrganization());
+            transaction.setCreatedBy("alice@example.test");
+            transaction.setStatus(TransactionStatus.DRAFT);
+            transaction.setName(name);
+            transaction.setDocument(document);
+            transaction.persist();
+            ids.add(transaction.getId());
+        }
+        return ids;
+    }
 }
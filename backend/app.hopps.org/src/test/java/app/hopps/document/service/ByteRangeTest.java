@@ -0,0 +1,41 @@
+package app.hopps.document.service;
+
+import jakarta.ws.rs.WebApplicationException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ByteRangeTest {
+
+    @Test
+    void parsesClosedOpenAndSuffixRanges() {
+        assertEquals(new ByteRange(0L, 1023L), ByteRange.parse("bytes=0-1023", 5000L));
+        assertEquals(new ByteRange(100L, null), ByteRange.parse("bytes=100-", 5000L));
+        assertEquals(new ByteRange(null, 500L), ByteRange.parse("Bytes= -500", null));
+        assertEquals("bytes=100-", new ByteRange(100L, null).toHeaderValue());
+        assertEquals("bytes=-500", new ByteRange(null, 500L).toHeaderValue());
+    }
+
+    @Test
+    void ignoresAbsentMalformedAndMultipleRanges() {
+        assertNull(ByteRange.parse(null, 5000L));
+        assertNull(ByteRange.parse("items=0-10", 5000L));
+        assertNull(ByteRange.parse("bytes=abc", 5000L));
+        assertNull(ByteRange.parse("bytes=-", 5000L));
+        assertNull(ByteRange.parse("bytes=20-10", 5000L));
+        assertNull(ByteRange.parse("bytes=0-10,20-30", 5000L));
+    }
+
+    @Test
+    void rejectsRangesOutsideTheFile() {
+        WebApplicationException e = assertThrows(WebApplicationException.class,
+                () -> ByteRange.parse("bytes=5000-", 5000L));
+        assertEquals(416, e.getResponse().getStatus());
+        assertEquals("bytes */5000", e.getResponse().getHeaderString("Content-Range"));
+        assertThrows(WebApplicationException.class, () -> ByteRange.parse("bytes=-0", 5000L));
+        // Without a known size the range is left to S3
+        assertEquals(new ByteRange(5000L, null), ByteRange.parse("bytes=5000-", null));
+    }
+}
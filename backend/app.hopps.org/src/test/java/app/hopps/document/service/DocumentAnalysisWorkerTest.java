@@ -0,0 +1,212 @@
+package app.hopps.document.service;
+
+import app.hopps.document.domain.AnalysisStatus;
+import app.hopps.document.domain.Document;
+import app.hopps.document.domain.DocumentAnalysisJob;
+import app.hopps.document.domain.DocumentAnalysisJobStatus;
+import app.hopps.document.domain.DocumentStatus;
+import app.hopps.document.repository.DocumentAnalysisJobRepository;
+import app.hopps.document.repository.DocumentAnalysisJobRepository.Claim;
+import app.hopps.document.repository.DocumentRepository;
+import app.hopps.organization.repository.OrganizationRepository;
+import app.hopps.shared.bootstrap.TestdataBootstrapper;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Covers the analysis queue itself: claim order by priority, re-runs of documents queued while they are analyzed, the
+ * watchdog and the fencing of expired claims. The worker pool is switched off so the test claims the jobs itself.
+ */
+@QuarkusTest
+@TestProfile(DocumentAnalysisWorkerTest.QueueOnlyProfile.class)
+class DocumentAnalysisWorkerTest {
+
+    public static class QueueOnlyProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("app.hopps.documents.analysis.concurrency", "0",
+                    "app.hopps.documents.analysis.max-attempts", "2");
+        }
+    }
+
+    @Inject
+    DocumentAnalysisWorker worker;
+
+    @Inject
+    DocumentAnalysisJobRepository jobRepository;
+
+    @Inject
+    DocumentRepository documentRepository;
+
+    @Inject
+    OrganizationRepository organizationRepository;
+
+    @Inject
+    Flyway flyway;
+
+    @Inject
+    TestdataBootstrapper testdataBootstrapper;
+
+    @Inject
+    EntityManager em;
+
+    @BeforeEach
+    void setup() {
+        flyway.clean();
+        flyway.migrate();
+        testdataBootstrapper.loadTestdata();
+    }
+
+    @Test
+    void shouldClaimInteractiveBeforeBulk() {
+        Long bulk1 = createDocument();
+        Long bulk2 = createDocument();
+        Long interactive = createDocument();
+        enqueue(List.of(bulk1, bulk2), DocumentAnalysisWorker.PRIORITY_BULK);
+        enqueue(List.of(interactive), DocumentAnalysisWorker.PRIORITY_INTERACTIVE);
+
+        assertEquals(List.of(interactive), claimIds(1));
+        assertEquals(List.of(bulk1, bulk2), claimIds(5).stream().sorted().toList());
+        assertTrue(worker.claimJobs(5).isEmpty());
+    }
+
+    @Test
+    void shouldRunAgainWhenQueuedWhileProcessing() {
+        Long id = createDocument();
+        enqueue(List.of(id), DocumentAnalysisWorker.PRIORITY_BULK);
+        Claim first = claimOne(id);
+
+        // Re-analysis requested while the first run is still going
+        enqueue(List.of(id), DocumentAnalysisWorker.PRIORITY_INTERACTIVE);
+        worker.complete(first);
+        DocumentAnalysisJob job = findJob(id);
+        assertEquals(DocumentAnalysisJobStatus.QUEUED, job.getStatus());
+        assertEquals(DocumentAnalysisWorker.PRIORITY_INTERACTIVE, job.getPriority());
+
+        worker.complete(claimOne(id));
+        assertNull(findJob(id));
+    }
+
+    @Test
+    void shouldRequeueStaleJobsAndGiveUpAfterMaxAttempts() {
+        Long id = createDocument();
+        enqueue(List.of(id), DocumentAnalysisWorker.PRIORITY_BULK);
+
+        // First attempt dies: the watchdog queues the job again
+        claimOne(id);
+        expireLease(id);
+        worker.watchdog();
+        assertEquals(DocumentAnalysisJobStatus.QUEUED, findJob(id).getStatus());
+
+        // Second (last) attempt dies: the document is marked as failed
+        claimOne(id);
+        expireLease(id);
+        worker.watchdog();
+        assertNull(findJob(id));
+        assertEquals(AnalysisStatus.FAILED, findDocument(id).getAnalysisStatus());
+    }
+
+    @Test
+    void lateWorkerMustNotFinishJobClaimedAgain() {
+        Long id = createDocument();
+        enqueue(List.of(id), DocumentAnalysisWorker.PRIORITY_BULK);
+
+        // The first worker overruns its lease and the job is handed to a second one, which gets a re-run request
+        Claim late = claimOne(id);
+        expireLease(id);
+        worker.watchdog();
+        Claim current = claimOne(id);
+        enqueue(List.of(id), DocumentAnalysisWorker.PRIORITY_INTERACTIVE);
+
+        worker.complete(late);
+        worker.release(late, "Worker exception: late");
+        DocumentAnalysisJob job = findJob(id);
+        assertEquals(DocumentAnalysisJobStatus.PROCESSING, job.getStatus());
+        assertEquals(current.claimedAt(), job.getStartedAt());
+        assertTrue(job.isRerun());
+
+        worker.complete(current);
+        assertEquals(DocumentAnalysisJobStatus.QUEUED, findJob(id).getStatus());
+    }
+
+    @Test
+    void shouldRequeueOwnJobsAtStartup() {
+        Long own = createDocument();
+        Long foreign = createDocument();
+        enqueue(List.of(own, foreign), DocumentAnalysisWorker.PRIORITY_BULK);
+        assertEquals(2, worker.claimJobs(2).size());
+        claimedBy(foreign, "other-node");
+
+        worker.requeueOwn(Instant.now());
+
+        assertEquals(DocumentAnalysisJobStatus.QUEUED, findJob(own).getStatus());
+        assertEquals(DocumentAnalysisJobStatus.PROCESSING, findJob(foreign).getStatus());
+    }
+
+    private List<Long> claimIds(int limit) {
+        return worker.claimJobs(limit).stream().map(Claim::documentId).toList();
+    }
+
+    private Claim claimOne(Long id) {
+        List<Claim> claimed = worker.claimJobs(1);
+        assertEquals(List.of(id), claimed.stream().map(Claim::documentId).toList());
+        return claimed.getFirst();
+    }
+
+    @Transactional
+    Long createDocument() {
+        Document document = new Document();
+        document.setOrganization(organizationRepository.findById(4L));
+        document.setFileKey("documents/queue-test.pdf");
+        document.setDocumentStatus(DocumentStatus.UPLOADED);
+        document.setAnalysisStatus(AnalysisStatus.PENDING);
+        documentRepository.persist(document);
+        return document.getId();
+    }
+
+    @Transactional
+    void enqueue(List<Long> ids, int priority) {
+        worker.enqueue(ids, priority);
+    }
+
+    @Transactional
+    void expireLease(Long id) {
+        em.createNativeQuery("UPDATE document_analysis_job SET startedat = now() - INTERVAL '1 day'"
+                + " WHERE document_id = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    @Transactional
+    void claimedBy(Long id, String node) {
+        em.createNativeQuery("UPDATE document_analysis_job SET claimedby = :node WHERE document_id = :id")
+                .setParameter("node", node)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    @Transactional
+    DocumentAnalysisJob findJob(Long id) {
+        return jobRepository.findById(id);
+    }
+
+    @Transactional
+    Document findDocument(Long id) {
+        return documentRepository.findById(id);
+    }
+}
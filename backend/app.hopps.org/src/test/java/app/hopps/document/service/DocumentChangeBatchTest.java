@@ -0,0 +1,38 @@
+package app.hopps.document.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DocumentChangeBatchTest {
+
+    @Test
+    void shouldRoundTripThroughJson() {
+        DocumentChangeBatch batch = new DocumentChangeBatch(4L, List.of(10L, 11L));
+
+        assertEquals("{\"organizationId\":4,\"documentIds\":[10,11]}", batch.toJson());
+        assertEquals(batch, DocumentChangeBatch.fromJson(batch.toJson()));
+    }
+
+    @Test
+    void shouldRejectMalformedJson() {
+        assertThrows(IllegalArgumentException.class, () -> DocumentChangeBatch.fromJson("not json"));
+        assertThrows(IllegalArgumentException.class, () -> DocumentChangeBatch.fromJson("{\"documentIds\":[1]}"));
+        assertThrows(IllegalArgumentException.class, () -> DocumentChangeBatch.fromJson("{\"organizationId\":1}"));
+    }
+
+    @Test
+    void shouldSplitLargeBatches() {
+        List<Long> ids = LongStream.rangeClosed(1, 5).boxed().toList();
+
+        List<DocumentChangeBatch> parts = new DocumentChangeBatch(4L, ids).split(2);
+
+        assertEquals(List.of(new DocumentChangeBatch(4L, List.of(1L, 2L)),
+                new DocumentChangeBatch(4L, List.of(3L, 4L)),
+                new DocumentChangeBatch(4L, List.of(5L))), parts);
+    }
+}
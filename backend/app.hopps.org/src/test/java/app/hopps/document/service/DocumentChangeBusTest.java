@@ -0,0 +1,112 @@
+package app.hopps.document.service;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Covers the whole round trip through PostgreSQL: {@code publish} → {@code flush} → {@code pg_notify} → listener →
+ * {@link DocumentChangeBroadcaster#deliver(DocumentChangeBatch)}. The periodic flush is pushed out of the way, so the
+ * test decides when a batch goes out.
+ */
+@QuarkusTest
+@TestProfile(DocumentChangeBusTest.ManualFlushProfile.class)
+class DocumentChangeBusTest {
+
+    public static class ManualFlushProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("app.hopps.documents.events.publish-interval", "1h");
+        }
+    }
+
+    /** Organization IDs no other code path publishes for; the notifications do not need existing rows. */
+    private static final long ORG_ID = 910_001L;
+    private static final long PROBE_ORG_ID = 910_002L;
+
+    @Inject
+    DocumentChangeBus bus;
+
+    @InjectMock
+    DocumentChangeBroadcaster broadcaster;
+
+    final List<DocumentChangeBatch> delivered = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        doAnswer(invocation -> delivered.add(invocation.getArgument(0))).when(broadcaster).deliver(any());
+        awaitListener();
+        delivered.clear();
+    }
+
+    @Test
+    void shouldDeliverPublishedChangesSplitIntoNotifications() throws InterruptedException {
+        int max = DocumentChangeBus.MAX_DOCUMENTS_PER_NOTIFICATION;
+        List<Long> documentIds = LongStream.rangeClosed(1, 2L * max + 50)
+                .map(id -> 9_000_000_000_000_000_000L + id)
+                .boxed()
+                .toList();
+        documentIds.forEach(id -> bus.publish(ORG_ID, id));
+        bus.publish(ORG_ID, documentIds.getFirst());
+
+        bus.flush();
+
+        List<DocumentChangeBatch> batches = awaitBatches(ORG_ID, 3);
+        assertEquals(List.of(max, max, 50), batches.stream().map(batch -> batch.documentIds().size()).toList());
+        assertEquals(documentIds, batches.stream().flatMap(batch -> batch.documentIds().stream()).toList());
+    }
+
+    @Test
+    void shouldSendNothingWithoutChanges() throws InterruptedException {
+        bus.flush();
+        bus.publish(PROBE_ORG_ID, 1L);
+        bus.flush();
+
+        // Notifications arrive in the order they were sent, so once the probe is there nothing else is pending
+        awaitBatches(PROBE_ORG_ID, 1);
+        assertEquals(List.of(new DocumentChangeBatch(PROBE_ORG_ID, List.of(1L))), delivered);
+    }
+
+    /** The listener connects in the background at startup; probes until its first notification arrives. */
+    private void awaitListener() throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            bus.publish(PROBE_ORG_ID, 0L);
+            bus.flush();
+            Thread.sleep(100);
+            if (delivered.stream().anyMatch(batch -> batch.organizationId() == PROBE_ORG_ID)) {
+                // Let probes still in flight arrive before the test starts recording
+                Thread.sleep(200);
+                return;
+            }
+        }
+        fail("Document change listener did not receive notifications");
+    }
+
+    private List<DocumentChangeBatch> awaitBatches(long organizationId, int count) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            List<DocumentChangeBatch> batches = delivered.stream()
+                    .filter(batch -> batch.organizationId() == organizationId)
+                    .toList();
+            if (batches.size() >= count) {
+                return batches;
+            }
+            Thread.sleep(100);
+        }
+        return fail("Expected " + count + " notification(s) for organization " + organizationId + ", got "
+                + delivered);
+    }
+}
@@ -0,0 +1,160 @@
+package app.hopps.document.service;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentChangeFanoutTest {
+
+    private static final int MAX_PENDING = 2;
+
+    ScheduledExecutorService scheduler;
+    DocumentChangeFanout fanout;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        // The window never closes on its own in these tests; they flush explicitly.
+        fanout = new DocumentChangeFanout(scheduler, Duration.ofHours(1), MAX_PENDING);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void shouldSendOnlyToSubscribersOfTheOrganization() {
+        TestSubscriber own = new TestSubscriber("a", true);
+        TestSubscriber other = new TestSubscriber("b", true);
+        fanout.subscribe(1L, own);
+        fanout.subscribe(2L, other);
+
+        fanout.publish(1L, 10L);
+        fanout.flush(1L);
+        fanout.flush(2L);
+
+        assertEquals(List.of("{\"organizationId\":1,\"documentIds\":[10]}"), own.sent);
+        assertTrue(other.sent.isEmpty());
+    }
+
+    @Test
+    void shouldCoalesceChangesOfOneWindow() {
+        TestSubscriber subscriber = new TestSubscriber("a", true);
+        fanout.subscribe(1L, subscriber);
+
+        fanout.publish(1L, 10L);
+        fanout.publish(1L, 11L);
+        fanout.publish(1L, 10L);
+        fanout.flush(1L);
+        fanout.publish(1L, 12L);
+        fanout.flush(1L);
+
+        assertEquals(List.of("{\"organizationId\":1,\"documentIds\":[10,11]}",
+                "{\"organizationId\":1,\"documentIds\":[12]}"), subscriber.sent);
+    }
+
+    @Test
+    void shouldCoalesceBatchesIntoTheCurrentWindow() {
+        TestSubscriber subscriber = new TestSubscriber("a", true);
+        fanout.subscribe(1L, subscriber);
+
+        fanout.publish(1L, List.of(10L, 11L));
+        fanout.publish(1L, List.of(11L, 12L));
+        fanout.flush(1L);
+
+        assertEquals(List.of("{\"organizationId\":1,\"documentIds\":[10,11,12]}"), subscriber.sent);
+    }
+
+    @Test
+    void shouldQueueWhileSendIsInFlightAndCloseSlowSubscriber() {
+        TestSubscriber slow = new TestSubscriber("slow", false);
+        TestSubscriber fast = new TestSubscriber("fast", true);
+        fanout.subscribe(1L, slow);
+        fanout.subscribe(1L, fast);
+
+        // One send in flight plus MAX_PENDING queued messages
+        for (long i = 0; i <= MAX_PENDING; i++) {
+            fanout.publish(1L, i);
+            fanout.flush(1L);
+        }
+        assertEquals(1, slow.sent.size());
+        assertFalse(slow.closed);
+
+        // Completing the in-flight send drains the next queued message
+        slow.completePending();
+        assertEquals(2, slow.sent.size());
+
+        // Overflow closes the slow subscriber; the fast one keeps receiving
+        fanout.publish(1L, 100L);
+        fanout.flush(1L);
+        fanout.publish(1L, 101L);
+        fanout.flush(1L);
+        assertTrue(slow.closed);
+        assertEquals(1, fanout.subscriberCount(1L));
+        assertEquals(MAX_PENDING + 3, fast.sent.size());
+    }
+
+    @Test
+    void shouldForgetUnsubscribedConnections() {
+        TestSubscriber subscriber = new TestSubscriber("a", true);
+        fanout.subscribe(1L, subscriber);
+        fanout.unsubscribe("a");
+
+        fanout.publish(1L, 10L);
+        fanout.flush(1L);
+
+        assertEquals(0, fanout.subscriberCount(1L));
+        assertTrue(subscriber.sent.isEmpty());
+    }
+
+    private static final class TestSubscriber implements DocumentChangeFanout.Subscriber {
+        private final String id;
+        private final boolean completeImmediately;
+        private final List<String> sent = new ArrayList<>();
+        private final List<UniEmitter<? super Void>> pending = new ArrayList<>();
+        private boolean closed;
+
+        TestSubscriber(String id, boolean completeImmediately) {
+            this.id = id;
+            this.completeImmediately = completeImmediately;
+        }
+
+        @Override
+        public String id() {
+            return id;
+        }
+
+        @Override
+        public Uni<Void> send(String message) {
+            sent.add(message);
+            if (completeImmediately) {
+                return Uni.createFrom().voidItem();
+            }
+            return Uni.createFrom().emitter(pending::add);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        void completePending() {
+            List<UniEmitter<? super Void>> emitters = new ArrayList<>(pending);
+            pending.clear();
+            emitters.forEach(emitter -> emitter.complete(null));
+        }
+    }
+}
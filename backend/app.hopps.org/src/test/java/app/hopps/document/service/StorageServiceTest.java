@@ -0,0 +1,60 @@
+package app.hopps.document.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class StorageServiceTest {
+
+    @Inject
+    StorageService storageService;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldStoreSmallFileWithSinglePut() throws Exception {
+        assertRoundTrip("documents/test/small.pdf", 64 * 1024);
+    }
+
+    @Test
+    void shouldStoreLargeFileAsMultipartUpload() throws Exception {
+        // Two full 8 MiB parts and a short last part
+        assertRoundTrip("documents/test/large.pdf", 17 * 1024 * 1024 + 123);
+    }
+
+    private void assertRoundTrip(String key, int size) throws Exception {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        Path file = Files.write(tempDir.resolve("upload.bin"), content);
+
+        String hash = storageService.uploadFileAndHash(key, file, "application/pdf");
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)), hash);
+        assertEquals(hash, storedHash(key));
+        storageService.deleteFile(key);
+    }
+
+    private String storedHash(String key) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = new DigestInputStream(storageService.downloadFile(key), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
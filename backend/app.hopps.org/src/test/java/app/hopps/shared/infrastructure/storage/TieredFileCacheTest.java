@@ -0,0 +1,165 @@
+package app.hopps.shared.infrastructure.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TieredFileCacheTest {
+
+    private static final int HEAP_MAX = 1000;
+    private static final int HEAP_ENTRY_MAX = 100;
+    private static final int DISK_MAX = 10_000;
+    private static final int ENTRY_MAX = 5_000;
+
+    @TempDir
+    Path base;
+
+    TieredFileCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TieredFileCache(HEAP_MAX, HEAP_ENTRY_MAX, DISK_MAX, base.toString(), ENTRY_MAX);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.removeDirectory();
+    }
+
+    @Test
+    void shouldKeepSmallFilesOnHeapAndLargeFilesOnDisk() throws IOException {
+        byte[] small = content(50, 1);
+        byte[] large = content(2_000, 2);
+
+        assertArrayEquals(small, put("documents/small.png", small));
+        assertArrayEquals(large, put("documents/large.pdf", large));
+
+        assertArrayEquals(small, read("documents/small.png"));
+        assertArrayEquals(large, read("documents/large.pdf"));
+        assertEquals(2_000, cache.open("documents/large.pdf").size());
+        assertEquals(1, fileCount());
+
+        TieredFileCache.Stats stats = cache.stats();
+        assertEquals(1, stats.heap().entries());
+        assertEquals(50, stats.heap().bytes());
+        assertEquals(1, stats.disk().entries());
+        assertEquals(2_000, stats.disk().bytes());
+        assertEquals(2, stats.disk().hits());
+    }
+
+    @Test
+    void shouldBoundHeapTierByBytes() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            put("documents/" + i, content(HEAP_ENTRY_MAX, i));
+        }
+
+        TieredFileCache.Stats stats = cache.stats();
+        assertTrue(stats.heap().bytes() <= HEAP_MAX);
+        assertTrue(stats.heap().evictions() > 0);
+    }
+
+    @Test
+    void shouldBoundDiskTierAndDeleteEvictedFiles() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            put("documents/" + i, content(ENTRY_MAX / 2, i));
+        }
+
+        TieredFileCache.Stats stats = cache.stats();
+        assertTrue(stats.disk().bytes() <= DISK_MAX);
+        assertTrue(stats.disk().evictions() > 0);
+        assertEquals(stats.disk().entries(), fileCount());
+    }
+
+    @Test
+    void shouldLeaveOversizedFilesUnread() throws IOException {
+        InputStream content = new ByteArrayInputStream(content(ENTRY_MAX + 1, 4));
+
+        assertFalse(cache.admits(ENTRY_MAX + 1));
+        assertNull(cache.put("documents/huge.pdf", content, ENTRY_MAX + 1));
+        assertEquals(ENTRY_MAX + 1, content.available());
+        assertNull(cache.open("documents/huge.pdf"));
+    }
+
+    @Test
+    void shouldMoveEntryBetweenTiersWhenSizeChanges() throws IOException {
+        put("documents/file", content(2_000, 5));
+        put("documents/file", content(50, 6));
+
+        assertArrayEquals(content(50, 6), read("documents/file"));
+        assertEquals(0, fileCount());
+
+        cache.invalidate("documents/file");
+        assertNull(cache.open("documents/file"));
+    }
+
+    @Test
+    void shouldDropEntryWhoseFileVanished() throws IOException {
+        put("documents/large.pdf", content(2_000, 7));
+        try (Stream<Path> files = Files.list(cache.directory())) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+
+        assertNull(cache.open("documents/large.pdf"));
+        assertEquals(0, cache.stats().disk().entries());
+    }
+
+    @Test
+    void shouldUseOwnDirectoryAndLeaveOtherProcessesAlone() throws IOException {
+        Path foreign = Files.write(base.resolve("other-process-file"), content(10, 8));
+        TieredFileCache other = new TieredFileCache(HEAP_MAX, HEAP_ENTRY_MAX, DISK_MAX, base.toString(), ENTRY_MAX);
+        put("documents/large.pdf", content(2_000, 9));
+
+        assertNotEquals(cache.directory(), other.directory());
+        other.removeDirectory();
+
+        assertTrue(Files.exists(foreign));
+        assertFalse(Files.exists(other.directory()));
+        assertArrayEquals(content(2_000, 9), read("documents/large.pdf"));
+
+        cache.removeDirectory();
+        assertFalse(Files.exists(cache.directory()));
+    }
+
+    private byte[] put(String key, byte[] content) throws IOException {
+        try (InputStream stream = cache.put(key, new ByteArrayInputStream(content), content.length).stream()) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private byte[] read(String key) throws IOException {
+        try (InputStream stream = cache.open(key).stream()) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(cache.directory())) {
+            return files.count();
+        }
+    }
+
+    private static byte[] content(int size, int seed) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31 + seed);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,16 @@
+package app.hopps.shared.repository;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.Map;
+
+/**
+ * Switches the scheduler off, so no background job (worker polls, watchdogs, nightly rebuilds) issues statements while
+ * a test runs. Required by tests that count statements with {@link QueryCounter}, which sees every session.
+ */
+public class NoScheduledJobsProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of("quarkus.scheduler.enabled", "false");
+    }
+}
@@ -0,0 +1,44 @@
+package app.hopps.shared.repository;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the SQL statements Hibernate prepares while an action runs, based on the Hibernate statistics enabled for the
+ * test profile. Listing tests use it to fail on N+1 regressions: a listing must issue the same number of statements
+ * however many rows it returns.
+ * <p>
+ * The counts cover all sessions, including those of scheduled jobs; tests using it therefore run with the
+ * {@link NoScheduledJobsProfile}.
+ */
+@ApplicationScoped
+public class QueryCounter {
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    /** Number of statements prepared while {@code action} ran (across all sessions, e.g. of a REST call). */
+    public long count(Runnable action) {
+        Statistics statistics = sessionFactory.getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        action.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    /**
+     * Asserts that {@code action} issues as many statements after {@code growData} added rows as before, i.e. that its
+     * statement count does not depend on the number of rows. The action runs once beforehand as warm-up.
+     */
+    public void assertConstant(Runnable action, Runnable growData) {
+        // Warm-up, so one-off work (e.g. loading the organization of the user) is not counted for the first run only
+        action.run();
+        long small = count(action);
+        growData.run();
+        long large = count(action);
+        assertEquals(small, large, "statement count grows with the number of rows (N+1)");
+    }
+}
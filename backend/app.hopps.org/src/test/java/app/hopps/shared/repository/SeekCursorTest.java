@@ -0,0 +1,91 @@
+package app.hopps.shared.repository;
+
+import jakarta.ws.rs.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SeekCursorTest {
+
+    private static final List<SeekCursor.Key> DATE_DESC = List.of(
+            SeekCursor.Key.of("t.bookingDate", false),
+            SeekCursor.Key.of("t.id", false));
+
+    @Test
+    void roundTripsAllValueTypes() {
+        Instant instant = Instant.parse("2025-03-10T08:15:30.123456Z");
+        String cursor = SeekCursor.after("sig", instant, LocalDate.of(2025, 3, 10), new BigDecimal("-12.50"), 42L, 1,
+                "Müller|GmbH", null).encode();
+
+        Map<String, Object> params = new HashMap<>();
+        SeekCursor.decode(cursor, "sig")
+                .predicate(List.of(
+                        SeekCursor.Key.of("a", true), SeekCursor.Key.of("b", true), SeekCursor.Key.of("c", true),
+                        SeekCursor.Key.of("d", true), SeekCursor.Key.of("e", true), SeekCursor.Key.of("f", true),
+                        SeekCursor.Key.nullable("g", true)), params);
+
+        assertEquals(instant, params.get("seek0"));
+        assertEquals(LocalDate.of(2025, 3, 10), params.get("seek1"));
+        assertEquals(new BigDecimal("-12.50"), params.get("seek2"));
+        assertEquals(42L, params.get("seek3"));
+        assertEquals(1, params.get("seek4"));
+        assertEquals("Müller|GmbH", params.get("seek5"));
+        assertEquals(6, params.size());
+    }
+
+    @Test
+    void descendingPredicateSeeksPastLastRow() {
+        Map<String, Object> params = new HashMap<>();
+        String predicate = SeekCursor.after("sig", LocalDate.of(2025, 3, 10), 7L).predicate(DATE_DESC, params);
+
+        assertEquals("(t.bookingDate < :seek0 OR (t.bookingDate = :seek0 AND t.id < :seek1))", predicate);
+        assertEquals("t.bookingDate DESC, t.id DESC", SeekCursor.orderBy(DATE_DESC));
+    }
+
+    @Test
+    void nullableKeysFollowPostgresNullOrdering() {
+        List<SeekCursor.Key> ascending = List.of(SeekCursor.Key.nullable("x", true), SeekCursor.Key.of("id", true));
+        List<SeekCursor.Key> descending = List.of(SeekCursor.Key.nullable("x", false), SeekCursor.Key.of("id", false));
+
+        // Ascending: nulls come last, so after a non-null value the nulls are still to come ...
+        assertEquals("((x > :seek0 OR x IS NULL) OR (x = :seek0 AND id > :seek1))",
+                SeekCursor.after("s", 5L, 1L).predicate(ascending, new HashMap<>()));
+        // ... and after a null only the remaining nulls follow.
+        assertEquals("((x IS NULL AND id > :seek1))",
+                SeekCursor.after("s", null, 1L).predicate(ascending, new HashMap<>()));
+        // Descending: nulls come first, so after a null all non-null values follow.
+        assertEquals("(x IS NOT NULL OR (x IS NULL AND id < :seek1))",
+                SeekCursor.after("s", null, 1L).predicate(descending, new HashMap<>()));
+    }
+
+    @Test
+    void rejectsCursorOfOtherSortOrGarbage() {
+        String cursor = SeekCursor.after("bank-transactions:bookingDate:desc", LocalDate.now(), 1L).encode();
+
+        assertThrows(BadRequestException.class, () -> SeekCursor.decode(cursor, "bank-transactions:amount:desc"));
+        assertThrows(BadRequestException.class, () -> SeekCursor.decode("not a cursor", "sig"));
+        assertNull(SeekCursor.decode(" ", "sig"));
+    }
+
+    @Test
+    void pageKeepsExtraRowOnlyAsMarker() {
+        CursorPage<Long> last = SeekCursor.page(List.of(1L, 2L), 2, id -> SeekCursor.after("s", id));
+        CursorPage<Long> more = SeekCursor.page(List.of(1L, 2L, 3L), 2, id -> SeekCursor.after("s", id));
+
+        assertEquals(List.of(1L, 2L), last.items());
+        assertNull(last.nextCursor());
+        assertEquals(List.of(1L, 2L), more.items());
+        Map<String, Object> params = new HashMap<>();
+        SeekCursor.decode(more.nextCursor(), "s").predicate(List.of(SeekCursor.Key.of("id", true)), params);
+        assertEquals(2L, params.get("seek0"));
+    }
+}
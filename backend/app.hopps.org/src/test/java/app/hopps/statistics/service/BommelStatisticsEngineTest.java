@@ -0,0 +1,64 @@
+package app.hopps.statistics.service;
+
+import app.hopps.statistics.domain.BommelTotals;
+import app.hopps.statistics.service.BommelStatisticsEngine.Node;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BommelStatisticsEngineTest {
+
+    private static BommelTotals totals(String income, String expenses, long count) {
+        BigDecimal in = new BigDecimal(income);
+        BigDecimal out = new BigDecimal(expenses);
+        return new BommelTotals(in.subtract(out), in, out, count);
+    }
+
+    @Test
+    void rollUpAddsDescendantsToEveryAncestor() {
+        // root(1) -> a(2) -> b(3), root(1) -> c(4); nodes deliberately not in tree order
+        List<Node> nodes = List.of(
+                new Node(3L, 2L, "b", 2),
+                new Node(1L, null, "root", 0),
+                new Node(4L, 1L, "c", 1),
+                new Node(2L, 1L, "a", 1));
+        Map<Long, BommelTotals> direct = Map.of(
+                1L, totals("10", "0", 1),
+                2L, totals("0", "5", 2),
+                3L, totals("100", "20", 3),
+                4L, totals("7", "0", 1));
+
+        Map<Long, BommelTotals> rolledUp = BommelStatisticsEngine.rollUp(nodes, direct);
+
+        assertEquals(totals("100", "20", 3), rolledUp.get(3L));
+        assertEquals(totals("100", "25", 5), rolledUp.get(2L));
+        assertEquals(totals("7", "0", 1), rolledUp.get(4L));
+        assertEquals(totals("117", "25", 7), rolledUp.get(1L));
+    }
+
+    @Test
+    void bommelsWithoutTransactionsStillReceiveChildTotals() {
+        List<Node> nodes = List.of(
+                new Node(1L, null, "root", 0),
+                new Node(2L, 1L, "empty", 1),
+                new Node(3L, 2L, "leaf", 2));
+        Map<Long, BommelTotals> direct = Map.of(3L, totals("50", "10", 4));
+
+        Map<Long, BommelTotals> rolledUp = BommelStatisticsEngine.rollUp(nodes, direct);
+
+        assertEquals(totals("50", "10", 4), rolledUp.get(2L));
+        assertEquals(totals("50", "10", 4), rolledUp.get(1L));
+    }
+
+    @Test
+    void emptyTreeHasEmptyTotals() {
+        Map<Long, BommelTotals> rolledUp = BommelStatisticsEngine.rollUp(
+                List.of(new Node(1L, null, "root", 0)), Map.of());
+
+        assertEquals(BommelTotals.EMPTY, rolledUp.get(1L));
+    }
+}
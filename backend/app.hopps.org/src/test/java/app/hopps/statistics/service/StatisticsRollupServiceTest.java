@@ -0,0 +1,128 @@
+package app.hopps.statistics.service;
+
+import app.hopps.bommel.repository.BommelRepository;
+import app.hopps.organization.repository.OrganizationRepository;
+import app.hopps.shared.bootstrap.TestdataBootstrapper;
+import app.hopps.transaction.domain.Transaction;
+import app.hopps.transaction.domain.TransactionStatus;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * The trigger-maintained rollup must always equal what {@link StatisticsRollupService#rebuild(long)} computes from the
+ * transactions, after every kind of change to a booking.
+ */
+@QuarkusTest
+class StatisticsRollupServiceTest {
+
+    private static final long ORG_ID = 2L;
+
+    @Inject
+    StatisticsRollupService rollupService;
+
+    @Inject
+    OrganizationRepository organizationRepository;
+
+    @Inject
+    BommelRepository bommelRepository;
+
+    @Inject
+    Flyway flyway;
+
+    @Inject
+    TestdataBootstrapper testdataBootstrapper;
+
+    @Inject
+    EntityManager em;
+
+    @BeforeEach
+    void setup() {
+        flyway.clean();
+        flyway.migrate();
+        testdataBootstrapper.loadTestdata();
+    }
+
+    @Test
+    void shouldMatchRebuildAfterEveryChange() {
+        List<List<Object>> before = rollup();
+
+        Long txId = book("-120.00", 3L, "2024-03-15T10:00:00Z");
+        assertNotEquals(before, rollup());
+        assertMatchesRebuild();
+
+        rebook(txId, 4L, "2024-04-02T10:00:00Z", "80.00");
+        assertMatchesRebuild();
+
+        confirm(txId);
+        assertMatchesRebuild();
+
+        delete(txId);
+        assertMatchesRebuild();
+        assertEquals(before, rollup());
+    }
+
+    private void assertMatchesRebuild() {
+        List<List<Object>> maintained = rollup();
+        rollupService.rebuild(ORG_ID);
+        assertEquals(maintained, rollup());
+    }
+
+    @Transactional
+    Long book(String total, Long bommelId, String time) {
+        Transaction transaction = new Transaction();
+        transaction.setOrganization(organizationRepository.findById(ORG_ID));
+        transaction.setCreatedBy("tester");
+        transaction.setStatus(TransactionStatus.DRAFT);
+        transaction.setName("Rollup booking");
+        transaction.setTotal(new BigDecimal(total));
+        transaction.setBommel(bommelRepository.findById(bommelId));
+        transaction.setTransactionTime(Instant.parse(time));
+        transaction.persist();
+        return transaction.getId();
+    }
+
+    @Transactional
+    void rebook(Long txId, Long bommelId, String time, String total) {
+        Transaction transaction = Transaction.findById(txId);
+        transaction.setBommel(bommelRepository.findById(bommelId));
+        transaction.setTransactionTime(Instant.parse(time));
+        transaction.setTotal(new BigDecimal(total));
+    }
+
+    @Transactional
+    void confirm(Long txId) {
+        Transaction.<Transaction> findById(txId).setStatus(TransactionStatus.CONFIRMED);
+    }
+
+    @Transactional
+    void delete(Long txId) {
+        Transaction.deleteById(txId);
+    }
+
+    @Transactional
+    @SuppressWarnings("unchecked")
+    List<List<Object>> rollup() {
+        List<Object[]> rows = em.createNativeQuery("""
+                SELECT COALESCE(bommel_id, 0), status, month, total, income, expenses, transactions_count
+                FROM statistics_rollup
+                WHERE organization_id = :orgId
+                ORDER BY 1, 2, 3
+                """)
+                .setParameter("orgId", ORG_ID)
+                .getResultList();
+        return rows.stream().map(Arrays::asList).toList();
+    }
+}
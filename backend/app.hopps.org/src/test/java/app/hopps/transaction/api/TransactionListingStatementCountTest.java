@@ -0,0 +1,129 @@
+package app.hopps.transaction.api;
+
+import app.hopps.bommel.repository.BommelRepository;
+import app.hopps.document.domain.AnalysisStatus;
+import app.hopps.document.domain.Document;
+import app.hopps.document.domain.DocumentStatus;
+import app.hopps.document.domain.TradeParty;
+import app.hopps.document.repository.DocumentRepository;
+import app.hopps.organization.domain.Organization;
+import app.hopps.organization.repository.OrganizationRepository;
+import app.hopps.shared.bootstrap.TestdataBootstrapper;
+import app.hopps.shared.repository.NoScheduledJobsProfile;
+import app.hopps.shared.repository.QueryCounter;
+import app.hopps.transaction.domain.Transaction;
+import app.hopps.transaction.repository.TransactionRepository;
+import io.quarkus.test.common.http.TestHTTPEndpoint;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.security.TestSecurity;
+import io.quarkus.test.security.oidc.Claim;
+import io.quarkus.test.security.oidc.OidcSecurity;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * Guards the transaction listing against N+1 queries. Kept apart from {@link TransactionResourceTest} because the
+ * statement count needs the {@link NoScheduledJobsProfile}, which restarts Quarkus for the classes using it.
+ */
+@QuarkusTest
+@TestProfile(NoScheduledJobsProfile.class)
+@TestSecurity(user = "alice@example.test", roles = "user")
+@OidcSecurity(claims = {
+        @Claim(key = "sub", value = "eb4123a3-b722-4798-9af5-8957f823657a")
+})
+@TestHTTPEndpoint(TransactionResource.class)
+class TransactionListingStatementCountTest {
+
+    @Inject
+    TransactionRepository transactionRepository;
+
+    @Inject
+    DocumentRepository documentRepository;
+
+    @Inject
+    OrganizationRepository organizationRepository;
+
+    @Inject
+    BommelRepository bommelRepository;
+
+    @Inject
+    Flyway flyway;
+
+    @Inject
+    TestdataBootstrapper testdataBootstrapper;
+
+    @Inject
+    QueryCounter queryCounter;
+
+    @BeforeEach
+    void setup() {
+        flyway.clean();
+        flyway.migrate();
+        testdataBootstrapper.loadTestdata();
+        clearPreExistingTransactions();
+    }
+
+    @Transactional
+    void clearPreExistingTransactions() {
+        transactionRepository.deleteAll();
+    }
+
+    @Test
+    void shouldListTransactionsWithConstantStatementCount() {
+        addListingTransactions(5);
+
+        queryCounter.assertConstant(
+                () -> given()
+                        .queryParam("size", 25)
+                        .when()
+                        .get()
+                        .then()
+                        .statusCode(200)
+                        .body("[0].bommelName", notNullValue())
+                        .body("[0].senderName", notNullValue())
+                        .body("[0].documentId", notNullValue())
+                        .body("[0].tags.size()", is(2)),
+                () -> addListingTransactions(15));
+    }
+
+    /** Transactions with everything the listing response shows: bommel, counterparty, document and tags. */
+    @Transactional
+    void addListingTransactions(int count) {
+        Organization org = organizationRepository.findById(4L);
+        for (int i = 0; i < count; i++) {
+            Document document = new Document();
+            document.setOrganization(org);
+            document.setName("Listing Receipt " + i);
+            document.setDocumentStatus(DocumentStatus.UPLOADED);
+            document.setAnalysisStatus(AnalysisStatus.COMPLETED);
+            documentRepository.persist(document);
+
+            TradeParty counterparty = new TradeParty();
+            counterparty.setOrganization(org);
+            counterparty.setName("Listing Supplier " + i);
+
+            Transaction tx = new Transaction();
+            tx.setOrganization(org);
+            tx.setCreatedBy("alice@example.test");
+            tx.setTotal(BigDecimal.valueOf(-10 - i));
+            tx.setName("Listing Transaction " + i);
+            tx.setBommel(bommelRepository.findById(24L));
+            tx.setDocument(document);
+            tx.setCounterparty(counterparty);
+            tx.setTags(new HashSet<>(Set.of("listing", "tag-" + i)));
+            transactionRepository.persist(tx);
+        }
+    }
+}
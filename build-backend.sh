@@ -11,4 +11,8 @@ echo "Building org service..."
 cd /workspace/app.hopps.org
 mvn -B clean package --file pom.xml
 
+echo "Compiling benchmarks..."
+cd /workspace
+mvn -B compile -pl app.hopps.benchmarks -am
+
 echo "Build complete!"
@@ -51,21 +51,24 @@ export function ImportWizard({ accountId, onClose }: ImportWizardProps) {
     const createSchemaMutation = useCreateBankSchema();
     const createdSchemaRef = useRef<number | null>(null);
 
+    // MT940 and CAMT files carry their own structure and are imported without a CSV schema
     const isMt940 = preview?.fileType === 'MT940';
+    const isCamt = preview?.fileType === 'CAMT';
+    const noSchemaNeeded = isMt940 || isCamt;
 
     // Auto-detect schema from header columns once preview is loaded (CSV only)
-    const headerColumns = !isMt940 ? (preview?.headerColumns ?? null) : null;
+    const headerColumns = !noSchemaNeeded ? (preview?.headerColumns ?? null) : null;
     const { data: detection } = useSuggestSchema(accountId, headerColumns);
 
     // When detection result arrives and no schema is manually chosen yet, apply it
     useEffect(() => {
-        if (isMt940 || !detection || schemaId) return;
+        if (noSchemaNeeded || !detection || schemaId) return;
         if (detection.type === 'ORG' && detection.schemaId) {
             setSchemaId(`org:${detection.schemaId}`);
         } else if (detection.type === 'TEMPLATE' && detection.templateId) {
             setSchemaId(`tpl:${detection.templateId}`);
         }
-    }, [detection, isMt940, schemaId]);
+    }, [detection, noSchemaNeeded, schemaId]);
 
     // Poll import progress
     const { data: importStatus } = useBankImport(importId);
@@ -85,12 +88,12 @@ export function ImportWizard({ accountId, onClose }: ImportWizardProps) {
         }
     }, [importStatus?.status, state, queryClient, accountId]);
 
-    const isDetecting = state === 'preview' && !isMt940 && headerColumns != null && detection == null;
+    const isDetecting = state === 'preview' && !noSchemaNeeded && headerColumns != null && detection == null;
     const isTemplateSelected = schemaId.startsWith('tpl:');
     const selectedSchema = isTemplateSelected ? undefined : schemas.find((s) => String(s.id) === schemaId.replace('org:', ''));
     const selectedTemplate = isTemplateSelected ? templates.find((tpl) => `tpl:${tpl.templateId}` === schemaId) : undefined;
     const selectedName = selectedSchema?.name ?? selectedTemplate?.name ?? '';
-    const detectionFailed = state === 'preview' && !isMt940 && detection?.type === 'NONE';
+    const detectionFailed = state === 'preview' && !noSchemaNeeded && detection?.type === 'NONE';
 
     // Trigger preview automatically on drop
     const loadPreview = useCallback(
@@ -122,16 +125,16 @@ export function ImportWizard({ accountId, onClose }: ImportWizardProps) {
     const { getRootProps, getInputProps, isDragActive } = useDropzone({
         onDrop,
         multiple: false,
-        accept: { 'text/csv': ['.csv'], 'text/plain': ['.txt'] },
+        accept: { 'text/csv': ['.csv'], 'text/plain': ['.txt'], 'application/xml': ['.xml'], 'text/xml': ['.xml'] },
         disabled: state === 'previewing',
     });
 
     const handleImport = async () => {
         if (!file) return;
-        if (!isMt940 && !schemaId) return;
+        if (!noSchemaNeeded && !schemaId) return;
         setState('importing');
         let resolvedSchemaId: number | undefined;
-        if (!isMt940) {
+        if (!noSchemaNeeded) {
             if (isTemplateSelected && selectedTemplate) {
                 if (createdSchemaRef.current) {
                     resolvedSchemaId = createdSchemaRef.current;
@@ -197,10 +200,10 @@ export function ImportWizard({ accountId, onClose }: ImportWizardProps) {
         return (
             <div className="flex flex-col gap-3 min-w-0">
                 {/* Format detection banner */}
-                {isMt940 ? (
+                {noSchemaNeeded ? (
                     <div className="flex items-center gap-3 bg-emerald-50 dark:bg-emerald-950/30 text-emerald-800 dark:text-emerald-300 rounded-xl px-4 py-3">
                         <Sparkles className="w-5 h-5 flex-shrink-0" />
-                        <p className="text-[13.5px] font-semibold">{t('bankImport.wizard.mt940Detected', { count: totalRows })}</p>
+                        <p className="text-[13.5px] font-semibold">{t(isCamt ? 'bankImport.wizard.camtDetected' : 'bankImport.wizard.mt940Detected', { count: totalRows })}</p>
                     </div>
                 ) : isDetecting ? (
                     <div className="flex items-center gap-3 bg-gray-50 dark:bg-gray-800 rounded-xl px-4 py-3 text-muted-foreground text-sm">
@@ -274,7 +277,7 @@ export function ImportWizard({ accountId, onClose }: ImportWizardProps) {
                         const MAX_COLS = 6;
                         const allCols = preview.headerColumns ?? [];
                         // CSV: sampleRows[0] is the header row duplicated — skip it
-                        const dataRows = !isMt940 ? preview.sampleRows.slice(1, 6) : preview.sampleRows.slice(0, 5);
+                        const dataRows = !noSchemaNeeded ? preview.sampleRows.slice(1, 6) : preview.sampleRows.slice(0, 5);
                         // Drop columns where every data row has the same value (e.g. own IBAN in AUFTRAGSKONTO)
                         const interestingIndices = allCols
                             .map((_, ci) => ci)
@@ -366,7 +369,7 @@ export function ImportWizard({ accountId, onClose }: ImportWizardProps) {
                         {t('common.goBack')}
                     </Button>
                     <div className="flex-1" />
-                    <Button onClick={handleImport} disabled={(!isMt940 && !schemaId) || isDetecting}>
+                    <Button onClick={handleImport} disabled={(!noSchemaNeeded && !schemaId) || isDetecting}>
                         {t('bankImport.wizard.importBtn', { count: totalRows })}
                     </Button>
                 </div>
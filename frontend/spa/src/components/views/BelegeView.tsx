@@ -1415,7 +1415,7 @@ export function BelegeView() {
     }, [organization?.id, bommelCount, loadBommels]);
 
     // Live updates: reload the whole document list whenever the backend signals a change (e.g. analysis finished).
-    // The message carries the exact document ID, but we always reload the full list.
+    // The message carries the changed document IDs, but we always reload the full list.
     useDocumentEvents(() => {
         queryClient.invalidateQueries({ queryKey: documentKeys.all });
     });
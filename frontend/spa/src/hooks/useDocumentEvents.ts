@@ -1,8 +1,10 @@
 import { useEffect, useRef } from 'react';
+import authService from '@/services/auth/auth.service.ts';
 
+/** Changes of the user's organization, coalesced by the backend over a short window. */
 export interface DocumentChangeMessage {
-    documentId: number;
-    organizationId: number | null;
+    documentIds: number[];
+    organizationId: number;
 }
 
 /**
@@ -19,9 +21,18 @@ function getDocumentSocketUrl(): string {
 }
 
 /**
- * Subscribes to backend document-change notifications. The callback fires for every change with the affected document
- * ID; the socket reconnects automatically with a short backoff. The caller decides what to reload — we always reload the
- * whole list.
+ * Browsers cannot set an Authorization header on a WebSocket, so the bearer token is passed as a subprotocol value that
+ * the backend turns into the header of the upgrade request.
+ */
+function getDocumentSocketProtocols(): string[] {
+    const token = authService.getAuthToken();
+    return token ? ['bearer-token-carrier', encodeURIComponent(`quarkus-http-upgrade#Authorization#Bearer ${token}`)] : [];
+}
+
+/**
+ * Subscribes to backend document-change notifications. The callback fires for every batch of changes with the affected
+ * document IDs; the socket reconnects automatically with a short backoff (picking up a refreshed token). The caller
+ * decides what to reload — we always reload the whole list.
  */
 export function useDocumentEvents(onChange: (msg: DocumentChangeMessage) => void) {
     const onChangeRef = useRef(onChange);
@@ -43,7 +54,7 @@ export function useDocumentEvents(onChange: (msg: DocumentChangeMessage) => void
         const connect = () => {
             if (closed) return;
             try {
-                socket = new WebSocket(getDocumentSocketUrl());
+                socket = new WebSocket(getDocumentSocketUrl(), getDocumentSocketProtocols());
             } catch {
                 scheduleReconnect();
                 return;
@@ -51,7 +62,7 @@ export function useDocumentEvents(onChange: (msg: DocumentChangeMessage) => void
             socket.onmessage = (e) => {
                 try {
                     const msg = JSON.parse(e.data) as DocumentChangeMessage;
-                    if (msg && typeof msg.documentId === 'number') {
+                    if (msg && Array.isArray(msg.documentIds)) {
                         onChangeRef.current(msg);
                     }
                 } catch {